@@ -0,0 +1,127 @@
+package com.grupomess.erp.data;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la paginación por llave del índice de folios sobre una base en memoria.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FolioIndexTest {
+
+    private static final int PAGE = 2;
+
+    private FolioIndex index;
+
+    @Before
+    public void setUp() {
+        index = new FolioIndex(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        index.close();
+    }
+
+    @Test
+    public void loadRecent_breaksEqualSavedAtTiesById() {
+        List<SavedFolio> expected = new ArrayList<>();
+        SavedFolio oldest = record("F-1", 500);
+        for (int i = 2; i <= 6; i++) {
+            expected.add(record("F-" + i, 1000));
+        }
+        SavedFolio newest = record("F-7", 2000);
+        // Mismo saved_at: el de mayor _id va primero
+        Collections.reverse(expected);
+        expected.add(0, newest);
+        expected.add(oldest);
+
+        List<SavedFolio> forward = new ArrayList<>();
+        List<SavedFolio> page = index.loadRecent(null, PAGE);
+        while (!page.isEmpty()) {
+            forward.addAll(page);
+            page = index.loadRecent(page.get(page.size() - 1), PAGE);
+        }
+        assertEquals(ids(expected), ids(forward));
+
+        List<SavedFolio> backward = new ArrayList<>();
+        backward.add(oldest);
+        page = index.loadRecentBefore(oldest, PAGE);
+        while (!page.isEmpty()) {
+            backward.addAll(0, page);
+            page = index.loadRecentBefore(page.get(0), PAGE);
+        }
+        assertEquals(ids(expected), ids(backward));
+    }
+
+    @Test
+    public void searchByPrefix_staysWithinPrefixAndBreaksTiesById() {
+        record("AA-9", 1);
+        SavedFolio exact = record("AB", 2);
+        SavedFolio first = record("ab-1", 3);
+        SavedFolio sameKey = record(" AB-1 ", 4);
+        SavedFolio accented = record("abñ", 5);
+        // Justo debajo del límite superior prefijo + U+FFFF
+        SavedFolio last = record("AB\ufffe", 6);
+        record("AC-1", 7);
+        record("B", 8);
+        List<SavedFolio> expected = List.of(exact, first, sameKey, accented, last);
+
+        List<SavedFolio> forward = new ArrayList<>();
+        List<SavedFolio> page = index.searchByPrefix("ab", null, PAGE);
+        while (!page.isEmpty()) {
+            forward.addAll(page);
+            page = index.searchByPrefix("ab", page.get(page.size() - 1), PAGE);
+        }
+        assertEquals(ids(expected), ids(forward));
+
+        List<SavedFolio> backward = new ArrayList<>();
+        backward.add(last);
+        page = index.searchByPrefixBefore("ab", last, PAGE);
+        while (!page.isEmpty()) {
+            backward.addAll(0, page);
+            page = index.searchByPrefixBefore("ab", page.get(0), PAGE);
+        }
+        assertEquals(ids(expected), ids(backward));
+    }
+
+    @Test
+    public void searchByPrefix_withoutMatchesIsEmpty() {
+        record("AB-1", 1);
+
+        assertTrue(index.searchByPrefix("AC", null, PAGE).isEmpty());
+        assertTrue(index.searchByPrefix("AB-10", null, PAGE).isEmpty());
+    }
+
+    @Test
+    public void recordSave_raisesGeneration() {
+        long before = index.getGeneration();
+        record("F-1", 1);
+
+        assertEquals(before + 1, index.getGeneration());
+    }
+
+    private SavedFolio record(String folio, long savedAt) {
+        return index.recordSave(folio, savedAt,
+                List.of(new SavedPhoto("content://fotos/" + folio.trim(), 100)));
+    }
+
+    private static List<Long> ids(List<SavedFolio> folios) {
+        List<Long> ids = new ArrayList<>(folios.size());
+        for (SavedFolio folio : folios) {
+            ids.add(folio.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,134 @@
+package com.grupomess.erp.encode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mide tiempo de compresión y tamaño resultante de cada encoder sobre un conjunto fijo
+ * de imágenes generadas (documento, recibo de bajo contraste y foto con textura).
+ * <br>
+ * Los resultados se publican como líneas CSV en Logcat (etiqueta {@value #TAG}) y en el
+ * estado de la instrumentación:
+ * {@code imagen,encoder,formato,calidad,bytes,ms_mediana}
+ */
+@RunWith(AndroidJUnit4.class)
+public class PhotoEncoderBenchmark {
+
+    private static final String TAG = "EncoderBenchmark";
+    private static final int WIDTH = 2000;
+    private static final int HEIGHT = 1500;
+    private static final int RUNS = 5;
+
+    @Test
+    public void encodeFixedImageSet() throws IOException {
+        Map<String, PhotoEncoder> encoders = new LinkedHashMap<>();
+        encoders.put("jpeg90", new FixedQualityEncoder(Bitmap.CompressFormat.JPEG, 90));
+        encoders.put("adaptativo_600k", AdaptivePhotoEncoder.withDefaults());
+        encoders.put("adaptativo_300k", new AdaptivePhotoEncoder.Builder().setByteBudget(300 * 1024).build());
+        encoders.put("adaptativo_q80", new AdaptivePhotoEncoder.Builder().setTargetQuality(80).build());
+
+        Map<String, Bitmap> images = new LinkedHashMap<>();
+        images.put("documento", document(Color.WHITE, Color.BLACK));
+        images.put("recibo", document(Color.rgb(238, 234, 225), Color.rgb(120, 120, 120)));
+        images.put("textura", texture());
+
+        StringBuilder report = new StringBuilder("imagen,encoder,formato,calidad,bytes,ms_mediana\n");
+        for (Map.Entry<String, Bitmap> image : images.entrySet()) {
+            for (Map.Entry<String, PhotoEncoder> encoder : encoders.entrySet()) {
+                long[] times = new long[RUNS];
+                EncodedPhoto result = null;
+                for (int i = 0; i < RUNS; i++) {
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    result = encoder.getValue().encode(image.getValue());
+                    times[i] = SystemClock.elapsedRealtimeNanos() - start;
+                }
+                Arrays.sort(times);
+                assertTrue(result.getData().length > 0);
+                String line = String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%.1f", image.getKey(), encoder.getKey(),
+                        result.getFormat(), result.getQuality(), result.getData().length, times[RUNS / 2] / 1e6);
+                Log.i(TAG, line);
+                report.append(line).append('\n');
+            }
+        }
+        for (Bitmap bitmap : images.values()) {
+            bitmap.recycle();
+        }
+
+        Bundle status = new Bundle();
+        status.putString(TAG, report.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+
+    /** Hoja con renglones de texto simulados; siempre la misma */
+    private static Bitmap document(int paper, int ink) {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(paper);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(ink);
+        paint.setTextSize(34);
+        Random random = new Random(42);
+        for (int y = 120; y < HEIGHT - 80; y += 52) {
+            StringBuilder line = new StringBuilder();
+            int words = 6 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                int length = 2 + random.nextInt(9);
+                for (int c = 0; c < length; c++) {
+                    line.append((char) ('A' + random.nextInt(26)));
+                }
+                line.append(' ');
+            }
+            canvas.drawText(line.toString(), 100, y, paint);
+        }
+        return bitmap;
+    }
+
+    /** Degradado con ruido, parecido a una foto de mercancía; siempre la misma */
+    private static Bitmap texture() {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint();
+        paint.setShader(new LinearGradient(0, 0, WIDTH, HEIGHT, Color.rgb(40, 70, 120), Color.rgb(210, 170, 90),
+                Shader.TileMode.CLAMP));
+        canvas.drawRect(0, 0, WIDTH, HEIGHT, paint);
+        int[] row = new int[WIDTH];
+        Random random = new Random(7);
+        for (int y = 0; y < HEIGHT; y++) {
+            bitmap.getPixels(row, 0, WIDTH, 0, y, WIDTH, 1);
+            for (int x = 0; x < WIDTH; x++) {
+                int noise = random.nextInt(31) - 15;
+                int c = row[x];
+                row[x] = Color.rgb(clamp(Color.red(c) + noise), clamp(Color.green(c) + noise),
+                        clamp(Color.blue(c) + noise));
+            }
+            bitmap.setPixels(row, 0, WIDTH, 0, y, WIDTH, 1);
+        }
+        return bitmap;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,161 @@
+package com.grupomess.erp.encode;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.media.ExifInterface;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara las dos rutas de guardado de una foto de cámara de 12 MP: decodificar y recomprimir
+ * con {@link AdaptivePhotoEncoder} contra copiar la original a un temporal, agregarle EXIF y
+ * copiar sus bytes, como hace el guardado para no modificar la foto de la sesión.
+ * <br>
+ * El destino es un archivo de la caché en lugar de MediaStore, para medir sólo la ruta.
+ * Los resultados se publican como líneas CSV en Logcat (etiqueta {@value #TAG}) y en el
+ * estado de la instrumentación:
+ * {@code ruta,bytes_origen,bytes_destino,ms_mediana,mb_por_s}
+ */
+@RunWith(AndroidJUnit4.class)
+public class SavePathBenchmark {
+
+    private static final String TAG = "SavePathBenchmark";
+    private static final int WIDTH = 4000;
+    private static final int HEIGHT = 3000;
+    private static final int RUNS = 5;
+
+    private File source;
+    private File stamped;
+    private File target;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        source = new File(context.getCacheDir(), "benchmark_original.jpg");
+        stamped = new File(context.getCacheDir(), "benchmark_metadatos.jpg");
+        target = new File(context.getCacheDir(), "benchmark_guardada");
+        Bitmap bitmap = photo();
+        try (OutputStream out = new FileOutputStream(source)) {
+            assertTrue(bitmap.compress(Bitmap.CompressFormat.JPEG, 95, out));
+        } finally {
+            bitmap.recycle();
+        }
+        ExifInterface exif = new ExifInterface(source.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(ExifInterface.ORIENTATION_ROTATE_90));
+        exif.saveAttributes();
+    }
+
+    @After
+    public void tearDown() {
+        source.delete();
+        stamped.delete();
+        target.delete();
+    }
+
+    @Test
+    public void compareSavePaths() throws IOException {
+        PhotoEncoder encoder = AdaptivePhotoEncoder.withDefaults();
+        PhotoMetadata metadata = new PhotoMetadata("F-0045120", System.currentTimeMillis(), "Benchmark", "Benchmark");
+
+        StringBuilder report = new StringBuilder("ruta,bytes_origen,bytes_destino,ms_mediana,mb_por_s\n");
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            Bitmap bitmap = BitmapFactory.decodeFile(source.getAbsolutePath());
+            EncodedPhoto encoded;
+            try {
+                encoded = encoder.encode(bitmap);
+            } finally {
+                bitmap.recycle();
+            }
+            try (OutputStream out = new FileOutputStream(target)) {
+                out.write(encoded.getData());
+            }
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        report.append(line("recomprimir", times, target.length())).append('\n');
+
+        long sourceModified = source.lastModified();
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            try (FileChannel in = new FileInputStream(source).getChannel();
+                 FileOutputStream out = new FileOutputStream(stamped)) {
+                ChannelCopy.copy(in, out.getChannel(), null);
+            }
+            metadata.applyTo(stamped, ExifInterface.ORIENTATION_UNDEFINED);
+            try (FileChannel in = new FileInputStream(stamped).getChannel();
+                 FileOutputStream out = new FileOutputStream(target)) {
+                ChannelCopy.copy(in, out.getChannel(), new CRC32());
+            }
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        // La foto de la sesión queda intacta
+        assertEquals(sourceModified, source.lastModified());
+        report.append(line("original", times, target.length())).append('\n');
+
+        // La copia conserva la orientación de la cámara y lleva el folio
+        ExifInterface copied = new ExifInterface(target.getAbsolutePath());
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90,
+                copied.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED));
+        assertEquals("F-0045120", copied.getAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION));
+
+        Bundle status = new Bundle();
+        status.putString(TAG, report.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+
+    private String line(String path, long[] times, long written) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long median = sorted[RUNS / 2];
+        String line = String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f", path, source.length(), written, median / 1e6,
+                source.length() / (1024.0 * 1024) / (median / 1e9));
+        Log.i(TAG, line);
+        return line;
+    }
+
+    /** Foto con textura y texto, comprimida como la de la cámara; siempre la misma */
+    private static Bitmap photo() {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.rgb(236, 232, 222));
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        Random random = new Random(42);
+        for (int i = 0; i < 4000; i++) {
+            paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            canvas.drawCircle(random.nextInt(WIDTH), random.nextInt(HEIGHT), 4 + random.nextInt(40), paint);
+        }
+        paint.setColor(Color.BLACK);
+        paint.setTextSize(64);
+        for (int y = 200; y < HEIGHT; y += 120) {
+            canvas.drawText("FOLIO F-0045120 RECIBO " + y, 200, y, paint);
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,242 @@
+package com.grupomess.erp.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Importa muchas imágenes leyendo el folio de cada una con paralelismo acotado.
+ * <br>
+ * - Un número fijo de hilos toma la siguiente imagen sólo al terminar la anterior, de modo que
+ *   nunca hay más imágenes decodificadas que hilos: la lectura se frena sola si el OCR es lento.
+ * - Cada imagen pasa por el {@link Processor}, que la prepara y devuelve el folio detectado.
+ * - Al terminar, las fotos se agrupan por folio con {@link FolioGrouper} respetando el orden
+ *   de entrada, sin importar en qué orden terminaron los hilos.
+ * <br>
+ * El avance, con imágenes por segundo, se publica en cada imagen terminada desde el hilo que
+ * la procesó.
+ *
+ * @param <I> imagen de entrada (por ejemplo un Uri)
+ * @param <P> foto preparada para guardarse (por ejemplo un archivo)
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class BulkImport<I, P> {
+
+    /**
+     * Prepara una imagen y lee su folio. Se llama desde varios hilos a la vez.
+     */
+    public interface Processor<I, P> {
+        /**
+         * @param item imagen de entrada
+         * @return foto preparada y folio detectado
+         * @throws Exception si la imagen no se pudo leer; no debe dejar archivos a medias
+         */
+        Recognized<P> process(I item) throws Exception;
+    }
+
+    /**
+     * Recibe el avance de la importación.
+     */
+    public interface Listener {
+        void onProgress(ImportProgress progress);
+    }
+
+    /**
+     * Foto preparada y folio detectado en ella.
+     */
+    public static final class Recognized<P> {
+        final P photo;
+        final String folio;
+
+        /**
+         * @param photo foto preparada
+         * @param folio folio detectado, {@code null} si no se encontró
+         */
+        public Recognized(P photo, String folio) {
+            this.photo = photo;
+            this.folio = folio;
+        }
+    }
+
+    private final Processor<I, P> processor;
+    private final int parallelism;
+    private final LongSupplier clock;
+
+    private BulkImport(Builder<I, P> builder) {
+        processor = builder.processor;
+        parallelism = builder.parallelism;
+        clock = builder.clock;
+    }
+
+    /**
+     * Procesa todas las imágenes y agrupa las fotos por folio. Bloquea hasta terminar.
+     * @param items imágenes en orden de captura
+     * @param listener avance, puede ser null
+     * @param cancelled bandera para detener la importación; las imágenes restantes no se procesan
+     * @return resultado con las fotos preparadas
+     * @throws InterruptedException si se interrumpe el hilo que espera
+     */
+    public Outcome<P> run(List<I> items, Listener listener, AtomicBoolean cancelled) throws InterruptedException {
+        long start = clock.getAsLong();
+        int total = items.size();
+        AtomicReferenceArray<Recognized<P>> results = new AtomicReferenceArray<>(total);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger withFolio = new AtomicInteger();
+
+        Runnable worker = () -> {
+            int index;
+            while (!cancelled.get() && !Thread.currentThread().isInterrupted()
+                    && (index = next.getAndIncrement()) < total) {
+                Recognized<P> result;
+                try {
+                    result = processor.process(items.get(index));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    result = null;
+                }
+                if (result == null) {
+                    failed.incrementAndGet();
+                } else {
+                    results.set(index, result);
+                    if (result.folio != null) {
+                        withFolio.incrementAndGet();
+                    }
+                }
+                int done = processed.incrementAndGet();
+                if (listener != null) {
+                    listener.onProgress(new ImportProgress(total, done, failed.get(), withFolio.get(),
+                            clock.getAsLong() - start));
+                }
+            }
+        };
+
+        int threads = Math.max(1, Math.min(parallelism, total));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(worker));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Un Error en un hilo detiene la importación; los demás terminan su imagen
+                    // actual antes de agrupar
+                    cancelled.set(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            pool.shutdownNow();
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+
+        List<P> photos = new ArrayList<>(total);
+        List<String> folios = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            Recognized<P> result = results.get(i);
+            if (result != null) {
+                photos.add(result.photo);
+                folios.add(result.folio);
+            }
+        }
+        ImportProgress last = new ImportProgress(total, processed.get(), failed.get(), withFolio.get(),
+                clock.getAsLong() - start);
+        return new Outcome<>(FolioGrouper.group(photos, folios), photos, last, cancelled.get());
+    }
+
+    /**
+     * Resultado de {@link #run(List, Listener, AtomicBoolean)}.
+     */
+    public static final class Outcome<P> {
+        private final FolioGrouper.Grouping<P> grouping;
+        private final List<P> photos;
+        private final ImportProgress progress;
+        private final boolean cancelled;
+
+        Outcome(FolioGrouper.Grouping<P> grouping, List<P> photos, ImportProgress progress, boolean cancelled) {
+            this.grouping = grouping;
+            this.photos = Collections.unmodifiableList(photos);
+            this.progress = progress;
+            this.cancelled = cancelled;
+        }
+
+        /** @return fotos agrupadas por folio */
+        public FolioGrouper.Grouping<P> getGrouping() {
+            return grouping;
+        }
+
+        /** @return todas las fotos preparadas, en orden de entrada */
+        public List<P> getPhotos() {
+            return photos;
+        }
+
+        /** @return avance final */
+        public ImportProgress getProgress() {
+            return progress;
+        }
+
+        /** @return true si se detuvo antes de procesar todas las imágenes */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Constructor de {@link BulkImport}.
+     */
+    public static final class Builder<I, P> {
+        private final Processor<I, P> processor;
+        private int parallelism = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        private LongSupplier clock = System::nanoTime;
+
+        /**
+         * @param processor preparación y lectura de cada imagen
+         */
+        public Builder(Processor<I, P> processor) {
+            if (processor == null) {
+                throw new IllegalArgumentException("El procesador no puede ser nulo");
+            }
+            this.processor = processor;
+        }
+
+        /**
+         * @param parallelism imágenes procesadas a la vez; acota también las decodificadas en memoria
+         */
+        public Builder<I, P> setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("El paralelismo debe ser al menos 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param clock reloj monotónico en nanosegundos, para pruebas
+         */
+        public Builder<I, P> setClock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public BulkImport<I, P> build() {
+            return new BulkImport<>(this);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.grupomess.erp.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Agrupa por folio las fotos de una importación, en el orden en que se tomaron.
+ * <br>
+ * En campo se fotografía primero la hoja con el folio y después las fotos relacionadas, así que:
+ * - Una foto con folio abre su grupo o se suma al grupo existente del mismo folio.
+ * - Una foto sin folio se suma al último folio visto.
+ * - Las fotos sin folio previas al primer folio quedan sin asignar.
+ * <br>
+ * Los folios se comparan sin distinguir mayúsculas; el grupo conserva la primera escritura.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioGrouper {
+
+    private FolioGrouper() {
+    }
+
+    /**
+     * @param photos fotos en orden de captura
+     * @param folios folio detectado en cada foto, {@code null} si no se encontró
+     * @param <P> tipo de la foto
+     * @return grupos por folio y fotos sin asignar
+     */
+    public static <P> Grouping<P> group(List<P> photos, List<String> folios) {
+        if (photos.size() != folios.size()) {
+            throw new IllegalArgumentException("Debe haber un folio (o null) por foto");
+        }
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, List<P>> groups = new LinkedHashMap<>();
+        List<P> unassigned = new ArrayList<>();
+        List<P> current = null;
+        for (int i = 0; i < photos.size(); i++) {
+            String folio = folios.get(i);
+            if (folio != null && !folio.trim().isEmpty()) {
+                String key = folio.trim().toUpperCase(Locale.ROOT);
+                String name = names.get(key);
+                if (name == null) {
+                    name = folio.trim();
+                    names.put(key, name);
+                    groups.put(name, new ArrayList<>());
+                }
+                current = groups.get(name);
+            }
+            (current != null ? current : unassigned).add(photos.get(i));
+        }
+        return new Grouping<>(groups, unassigned);
+    }
+
+    /**
+     * Resultado de {@link #group(List, List)}.
+     * @param <P> tipo de la foto
+     */
+    public static final class Grouping<P> {
+        private final Map<String, List<P>> groups;
+        private final List<P> unassigned;
+
+        Grouping(Map<String, List<P>> groups, List<P> unassigned) {
+            this.groups = Collections.unmodifiableMap(groups);
+            this.unassigned = Collections.unmodifiableList(unassigned);
+        }
+
+        /** @return fotos por folio, en el orden en que aparecieron los folios */
+        public Map<String, List<P>> getGroups() {
+            return groups;
+        }
+
+        /** @return fotos previas al primer folio detectado */
+        public List<P> getUnassigned() {
+            return unassigned;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.grupomess.erp.bulk;
+
+/**
+ * Avance inmutable de una importación masiva, publicado al terminar cada imagen.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class ImportProgress {
+
+    private final int total;
+    private final int processed;
+    private final int failed;
+    private final int withFolio;
+    private final long elapsedNanos;
+
+    public ImportProgress(int total, int processed, int failed, int withFolio, long elapsedNanos) {
+        this.total = total;
+        this.processed = processed;
+        this.failed = failed;
+        this.withFolio = withFolio;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /** @return imágenes a importar */
+    public int getTotal() {
+        return total;
+    }
+
+    /** @return imágenes terminadas, incluidas las que fallaron */
+    public int getProcessed() {
+        return processed;
+    }
+
+    /** @return imágenes que no se pudieron leer */
+    public int getFailed() {
+        return failed;
+    }
+
+    /** @return imágenes en las que se detectó un folio */
+    public int getWithFolio() {
+        return withFolio;
+    }
+
+    /** @return tiempo desde el inicio de la importación */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** @return imágenes terminadas por segundo desde el inicio */
+    public double getImagesPerSecond() {
+        return elapsedNanos <= 0 ? 0 : processed * 1e9 / elapsedNanos;
+    }
+}
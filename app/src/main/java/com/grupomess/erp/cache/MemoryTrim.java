@@ -0,0 +1,41 @@
+package com.grupomess.erp.cache;
+
+/**
+ * Cuántas imágenes decodificadas conservar en memoria según la presión que avisa el sistema.
+ * <br>
+ * Los niveles tienen los mismos valores que las constantes {@code TRIM_MEMORY_*} de
+ * {@code ComponentCallbacks2}; se repiten aquí para poder probar la política sin Android.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class MemoryTrim {
+
+    public static final int RUNNING_MODERATE = 5;
+    public static final int RUNNING_LOW = 10;
+    public static final int RUNNING_CRITICAL = 15;
+    public static final int UI_HIDDEN = 20;
+    public static final int BACKGROUND = 40;
+
+    private MemoryTrim() {
+    }
+
+    /**
+     * @param level nivel recibido en {@code onTrimMemory}; {@link Integer#MAX_VALUE} para {@code onLowMemory}
+     * @param maxResident tope configurado de imágenes en memoria
+     * @return cuántas imágenes pueden quedar en memoria
+     */
+    public static int residentLimit(int level, int maxResident) {
+        if (level >= BACKGROUND || level == RUNNING_CRITICAL) {
+            // El proceso puede morir en cualquier momento; todo queda en disco
+            return 0;
+        }
+        if (level >= UI_HIDDEN || level == RUNNING_LOW) {
+            return maxResident / 4;
+        }
+        if (level >= RUNNING_MODERATE) {
+            return maxResident / 2;
+        }
+        return maxResident;
+    }
+}
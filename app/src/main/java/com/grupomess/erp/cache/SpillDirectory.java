@@ -0,0 +1,216 @@
+package com.grupomess.erp.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directorio de caché donde se vuelcan las imágenes que no caben en memoria.
+ * <br>
+ * - Cada llave se guarda en un archivo cuyo nombre es el SHA-1 de la llave.
+ * - La escritura va a un temporal y se renombra al terminar; nunca se lee un archivo a medias.
+ * - El total en disco está acotado por bytes; al pasarse se borran los menos usados.
+ * <br>
+ * El índice se reconstruye del contenido del directorio al crearlo, ordenado por fecha de
+ * modificación. Es seguro usarlo desde varios hilos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class SpillDirectory {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Escribe el contenido de una entrada.
+     */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    /** Nombre de archivo a tamaño, en orden de uso (el menos reciente primero) */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private SpillDirectory(Builder builder) {
+        directory = builder.directory;
+        maxBytes = builder.maxBytes;
+        load();
+    }
+
+    /**
+     * @param key llave de la entrada
+     * @return archivo volcado, o {@code null} si no existe
+     */
+    public synchronized File lookup(String key) {
+        String name = nameFor(key);
+        if (index.get(name) == null) {
+            return null;
+        }
+        File file = new File(directory, name);
+        if (!file.isFile()) {
+            // Lo borró el sistema al liberar caché
+            totalBytes -= index.remove(name);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Escribe una entrada y recorta el directorio si se pasa del tope.
+     * @param key llave de la entrada
+     * @param content escritor del contenido
+     * @return {@code true} si la entrada quedó guardada
+     */
+    public boolean store(String key, Content content) {
+        String name = nameFor(key);
+        File temp;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return false;
+            }
+            temp = File.createTempFile(name, TEMP_SUFFIX, directory);
+        } catch (IOException e) {
+            return false;
+        }
+        try (OutputStream out = new FileOutputStream(temp)) {
+            content.writeTo(out);
+        } catch (IOException e) {
+            temp.delete();
+            return false;
+        }
+
+        synchronized (this) {
+            File file = new File(directory, name);
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return false;
+            }
+            Long previous = index.put(name, file.length());
+            totalBytes += file.length() - (previous == null ? 0 : previous);
+            trimTo(maxBytes);
+            return index.containsKey(name);
+        }
+    }
+
+    /**
+     * @param key llave de la entrada a borrar
+     */
+    public synchronized void remove(String key) {
+        String name = nameFor(key);
+        Long size = index.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+            new File(directory, name).delete();
+        }
+    }
+
+    /**
+     * Borra todas las entradas.
+     */
+    public synchronized void clear() {
+        trimTo(0);
+    }
+
+    /** @return número de entradas volcadas */
+    public synchronized int count() {
+        return index.size();
+    }
+
+    /** @return bytes ocupados en disco */
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    private void trimTo(long limit) {
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (totalBytes > limit && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(directory, eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void load() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> entries = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                // Escritura interrumpida en una ejecución anterior
+                file.delete();
+            } else if (file.isFile()) {
+                entries.add(file);
+            }
+        }
+        File[] sorted = entries.toArray(new File[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(File::lastModified));
+        for (File file : sorted) {
+            index.put(file.getName(), file.length());
+            totalBytes += file.length();
+        }
+        trimTo(maxBytes);
+    }
+
+    static String nameFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Constructor de {@link SpillDirectory}.
+     */
+    public static final class Builder {
+        private final File directory;
+        private long maxBytes = 32L * 1024 * 1024;
+
+        /**
+         * @param directory directorio propio de la caché; se crea al escribir la primera entrada
+         */
+        public Builder(File directory) {
+            if (directory == null) {
+                throw new IllegalArgumentException("El directorio no puede ser nulo");
+            }
+            this.directory = directory;
+        }
+
+        /**
+         * @param maxBytes tope del directorio en bytes
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("El tope debe ser mayor que cero");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public SpillDirectory build() {
+            return new SpillDirectory(this);
+        }
+    }
+}
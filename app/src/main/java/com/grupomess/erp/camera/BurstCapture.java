@@ -0,0 +1,223 @@
+package com.grupomess.erp.camera;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captura continua: toma fotos de una {@link CameraSource} a intervalos fijos mientras
+ * está activa y entrega cada archivo al {@link Listener}.
+ * <br>
+ * Sólo hay una captura en curso a la vez: la siguiente se programa cuando termina la
+ * anterior, descontando lo que ya tardó. Si la cámara es más lenta que el intervalo, la
+ * ráfaga va a su ritmo en lugar de acumular peticiones. Al detenerla se cancela la foto
+ * programada, y una foto programada por una ráfaga anterior no se toma.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class BurstCapture {
+
+    /**
+     * Crea el archivo de cada foto.
+     */
+    public interface FileFactory {
+        File create() throws IOException;
+    }
+
+    /**
+     * Recibe las fotos de la ráfaga, en el hilo de la cámara.
+     */
+    public interface Listener {
+        void onPhoto(File file);
+
+        void onError(Exception error);
+    }
+
+    private final CameraSource source;
+    private final FileFactory files;
+    private final ScheduledExecutorService scheduler;
+    private final long intervalMs;
+    private final Listener listener;
+
+    private final Object lock = new Object();
+    private boolean running;
+    private boolean inFlight;
+    /** Sube en cada inicio para ignorar capturas de una ráfaga anterior */
+    private long generation;
+    private long lastShotStartNanos;
+    /** Siguiente foto programada, o null */
+    private ScheduledFuture<?> pending;
+
+    private final AtomicLong shots = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong shotIntervalNanos = new AtomicLong();
+
+    /**
+     * @param source cámara
+     * @param files fábrica de archivos destino
+     * @param scheduler programador de las capturas
+     * @param intervalMs intervalo objetivo entre el inicio de una foto y la siguiente
+     * @param listener receptor de las fotos
+     */
+    public BurstCapture(CameraSource source, FileFactory files, ScheduledExecutorService scheduler,
+                        long intervalMs, Listener listener) {
+        if (intervalMs < 0) {
+            throw new IllegalArgumentException("El intervalo no puede ser negativo");
+        }
+        this.source = source;
+        this.files = files;
+        this.scheduler = scheduler;
+        this.intervalMs = intervalMs;
+        this.listener = listener;
+    }
+
+    /**
+     * Inicia la ráfaga con una foto inmediata. No hace nada si ya estaba activa.
+     */
+    public void start() {
+        long startGeneration;
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+            generation++;
+            startGeneration = generation;
+            lastShotStartNanos = 0;
+            if (inFlight) {
+                // La foto en curso de la ráfaga anterior programará la siguiente
+                return;
+            }
+        }
+        schedule(startGeneration, 0);
+    }
+
+    /**
+     * Detiene la ráfaga y cancela la foto programada. La foto en curso, si la hay, todavía
+     * se entrega.
+     */
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * @return true mientras la ráfaga esté activa
+     */
+    public boolean isRunning() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * @return fotos entregadas desde la creación
+     */
+    public long getShotCount() {
+        return shots.get();
+    }
+
+    /**
+     * @return capturas fallidas desde la creación
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return intervalo promedio real entre fotos, en milisegundos
+     */
+    public double getAverageIntervalMs() {
+        long count = shots.get();
+        return count <= 1 ? 0 : shotIntervalNanos.get() / 1_000_000d / (count - 1);
+    }
+
+    private void schedule(long shotGeneration, long delayMs) {
+        ScheduledFuture<?> future;
+        try {
+            future = scheduler.schedule(() -> shoot(shotGeneration), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // El programador ya se cerró junto con la pantalla
+            stop();
+            return;
+        }
+        synchronized (lock) {
+            if (running && shotGeneration == generation) {
+                pending = future;
+            } else {
+                // Se detuvo o reinició mientras se programaba
+                future.cancel(false);
+            }
+        }
+    }
+
+    private void shoot(long shotGeneration) {
+        synchronized (lock) {
+            if (!running || inFlight || shotGeneration != generation) {
+                return;
+            }
+            pending = null;
+            inFlight = true;
+        }
+        long startNanos = System.nanoTime();
+        File output;
+        try {
+            output = files.create();
+        } catch (IOException e) {
+            finish(shotGeneration, startNanos, null, e);
+            return;
+        }
+        source.takePicture(output, new CameraSource.Callback() {
+            @Override
+            public void onCaptured(File file) {
+                finish(shotGeneration, startNanos, file, null);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // No se deja un archivo a medias en la carpeta de capturas
+                output.delete();
+                finish(shotGeneration, startNanos, null, error);
+            }
+        });
+    }
+
+    private void finish(long shotGeneration, long startNanos, File file, Exception error) {
+        long delayMs;
+        long nextGeneration;
+        synchronized (lock) {
+            inFlight = false;
+            if (file != null) {
+                if (shotGeneration == generation && lastShotStartNanos != 0) {
+                    shotIntervalNanos.addAndGet(startNanos - lastShotStartNanos);
+                }
+                lastShotStartNanos = startNanos;
+                shots.incrementAndGet();
+            } else {
+                failures.incrementAndGet();
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            delayMs = running ? Math.max(0, intervalMs - elapsedMs) : -1;
+            // Si se reinició mientras tanto, la siguiente foto ya es de la ráfaga nueva
+            nextGeneration = generation;
+        }
+        if (file != null) {
+            listener.onPhoto(file);
+        } else {
+            listener.onError(error);
+        }
+        if (delayMs >= 0) {
+            schedule(nextGeneration, delayMs);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.grupomess.erp.camera;
+
+import java.io.File;
+
+/**
+ * Fuente de fotos de la captura en ráfaga. La implementación real mantiene abierta la
+ * sesión de cámara; en pruebas se sustituye por un proveedor de fotos falso.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface CameraSource {
+
+    /**
+     * Toma una foto y la escribe en el archivo. El resultado llega por el callback,
+     * en un hilo de la implementación.
+     * @param output archivo destino
+     * @param callback resultado de la captura
+     */
+    void takePicture(File output, Callback callback);
+
+    /**
+     * Resultado de una captura.
+     */
+    interface Callback {
+        void onCaptured(File file);
+
+        void onError(Exception error);
+    }
+}
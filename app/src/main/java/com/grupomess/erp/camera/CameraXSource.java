@@ -0,0 +1,160 @@
+package com.grupomess.erp.camera;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageCapture;
+import androidx.camera.core.ImageCaptureException;
+import androidx.camera.core.Preview;
+import androidx.camera.core.UseCase;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.grupomess.erp.metrics.AppMetrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link CameraSource} sobre CameraX. La sesión de cámara (vista previa y captura) queda
+ * abierta mientras el ciclo de vida al que se enlaza esté activo, de modo que cada foto
+ * sólo cuesta la captura y la escritura del JPEG. Opcionalmente entrega los cuadros de la
+ * vista previa a un analizador, conservando sólo el más reciente.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class CameraXSource implements CameraSource {
+
+    private static final String TAG = "CameraXSource";
+    /** Resolución de los cuadros para análisis */
+    private static final Size ANALYSIS_SIZE = new Size(1280, 720);
+
+    private final Context appContext;
+    private final AppMetrics metrics;
+    /** Escritura de las fotos fuera del hilo principal */
+    private final ExecutorService captureExecutor = Executors.newSingleThreadExecutor();
+    private ProcessCameraProvider cameraProvider;
+    private volatile ImageCapture imageCapture;
+    private Preview preview;
+
+    public CameraXSource(Context context) {
+        appContext = context.getApplicationContext();
+        metrics = AppMetrics.getInstance(appContext);
+    }
+
+    /**
+     * Abre la cámara trasera con vista previa y captura de baja latencia.
+     * @param owner ciclo de vida que mantiene la sesión abierta
+     * @param previewView vista donde se muestra la vista previa
+     * @param onReady se ejecuta en el hilo principal cuando la cámara está lista
+     */
+    public void bind(LifecycleOwner owner, PreviewView previewView, Runnable onReady) {
+        bind(owner, previewView, null, null, onReady);
+    }
+
+    /**
+     * Abre la cámara trasera con vista previa, captura y, si se indica, análisis de cuadros.
+     * El análisis descarta los cuadros que llegan mientras el analizador sigue ocupado.
+     * @param owner ciclo de vida que mantiene la sesión abierta
+     * @param previewView vista donde se muestra la vista previa
+     * @param analysisExecutor hilo del analizador, o null sin análisis
+     * @param analyzer analizador de cuadros, o null sin análisis
+     * @param onReady se ejecuta en el hilo principal cuando la cámara está lista
+     */
+    public void bind(LifecycleOwner owner, PreviewView previewView, Executor analysisExecutor,
+                     ImageAnalysis.Analyzer analyzer, Runnable onReady) {
+        ListenableFuture<ProcessCameraProvider> future = ProcessCameraProvider.getInstance(appContext);
+        future.addListener(() -> {
+            try {
+                cameraProvider = future.get();
+            } catch (ExecutionException | InterruptedException e) {
+                Log.e(TAG, "No se pudo obtener la cámara", e);
+                return;
+            }
+            preview = new Preview.Builder().build();
+            preview.setSurfaceProvider(previewView.getSurfaceProvider());
+            imageCapture = new ImageCapture.Builder()
+                    .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                    .setTargetRotation(previewView.getDisplay() != null
+                            ? previewView.getDisplay().getRotation() : 0)
+                    .build();
+            List<UseCase> useCases = new ArrayList<>(3);
+            useCases.add(preview);
+            useCases.add(imageCapture);
+            if (analyzer != null) {
+                // 720p basta para leer el folio y mantiene bajo el costo de cada cuadro
+                ImageAnalysis analysis = new ImageAnalysis.Builder()
+                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_SIZE,
+                                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                                .build())
+                        .build();
+                analysis.setAnalyzer(analysisExecutor, analyzer);
+                useCases.add(analysis);
+            }
+            cameraProvider.unbindAll();
+            cameraProvider.bindToLifecycle(owner, CameraSelector.DEFAULT_BACK_CAMERA,
+                    useCases.toArray(new UseCase[0]));
+            onReady.run();
+        }, ContextCompat.getMainExecutor(appContext));
+    }
+
+    /**
+     * Cierra la sesión de cámara.
+     */
+    public void unbind() {
+        if (cameraProvider != null) {
+            cameraProvider.unbindAll();
+        }
+        imageCapture = null;
+        preview = null;
+    }
+
+    /**
+     * Libera el hilo de escritura; la instancia ya no se puede usar.
+     */
+    public void release() {
+        unbind();
+        captureExecutor.shutdown();
+    }
+
+    @Override
+    public void takePicture(File output, Callback callback) {
+        ImageCapture capture = imageCapture;
+        if (capture == null) {
+            callback.onError(new IllegalStateException("La cámara no está abierta"));
+            return;
+        }
+        ImageCapture.OutputFileOptions options = new ImageCapture.OutputFileOptions.Builder(output).build();
+        long start = SystemClock.elapsedRealtimeNanos();
+        capture.takePicture(options, captureExecutor, new ImageCapture.OnImageSavedCallback() {
+            @Override
+            public void onImageSaved(@NonNull ImageCapture.OutputFileResults results) {
+                metrics.captureLatency.recordSince(start, SystemClock.elapsedRealtimeNanos());
+                callback.onCaptured(output);
+            }
+
+            @Override
+            public void onError(@NonNull ImageCaptureException exception) {
+                callback.onError(exception);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.grupomess.erp.camera;
+
+/**
+ * Limita el análisis de cuadros de la vista previa a una frecuencia máxima y a un
+ * cuadro a la vez. Los cuadros que llegan antes de tiempo o con un análisis en curso se
+ * descartan en lugar de encolarse, para que el resultado siempre sea del cuadro más reciente.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FrameThrottle {
+
+    private final long minIntervalNanos;
+    private boolean busy;
+    private long lastAcceptedNanos;
+    private boolean hasAccepted;
+    private long accepted;
+    private long dropped;
+
+    /**
+     * @param maxFramesPerSecond cuadros analizados por segundo como máximo
+     */
+    public FrameThrottle(double maxFramesPerSecond) {
+        if (maxFramesPerSecond <= 0) {
+            throw new IllegalArgumentException("La frecuencia debe ser positiva");
+        }
+        minIntervalNanos = (long) (1_000_000_000L / maxFramesPerSecond);
+    }
+
+    /**
+     * Decide si un cuadro se analiza. Si devuelve true, se debe llamar a {@link #release()}
+     * al terminar el análisis.
+     * @param nowNanos hora del cuadro en nanosegundos monotónicos
+     * @return true si el cuadro se analiza; false si se descarta
+     */
+    public synchronized boolean tryAcquire(long nowNanos) {
+        if (busy || (hasAccepted && nowNanos - lastAcceptedNanos < minIntervalNanos)) {
+            dropped++;
+            return false;
+        }
+        busy = true;
+        hasAccepted = true;
+        lastAcceptedNanos = nowNanos;
+        accepted++;
+        return true;
+    }
+
+    /**
+     * Marca el análisis en curso como terminado.
+     */
+    public synchronized void release() {
+        busy = false;
+    }
+
+    /**
+     * @return cuadros analizados
+     */
+    public synchronized long getAcceptedCount() {
+        return accepted;
+    }
+
+    /**
+     * @return cuadros descartados
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+}
@@ -0,0 +1,81 @@
+package com.grupomess.erp.catalog;
+
+/**
+ * Filtro de Bloom sobre claves en bytes.
+ * <br>
+ * Responde "seguro que no está" sin tocar el arreglo ordenado de {@link FolioSet}: la mayoría
+ * de los folios mal leídos se descartan con unas cuantas lecturas de memoria. Usa doble hash
+ * (h1 + i·h2) a partir de un solo hash de 64 bits.
+ * <br>
+ * No es seguro entre hilos mientras se agrega; {@link FolioSet} lo llena antes de publicarse.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expected número de claves esperado
+     * @param falsePositiveRate fracción de falsos positivos buscada, entre 0 y 1
+     */
+    BloomFilter(int expected, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Tasa de falsos positivos fuera de rango: " + falsePositiveRate);
+        }
+        int n = Math.max(1, expected);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, m);
+        bits = new long[(int) ((m + 63) >>> 6)];
+        bitCount = (long) bits.length << 6;
+        hashCount = Math.max(1, Math.min(8, (int) Math.round((double) bitCount / n * Math.log(2))));
+    }
+
+    void add(byte[] data, int from, int to) {
+        long hash = hash(data, from, to);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    boolean mightContain(byte[] data, int from, int to) {
+        long hash = hash(data, from, to);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return memoria ocupada por los bits */
+    long sizeBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * FNV-1a de 64 bits con la mezcla final de MurmurHash3 para repartir los bits altos.
+     */
+    private static long hash(byte[] data, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= data[i] & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,69 @@
+package com.grupomess.erp.catalog;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cambios del catálogo de folios desde la última sincronización.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class CatalogDelta {
+
+    private final String cursor;
+    private final boolean snapshot;
+    private final boolean notModified;
+    private final List<String> added;
+    private final List<String> removed;
+
+    /**
+     * @param cursor cursor para pedir los cambios siguientes (ETag o marca de tiempo)
+     * @param snapshot true si {@code added} es el catálogo completo y reemplaza al local
+     * @param added folios abiertos
+     * @param removed folios cerrados o cancelados; se ignora si es un catálogo completo
+     */
+    public CatalogDelta(String cursor, boolean snapshot, List<String> added, List<String> removed) {
+        this(cursor, snapshot, false, added, removed);
+    }
+
+    private CatalogDelta(String cursor, boolean snapshot, boolean notModified, List<String> added,
+                         List<String> removed) {
+        if (cursor == null || cursor.isEmpty()) {
+            throw new IllegalArgumentException("El cursor no puede estar vacío");
+        }
+        this.cursor = cursor;
+        this.snapshot = snapshot;
+        this.notModified = notModified;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @param cursor cursor vigente
+     * @return respuesta sin cambios
+     */
+    public static CatalogDelta notModified(String cursor) {
+        return new CatalogDelta(cursor, false, true, Collections.emptyList(), Collections.emptyList());
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    public List<String> getAdded() {
+        return added;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+}
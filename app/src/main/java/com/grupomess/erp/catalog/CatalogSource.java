@@ -0,0 +1,22 @@
+package com.grupomess.erp.catalog;
+
+import java.io.IOException;
+
+/**
+ * Origen de los cambios del catálogo de folios. Se puede sustituir para probar contra un
+ * servidor local.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface CatalogSource {
+
+    /**
+     * Pide los cambios posteriores a un cursor.
+     * @param cursor cursor de la última sincronización, o null si no hay catálogo local
+     * @return cambios, el catálogo completo si el cursor ya no es válido, o
+     *         {@link CatalogDelta#notModified(String)}
+     * @throws IOException si falla la red o el servidor
+     */
+    CatalogDelta fetchSince(String cursor) throws IOException;
+}
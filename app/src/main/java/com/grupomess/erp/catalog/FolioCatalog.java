@@ -0,0 +1,172 @@
+package com.grupomess.erp.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Catálogo local de folios abiertos, sincronizado por cambios desde el servidor.
+ * <br>
+ * - Las consultas leen un {@link FolioSet} inmutable publicado en un campo volátil: no
+ *   bloquean y tardan microsegundos aun con cientos de miles de folios.
+ * - {@link #sync(CatalogSource)} pide sólo los cambios posteriores al último cursor, arma el
+ *   conjunto nuevo a un lado y lo publica de una vez; una consulta nunca ve un catálogo a medias.
+ * - El conjunto y su cursor se guardan en disco (escritura a un temporal y renombrado), así que
+ *   al reiniciar la app no se vuelve a descargar el catálogo completo.
+ * <br>
+ * Es Java puro; la carga y la sincronización hacen E/S y deben correr fuera del hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioCatalog {
+
+    /** Resultado de validar un folio. */
+    public enum Check {
+        /** El folio está abierto en el catálogo */
+        VALID,
+        /** El catálogo está cargado y el folio no aparece */
+        NOT_FOUND,
+        /** Aún no hay catálogo local; el folio no se puede validar */
+        UNAVAILABLE
+    }
+
+    private static final int MAGIC = 0x46434154; // "FCAT"
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final FolioMatcher matcher = FolioMatcher.withDefaults();
+
+    private volatile Snapshot snapshot = new Snapshot(FolioSet.EMPTY, null);
+
+    /**
+     * @param file archivo donde se conserva el catálogo
+     */
+    public FolioCatalog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Carga el catálogo guardado, si lo hay. Un archivo dañado se descarta y la siguiente
+     * sincronización descarga el catálogo completo.
+     * @return true si se cargó un catálogo
+     */
+    public synchronized boolean load() {
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Formato de catálogo desconocido");
+            }
+            String cursor = in.readUTF();
+            snapshot = new Snapshot(FolioSet.readFrom(in), cursor);
+            return true;
+        } catch (IOException e) {
+            file.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Valida un folio contra el catálogo. No bloquea.
+     * @param folio folio capturado, en cualquier formato
+     * @return resultado de la validación
+     */
+    public Check check(String folio) {
+        Snapshot current = snapshot;
+        if (current.cursor == null) {
+            return Check.UNAVAILABLE;
+        }
+        return current.folios.contains(folio) ? Check.VALID : Check.NOT_FOUND;
+    }
+
+    /**
+     * Folios del catálogo parecidos a uno mal leído. No bloquea.
+     * @param folio folio escaneado o capturado
+     * @param limit número máximo de sugerencias
+     * @return folios cercanos, el más parecido primero; vacío si no hay catálogo
+     */
+    public List<FolioMatcher.Match> suggest(String folio, int limit) {
+        return matcher.search(snapshot.folios, folio, limit);
+    }
+
+    /**
+     * @return true si ya hay un catálogo sincronizado alguna vez
+     */
+    public boolean isAvailable() {
+        return snapshot.cursor != null;
+    }
+
+    /**
+     * @return conjunto vigente
+     */
+    public FolioSet getFolios() {
+        return snapshot.folios;
+    }
+
+    /**
+     * @return cursor de la última sincronización, o null si nunca se sincronizó
+     */
+    public String getCursor() {
+        return snapshot.cursor;
+    }
+
+    /**
+     * Aplica los cambios del servidor y los guarda. Una sincronización a la vez.
+     * @param source origen de los cambios
+     * @return true si el catálogo cambió
+     * @throws IOException si falla la red o no se pudo guardar; el catálogo vigente no cambia
+     */
+    public synchronized boolean sync(CatalogSource source) throws IOException {
+        Snapshot current = snapshot;
+        CatalogDelta delta = source.fetchSince(current.cursor);
+        if (delta.isNotModified()) {
+            return false;
+        }
+        FolioSet folios = delta.isSnapshot()
+                ? FolioSet.of(delta.getAdded())
+                : current.folios.apply(delta.getAdded(), delta.getRemoved());
+        Snapshot next = new Snapshot(folios, delta.getCursor());
+        save(next);
+        snapshot = next;
+        return true;
+    }
+
+    private void save(Snapshot next) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(next.cursor);
+            next.folios.writeTo(out);
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("No se pudo reemplazar " + file.getName());
+        }
+    }
+
+    /**
+     * Conjunto y cursor publicados juntos.
+     */
+    private static final class Snapshot {
+        final FolioSet folios;
+        final String cursor;
+
+        Snapshot(FolioSet folios, String cursor) {
+            this.folios = folios;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.grupomess.erp.catalog;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.grupomess.erp.R;
+import com.grupomess.erp.metrics.AppMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Punto de entrada del catálogo de folios en la app.
+ * <br>
+ * Carga el catálogo guardado en segundo plano al crearse y lo sincroniza por cambios con el
+ * servidor configurado en {@code R.string.catalog_base_url}, a lo más una vez cada
+ * {@link #MIN_SYNC_INTERVAL_MS}. Las validaciones se pueden hacer desde el hilo principal:
+ * tardan microsegundos y nunca esperan a la red.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioCatalogManager {
+
+    private static final String TAG = "FolioCatalogManager";
+    private static final String CATALOG_FILE = "catalogo_folios.bin";
+
+    /** Intervalo mínimo entre sincronizaciones */
+    static final long MIN_SYNC_INTERVAL_MS = 15 * 60 * 1000L;
+
+    private static volatile FolioCatalogManager instance;
+
+    private final Context appContext;
+    private final AppMetrics metrics;
+    private final FolioCatalog catalog;
+    /** Carga y sincroniza en orden; una operación a la vez */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /** Último intento de sincronización ({@link SystemClock#elapsedRealtime()}); 0 si ninguno */
+    private volatile long lastSyncAttempt = 0;
+
+    private FolioCatalogManager(Context context) {
+        appContext = context.getApplicationContext();
+        metrics = AppMetrics.getInstance(appContext);
+        catalog = new FolioCatalog(new File(appContext.getFilesDir(), CATALOG_FILE));
+        executor.execute(() -> {
+            if (catalog.load()) {
+                metrics.catalogFolios.set(catalog.getFolios().size());
+                Log.d(TAG, "Catálogo cargado con " + catalog.getFolios().size() + " folios");
+            }
+        });
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return catálogo compartido
+     */
+    public static FolioCatalogManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (FolioCatalogManager.class) {
+                if (instance == null) {
+                    instance = new FolioCatalogManager(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Valida un folio contra el catálogo local. No bloquea.
+     * @param folio folio escaneado o capturado
+     * @return resultado; {@link FolioCatalog.Check#UNAVAILABLE} si aún no hay catálogo
+     */
+    public FolioCatalog.Check check(String folio) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        FolioCatalog.Check result = catalog.check(folio);
+        metrics.catalogLookup.recordSince(start, SystemClock.elapsedRealtimeNanos());
+        if (result == FolioCatalog.Check.NOT_FOUND) {
+            metrics.catalogMisses.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Sugerencias del catálogo para un folio mal leído. Tarda menos de un milisegundo.
+     * @param folio folio escaneado o capturado
+     * @param limit número máximo de sugerencias
+     * @return folios cercanos, el más parecido primero
+     */
+    public List<String> suggest(String folio, int limit) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        List<FolioMatcher.Match> matches = catalog.suggest(folio, limit);
+        metrics.catalogSuggest.recordSince(start, SystemClock.elapsedRealtimeNanos());
+        List<String> folios = new ArrayList<>(matches.size());
+        for (FolioMatcher.Match match : matches) {
+            folios.add(match.getFolio());
+        }
+        return folios;
+    }
+
+    /**
+     * Programa una sincronización si pasó el intervalo mínimo desde la anterior.
+     */
+    public void syncIfStale() {
+        String baseUrl = appContext.getString(R.string.catalog_base_url).trim();
+        if (baseUrl.isEmpty()) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (lastSyncAttempt != 0 && now - lastSyncAttempt < MIN_SYNC_INTERVAL_MS) {
+            return;
+        }
+        lastSyncAttempt = now;
+        executor.execute(() -> sync(new HttpCatalogSource(baseUrl, null)));
+    }
+
+    private void sync(CatalogSource source) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            boolean changed = catalog.sync(source);
+            metrics.catalogSync.recordSince(start, SystemClock.elapsedRealtimeNanos());
+            metrics.catalogFolios.set(catalog.getFolios().size());
+            Log.d(TAG, (changed ? "Catálogo actualizado: " : "Catálogo sin cambios: ")
+                    + catalog.getFolios().size() + " folios");
+        } catch (IOException e) {
+            // Se reintenta en la siguiente pasada; las validaciones siguen con el catálogo vigente
+            Log.w(TAG, "No se pudo sincronizar el catálogo", e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.grupomess.erp.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Búsqueda aproximada de folios tolerante a las confusiones típicas del OCR.
+ * <br>
+ * La distancia es una edición ponderada: cambiar un carácter por otro de su mismo grupo de
+ * confusión (O/0/D/Q, I/1/L, S/5, B/8, Z/2, G/6) cuesta 1; cualquier otro cambio, inserción o
+ * eliminación cuesta 3. Con el costo máximo por omisión (3) se aceptan hasta tres confusiones o
+ * un error real.
+ * <br>
+ * No construye un índice aparte: el arreglo ordenado de {@link FolioSet} ya es un trie
+ * implícito (los folios con el mismo prefijo son contiguos). La búsqueda recorre ese trie
+ * calculando una fila de la matriz de distancia por nivel y poda toda rama cuyo mínimo supera
+ * el costo máximo, así que sólo visita los prefijos cercanos a la consulta. Los hijos de cada
+ * nodo se encuentran con búsqueda binaria sobre el byte de esa posición.
+ * <br>
+ * Es inmutable y seguro entre hilos; cada búsqueda usa sus propias filas.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioMatcher {
+
+    private static final String[] DEFAULT_CONFUSIONS = {"O0DQ", "I1L", "S5", "B8", "Z2", "G6"};
+
+    private static final int COST_CONFUSION = 1;
+    private static final int COST_EDIT = 3;
+
+    /** Grupo de confusión de cada byte; 0 si no pertenece a ninguno */
+    private final byte[] group = new byte[256];
+    private final int maxCost;
+
+    private FolioMatcher(Builder builder) {
+        maxCost = builder.maxCost;
+        byte next = 1;
+        for (String confusion : builder.confusions) {
+            for (int i = 0; i < confusion.length(); i++) {
+                group[confusion.charAt(i) & 0xFF] = next;
+            }
+            next++;
+        }
+    }
+
+    /**
+     * Buscador con los grupos de confusión y el costo máximo por omisión.
+     */
+    public static FolioMatcher withDefaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * @param folios catálogo donde buscar
+     * @param query folio leído, en cualquier formato; se normaliza
+     * @param limit número máximo de resultados
+     * @return folios más cercanos, del menor al mayor costo; el folio exacto, si existe, primero
+     */
+    public List<Match> search(FolioSet folios, String query, int limit) {
+        if (query == null || limit <= 0 || folios.size() == 0) {
+            return Collections.emptyList();
+        }
+        byte[] key = FolioSet.keyOf(query);
+        if (key.length == 0) {
+            return Collections.emptyList();
+        }
+        Search search = new Search(folios, key, limit);
+        int[] first = search.rows[0];
+        for (int j = 0; j <= key.length; j++) {
+            first[j] = j * COST_EDIT;
+        }
+        search.descend(0, folios.size(), 0);
+        return search.results();
+    }
+
+    private int substitution(int a, int b) {
+        if (a == b) {
+            return 0;
+        }
+        int g = group[a];
+        return g != 0 && g == group[b] ? COST_CONFUSION : COST_EDIT;
+    }
+
+    /**
+     * Estado de una búsqueda: filas por nivel y los mejores resultados.
+     */
+    private final class Search {
+        final FolioSet folios;
+        final byte[] data;
+        final int[] offsets;
+        final byte[] key;
+        final int limit;
+        final int[][] rows;
+        /** Resultados ordenados por costo y luego por posición en el catálogo */
+        final int[] foundIndex;
+        final int[] foundCost;
+        int found;
+
+        Search(FolioSet folios, byte[] key, int limit) {
+            this.folios = folios;
+            this.data = folios.data();
+            this.offsets = folios.offsets();
+            this.key = key;
+            this.limit = limit;
+            // Más allá de este nivel toda fila supera el costo máximo
+            rows = new int[key.length + maxCost / COST_EDIT + 2][key.length + 1];
+            foundIndex = new int[limit];
+            foundCost = new int[limit];
+        }
+
+        /**
+         * @param low primer folio con el prefijo del nivel
+         * @param high fin exclusivo del rango
+         * @param depth largo del prefijo común
+         */
+        void descend(int low, int high, int depth) {
+            int[] row = rows[depth];
+            int i = low;
+            // El folio que termina en este nivel va primero en el orden
+            if (offsets[i + 1] - offsets[i] == depth) {
+                if (row[key.length] <= maxCost) {
+                    offer(i, row[key.length]);
+                }
+                i++;
+            }
+            if (depth + 1 >= rows.length) {
+                return;
+            }
+            int[] next = rows[depth + 1];
+            while (i < high) {
+                int c = data[offsets[i] + depth] & 0xFF;
+                int end = endOfChild(i, high, depth, c);
+                next[0] = row[0] + COST_EDIT;
+                int min = next[0];
+                for (int j = 1; j <= key.length; j++) {
+                    int cost = Math.min(row[j - 1] + substitution(key[j - 1] & 0xFF, c),
+                            Math.min(row[j] + COST_EDIT, next[j - 1] + COST_EDIT));
+                    next[j] = cost;
+                    min = Math.min(min, cost);
+                }
+                // La recursión sólo escribe filas más profundas que la siguiente
+                if (min <= maxCost) {
+                    descend(i, end, depth + 1);
+                }
+                i = end;
+            }
+        }
+
+        /** Fin del rango de folios cuyo byte en {@code depth} es {@code c} */
+        int endOfChild(int from, int high, int depth, int c) {
+            int low = from + 1;
+            int hi = high;
+            while (low < hi) {
+                int mid = (low + hi) >>> 1;
+                if ((data[offsets[mid] + depth] & 0xFF) <= c) {
+                    low = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return low;
+        }
+
+        void offer(int index, int cost) {
+            if (found == limit && cost >= foundCost[found - 1]) {
+                return;
+            }
+            int position = found == limit ? limit - 1 : found++;
+            // Inserción ordenada; el recorrido visita los folios en orden, así que a igual costo
+            // queda primero el menor
+            while (position > 0 && foundCost[position - 1] > cost) {
+                foundCost[position] = foundCost[position - 1];
+                foundIndex[position] = foundIndex[position - 1];
+                position--;
+            }
+            foundCost[position] = cost;
+            foundIndex[position] = index;
+        }
+
+        List<Match> results() {
+            List<Match> matches = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                matches.add(new Match(folios.get(foundIndex[i]), foundCost[i]));
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Folio del catálogo cercano a la consulta.
+     */
+    public static final class Match {
+        private final String folio;
+        private final int cost;
+
+        Match(String folio, int cost) {
+            this.folio = folio;
+            this.cost = cost;
+        }
+
+        public String getFolio() {
+            return folio;
+        }
+
+        /** @return costo de edición; 0 si es exacto */
+        public int getCost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return folio + " (" + cost + ")";
+        }
+    }
+
+    /**
+     * Constructor de configuración del buscador.
+     */
+    public static final class Builder {
+        private final List<String> confusions = new ArrayList<>(Arrays.asList(DEFAULT_CONFUSIONS));
+        private int maxCost = 3;
+
+        /**
+         * @param maxCost costo máximo aceptado: 1 por confusión, 3 por cualquier otro error
+         * @return este builder
+         */
+        public Builder setMaxCost(int maxCost) {
+            if (maxCost < 0 || maxCost > 9) {
+                throw new IllegalArgumentException("Costo máximo fuera de rango: " + maxCost);
+            }
+            this.maxCost = maxCost;
+            return this;
+        }
+
+        /**
+         * Agrega un grupo de caracteres que el OCR confunde entre sí.
+         * @param characters caracteres en mayúsculas, por ejemplo "UV"
+         * @return este builder
+         */
+        public Builder addConfusion(String characters) {
+            if (characters == null || characters.length() < 2) {
+                throw new IllegalArgumentException("Un grupo de confusión necesita al menos dos caracteres");
+            }
+            confusions.add(characters);
+            return this;
+        }
+
+        public FolioMatcher build() {
+            return new FolioMatcher(this);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.grupomess.erp.catalog;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Conjunto inmutable y compacto de folios válidos.
+ * <br>
+ * Los folios normalizados se guardan ordenados y concatenados en un solo arreglo de bytes con
+ * un arreglo de posiciones: unos 14 bytes por folio en lugar de los ~60 de un {@code String}
+ * en un {@code HashSet}, y sin objetos que recorra el recolector. La consulta pasa primero por
+ * un {@link BloomFilter} (1 % de falsos positivos) y sólo si éste no la descarta hace una
+ * búsqueda binaria comparando bytes.
+ * <br>
+ * Los cambios producen un conjunto nuevo con {@link #apply}, que mezcla en orden sin volver a
+ * ordenar todo el catálogo.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioSet {
+
+    /** Conjunto sin folios. */
+    public static final FolioSet EMPTY = new FolioSet(new byte[0], new int[]{0}, 0);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /** Folios ordenados y concatenados */
+    private final byte[] data;
+    /** Inicio de cada folio en {@link #data}; el último elemento es el largo total */
+    private final int[] offsets;
+    private final int size;
+    private final BloomFilter bloom;
+
+    private FolioSet(byte[] data, int[] offsets, int size) {
+        this.data = data;
+        this.offsets = offsets;
+        this.size = size;
+        this.bloom = new BloomFilter(size, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < size; i++) {
+            bloom.add(data, offsets[i], offsets[i + 1]);
+        }
+    }
+
+    /**
+     * @param folios folios en cualquier orden; se normalizan y se quitan repetidos
+     * @return conjunto con los folios
+     */
+    public static FolioSet of(Collection<String> folios) {
+        return EMPTY.apply(folios, null);
+    }
+
+    /**
+     * Forma canónica de un folio: sin espacios y en mayúsculas, como lo deja el OCR.
+     * @param folio folio capturado
+     * @return folio normalizado
+     */
+    public static String normalize(String folio) {
+        StringBuilder builder = new StringBuilder(folio.length());
+        for (int i = 0; i < folio.length(); i++) {
+            char c = folio.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * @return número de folios
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index posición en orden, de 0 a {@link #size()} - 1
+     * @return folio normalizado
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + " de " + size);
+        }
+        return new String(data, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param folio folio en cualquier formato; se normaliza
+     * @return true si el folio está en el conjunto
+     */
+    public boolean contains(String folio) {
+        if (folio == null || size == 0) {
+            return false;
+        }
+        byte[] key = keyOf(folio);
+        return key.length > 0 && bloom.mightContain(key, 0, key.length) && indexOf(key) >= 0;
+    }
+
+    /**
+     * @return memoria aproximada de los arreglos, en bytes
+     */
+    public long sizeBytes() {
+        return data.length + (long) offsets.length * Integer.BYTES + bloom.sizeBytes();
+    }
+
+    /**
+     * Crea un conjunto con los cambios aplicados. Este conjunto no cambia.
+     * @param added folios nuevos, en cualquier orden; puede ser null
+     * @param removed folios cerrados, en cualquier orden; puede ser null
+     * @return conjunto resultante
+     */
+    public FolioSet apply(Collection<String> added, Collection<String> removed) {
+        byte[][] toAdd = sortedKeys(added);
+        byte[][] toRemove = sortedKeys(removed);
+        int capacityBytes = data.length;
+        for (byte[] key : toAdd) {
+            capacityBytes += key.length;
+        }
+        byte[] mergedData = new byte[capacityBytes];
+        int[] mergedOffsets = new int[size + toAdd.length + 1];
+        int count = 0;
+        int position = 0;
+
+        // Mezcla ordenada de los folios actuales con los nuevos, saltando los cerrados
+        int i = 0;
+        int a = 0;
+        int r = 0;
+        while (i < size || a < toAdd.length) {
+            byte[] source;
+            int from;
+            int to;
+            if (a >= toAdd.length || (i < size && compare(data, offsets[i], offsets[i + 1],
+                    toAdd[a], 0, toAdd[a].length) <= 0)) {
+                source = data;
+                from = offsets[i];
+                to = offsets[++i];
+            } else {
+                source = toAdd[a++];
+                from = 0;
+                to = source.length;
+            }
+            if (count > 0 && compare(mergedData, mergedOffsets[count - 1], position, source, from, to) == 0) {
+                continue;
+            }
+            while (r < toRemove.length && compare(toRemove[r], 0, toRemove[r].length, source, from, to) < 0) {
+                r++;
+            }
+            if (r < toRemove.length && compare(toRemove[r], 0, toRemove[r].length, source, from, to) == 0) {
+                continue;
+            }
+            mergedOffsets[count++] = position;
+            System.arraycopy(source, from, mergedData, position, to - from);
+            position += to - from;
+        }
+        mergedOffsets[count] = position;
+        return new FolioSet(Arrays.copyOf(mergedData, position), Arrays.copyOf(mergedOffsets, count + 1), count);
+    }
+
+    /**
+     * Escribe el conjunto en formato binario; {@link #readFrom} lo lee sin volver a ordenar.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(data.length);
+        out.write(data);
+        for (int i = 1; i <= size; i++) {
+            out.writeShort(offsets[i] - offsets[i - 1]);
+        }
+    }
+
+    /**
+     * @throws IOException si los datos están truncados o no están en orden
+     */
+    static FolioSet readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        int length = in.readInt();
+        if (size < 0 || length < 0) {
+            throw new IOException("Catálogo dañado");
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        int[] offsets = new int[size + 1];
+        for (int i = 1; i <= size; i++) {
+            offsets[i] = offsets[i - 1] + in.readUnsignedShort();
+            if (offsets[i] > length || (i > 1
+                    && compare(data, offsets[i - 2], offsets[i - 1], data, offsets[i - 1], offsets[i]) >= 0)) {
+                throw new IOException("Catálogo dañado");
+            }
+        }
+        if (offsets[size] != length) {
+            throw new IOException("Catálogo dañado");
+        }
+        return size == 0 ? EMPTY : new FolioSet(data, offsets, size);
+    }
+
+    /**
+     * Folio normalizado en UTF-8. Los folios ASCII, que son casi todos, se convierten sin
+     * objetos intermedios.
+     */
+    static byte[] keyOf(String folio) {
+        byte[] key = new byte[folio.length()];
+        int length = 0;
+        for (int i = 0; i < folio.length(); i++) {
+            char c = folio.charAt(i);
+            if (c >= 0x80) {
+                return normalize(folio).getBytes(StandardCharsets.UTF_8);
+            }
+            if (c >= 'a' && c <= 'z') {
+                key[length++] = (byte) (c - ('a' - 'A'));
+            } else if (!Character.isWhitespace(c)) {
+                key[length++] = (byte) c;
+            }
+        }
+        return length == key.length ? key : Arrays.copyOf(key, length);
+    }
+
+    /** Folios concatenados, para recorrerlos sin copiar; no debe modificarse */
+    byte[] data() {
+        return data;
+    }
+
+    /** Inicio de cada folio en {@link #data()}; no debe modificarse */
+    int[] offsets() {
+        return offsets;
+    }
+
+    private int indexOf(byte[] key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(data, offsets[mid], offsets[mid + 1], key, 0, key.length);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[][] sortedKeys(Collection<String> folios) {
+        if (folios == null || folios.isEmpty()) {
+            return new byte[0][];
+        }
+        byte[][] keys = new byte[folios.size()][];
+        int count = 0;
+        for (String folio : folios) {
+            byte[] key = keyOf(folio);
+            if (key.length > 0 && key.length <= 0xFFFF) {
+                keys[count++] = key;
+            }
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys, (x, y) -> compare(x, 0, x.length, y, 0, y.length));
+        return keys;
+    }
+
+    /** Comparación lexicográfica sin signo, el orden de los bytes UTF-8 */
+    private static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int aLength = aTo - aFrom;
+        int bLength = bTo - bFrom;
+        int common = Math.min(aLength, bLength);
+        for (int k = 0; k < common; k++) {
+            int cmp = (a[aFrom + k] & 0xFF) - (b[bFrom + k] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return aLength - bLength;
+    }
+}
@@ -0,0 +1,113 @@
+package com.grupomess.erp.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de {@link CatalogSource} sobre {@link HttpURLConnection}.
+ * <br>
+ * Protocolo (texto plano UTF-8, una entrada por línea):
+ * - {@code GET base/folios?since={cursor}} con {@code If-None-Match: cursor}; sin cursor se pide
+ *   el catálogo completo.
+ * - {@code 304}: sin cambios.
+ * - {@code 200}: el encabezado {@code ETag} trae el nuevo cursor. Cada línea es {@code +folio}
+ *   (abierto) o {@code -folio} (cerrado). Con {@code Catalog-Snapshot: true} la respuesta es el
+ *   catálogo completo y reemplaza al local.
+ * <br>
+ * El cuerpo se lee en flujo, sin cargar la respuesta completa en un {@code String}.
+ * Cualquier respuesta fuera de 2xx y 304 se reporta como {@link IOException}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class HttpCatalogSource implements CatalogSource {
+
+    static final String HEADER_SNAPSHOT = "Catalog-Snapshot";
+
+    private final String baseUrl;
+    private final String authToken;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * @param baseUrl url base del API del catálogo, sin diagonal final
+     * @param authToken token de sesión para el encabezado Authorization, o null
+     */
+    public HttpCatalogSource(String baseUrl, String authToken) {
+        this(baseUrl, authToken, 15_000, 30_000);
+    }
+
+    public HttpCatalogSource(String baseUrl, String authToken, int connectTimeoutMs, int readTimeoutMs) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.authToken = authToken;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @Override
+    public CatalogDelta fetchSince(String cursor) throws IOException {
+        String path = "/folios" + (cursor != null
+                ? "?since=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8.name()) : "");
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setUseCaches(false);
+            if (authToken != null) {
+                connection.setRequestProperty("Authorization", "Bearer " + authToken);
+            }
+            if (cursor != null) {
+                connection.setRequestProperty("If-None-Match", "\"" + cursor + "\"");
+            }
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return CatalogDelta.notModified(cursor);
+            }
+            if (status < 200 || status >= 300) {
+                throw new IOException("HTTP " + status + " en " + connection.getURL().getPath());
+            }
+            String etag = connection.getHeaderField("ETag");
+            if (etag == null || etag.trim().isEmpty()) {
+                throw new IOException("Falta el encabezado ETag");
+            }
+            boolean snapshot = "true".equalsIgnoreCase(connection.getHeaderField(HEADER_SNAPSHOT));
+            List<String> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() < 2) {
+                        continue;
+                    }
+                    if (line.charAt(0) == '+') {
+                        added.add(line.substring(1));
+                    } else if (line.charAt(0) == '-') {
+                        removed.add(line.substring(1));
+                    } else {
+                        throw new IOException("Línea de catálogo inválida: " + line);
+                    }
+                }
+            }
+            return new CatalogDelta(unquote(etag.trim()), snapshot, added, removed);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /** Quita las comillas y el prefijo de validador débil de un ETag */
+    private static String unquote(String etag) {
+        String value = etag.startsWith("W/") ? etag.substring(2) : etag;
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1) : value;
+    }
+}
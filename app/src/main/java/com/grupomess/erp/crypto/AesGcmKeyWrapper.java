@@ -0,0 +1,59 @@
+package com.grupomess.erp.crypto;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Envuelve llaves de datos con AES-GCM bajo una llave maestra.
+ * <br>
+ * El IV lo elige el proveedor al cifrar (Android Keystore no acepta uno externo) y se guarda
+ * al inicio: IV de 12 bytes, llave cifrada de 32 y etiqueta de 16. Funciona igual con una
+ * llave de Android Keystore que con una {@link SecretKey} en memoria, como en las pruebas.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class AesGcmKeyWrapper implements KeyWrapper {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private final SecretKey masterKey;
+
+    /**
+     * @param masterKey llave AES maestra; puede ser de un almacén que no la deja leer
+     */
+    public AesGcmKeyWrapper(SecretKey masterKey) {
+        this.masterKey = masterKey;
+    }
+
+    @Override
+    public byte[] wrap(byte[] key) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, masterKey);
+        byte[] iv = cipher.getIV();
+        if (iv == null || iv.length != StreamingAead.NONCE_BYTES) {
+            throw new GeneralSecurityException("IV inesperado al envolver la llave");
+        }
+        byte[] wrapped = new byte[StreamingAead.WRAPPED_KEY_BYTES];
+        System.arraycopy(iv, 0, wrapped, 0, iv.length);
+        int length = cipher.doFinal(key, 0, key.length, wrapped, iv.length);
+        if (iv.length + length != wrapped.length) {
+            throw new GeneralSecurityException("Tamaño inesperado de la llave envuelta");
+        }
+        return wrapped;
+    }
+
+    @Override
+    public byte[] unwrap(byte[] wrapped) throws GeneralSecurityException {
+        if (wrapped.length != StreamingAead.WRAPPED_KEY_BYTES) {
+            throw new GeneralSecurityException("Llave envuelta de tamaño inválido");
+        }
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, masterKey,
+                new GCMParameterSpec(StreamingAead.TAG_BYTES * 8, wrapped, 0, StreamingAead.NONCE_BYTES));
+        return cipher.doFinal(wrapped, StreamingAead.NONCE_BYTES, wrapped.length - StreamingAead.NONCE_BYTES);
+    }
+}
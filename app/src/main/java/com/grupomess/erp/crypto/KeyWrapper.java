@@ -0,0 +1,27 @@
+package com.grupomess.erp.crypto;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Protege la llave de datos de cada archivo cifrado con una llave maestra que nunca sale de
+ * su almacén (en la app, Android Keystore).
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface KeyWrapper {
+
+    /**
+     * @param key llave de datos de {@link StreamingAead#KEY_BYTES} bytes
+     * @return llave envuelta de {@link StreamingAead#WRAPPED_KEY_BYTES} bytes
+     * @throws GeneralSecurityException si la llave maestra no está disponible
+     */
+    byte[] wrap(byte[] key) throws GeneralSecurityException;
+
+    /**
+     * @param wrapped llave envuelta por {@link #wrap(byte[])}
+     * @return llave de datos
+     * @throws GeneralSecurityException si la llave envuelta fue alterada o es de otra llave maestra
+     */
+    byte[] unwrap(byte[] wrapped) throws GeneralSecurityException;
+}
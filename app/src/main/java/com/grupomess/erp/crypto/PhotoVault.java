@@ -0,0 +1,178 @@
+package com.grupomess.erp.crypto;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * Acceso a las fotos guardadas, cifradas o no.
+ * <br>
+ * La llave maestra vive en Android Keystore (respaldada por hardware cuando el dispositivo lo
+ * permite) y sólo envuelve la llave aleatoria de cada foto; los datos se cifran con
+ * {@link StreamingAead}. Si la app se desinstala o se borran sus datos, la llave maestra se
+ * pierde y las fotos cifradas ya no se pueden abrir: la copia subida al ERP es la que vale.
+ * <br>
+ * Es un singleton a nivel de aplicación y seguro entre hilos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class PhotoVault {
+
+    /** Sufijo con que se guardan las fotos cifradas, después de la extensión de su formato */
+    public static final String ENCRYPTED_SUFFIX = ".enc";
+
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "fotos_folio";
+    private static final int MASTER_KEY_BITS = 256;
+
+    private static volatile PhotoVault instance;
+
+    private final ContentResolver resolver;
+    private volatile StreamingAead aead;
+
+    private PhotoVault(Context context) {
+        resolver = context.getContentResolver();
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return acceso compartido a las fotos
+     */
+    public static PhotoVault getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PhotoVault.class) {
+                if (instance == null) {
+                    instance = new PhotoVault(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Obtiene el cifrador; la primera vez crea la llave maestra si no existe. Hace E/S.
+     * @return cifrador con la llave maestra de este dispositivo
+     * @throws IOException si Android Keystore no está disponible
+     */
+    public StreamingAead getAead() throws IOException {
+        StreamingAead current = aead;
+        if (current == null) {
+            synchronized (this) {
+                current = aead;
+                if (current == null) {
+                    try {
+                        current = StreamingAead.withDefaults(new AesGcmKeyWrapper(masterKey()));
+                    } catch (GeneralSecurityException e) {
+                        throw new IOException("No se pudo obtener la llave de las fotos", e);
+                    }
+                    aead = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Abre una foto guardada y la descifra al leerla si está cifrada. Usa un segmento de
+     * memoria sin importar el tamaño de la foto.
+     * @param uri foto en MediaStore
+     * @return bytes de la foto en claro, desde el inicio
+     * @throws IOException si no se puede abrir o, al leer, si el archivo cifrado fue alterado
+     */
+    public InputStream open(Uri uri) throws IOException {
+        InputStream raw = resolver.openInputStream(uri);
+        if (raw == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        BufferedInputStream in = new BufferedInputStream(raw);
+        try {
+            if (!startsEncrypted(in)) {
+                return in;
+            }
+            return getAead().decrypt(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param uri foto en MediaStore
+     * @return true si la foto está cifrada; lee sólo su encabezado
+     * @throws IOException si no se puede abrir
+     */
+    public boolean isEncrypted(Uri uri) throws IOException {
+        InputStream raw = resolver.openInputStream(uri);
+        if (raw == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        try (BufferedInputStream in = new BufferedInputStream(raw)) {
+            return startsEncrypted(in);
+        }
+    }
+
+    /**
+     * @param fileName nombre de la foto en disco
+     * @return true si el nombre marca una foto cifrada
+     */
+    public static boolean isEncryptedName(String fileName) {
+        return fileName.endsWith(ENCRYPTED_SUFFIX);
+    }
+
+    /**
+     * @param fileName nombre de la foto en disco
+     * @return nombre con la extensión de su formato, sin el sufijo de cifrado
+     */
+    public static String plainName(String fileName) {
+        return isEncryptedName(fileName)
+                ? fileName.substring(0, fileName.length() - ENCRYPTED_SUFFIX.length()) : fileName;
+    }
+
+    /**
+     * Revisa el encabezado y deja el flujo en su inicio.
+     */
+    private static boolean startsEncrypted(BufferedInputStream in) throws IOException {
+        byte[] header = new byte[StreamingAead.HEADER_BYTES];
+        in.mark(header.length);
+        int length = 0;
+        while (length < header.length) {
+            int read = in.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        in.reset();
+        return StreamingAead.isEncrypted(header, length);
+    }
+
+    private static SecretKey masterKey() throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        keyStore.load(null);
+        KeyStore.Entry entry = keyStore.getEntry(KEY_ALIAS, null);
+        if (entry instanceof KeyStore.SecretKeyEntry) {
+            return ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+        }
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        generator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(MASTER_KEY_BITS)
+                .build());
+        return generator.generateKey();
+    }
+}
@@ -0,0 +1,430 @@
+package com.grupomess.erp.crypto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Cifrado autenticado por flujo para archivos grandes: AES-256-GCM por segmentos de tamaño fijo.
+ * <br>
+ * Formato del archivo:
+ * <pre>
+ * "FENC" | versión (1) | tamaño de segmento (4) | llave envuelta (60) | segmento 0 | ... | segmento n
+ * </pre>
+ * - Cada archivo tiene su propia llave de datos aleatoria, envuelta en el encabezado con el
+ *   {@link KeyWrapper}; la llave maestra nunca toca los datos.
+ * - Cada segmento lleva {@code segmentSize} bytes de la foto (el último, de 0 a
+ *   {@code segmentSize}) seguidos de su etiqueta de 16 bytes.
+ * - El nonce de cada segmento es su índice y una marca de último segmento, y el encabezado
+ *   completo va como datos asociados. Así se detecta un segmento alterado, reordenado, copiado
+ *   de otro archivo o un archivo truncado justo en un límite de segmento.
+ * <br>
+ * Cifrar y descifrar usan un solo segmento en memoria, sin importar el tamaño del archivo.
+ * Un segmento sólo se entrega descifrado después de verificar su etiqueta.
+ * <br>
+ * Es inmutable y seguro entre hilos; cada flujo usa su propio {@link Cipher}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class StreamingAead {
+
+    public static final int KEY_BYTES = 32;
+    public static final int NONCE_BYTES = 12;
+    public static final int TAG_BYTES = 16;
+    /** IV, llave cifrada y etiqueta */
+    public static final int WRAPPED_KEY_BYTES = NONCE_BYTES + KEY_BYTES + TAG_BYTES;
+    public static final int HEADER_BYTES = 4 + 1 + 4 + WRAPPED_KEY_BYTES;
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024;
+    /** Límite de segmento aceptado al leer, para no reservar memoria por un encabezado dañado */
+    public static final int MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    private static final byte[] MAGIC = "FENC".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    /** Índice máximo de segmento: el nonce lo guarda en 4 bytes sin signo */
+    private static final long MAX_SEGMENTS = 0xFFFFFFFFL;
+
+    private final KeyWrapper keyWrapper;
+    private final int segmentSize;
+    private final SecureRandom random = new SecureRandom();
+
+    private StreamingAead(Builder builder) {
+        keyWrapper = builder.keyWrapper;
+        segmentSize = builder.segmentSize;
+    }
+
+    /**
+     * @param keyWrapper protege la llave de cada archivo
+     * @return cifrador con segmentos de {@link #DEFAULT_SEGMENT_BYTES}
+     */
+    public static StreamingAead withDefaults(KeyWrapper keyWrapper) {
+        return new Builder(keyWrapper).build();
+    }
+
+    /**
+     * Escribe el encabezado y devuelve un flujo que cifra lo que recibe.
+     * El último segmento se sella en {@link OutputStream#close()}; sin cerrar el flujo el
+     * archivo no se puede leer.
+     * @param out destino del archivo cifrado; se cierra con el flujo devuelto
+     * @return flujo de la foto en claro
+     * @throws IOException si falla la escritura o la llave maestra no está disponible
+     */
+    public OutputStream encrypt(OutputStream out) throws IOException {
+        byte[] rawKey = new byte[KEY_BYTES];
+        random.nextBytes(rawKey);
+        byte[] header;
+        try {
+            header = header(segmentSize, keyWrapper.wrap(rawKey));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("No se pudo proteger la llave del archivo", e);
+        }
+        SecretKey key = new SecretKeySpec(rawKey, "AES");
+        Arrays.fill(rawKey, (byte) 0);
+        out.write(header);
+        return new EncryptingStream(out, key, header, segmentSize);
+    }
+
+    /**
+     * Lee y valida el encabezado y devuelve un flujo con la foto en claro.
+     * Cualquier alteración o truncamiento aparece como {@link IOException} al leer.
+     * @param in archivo cifrado; se cierra con el flujo devuelto
+     * @return flujo de la foto en claro
+     * @throws IOException si el encabezado no es válido o la llave no se puede recuperar
+     */
+    public InputStream decrypt(InputStream in) throws IOException {
+        byte[] header = new byte[HEADER_BYTES];
+        readFully(in, header, HEADER_BYTES);
+        if (!isEncrypted(header, HEADER_BYTES)) {
+            throw new IOException("El archivo no está cifrado o es de otra versión");
+        }
+        int fileSegmentSize = ByteBuffer.wrap(header, MAGIC.length + 1, 4).getInt();
+        if (fileSegmentSize < 1 || fileSegmentSize > MAX_SEGMENT_BYTES) {
+            throw new IOException("Tamaño de segmento inválido: " + fileSegmentSize);
+        }
+        byte[] rawKey;
+        try {
+            rawKey = keyWrapper.unwrap(Arrays.copyOfRange(header, HEADER_BYTES - WRAPPED_KEY_BYTES, HEADER_BYTES));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("No se pudo recuperar la llave del archivo", e);
+        }
+        SecretKey key = new SecretKeySpec(rawKey, "AES");
+        Arrays.fill(rawKey, (byte) 0);
+        return new DecryptingStream(in, key, header, fileSegmentSize);
+    }
+
+    /**
+     * @param data primeros bytes de un archivo
+     * @param length bytes válidos en {@code data}
+     * @return true si empiezan con el encabezado de esta versión
+     */
+    public static boolean isEncrypted(byte[] data, int length) {
+        if (length < MAGIC.length + 1) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return data[MAGIC.length] == VERSION;
+    }
+
+    /**
+     * @param plaintextSize bytes de la foto
+     * @return bytes del archivo cifrado con el tamaño de segmento de este cifrador
+     */
+    public long ciphertextSize(long plaintextSize) {
+        long segments = Math.max(1, (plaintextSize + segmentSize - 1) / segmentSize);
+        return HEADER_BYTES + plaintextSize + segments * TAG_BYTES;
+    }
+
+    /**
+     * @param ciphertextSize bytes de un archivo cifrado con el tamaño de segmento de este cifrador
+     * @return bytes de la foto
+     * @throws IllegalArgumentException si el tamaño no corresponde a un archivo completo
+     */
+    public long plaintextSize(long ciphertextSize) {
+        long body = ciphertextSize - HEADER_BYTES;
+        if (body < TAG_BYTES) {
+            throw new IllegalArgumentException("Archivo cifrado incompleto: " + ciphertextSize + " bytes");
+        }
+        long full = (long) segmentSize + TAG_BYTES;
+        long segments = Math.max(1, (body + full - 1) / full);
+        return body - segments * TAG_BYTES;
+    }
+
+    /**
+     * @return bytes de la foto por segmento
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    private static byte[] header(int segmentSize, byte[] wrappedKey) {
+        return ByteBuffer.allocate(HEADER_BYTES)
+                .put(MAGIC)
+                .put(VERSION)
+                .putInt(segmentSize)
+                .put(wrappedKey)
+                .array();
+    }
+
+    private static GCMParameterSpec nonce(long index, boolean last) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        nonce[7] = (byte) (index >>> 24);
+        nonce[8] = (byte) (index >>> 16);
+        nonce[9] = (byte) (index >>> 8);
+        nonce[10] = (byte) index;
+        nonce[11] = (byte) (last ? 1 : 0);
+        return new GCMParameterSpec(TAG_BYTES * 8, nonce);
+    }
+
+    private static void readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int total = read(in, buffer, 0, length);
+        if (total < length) {
+            throw new EOFException("Archivo cifrado truncado");
+        }
+    }
+
+    /**
+     * @return bytes leídos; menos de {@code length} sólo al final del flujo
+     */
+    private static int read(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(buffer, offset + total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Junta un segmento completo y lo sella sólo cuando llegan más datos, para que el último
+     * lleve la marca aunque la foto mida exactamente un múltiplo del segmento.
+     */
+    private static final class EncryptingStream extends OutputStream {
+        private final OutputStream out;
+        private final SecretKey key;
+        private final byte[] header;
+        private final Cipher cipher;
+        private final byte[] plain;
+        private final byte[] sealed;
+        private int count;
+        private long index;
+        private boolean closed;
+
+        EncryptingStream(OutputStream out, SecretKey key, byte[] header, int segmentSize) throws IOException {
+            this.out = out;
+            this.key = key;
+            this.header = header;
+            try {
+                cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("AES-GCM no disponible", e);
+            }
+            plain = new byte[segmentSize];
+            sealed = new byte[segmentSize + TAG_BYTES];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("El flujo cifrado ya se cerró");
+            }
+            while (len > 0) {
+                if (count == plain.length) {
+                    seal(false);
+                }
+                int chunk = Math.min(len, plain.length - count);
+                System.arraycopy(b, off, plain, count, chunk);
+                count += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        /** No sella el segmento en curso; sólo vacía lo ya cifrado */
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                seal(true);
+            } finally {
+                Arrays.fill(plain, (byte) 0);
+                out.close();
+            }
+        }
+
+        private void seal(boolean last) throws IOException {
+            if (index > MAX_SEGMENTS) {
+                throw new IOException("Archivo demasiado grande para cifrar");
+            }
+            int length;
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, key, nonce(index, last));
+                cipher.updateAAD(header);
+                length = cipher.doFinal(plain, 0, count, sealed, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("No se pudo cifrar el segmento " + index, e);
+            }
+            out.write(sealed, 0, length);
+            index++;
+            count = 0;
+        }
+    }
+
+    /**
+     * Lee un byte más que un segmento completo: si existe, el segmento no es el último.
+     */
+    private static final class DecryptingStream extends InputStream {
+        private final InputStream in;
+        private final SecretKey key;
+        private final byte[] header;
+        private final Cipher cipher;
+        private final byte[] sealed;
+        private final byte[] plain;
+        /** Bytes ya leídos del siguiente segmento, al inicio de {@link #sealed} */
+        private int pending;
+        private int position;
+        private int limit;
+        private long index;
+        private boolean finished;
+
+        DecryptingStream(InputStream in, SecretKey key, byte[] header, int segmentSize) throws IOException {
+            this.in = in;
+            this.key = key;
+            this.header = header;
+            try {
+                cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("AES-GCM no disponible", e);
+            }
+            sealed = new byte[segmentSize + TAG_BYTES + 1];
+            plain = new byte[segmentSize];
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == limit) {
+                if (finished) {
+                    return -1;
+                }
+                open();
+            }
+            int chunk = Math.min(len, limit - position);
+            System.arraycopy(plain, position, b, off, chunk);
+            position += chunk;
+            return chunk;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            position = limit = 0;
+            Arrays.fill(plain, (byte) 0);
+            in.close();
+        }
+
+        private void open() throws IOException {
+            int read = pending + StreamingAead.read(in, sealed, pending, sealed.length - pending);
+            boolean last = read < sealed.length;
+            int length = last ? read : read - 1;
+            if (length < TAG_BYTES) {
+                throw new EOFException("Archivo cifrado truncado en el segmento " + index);
+            }
+            if (index > MAX_SEGMENTS) {
+                throw new IOException("Archivo cifrado con demasiados segmentos");
+            }
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key, nonce(index, last));
+                cipher.updateAAD(header);
+                limit = cipher.doFinal(sealed, 0, length, plain, 0);
+            } catch (AEADBadTagException e) {
+                throw new IOException("Segmento " + index + " alterado, reordenado o truncado", e);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("No se pudo descifrar el segmento " + index, e);
+            }
+            position = 0;
+            index++;
+            finished = last;
+            if (!last) {
+                sealed[0] = sealed[read - 1];
+                pending = 1;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final KeyWrapper keyWrapper;
+        private int segmentSize = DEFAULT_SEGMENT_BYTES;
+
+        /**
+         * @param keyWrapper protege la llave de cada archivo
+         */
+        public Builder(KeyWrapper keyWrapper) {
+            if (keyWrapper == null) {
+                throw new IllegalArgumentException("Se requiere quien proteja las llaves");
+            }
+            this.keyWrapper = keyWrapper;
+        }
+
+        /**
+         * @param segmentSize bytes de la foto por segmento; define la memoria de cada flujo
+         * @return este builder
+         */
+        public Builder setSegmentSize(int segmentSize) {
+            if (segmentSize < 1 || segmentSize > MAX_SEGMENT_BYTES) {
+                throw new IllegalArgumentException("Tamaño de segmento fuera de rango: " + segmentSize);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        public StreamingAead build() {
+            return new StreamingAead(this);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.grupomess.erp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice local (SQLite) de los folios guardados en Descargas.
+ * <br>
+ * Cada guardado registra el folio, la fecha, el número de fotos y el Uri y tamaño de cada foto.
+ * Las consultas usan paginación por llave (keyset) sobre índices, de modo que el costo no
+ * depende de cuántos folios haya:
+ * - Listado por fecha: índice {@code (saved_at, _id)}.
+ * - Búsqueda por prefijo: rango {@code folio_key >= prefijo AND folio_key < prefijo + U+FFFF}
+ *   sobre el índice {@code (folio_key, _id)}.
+ * <br>
+ * Cada página se puede pedir hacia adelante o hacia atrás desde un folio ya cargado, para que
+ * el historial descarte las páginas lejanas y las vuelva a pedir al regresar. La portada de
+ * cada folio (su primera foto) sale en la misma consulta por la llave primaria de las fotos.
+ * <br>
+ * Cada registro aumenta {@link #getGeneration()}, para que el historial sepa sin consultar si
+ * hay folios nuevos.
+ * <br>
+ * Los métodos hacen E/S de disco; deben llamarse fuera del hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioIndex extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "folios.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE_FOLIOS = "folios";
+    static final String TABLE_PHOTOS = "folio_photos";
+
+    /** Uri de la primera foto; una búsqueda por la llave primaria {@code (folio_id, position)} */
+    private static final String COVER_COLUMN = "(SELECT uri FROM " + TABLE_PHOTOS
+            + " WHERE folio_id = " + TABLE_FOLIOS + "._id AND position = 0)";
+
+    private static volatile FolioIndex instance;
+
+    /** Folios registrados desde que se abrió el índice en este proceso */
+    private final AtomicLong generation = new AtomicLong();
+
+    private FolioIndex(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Índice propio, para pruebas.
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @param name archivo de la base; null para una base en memoria
+     */
+    FolioIndex(Context context, String name) {
+        super(context.getApplicationContext(), name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return índice compartido
+     */
+    public static FolioIndex getInstance(Context context) {
+        if (instance == null) {
+            synchronized (FolioIndex.class) {
+                if (instance == null) {
+                    instance = new FolioIndex(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.setForeignKeyConstraintsEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_FOLIOS + " ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "folio TEXT NOT NULL, "
+                + "folio_key TEXT NOT NULL, "
+                + "saved_at INTEGER NOT NULL, "
+                + "photo_count INTEGER NOT NULL, "
+                + "total_bytes INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_folios_key ON " + TABLE_FOLIOS + " (folio_key, _id)");
+        db.execSQL("CREATE INDEX idx_folios_saved_at ON " + TABLE_FOLIOS + " (saved_at, _id)");
+        db.execSQL("CREATE TABLE " + TABLE_PHOTOS + " ("
+                + "folio_id INTEGER NOT NULL REFERENCES " + TABLE_FOLIOS + "(_id) ON DELETE CASCADE, "
+                + "position INTEGER NOT NULL, "
+                + "uri TEXT NOT NULL, "
+                + "size_bytes INTEGER NOT NULL, "
+                + "PRIMARY KEY (folio_id, position)) WITHOUT ROWID");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Primera versión del esquema
+    }
+
+    /**
+     * Registra un folio guardado con sus fotos en una sola transacción.
+     * @param folio nombre del folio
+     * @param savedAt fecha de guardado en milisegundos
+     * @param photos fotos en orden
+     * @return folio registrado
+     */
+    public SavedFolio recordSave(String folio, long savedAt, List<SavedPhoto> photos) {
+        SQLiteDatabase db = getWritableDatabase();
+        long totalBytes = 0;
+        for (SavedPhoto photo : photos) {
+            totalBytes += photo.getSizeBytes();
+        }
+
+        SavedFolio saved;
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("folio", folio);
+            values.put("folio_key", toKey(folio));
+            values.put("saved_at", savedAt);
+            values.put("photo_count", photos.size());
+            values.put("total_bytes", totalBytes);
+            long id = db.insertOrThrow(TABLE_FOLIOS, null, values);
+
+            SQLiteStatement insertPhoto = db.compileStatement("INSERT INTO " + TABLE_PHOTOS
+                    + " (folio_id, position, uri, size_bytes) VALUES (?, ?, ?, ?)");
+            for (int i = 0; i < photos.size(); i++) {
+                insertPhoto.clearBindings();
+                insertPhoto.bindLong(1, id);
+                insertPhoto.bindLong(2, i);
+                insertPhoto.bindString(3, photos.get(i).getUri());
+                insertPhoto.bindLong(4, photos.get(i).getSizeBytes());
+                insertPhoto.executeInsert();
+            }
+            db.setTransactionSuccessful();
+            saved = new SavedFolio(id, folio, savedAt, photos.size(), totalBytes,
+                    photos.isEmpty() ? null : photos.get(0).getUri());
+        } finally {
+            db.endTransaction();
+        }
+        // Después de confirmar, para que quien vea la generación nueva ya encuentre el folio
+        generation.incrementAndGet();
+        return saved;
+    }
+
+    /**
+     * Cambia con cada folio registrado; no requiere E/S y se puede leer desde el hilo principal.
+     * @return generación actual del índice
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Página de folios, del más reciente al más antiguo.
+     * @param after último folio de la página anterior, o null para la primera página
+     * @param limit tamaño de página
+     * @return folios de la página
+     */
+    public List<SavedFolio> loadRecent(SavedFolio after, int limit) {
+        String selection = null;
+        String[] args = null;
+        if (after != null) {
+            selection = "saved_at < ? OR (saved_at = ? AND _id < ?)";
+            args = new String[]{String.valueOf(after.getSavedAt()), String.valueOf(after.getSavedAt()),
+                    String.valueOf(after.getId())};
+        }
+        return query(selection, args, "saved_at DESC, _id DESC", limit);
+    }
+
+    /**
+     * Página de folios más recientes que uno ya cargado, en el mismo orden que {@link #loadRecent}.
+     * @param before primer folio de la página siguiente
+     * @param limit tamaño de página
+     * @return folios de la página; los más cercanos a {@code before} al final
+     */
+    public List<SavedFolio> loadRecentBefore(SavedFolio before, int limit) {
+        List<SavedFolio> page = query("saved_at > ? OR (saved_at = ? AND _id > ?)",
+                new String[]{String.valueOf(before.getSavedAt()), String.valueOf(before.getSavedAt()),
+                        String.valueOf(before.getId())},
+                "saved_at ASC, _id ASC", limit);
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Página de folios cuyo nombre empieza con el prefijo, en orden alfabético.
+     * @param prefix prefijo del folio, sin distinguir mayúsculas
+     * @param after último folio de la página anterior, o null para la primera página
+     * @param limit tamaño de página
+     * @return folios de la página
+     */
+    public List<SavedFolio> searchByPrefix(String prefix, SavedFolio after, int limit) {
+        String low = toKey(prefix);
+        String high = low + '\uffff';
+        if (after == null) {
+            return query("folio_key >= ? AND folio_key < ?", new String[]{low, high},
+                    "folio_key ASC, _id ASC", limit);
+        }
+        String afterKey = toKey(after.getFolio());
+        return query("folio_key < ? AND (folio_key > ? OR (folio_key = ? AND _id > ?))",
+                new String[]{high, afterKey, afterKey, String.valueOf(after.getId())},
+                "folio_key ASC, _id ASC", limit);
+    }
+
+    /**
+     * Página de folios con el prefijo anteriores a uno ya cargado, en el mismo orden que
+     * {@link #searchByPrefix}.
+     * @param prefix prefijo del folio, sin distinguir mayúsculas
+     * @param before primer folio de la página siguiente
+     * @param limit tamaño de página
+     * @return folios de la página; los más cercanos a {@code before} al final
+     */
+    public List<SavedFolio> searchByPrefixBefore(String prefix, SavedFolio before, int limit) {
+        String low = toKey(prefix);
+        String beforeKey = toKey(before.getFolio());
+        List<SavedFolio> page = query("folio_key >= ? AND (folio_key < ? OR (folio_key = ? AND _id < ?))",
+                new String[]{low, beforeKey, beforeKey, String.valueOf(before.getId())},
+                "folio_key DESC, _id DESC", limit);
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Fotos de un folio guardado, en orden.
+     * @param folioId identificador del folio
+     * @return fotos del folio
+     */
+    public List<SavedPhoto> loadPhotos(long folioId) {
+        List<SavedPhoto> photos = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_PHOTOS, new String[]{"uri", "size_bytes"},
+                "folio_id = ?", new String[]{String.valueOf(folioId)}, null, null, "position ASC")) {
+            while (cursor.moveToNext()) {
+                photos.add(new SavedPhoto(cursor.getString(0), cursor.getLong(1)));
+            }
+        }
+        return photos;
+    }
+
+    private List<SavedFolio> query(String selection, String[] args, String orderBy, int limit) {
+        List<SavedFolio> result = new ArrayList<>(limit);
+        try (Cursor cursor = getReadableDatabase().query(TABLE_FOLIOS,
+                new String[]{"_id", "folio", "saved_at", "photo_count", "total_bytes", COVER_COLUMN},
+                selection, args, null, null, orderBy, String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                result.add(new SavedFolio(cursor.getLong(0), cursor.getString(1), cursor.getLong(2),
+                        cursor.getInt(3), cursor.getLong(4), cursor.getString(5)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Llave de búsqueda: folio sin espacios extremos y en mayúsculas.
+     */
+    static String toKey(String folio) {
+        return folio.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,209 @@
+package com.grupomess.erp.data;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Manifiesto de un folio guardado: qué fotos se escribieron, con su tamaño y CRC-32.
+ * <br>
+ * Es una bitácora de sólo agregar, una línea por registro separada por tabuladores:
+ * <pre>
+ * folio   F-004512
+ * foto    posición  nombre  bytes  crc32  uri  archivo de origen
+ * estado  COMPLETO
+ * </pre>
+ * Cada foto se agrega en cuanto termina de escribirse y el estado al final del guardado, así
+ * que tras un cierre inesperado el manifiesto dice exactamente qué fotos ya están escritas
+ * sin tener que revisar la carpeta. Una última línea incompleta se ignora al leer.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioManifest {
+
+    private static final String KEY_FOLIO = "folio";
+    private static final String KEY_PHOTO = "foto";
+    private static final String KEY_STATE = "estado";
+    private static final String STATE_COMPLETE = "COMPLETO";
+
+    private final String folio;
+    private final boolean complete;
+    private final List<Entry> entries;
+
+    private FolioManifest(String folio, boolean complete, List<Entry> entries) {
+        this.folio = folio;
+        this.complete = complete;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Lee un manifiesto.
+     * @param file archivo del manifiesto
+     * @return manifiesto, o null si el archivo no existe o no tiene encabezado
+     * @throws IOException si no se puede leer
+     */
+    public static FolioManifest read(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        String folio = null;
+        boolean complete = false;
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if (KEY_FOLIO.equals(parts[0]) && parts.length == 2) {
+                    folio = parts[1];
+                } else if (KEY_STATE.equals(parts[0]) && parts.length == 2) {
+                    complete = STATE_COMPLETE.equals(parts[1]);
+                } else if (KEY_PHOTO.equals(parts[0]) && parts.length == 7) {
+                    try {
+                        entries.add(new Entry(Integer.parseInt(parts[1]), parts[2], Long.parseLong(parts[3]),
+                                Long.parseLong(parts[4], 16), parts[5], parts[6]));
+                    } catch (NumberFormatException e) {
+                        // Línea cortada por un cierre inesperado
+                    }
+                }
+            }
+        }
+        return folio == null ? null : new FolioManifest(folio, complete, entries);
+    }
+
+    /** @return folio del manifiesto */
+    public String getFolio() {
+        return folio;
+    }
+
+    /** @return true si el guardado terminó y las fotos se publicaron */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** @return fotos escritas, en el orden en que terminaron */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Busca la foto escrita a partir de un archivo de origen.
+     * @param sourcePath ruta del archivo capturado
+     * @return foto escrita, o null si ese archivo no se había escrito
+     */
+    public Entry findBySource(String sourcePath) {
+        for (Entry entry : entries) {
+            if (entry.sourcePath.equals(sourcePath)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Versión compacta para publicar junto a las fotos: una línea por foto con nombre,
+     * tamaño y CRC-32, en orden de posición.
+     * @return texto del manifiesto publicado
+     */
+    public String toPublishedText() {
+        List<Entry> ordered = new ArrayList<>(entries);
+        Collections.sort(ordered, (a, b) -> Integer.compare(a.position, b.position));
+        StringBuilder text = new StringBuilder();
+        text.append(KEY_FOLIO).append('\t').append(folio).append('\n');
+        text.append("fotos\t").append(ordered.size()).append('\n');
+        for (Entry entry : ordered) {
+            text.append(entry.fileName).append('\t').append(entry.sizeBytes).append('\t')
+                    .append(entry.crc32Hex()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Foto escrita.
+     */
+    public static final class Entry {
+        /** Posición de la foto en el folio, desde 0 */
+        public final int position;
+        public final String fileName;
+        public final long sizeBytes;
+        public final long crc32;
+        /** Uri de MediaStore */
+        public final String uri;
+        /** Archivo capturado del que salió la foto */
+        public final String sourcePath;
+
+        public Entry(int position, String fileName, long sizeBytes, long crc32, String uri, String sourcePath) {
+            this.position = position;
+            this.fileName = fileName;
+            this.sizeBytes = sizeBytes;
+            this.crc32 = crc32;
+            this.uri = uri;
+            this.sourcePath = sourcePath;
+        }
+
+        /** @return CRC-32 en 8 dígitos hexadecimales */
+        public String crc32Hex() {
+            return String.format(Locale.ROOT, "%08x", crc32);
+        }
+    }
+
+    /**
+     * Agrega registros a un manifiesto. Cada registro se sincroniza con el disco antes
+     * de regresar. No es seguro entre hilos.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final FileOutputStream out;
+
+        /**
+         * Abre un manifiesto para agregar registros. Si el archivo es nuevo escribe el encabezado.
+         * @param file archivo del manifiesto
+         * @param folio folio que se guarda
+         * @throws IOException si no se puede abrir
+         */
+        public Writer(File file, String folio) throws IOException {
+            boolean existed = file.exists() && file.length() > 0;
+            out = new FileOutputStream(file, true);
+            if (!existed) {
+                write(KEY_FOLIO + "\t" + folio);
+            }
+        }
+
+        /**
+         * @param entry foto terminada de escribir
+         * @throws IOException si no se puede escribir
+         */
+        public void append(Entry entry) throws IOException {
+            write(KEY_PHOTO + "\t" + entry.position + "\t" + entry.fileName + "\t" + entry.sizeBytes + "\t"
+                    + entry.crc32Hex() + "\t" + entry.uri + "\t" + entry.sourcePath);
+        }
+
+        /**
+         * Marca el guardado como terminado y publicado.
+         * @throws IOException si no se puede escribir
+         */
+        public void markComplete() throws IOException {
+            write(KEY_STATE + "\t" + STATE_COMPLETE);
+        }
+
+        private void write(String line) throws IOException {
+            // Una línea cortada a la mitad por un cierre inesperado se descarta al leer
+            out.write(('\n' + line + '\n').getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
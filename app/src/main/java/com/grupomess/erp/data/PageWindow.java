@@ -0,0 +1,148 @@
+package com.grupomess.erp.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ventana de páginas contiguas de un listado paginado por llave.
+ * <br>
+ * Conserva a lo más {@code maxPages} páginas: al agregar una al final se descarta la primera,
+ * y al agregar una al inicio se descarta la última. Así la memoria queda acotada sin importar
+ * cuánto se desplace el usuario; las páginas descartadas se vuelven a pedir con la llave del
+ * primer o último elemento.
+ * <br>
+ * No es segura entre hilos; el dueño la usa desde un solo hilo.
+ *
+ * @param <T> tipo de elemento
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class PageWindow<T> {
+
+    private final int pageSize;
+    private final int maxPages;
+    private final ArrayDeque<List<T>> pages = new ArrayDeque<>();
+    /** Hay elementos antes de la ventana que se descartaron */
+    private boolean hasBefore;
+    /** Puede haber elementos después de la ventana */
+    private boolean hasAfter = true;
+    private List<T> items = Collections.emptyList();
+
+    /**
+     * @param pageSize elementos por página; una página más corta marca el final del listado
+     * @param maxPages páginas conservadas como máximo, al menos 2
+     */
+    public PageWindow(int pageSize, int maxPages) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser al menos 1");
+        }
+        if (maxPages < 2) {
+            throw new IllegalArgumentException("La ventana necesita al menos 2 páginas");
+        }
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Vacía la ventana para empezar desde el inicio del listado.
+     */
+    public void reset() {
+        pages.clear();
+        hasBefore = false;
+        hasAfter = true;
+        items = Collections.emptyList();
+    }
+
+    /**
+     * Agrega la página que sigue al último elemento.
+     * @param page elementos en orden
+     * @return elementos descartados del inicio
+     */
+    public int append(List<T> page) {
+        hasAfter = page.size() == pageSize;
+        if (page.isEmpty()) {
+            return 0;
+        }
+        pages.addLast(new ArrayList<>(page));
+        int dropped = 0;
+        if (pages.size() > maxPages) {
+            dropped = pages.removeFirst().size();
+            hasBefore = true;
+        }
+        rebuild();
+        return dropped;
+    }
+
+    /**
+     * Agrega la página que precede al primer elemento.
+     * @param page elementos en orden
+     * @return elementos descartados del final
+     */
+    public int prepend(List<T> page) {
+        hasBefore = page.size() == pageSize;
+        if (page.isEmpty()) {
+            return 0;
+        }
+        pages.addFirst(new ArrayList<>(page));
+        int dropped = 0;
+        if (pages.size() > maxPages) {
+            dropped = pages.removeLast().size();
+            hasAfter = true;
+        }
+        rebuild();
+        return dropped;
+    }
+
+    /**
+     * @return elementos de la ventana en orden; la lista no cambia con las siguientes páginas
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return primer elemento, o null si la ventana está vacía
+     */
+    public T first() {
+        return pages.isEmpty() ? null : pages.peekFirst().get(0);
+    }
+
+    /**
+     * @return último elemento, o null si la ventana está vacía
+     */
+    public T last() {
+        if (pages.isEmpty()) {
+            return null;
+        }
+        List<T> page = pages.peekLast();
+        return page.get(page.size() - 1);
+    }
+
+    /**
+     * @return true si se descartaron elementos del inicio que se pueden volver a pedir
+     */
+    public boolean hasBefore() {
+        return hasBefore;
+    }
+
+    /**
+     * @return true si puede haber más elementos después del último
+     */
+    public boolean hasAfter() {
+        return hasAfter;
+    }
+
+    private void rebuild() {
+        int size = 0;
+        for (List<T> page : pages) {
+            size += page.size();
+        }
+        List<T> all = new ArrayList<>(size);
+        for (List<T> page : pages) {
+            all.addAll(page);
+        }
+        items = Collections.unmodifiableList(all);
+    }
+}
@@ -0,0 +1,82 @@
+package com.grupomess.erp.data;
+
+import java.util.Objects;
+
+/**
+ * Folio guardado en el dispositivo, tal como quedó registrado en {@link FolioIndex}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class SavedFolio {
+
+    private final long id;
+    private final String folio;
+    private final long savedAt;
+    private final int photoCount;
+    private final long totalBytes;
+    private final String coverUri;
+
+    /**
+     * @param id identificador en el índice
+     * @param folio nombre del folio
+     * @param savedAt fecha de guardado en milisegundos desde epoch
+     * @param photoCount número de fotos
+     * @param totalBytes tamaño total de las fotos en bytes
+     * @param coverUri Uri de la primera foto, o null si no tiene fotos
+     */
+    public SavedFolio(long id, String folio, long savedAt, int photoCount, long totalBytes, String coverUri) {
+        this.id = id;
+        this.folio = folio;
+        this.savedAt = savedAt;
+        this.photoCount = photoCount;
+        this.totalBytes = totalBytes;
+        this.coverUri = coverUri;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFolio() {
+        return folio;
+    }
+
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return Uri de la foto de portada (la primera), o null si no tiene fotos
+     */
+    public String getCoverUri() {
+        return coverUri;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SavedFolio)) {
+            return false;
+        }
+        SavedFolio other = (SavedFolio) o;
+        return id == other.id && savedAt == other.savedAt && photoCount == other.photoCount
+                && totalBytes == other.totalBytes && folio.equals(other.folio)
+                && Objects.equals(coverUri, other.coverUri);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+}
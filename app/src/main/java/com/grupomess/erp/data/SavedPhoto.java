@@ -0,0 +1,48 @@
+package com.grupomess.erp.data;
+
+/**
+ * Foto de un folio guardado: su Uri en MediaStore, su tamaño y, recién guardada, su nombre.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class SavedPhoto {
+
+    private final String uri;
+    private final long sizeBytes;
+    private final String fileName;
+
+    /**
+     * @param uri Uri de la foto en MediaStore
+     * @param sizeBytes tamaño en bytes
+     */
+    public SavedPhoto(String uri, long sizeBytes) {
+        this(uri, sizeBytes, null);
+    }
+
+    /**
+     * @param uri Uri de la foto en MediaStore
+     * @param sizeBytes tamaño en bytes
+     * @param fileName nombre del archivo con su extensión
+     */
+    public SavedPhoto(String uri, long sizeBytes, String fileName) {
+        this.uri = uri;
+        this.sizeBytes = sizeBytes;
+        this.fileName = fileName;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * @return nombre del archivo, o null si la foto se leyó del índice
+     */
+    public String getFileName() {
+        return fileName;
+    }
+}
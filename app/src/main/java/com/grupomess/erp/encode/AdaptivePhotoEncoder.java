@@ -0,0 +1,174 @@
+package com.grupomess.erp.encode;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Elige formato y calidad por foto para cumplir un presupuesto de bytes o una calidad objetivo.
+ * <br>
+ * Flujo:
+ * 1. El formato se elige comprimiendo una copia reducida (lado mayor de {@link #PROXY_SIZE} px)
+ *    en cada formato candidato: el que produce menos bytes en la copia lo hace también en
+ *    la foto completa, y cuesta una fracción de comprimirla.
+ * 2. Con presupuesto, {@link QualitySearch} busca la mayor calidad que cabe en él; con calidad
+ *    objetivo se comprime directamente a esa calidad.
+ * <br>
+ * No guarda estado por foto, por lo que se puede usar desde varios hilos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class AdaptivePhotoEncoder implements PhotoEncoder {
+
+    /** Lado mayor de la copia reducida para elegir formato */
+    static final int PROXY_SIZE = 512;
+
+    private final List<Bitmap.CompressFormat> formats;
+    private final long budgetBytes;
+    private final int targetQuality;
+    private final int minQuality;
+    private final int maxQuality;
+    private final int maxProbes;
+
+    private AdaptivePhotoEncoder(Builder builder) {
+        formats = Collections.unmodifiableList(new ArrayList<>(builder.formats));
+        budgetBytes = builder.budgetBytes;
+        targetQuality = builder.targetQuality;
+        minQuality = builder.minQuality;
+        maxQuality = builder.maxQuality;
+        maxProbes = builder.maxProbes;
+    }
+
+    /**
+     * Encoder por defecto del guardado: JPEG o WebP, hasta 600 KB por foto y calidad entre 55 y 90.
+     * @return encoder adaptativo
+     */
+    public static AdaptivePhotoEncoder withDefaults() {
+        return new Builder().build();
+    }
+
+    @Override
+    public EncodedPhoto encode(Bitmap bitmap) throws IOException {
+        Bitmap.CompressFormat format = chooseFormat(bitmap);
+        EncodeBuffer buffer = EncodeBuffer.get();
+        int quality;
+        if (budgetBytes > 0) {
+            quality = QualitySearch.search(q -> buffer.compress(bitmap, format, q),
+                    minQuality, maxQuality, budgetBytes, maxProbes).quality;
+        } else {
+            quality = targetQuality;
+        }
+        // La última prueba pudo no ser la elegida; se comprime de nuevo sólo en ese caso
+        if (buffer.lastQuality != quality || buffer.lastFormat != format) {
+            buffer.compress(bitmap, format, quality);
+        }
+        return new EncodedPhoto(buffer.toByteArray(), format, quality);
+    }
+
+    /**
+     * Elige el formato que produce menos bytes en una copia reducida de la foto.
+     */
+    Bitmap.CompressFormat chooseFormat(Bitmap bitmap) throws IOException {
+        if (formats.size() == 1) {
+            return formats.get(0);
+        }
+        int longSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        Bitmap proxy = bitmap;
+        if (longSide > PROXY_SIZE) {
+            float scale = (float) PROXY_SIZE / longSide;
+            proxy = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                    Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+        }
+        try {
+            EncodeBuffer buffer = EncodeBuffer.get();
+            int quality = budgetBytes > 0 ? maxQuality : targetQuality;
+            Bitmap.CompressFormat best = formats.get(0);
+            long bestSize = Long.MAX_VALUE;
+            for (Bitmap.CompressFormat format : formats) {
+                long size = buffer.compress(proxy, format, quality);
+                if (size < bestSize) {
+                    best = format;
+                    bestSize = size;
+                }
+            }
+            return best;
+        } finally {
+            if (proxy != bitmap) {
+                proxy.recycle();
+            }
+        }
+    }
+
+    /**
+     * Constructor de {@link AdaptivePhotoEncoder}.
+     */
+    public static final class Builder {
+        private List<Bitmap.CompressFormat> formats =
+                Arrays.asList(Bitmap.CompressFormat.JPEG, Bitmap.CompressFormat.WEBP_LOSSY);
+        private long budgetBytes = 600 * 1024;
+        private int targetQuality = 85;
+        private int minQuality = 55;
+        private int maxQuality = 90;
+        private int maxProbes = 4;
+
+        /** Formatos candidatos; por defecto JPEG y WEBP_LOSSY */
+        public Builder setFormats(Bitmap.CompressFormat... formats) {
+            if (formats.length == 0) {
+                throw new IllegalArgumentException("Se requiere al menos un formato");
+            }
+            this.formats = Arrays.asList(formats);
+            return this;
+        }
+
+        /** Presupuesto de bytes por foto; reemplaza la calidad objetivo */
+        public Builder setByteBudget(long budgetBytes) {
+            if (budgetBytes <= 0) {
+                throw new IllegalArgumentException("El presupuesto debe ser positivo");
+            }
+            this.budgetBytes = budgetBytes;
+            return this;
+        }
+
+        /** Calidad fija por foto, sin presupuesto; sólo se elige el formato */
+        public Builder setTargetQuality(int quality) {
+            this.targetQuality = checkQuality(quality);
+            this.budgetBytes = 0;
+            return this;
+        }
+
+        /** Rango de calidades para buscar el presupuesto; por defecto 55 a 90 */
+        public Builder setQualityRange(int minQuality, int maxQuality) {
+            if (checkQuality(minQuality) > checkQuality(maxQuality)) {
+                throw new IllegalArgumentException("Rango de calidad inválido");
+            }
+            this.minQuality = minQuality;
+            this.maxQuality = maxQuality;
+            return this;
+        }
+
+        /** Compresiones máximas de la foto completa al buscar la calidad; por defecto 4 */
+        public Builder setMaxProbes(int maxProbes) {
+            if (maxProbes < 1) {
+                throw new IllegalArgumentException("maxProbes debe ser positivo");
+            }
+            this.maxProbes = maxProbes;
+            return this;
+        }
+
+        public AdaptivePhotoEncoder build() {
+            return new AdaptivePhotoEncoder(this);
+        }
+
+        private static int checkQuality(int quality) {
+            if (quality < 0 || quality > 100) {
+                throw new IllegalArgumentException("Calidad fuera de rango: " + quality);
+            }
+            return quality;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.grupomess.erp.encode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Copia de archivos por canales con un buffer directo reutilizado por hilo.
+ * <br>
+ * Los bytes pasan una sola vez por el buffer: se leen del canal de origen, se suman al
+ * CRC-32 y se escriben en el destino, sin arreglos intermedios en el heap. Es la ruta del
+ * guardado sin recompresión, donde la foto original llega intacta a MediaStore.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class ChannelCopy {
+
+    /** Tamaño del buffer de cada hilo */
+    static final int BUFFER_BYTES = 256 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_BYTES));
+
+    private ChannelCopy() {
+    }
+
+    /**
+     * Copia todo el contenido de {@code in}, desde el inicio, a {@code out}.
+     * @param in archivo de origen
+     * @param out destino; se escribe a partir de su posición actual
+     * @param crc suma que se actualiza con los bytes copiados, o null
+     * @return bytes copiados
+     * @throws IOException si falla la lectura o la escritura
+     */
+    public static long copy(FileChannel in, WritableByteChannel out, CRC32 crc) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        long position = 0;
+        long size = in.size();
+        while (position < size) {
+            buffer.clear();
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+            buffer.flip();
+            if (crc != null) {
+                crc.update(buffer);
+                buffer.rewind();
+            }
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,59 @@
+package com.grupomess.erp.encode;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Buffer de compresión reutilizado por hilo, para no reservar varios MB en cada prueba
+ * de calidad.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+final class EncodeBuffer extends ByteArrayOutputStream {
+
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+    /** Capacidad por encima de la cual el buffer no se conserva entre fotos */
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024 * 1024;
+
+    private static final ThreadLocal<EncodeBuffer> BUFFERS = new ThreadLocal<>();
+
+    /** Formato y calidad del contenido actual, para no repetir la última compresión */
+    Bitmap.CompressFormat lastFormat;
+    int lastQuality = -1;
+
+    private EncodeBuffer() {
+        super(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return buffer vacío del hilo actual
+     */
+    static EncodeBuffer get() {
+        EncodeBuffer buffer = BUFFERS.get();
+        if (buffer == null || buffer.buf.length > MAX_RETAINED_CAPACITY) {
+            buffer = new EncodeBuffer();
+            BUFFERS.set(buffer);
+        }
+        buffer.reset();
+        buffer.lastFormat = null;
+        return buffer;
+    }
+
+    /**
+     * Reemplaza el contenido con la foto comprimida.
+     * @return bytes escritos
+     */
+    long compress(Bitmap bitmap, Bitmap.CompressFormat format, int quality) throws IOException {
+        reset();
+        lastFormat = null;
+        if (!bitmap.compress(format, quality, this)) {
+            throw new IOException("Error al comprimir en " + format + " " + quality);
+        }
+        lastFormat = format;
+        lastQuality = quality;
+        return size();
+    }
+}
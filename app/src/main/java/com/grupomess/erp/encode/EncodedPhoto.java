@@ -0,0 +1,48 @@
+package com.grupomess.erp.encode;
+
+import android.graphics.Bitmap;
+
+/**
+ * Foto comprimida lista para escribirse, con el formato y la calidad elegidos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class EncodedPhoto {
+
+    private final byte[] data;
+    private final Bitmap.CompressFormat format;
+    private final int quality;
+
+    public EncodedPhoto(byte[] data, Bitmap.CompressFormat format, int quality) {
+        this.data = data;
+        this.format = format;
+        this.quality = quality;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public Bitmap.CompressFormat getFormat() {
+        return format;
+    }
+
+    public int getQuality() {
+        return quality;
+    }
+
+    /**
+     * @return tipo MIME para MediaStore
+     */
+    public String getMimeType() {
+        return format == Bitmap.CompressFormat.JPEG ? "image/jpeg" : "image/webp";
+    }
+
+    /**
+     * @return extensión de archivo, con punto
+     */
+    public String getExtension() {
+        return format == Bitmap.CompressFormat.JPEG ? ".jpg" : ".webp";
+    }
+}
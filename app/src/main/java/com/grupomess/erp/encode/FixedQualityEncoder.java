@@ -0,0 +1,30 @@
+package com.grupomess.erp.encode;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+
+/**
+ * Comprime siempre con el mismo formato y calidad. Es el comportamiento anterior del
+ * guardado (JPEG 90) y sirve de referencia en las mediciones.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FixedQualityEncoder implements PhotoEncoder {
+
+    private final Bitmap.CompressFormat format;
+    private final int quality;
+
+    public FixedQualityEncoder(Bitmap.CompressFormat format, int quality) {
+        this.format = format;
+        this.quality = quality;
+    }
+
+    @Override
+    public EncodedPhoto encode(Bitmap bitmap) throws IOException {
+        EncodeBuffer buffer = EncodeBuffer.get();
+        buffer.compress(bitmap, format, quality);
+        return new EncodedPhoto(buffer.toByteArray(), format, quality);
+    }
+}
@@ -0,0 +1,23 @@
+package com.grupomess.erp.encode;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+
+/**
+ * Etapa de compresión del guardado. Las implementaciones se llaman desde varios hilos
+ * a la vez y no deben guardar estado por foto.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface PhotoEncoder {
+
+    /**
+     * Comprime una foto. No recicla el bitmap.
+     * @param bitmap foto decodificada
+     * @return foto comprimida
+     * @throws IOException si falla la compresión
+     */
+    EncodedPhoto encode(Bitmap bitmap) throws IOException;
+}
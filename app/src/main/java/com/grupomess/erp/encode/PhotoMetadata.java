@@ -0,0 +1,96 @@
+package com.grupomess.erp.encode;
+
+import android.media.ExifInterface;
+import android.os.Build;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Metadatos EXIF que el guardado agrega a cada foto: folio, fecha de guardado y dispositivo.
+ * <br>
+ * {@link ExifInterface#saveAttributes()} reescribe sólo los segmentos de metadatos y copia los
+ * datos de imagen tal cual, así que la foto no pierde calidad. Los demás atributos de la cámara
+ * (orientación, exposición, fecha de captura) se conservan.
+ * <br>
+ * Es inmutable y seguro entre hilos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class PhotoMetadata {
+
+    private static final String SOFTWARE = "Grupo Mess ERP";
+
+    private final String folio;
+    private final long savedAt;
+    private final String make;
+    private final String model;
+
+    /**
+     * @param folio folio al que pertenece la foto; va en la descripción de la imagen
+     * @param savedAt fecha de guardado en milisegundos desde epoch
+     * @param make fabricante del dispositivo
+     * @param model modelo del dispositivo
+     */
+    public PhotoMetadata(String folio, long savedAt, String make, String model) {
+        this.folio = folio;
+        this.savedAt = savedAt;
+        this.make = make;
+        this.model = model;
+    }
+
+    /**
+     * @param folio folio al que pertenece la foto
+     * @param savedAt fecha de guardado en milisegundos desde epoch
+     * @return metadatos con el fabricante y modelo de este dispositivo
+     */
+    public static PhotoMetadata forThisDevice(String folio, long savedAt) {
+        return new PhotoMetadata(folio, savedAt, Build.MANUFACTURER, Build.MODEL);
+    }
+
+    /**
+     * Escribe los metadatos en el archivo sin recomprimir los pixeles.
+     * @param file foto JPEG, PNG o WebP
+     * @param orientation orientación EXIF a fijar, o {@link ExifInterface#ORIENTATION_UNDEFINED}
+     *                    para conservar la del archivo
+     * @throws IOException si el formato no admite EXIF o falla la escritura; el archivo queda como estaba
+     */
+    public void applyTo(File file, int orientation) throws IOException {
+        ExifInterface exif = new ExifInterface(file.getAbsolutePath());
+        Date date = new Date(savedAt);
+        String dateTime = new SimpleDateFormat("yyyy:MM:dd HH:mm:ss", Locale.US).format(date);
+        String offset = new SimpleDateFormat("XXX", Locale.US).format(date);
+        exif.setAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION, folio);
+        exif.setAttribute(ExifInterface.TAG_DATETIME, dateTime);
+        exif.setAttribute(ExifInterface.TAG_OFFSET_TIME, offset);
+        if (exif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL) == null) {
+            // Imagen sin fecha de captura, por ejemplo una captura de pantalla importada
+            exif.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, dateTime);
+            exif.setAttribute(ExifInterface.TAG_OFFSET_TIME_ORIGINAL, offset);
+        }
+        exif.setAttribute(ExifInterface.TAG_MAKE, make);
+        exif.setAttribute(ExifInterface.TAG_MODEL, model);
+        exif.setAttribute(ExifInterface.TAG_SOFTWARE, SOFTWARE);
+        if (orientation != ExifInterface.ORIENTATION_UNDEFINED) {
+            exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(orientation));
+        }
+        exif.saveAttributes();
+    }
+
+    /**
+     * @param file foto comprimida
+     * @return orientación EXIF del archivo, o {@link ExifInterface#ORIENTATION_UNDEFINED} si no tiene
+     */
+    public static int readOrientation(File file) {
+        try {
+            return new ExifInterface(file.getAbsolutePath())
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED);
+        } catch (IOException e) {
+            return ExifInterface.ORIENTATION_UNDEFINED;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.grupomess.erp.encode;
+
+import java.io.IOException;
+
+/**
+ * Búsqueda de la calidad de compresión que cabe en un presupuesto de bytes.
+ * <br>
+ * El tamaño comprimido crece con la calidad, así que se hace una búsqueda binaria sobre
+ * el rango de calidades con un número acotado de pruebas. Primero se prueba la calidad
+ * máxima: las fotos de documentos casi en blanco suelen caber sin bajar nada.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class QualitySearch {
+
+    private QualitySearch() {
+    }
+
+    /**
+     * Mide el tamaño comprimido a una calidad dada.
+     */
+    public interface SizeProbe {
+        long sizeAt(int quality) throws IOException;
+    }
+
+    /**
+     * Busca la mayor calidad en {@code [minQuality, maxQuality]} cuyo tamaño no pasa del presupuesto.
+     * @param probe medición del tamaño por calidad
+     * @param minQuality calidad mínima aceptable
+     * @param maxQuality calidad máxima
+     * @param budgetBytes presupuesto en bytes
+     * @param maxProbes pruebas máximas, al menos 1
+     * @return calidad elegida; si ni la mínima cabe, la mínima con {@link Result#withinBudget} en false
+     * @throws IOException si falla la medición
+     */
+    public static Result search(SizeProbe probe, int minQuality, int maxQuality, long budgetBytes, int maxProbes)
+            throws IOException {
+        if (minQuality > maxQuality || maxProbes < 1) {
+            throw new IllegalArgumentException("Rango de calidad o número de pruebas inválido");
+        }
+        int probes = 1;
+        long size = probe.sizeAt(maxQuality);
+        if (size <= budgetBytes) {
+            return new Result(maxQuality, size, true, probes);
+        }
+        int low = minQuality;
+        int high = maxQuality - 1;
+        int best = -1;
+        long bestSize = -1;
+        long lowSize = -1;
+        while (low <= high && probes < maxProbes) {
+            int mid = (low + high) >>> 1;
+            size = probe.sizeAt(mid);
+            probes++;
+            if (mid == minQuality) {
+                lowSize = size;
+            }
+            if (size <= budgetBytes) {
+                best = mid;
+                bestSize = size;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (best >= 0) {
+            return new Result(best, bestSize, true, probes);
+        }
+        if (lowSize < 0) {
+            lowSize = probe.sizeAt(minQuality);
+            probes++;
+        }
+        return new Result(minQuality, lowSize, lowSize <= budgetBytes, probes);
+    }
+
+    /**
+     * Resultado de la búsqueda.
+     */
+    public static final class Result {
+        public final int quality;
+        public final long sizeBytes;
+        public final boolean withinBudget;
+        /** Compresiones hechas para llegar al resultado */
+        public final int probes;
+
+        Result(int quality, long sizeBytes, boolean withinBudget, int probes) {
+            this.quality = quality;
+            this.sizeBytes = sizeBytes;
+            this.withinBudget = withinBudget;
+            this.probes = probes;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.grupomess.erp.encode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato de una foto ya comprimida, reconocido por su firma y no por la extensión.
+ * <br>
+ * El guardado sin recompresión copia los bytes tal cual, así que el tipo MIME y la extensión
+ * publicados en MediaStore deben salir del contenido real: una imagen importada de la galería
+ * puede ser PNG o HEIF aunque se haya copiado con nombre {@code .jpg}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public enum SourceFormat {
+    JPEG("image/jpeg", ".jpg", true),
+    PNG("image/png", ".png", true),
+    WEBP("image/webp", ".webp", true),
+    /** HEIC o HEIF; ExifInterface lo lee pero no lo puede reescribir */
+    HEIF("image/heif", ".heic", false);
+
+    /** Bytes del encabezado suficientes para reconocer cualquier formato */
+    public static final int HEADER_BYTES = 12;
+
+    private final String mimeType;
+    private final String extension;
+    private final boolean exifWritable;
+
+    SourceFormat(String mimeType, String extension, boolean exifWritable) {
+        this.mimeType = mimeType;
+        this.extension = extension;
+        this.exifWritable = exifWritable;
+    }
+
+    /**
+     * @return tipo MIME para MediaStore
+     */
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * @return extensión de archivo, con punto
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return true si se pueden escribir metadatos EXIF sin tocar los pixeles
+     */
+    public boolean isExifWritable() {
+        return exifWritable;
+    }
+
+    /**
+     * Reconoce el formato por la firma del archivo.
+     * @param file foto comprimida
+     * @return formato, o null si no es uno de los conocidos
+     * @throws IOException si no se pudo leer
+     */
+    public static SourceFormat of(File file) throws IOException {
+        byte[] header = new byte[HEADER_BYTES];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while (length < header.length && (read = in.read(header, length, header.length - length)) > 0) {
+                length += read;
+            }
+        }
+        return sniff(header, length);
+    }
+
+    /**
+     * @param header primeros bytes del archivo
+     * @param length bytes válidos en {@code header}
+     * @return formato, o null si no es uno de los conocidos
+     */
+    public static SourceFormat sniff(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && ascii(header, 1, "PNG")
+                && header[4] == '\r' && header[5] == '\n' && header[6] == 0x1A && header[7] == '\n') {
+            return PNG;
+        }
+        if (length >= 12 && ascii(header, 0, "RIFF") && ascii(header, 8, "WEBP")) {
+            return WEBP;
+        }
+        if (length >= 12 && ascii(header, 4, "ftyp")) {
+            String brand = new String(header, 8, 4, StandardCharsets.US_ASCII);
+            if (brand.equals("heic") || brand.equals("heix") || brand.equals("mif1") || brand.equals("msf1")
+                    || brand.equals("hevc") || brand.equals("heim") || brand.equals("heis")) {
+                return HEIF;
+            }
+        }
+        return null;
+    }
+
+    private static boolean ascii(byte[] data, int offset, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (data[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,233 @@
+package com.grupomess.erp.metrics;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de la aplicación: las etapas de captura, OCR, compresión y guardado registran
+ * aquí sus tiempos y contadores.
+ * <br>
+ * Las métricas son campos públicos resueltos al crear la instancia, de modo que registrar un
+ * valor en la ruta crítica es un incremento atómico sin búsquedas ni reservas de memoria.
+ * Cada minuto, si hubo actividad, los acumulados se agregan a {@code files/metricas.tsv}
+ * (ver {@link MetricsSummaryFile}) para consultarlos después de cerrar la app.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class AppMetrics {
+
+    private static final String TAG = "AppMetrics";
+    private static final String SUMMARY_FILE = "metricas.tsv";
+    private static final int SUMMARY_MAX_LINES = 2000;
+    private static final long FLUSH_INTERVAL_SECONDS = 60;
+
+    private static volatile AppMetrics instance;
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final MetricsSummaryFile summaryFile;
+    private final long processStart = System.currentTimeMillis();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metricas");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Valores registrados en el último resumen guardado; sólo se usa en {@link #flusher} */
+    private long lastFlushedActivity = 0;
+
+    /** Desde pedir la foto hasta tenerla en disco */
+    public final Histogram captureLatency;
+    /** Desde pedir la foto del folio hasta tener el texto extraído */
+    public final Histogram captureToOcr;
+    /** Lectura, recorte y enderezado de una foto antes del OCR */
+    public final Histogram ocrPreprocess;
+    /** Pixeles enviados al reconocimiento por foto */
+    public final Histogram ocrPixels;
+    /** Reconocimiento de ML Kit */
+    public final Histogram ocrRecognize;
+    /** Escaneo de una foto: lectura, reconocimiento y extracción del folio */
+    public final Histogram ocrScan;
+    /** Búsqueda de un código de barras o QR con folio, incluidas las que agotan el tiempo */
+    public final Histogram barcodeRead;
+    /** Escaneos resueltos por el código, sin OCR */
+    public final Counter barcodeHits;
+    /** Escaneos sin código con folio que siguieron al OCR */
+    public final Counter barcodeMisses;
+    /** Búsquedas de código que agotaron su tiempo */
+    public final Counter barcodeTimeouts;
+    /** Escaneo completo resuelto por el código */
+    public final Histogram scanViaBarcode;
+    /** Escaneo completo resuelto por el OCR, incluido el intento de código */
+    public final Histogram scanViaOcr;
+    /** Validación de un folio contra el catálogo local */
+    public final Histogram catalogLookup;
+    /** Búsqueda de folios parecidos para sugerir */
+    public final Histogram catalogSuggest;
+    /** Sincronización del catálogo de folios, incluida la red */
+    public final Histogram catalogSync;
+    /** Folios en el catálogo local */
+    public final PeakGauge catalogFolios;
+    /** Folios escaneados o capturados que no están en el catálogo */
+    public final Counter catalogMisses;
+    /** Copia y lectura del folio de una imagen importada de la galería */
+    public final Histogram importImage;
+    /** Compresión de una foto al guardar */
+    public final Histogram encodePhoto;
+    /** Tamaño de cada foto comprimida */
+    public final Histogram encodedBytes;
+    /** Lectura, compresión y escritura de una foto en Descargas */
+    public final Histogram savePhoto;
+    /** Guardado completo de un folio */
+    public final Histogram saveFolio;
+    /** Bytes de la foto original guardados por segundo, copiándola sin recomprimir */
+    public final Histogram saveRateOriginal;
+    /** Bytes de la foto original guardados por segundo, decodificándola y recomprimiéndola */
+    public final Histogram saveRateReencode;
+    /** Bytes de la foto original guardados por segundo, cifrándolos por segmentos en cualquier ruta */
+    public final Histogram saveRateEncrypted;
+    public final Counter savedPhotos;
+    public final Counter saveFailures;
+    public final Counter duplicatePhotos;
+    public final Counter blurryPhotos;
+    /** Memoria del heap en uso, muestreada en cada foto capturada o guardada */
+    public final PeakGauge heapUsed;
+    /** Fotos en la sesión de captura */
+    public final PeakGauge sessionPhotos;
+    /** Miniaturas decodificadas en memoria */
+    public final PeakGauge thumbnailsResident;
+    /** Miniaturas volcadas a la caché en disco */
+    public final PeakGauge thumbnailsSpilled;
+    /** Miniaturas leídas del volcado en lugar de decodificar la foto completa */
+    public final Counter thumbnailsFromDisk;
+    /** Desde abrir el historial hasta mostrar su primera página */
+    public final Histogram historyOpen;
+    /** Consulta de una página del historial */
+    public final Histogram historyPage;
+    /** Folios en la ventana del historial */
+    public final PeakGauge historyWindow;
+    /** Lectura de una portada del historial a tamaño completo */
+    public final Histogram coverLoad;
+    /** Portadas mostradas al instante desde la lectura adelantada de baja resolución */
+    public final Counter coverPrefetchHits;
+
+    private AppMetrics(Context context) {
+        summaryFile = new MetricsSummaryFile(new File(context.getApplicationContext().getFilesDir(), SUMMARY_FILE),
+                SUMMARY_MAX_LINES);
+        captureLatency = registry.timer("captura.foto");
+        captureToOcr = registry.timer("captura.a_ocr");
+        ocrPreprocess = registry.timer("ocr.preproceso");
+        ocrPixels = registry.histogram("ocr.pixeles", Unit.COUNT);
+        ocrRecognize = registry.timer("ocr.reconocer");
+        ocrScan = registry.timer("ocr.escaneo");
+        barcodeRead = registry.timer("codigo.leer");
+        barcodeHits = registry.counter("codigo.aciertos");
+        barcodeMisses = registry.counter("codigo.fallos");
+        barcodeTimeouts = registry.counter("codigo.tiempo_agotado");
+        scanViaBarcode = registry.timer("escaneo.por_codigo");
+        scanViaOcr = registry.timer("escaneo.por_ocr");
+        catalogLookup = registry.timer("catalogo.consulta");
+        catalogSuggest = registry.timer("catalogo.sugerencias");
+        catalogSync = registry.timer("catalogo.sincronizar");
+        catalogFolios = registry.gauge("catalogo.folios", Unit.COUNT);
+        catalogMisses = registry.counter("catalogo.no_encontrados");
+        importImage = registry.timer("importar.imagen");
+        encodePhoto = registry.timer("codificar.foto");
+        encodedBytes = registry.histogram("codificar.bytes", Unit.BYTES);
+        savePhoto = registry.timer("guardar.foto");
+        saveFolio = registry.timer("guardar.folio");
+        saveRateOriginal = registry.histogram("guardar.original.velocidad", Unit.BYTES_PER_SECOND);
+        saveRateReencode = registry.histogram("guardar.recomprimir.velocidad", Unit.BYTES_PER_SECOND);
+        saveRateEncrypted = registry.histogram("guardar.cifrado.velocidad", Unit.BYTES_PER_SECOND);
+        savedPhotos = registry.counter("guardar.fotos");
+        saveFailures = registry.counter("guardar.fallas");
+        duplicatePhotos = registry.counter("calidad.repetidas");
+        blurryPhotos = registry.counter("calidad.borrosas");
+        heapUsed = registry.gauge("memoria.heap", Unit.BYTES);
+        sessionPhotos = registry.gauge("sesion.fotos", Unit.COUNT);
+        thumbnailsResident = registry.gauge("miniaturas.memoria", Unit.COUNT);
+        thumbnailsSpilled = registry.gauge("miniaturas.disco", Unit.COUNT);
+        thumbnailsFromDisk = registry.counter("miniaturas.desde_disco");
+        historyOpen = registry.timer("historial.abrir");
+        historyPage = registry.timer("historial.pagina");
+        historyWindow = registry.gauge("historial.ventana", Unit.COUNT);
+        coverLoad = registry.timer("portadas.cargar");
+        coverPrefetchHits = registry.counter("portadas.adelantadas");
+        flusher.scheduleWithFixedDelay(this::flushIfActive, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return métricas compartidas
+     */
+    public static AppMetrics getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppMetrics.class) {
+                if (instance == null) {
+                    instance = new AppMetrics(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** @return registro con todas las métricas */
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Muestrea la memoria del heap en uso. No reserva memoria.
+     */
+    public void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        heapUsed.set(runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Guarda un resumen en segundo plano, por ejemplo al terminar un guardado.
+     */
+    public void flush() {
+        flusher.execute(this::flushIfActive);
+    }
+
+    /**
+     * Resumen de la sesión anterior guardado en disco. Hace E/S; llamar fuera del hilo principal.
+     * @return métricas de la última sesión anterior, vacía si no hay
+     */
+    public List<MetricSnapshot> loadPreviousSession() {
+        try {
+            return summaryFile.readPreviousSession(processStart);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error al leer el resumen de métricas", e);
+            return Collections.emptyList();
+        }
+    }
+
+    private void flushIfActive() {
+        List<MetricSnapshot> snapshots = registry.snapshot();
+        long activity = 0;
+        for (MetricSnapshot snapshot : snapshots) {
+            if (snapshot.kind != MetricSnapshot.Kind.GAUGE) {
+                activity += snapshot.count;
+            }
+        }
+        if (activity == lastFlushedActivity) {
+            return;
+        }
+        try {
+            summaryFile.append(System.currentTimeMillis(), processStart, snapshots);
+            lastFlushedActivity = activity;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar el resumen de métricas", e);
+        }
+    }
+}
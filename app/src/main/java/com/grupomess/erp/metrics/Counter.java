@@ -0,0 +1,45 @@
+package com.grupomess.erp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monotónico. Incrementar no reserva memoria ni toma candados.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class Counter {
+
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    /** @return nombre con el que se registró */
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * @param delta cantidad a sumar
+     */
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    /** @return valor acumulado */
+    public long get() {
+        return value.sum();
+    }
+
+    MetricSnapshot snapshot() {
+        long current = value.sum();
+        return new MetricSnapshot(name, MetricSnapshot.Kind.COUNTER, Unit.COUNT, current, current, current, 0, 0, 0);
+    }
+}
@@ -0,0 +1,132 @@
+package com.grupomess.erp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de valores no negativos con cubetas logarítmicas: cada potencia de 2 se divide
+ * en 4 cubetas, de modo que los percentiles tienen un error menor a 25 % en cualquier escala
+ * (de nanosegundos a minutos, de bytes a gigabytes) con un arreglo fijo de 248 contadores.
+ * <br>
+ * {@link #record(long)} sólo incrementa contadores atómicos: no reserva memoria ni toma candados,
+ * y se puede llamar desde cualquier hilo en la ruta crítica.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = SUB_BUCKETS * 62;
+
+    private final String name;
+    private final Unit unit;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, Unit unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    /** @return nombre con el que se registró */
+    public String getName() {
+        return name;
+    }
+
+    /** @return unidad de los valores */
+    public Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Registra un valor; los negativos cuentan como 0.
+     * @param value valor en la unidad del histograma
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Otro hilo cambió el máximo; se vuelve a comparar
+        }
+    }
+
+    /**
+     * Registra la duración desde un instante tomado con {@link System#nanoTime()} o
+     * {@code SystemClock.elapsedRealtimeNanos()}.
+     * @param startNanos instante inicial
+     * @param endNanos instante final, del mismo reloj
+     */
+    public void recordSince(long startNanos, long endNanos) {
+        record(endNanos - startNanos);
+    }
+
+    /** @return valores registrados */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Cubeta de un valor: los valores menores a 4 tienen la suya; desde ahí, 4 por potencia de 2.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, SUB_BUCKETS * (exponent - 1) + sub);
+    }
+
+    /**
+     * @return valor más alto que cae en la cubeta
+     */
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 2)) - 1;
+    }
+
+    /**
+     * Resumen del histograma. Los hilos que registran en paralelo pueden quedar contados
+     * a medias; la diferencia es de unos cuantos valores.
+     * @return resumen con percentiles
+     */
+    public MetricSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+            total += copy[i];
+        }
+        long maxValue = max.get();
+        return new MetricSnapshot(name, MetricSnapshot.Kind.HISTOGRAM, unit, total, sum.get(), maxValue,
+                percentile(copy, total, 0.50, maxValue), percentile(copy, total, 0.95, maxValue),
+                percentile(copy, total, 0.99, maxValue));
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+}
@@ -0,0 +1,81 @@
+package com.grupomess.erp.metrics;
+
+import java.util.Locale;
+
+/**
+ * Resumen inmutable de una métrica en un instante.
+ * <br>
+ * El significado de los campos depende del tipo:
+ * - Contador: {@link #count} y {@link #sum} son el valor acumulado.
+ * - Histograma: número de valores, suma, máximo y percentiles 50, 95 y 99.
+ * - Indicador: {@link #sum} es el valor actual y {@link #max} el pico.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class MetricSnapshot {
+
+    /** Tipos de métrica. */
+    public enum Kind { COUNTER, HISTOGRAM, GAUGE }
+
+    public final String name;
+    public final Kind kind;
+    public final Unit unit;
+    public final long count;
+    public final long sum;
+    public final long max;
+    public final long p50;
+    public final long p95;
+    public final long p99;
+
+    public MetricSnapshot(String name, Kind kind, Unit unit, long count, long sum, long max,
+                          long p50, long p95, long p99) {
+        this.name = name;
+        this.kind = kind;
+        this.unit = unit;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+
+    /** @return promedio de un histograma, o 0 si está vacío */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @return una línea legible para el tablero
+     */
+    public String describe() {
+        switch (kind) {
+            case COUNTER:
+                return String.format(Locale.ROOT, "%-22s %d", name, count);
+            case GAUGE:
+                return String.format(Locale.ROOT, "%-22s %s (pico %s)", name, format(sum), format(max));
+            default:
+                if (count == 0) {
+                    return String.format(Locale.ROOT, "%-22s sin datos", name);
+                }
+                return String.format(Locale.ROOT, "%-22s n=%d prom %s p50 %s p95 %s máx %s", name, count,
+                        format(Math.round(mean())), format(p50), format(p95), format(max));
+        }
+    }
+
+    private String format(long value) {
+        if (unit == Unit.BYTES && value >= 1024) {
+            return value >= 1024 * 1024
+                    ? String.format(Locale.ROOT, "%.1fMB", value / (1024.0 * 1024))
+                    : String.format(Locale.ROOT, "%.0fKB", value / 1024.0);
+        }
+        if (unit == Unit.NANOS) {
+            return String.format(Locale.ROOT, "%.1fms", unit.scale(value));
+        }
+        if (unit == Unit.BYTES_PER_SECOND) {
+            return String.format(Locale.ROOT, "%.1fMB/s", value / (1024.0 * 1024));
+        }
+        return value + unit.getSymbol();
+    }
+}
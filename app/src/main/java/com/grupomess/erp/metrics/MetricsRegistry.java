@@ -0,0 +1,84 @@
+package com.grupomess.erp.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registro de métricas del proceso: contadores, histogramas (también usados como temporizadores)
+ * e indicadores con pico.
+ * <br>
+ * Las métricas se buscan por nombre una sola vez y la referencia se conserva; registrar
+ * valores después no reserva memoria. Es Java puro y seguro entre hilos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, Object> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @param name nombre de la métrica
+     * @return contador existente o uno nuevo
+     */
+    public Counter counter(String name) {
+        return get(name, Counter.class, () -> new Counter(name));
+    }
+
+    /**
+     * @param name nombre de la métrica
+     * @param unit unidad de los valores
+     * @return histograma existente o uno nuevo
+     */
+    public Histogram histogram(String name, Unit unit) {
+        return get(name, Histogram.class, () -> new Histogram(name, unit));
+    }
+
+    /**
+     * Histograma de duraciones en nanosegundos.
+     * @param name nombre de la métrica
+     * @return temporizador existente o uno nuevo
+     */
+    public Histogram timer(String name) {
+        return histogram(name, Unit.NANOS);
+    }
+
+    /**
+     * @param name nombre de la métrica
+     * @param unit unidad de los valores
+     * @return indicador existente o uno nuevo
+     */
+    public PeakGauge gauge(String name, Unit unit) {
+        return get(name, PeakGauge.class, () -> new PeakGauge(name, unit));
+    }
+
+    /**
+     * @return resumen de todas las métricas, ordenado por nombre
+     */
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> result = new ArrayList<>(metrics.size());
+        for (Object metric : metrics.values()) {
+            if (metric instanceof Counter) {
+                result.add(((Counter) metric).snapshot());
+            } else if (metric instanceof Histogram) {
+                result.add(((Histogram) metric).snapshot());
+            } else {
+                result.add(((PeakGauge) metric).snapshot());
+            }
+        }
+        Collections.sort(result, (a, b) -> a.name.compareTo(b.name));
+        return result;
+    }
+
+    private <T> T get(String name, Class<T> type, Supplier<T> factory) {
+        Object metric = metrics.computeIfAbsent(name, key -> factory.get());
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("La métrica " + name + " ya existe con otro tipo");
+        }
+        return type.cast(metric);
+    }
+}
@@ -0,0 +1,149 @@
+package com.grupomess.erp.metrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Archivo local con los últimos resúmenes de métricas, uno por línea separado por tabuladores:
+ * {@code hora  proceso  nombre  tipo  unidad  n  suma  máx  p50  p95  p99}.
+ * <br>
+ * Cada proceso escribe sus acumulados con su hora de inicio como identificador, de modo que
+ * se pueden comparar sesiones. El archivo conserva aproximadamente las últimas {@code maxLines}
+ * líneas: se agrega al final y, cuando pasa el límite por una cuarta parte, se reescribe sin
+ * las más antiguas; así el costo de recortar se reparte entre muchas escrituras.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class MetricsSummaryFile {
+
+    private final File file;
+    private final int maxLines;
+    /** Líneas en el archivo; -1 hasta contarlas la primera vez */
+    private int lineCount = -1;
+
+    /**
+     * @param file archivo de resúmenes
+     * @param maxLines líneas máximas a conservar
+     */
+    public MetricsSummaryFile(File file, int maxLines) {
+        if (maxLines <= 0) {
+            throw new IllegalArgumentException("maxLines debe ser mayor a 0");
+        }
+        this.file = file;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Agrega un resumen y recorta el archivo si pasó del límite.
+     * @param timestamp hora del resumen en milisegundos
+     * @param processStart hora de inicio del proceso, para agrupar por sesión
+     * @param snapshots métricas a guardar
+     * @throws IOException si no se puede escribir
+     */
+    public synchronized void append(long timestamp, long processStart, List<MetricSnapshot> snapshots)
+            throws IOException {
+        if (lineCount < 0) {
+            lineCount = readLines(Integer.MAX_VALUE).size();
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+            for (MetricSnapshot snapshot : snapshots) {
+                writer.write(String.format(Locale.ROOT, "%d\t%d\t%s\t%s\t%s\t%d\t%d\t%d\t%d\t%d\t%d\n",
+                        timestamp, processStart, snapshot.name, snapshot.kind, snapshot.unit, snapshot.count,
+                        snapshot.sum, snapshot.max, snapshot.p50, snapshot.p95, snapshot.p99));
+            }
+        }
+        lineCount += snapshots.size();
+        if (lineCount > maxLines + maxLines / 4) {
+            List<String> kept = readLines(maxLines);
+            rewrite(kept);
+            lineCount = kept.size();
+        }
+    }
+
+    /**
+     * Resumen más reciente de cada métrica guardado por un proceso anterior a éste.
+     * @param currentProcessStart hora de inicio del proceso actual
+     * @return métricas de la última sesión anterior, vacía si no hay
+     * @throws IOException si no se puede leer
+     */
+    public synchronized List<MetricSnapshot> readPreviousSession(long currentProcessStart) throws IOException {
+        List<String> lines = readLines(maxLines);
+        String session = null;
+        String timestamp = null;
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            String[] parts = lines.get(i).split("\t");
+            if (parts.length == 11 && !parts[1].equals(String.valueOf(currentProcessStart))) {
+                session = parts[1];
+                timestamp = parts[0];
+                break;
+            }
+        }
+        List<MetricSnapshot> result = new ArrayList<>();
+        if (session == null) {
+            return result;
+        }
+        for (String line : lines) {
+            String[] parts = line.split("\t");
+            if (parts.length == 11 && parts[1].equals(session) && parts[0].equals(timestamp)) {
+                result.add(new MetricSnapshot(parts[2], MetricSnapshot.Kind.valueOf(parts[3]),
+                        Unit.valueOf(parts[4]), Long.parseLong(parts[5]), Long.parseLong(parts[6]),
+                        Long.parseLong(parts[7]), Long.parseLong(parts[8]), Long.parseLong(parts[9]),
+                        Long.parseLong(parts[10])));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param limit líneas a conservar, contando desde el final
+     */
+    private List<String> readLines(int limit) throws IOException {
+        Deque<String> tail = new ArrayDeque<>();
+        if (!file.exists()) {
+            return new ArrayList<>(tail);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tail.addLast(line);
+                if (tail.size() > limit) {
+                    tail.removeFirst();
+                }
+            }
+        }
+        return new ArrayList<>(tail);
+    }
+
+    /**
+     * Reescribe el archivo en uno temporal y lo reemplaza, para no perderlo a medias.
+     */
+    private void rewrite(List<String> lines) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("No se pudo reemplazar " + file.getName());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.grupomess.erp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Valor instantáneo que además recuerda el máximo observado, por ejemplo la memoria en uso.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class PeakGauge {
+
+    private final String name;
+    private final Unit unit;
+    private final AtomicLong value = new AtomicLong();
+    private final AtomicLong peak = new AtomicLong();
+
+    PeakGauge(String name, Unit unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    /** @return nombre con el que se registró */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param current valor actual
+     */
+    public void set(long current) {
+        value.set(current);
+        long seen;
+        while (current > (seen = peak.get()) && !peak.compareAndSet(seen, current)) {
+            // Otro hilo cambió el pico; se vuelve a comparar
+        }
+    }
+
+    /** @return último valor */
+    public long get() {
+        return value.get();
+    }
+
+    /** @return valor más alto observado */
+    public long getPeak() {
+        return peak.get();
+    }
+
+    MetricSnapshot snapshot() {
+        long current = value.get();
+        return new MetricSnapshot(name, MetricSnapshot.Kind.GAUGE, unit, current, current, peak.get(), 0, 0, 0);
+    }
+}
@@ -0,0 +1,34 @@
+package com.grupomess.erp.metrics;
+
+/**
+ * Unidad de los valores de una métrica, para mostrarlos legibles.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public enum Unit {
+    COUNT(""),
+    BYTES("B"),
+    BYTES_PER_SECOND("B/s"),
+    NANOS("ms");
+
+    private final String symbol;
+
+    Unit(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Convierte un valor crudo a la escala en que se muestra (nanosegundos a milisegundos).
+     * @param value valor crudo
+     * @return valor en la escala de {@link #getSymbol()}
+     */
+    public double scale(long value) {
+        return this == NANOS ? value / 1e6 : value;
+    }
+
+    /** @return símbolo de la unidad mostrada */
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,48 @@
+package com.grupomess.erp.ocr;
+
+/**
+ * Posible folio encontrado en una página de OCR, con su puntaje de confianza.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioCandidate implements Comparable<FolioCandidate> {
+
+    private final String value;
+    private final double score;
+    private final String sourceLine;
+
+    /**
+     * @param value folio normalizado
+     * @param score puntaje; mayor es mejor
+     * @param sourceLine línea de OCR de donde se extrajo
+     */
+    public FolioCandidate(String value, double score, String sourceLine) {
+        this.value = value;
+        this.score = score;
+        this.sourceLine = sourceLine;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getSourceLine() {
+        return sourceLine;
+    }
+
+    /** Orden descendente por puntaje. */
+    @Override
+    public int compareTo(FolioCandidate other) {
+        return Double.compare(other.score, score);
+    }
+
+    @Override
+    public String toString() {
+        return value + " (" + String.format(java.util.Locale.US, "%.2f", score) + ")";
+    }
+}
@@ -0,0 +1,205 @@
+package com.grupomess.erp.ocr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Obtiene el folio del contenido de los códigos de barras o QR impresos en la hoja.
+ * <br>
+ * El contenido puede ser:
+ * - el folio solo: {@code F-004512},
+ * - el folio con etiqueta: {@code FOLIO: F-004512},
+ * - una URL con el folio en un parámetro ({@code ?folio=F-004512}) o en el último segmento.
+ * <br>
+ * El folio se acepta sólo si completa el patrón de folio; un código de otro tipo (por ejemplo
+ * el de un producto) no se confunde con el folio. Es Java puro e inmutable, como
+ * {@link FolioExtractor}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioCodeParser {
+
+    /** Mismos formatos que los patrones por omisión de {@link FolioExtractor}. */
+    private static final String DEFAULT_FOLIO =
+            "[A-Z]{1,4}-?\\d{3,10}|\\d{5,12}|[A-Z0-9]{2,6}(?:-[A-Z0-9]{2,8}){1,3}";
+
+    private static final List<String> DEFAULT_QUERY_KEYS = Arrays.asList("folio", "f", "id");
+
+    private static final Pattern LABEL = Pattern.compile(
+            "^(?:(?:FOLIO|N[UÚ]M(?:ERO)?|NO)(?:\\s*[:#=.]\\s*|\\s+)|N[°º]\\s*)");
+
+    /** Puntaje de un folio leído de un código; el OCR nunca lo alcanza */
+    private static final double CODE_SCORE = 1.0;
+
+    private final Pattern folioPattern;
+    private final List<String> queryKeys;
+
+    private FolioCodeParser(Builder builder) {
+        folioPattern = builder.folioPattern;
+        queryKeys = Collections.unmodifiableList(new ArrayList<>(builder.queryKeys));
+    }
+
+    /**
+     * Lector con el patrón de folio por omisión.
+     * @return lector listo para usarse
+     */
+    public static FolioCodeParser withDefaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * @param payloads contenido de los códigos encontrados, en el orden en que se detectaron
+     * @return folios encontrados, el primero como mejor; {@link FolioExtraction#EMPTY} si ninguno
+     *         tiene forma de folio
+     */
+    public FolioExtraction parse(List<String> payloads) {
+        Set<String> folios = new LinkedHashSet<>();
+        for (String payload : payloads) {
+            String folio = folioOf(payload);
+            if (folio != null) {
+                folios.add(folio);
+            }
+        }
+        if (folios.isEmpty()) {
+            return FolioExtraction.EMPTY;
+        }
+        List<FolioCandidate> candidates = new ArrayList<>(folios.size());
+        int rank = 0;
+        for (String folio : folios) {
+            // Si la hoja trae varios códigos con folio se conserva el orden de detección
+            candidates.add(new FolioCandidate(folio, CODE_SCORE - 0.01 * rank++, folio));
+        }
+        return new FolioExtraction(candidates);
+    }
+
+    /**
+     * @param payload contenido de un código
+     * @return folio normalizado, o null si el contenido no es un folio
+     */
+    public String folioOf(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        String value = payload.trim();
+        int scheme = value.indexOf("://");
+        if (scheme > 0) {
+            value = fromUrl(value.substring(scheme + 3));
+        }
+        if (value == null) {
+            return null;
+        }
+        value = value.toUpperCase(Locale.ROOT);
+        Matcher label = LABEL.matcher(value);
+        if (label.find()) {
+            value = value.substring(label.end());
+        }
+        value = FolioExtractor.normalize(value);
+        return !value.isEmpty() && containsDigit(value) && folioPattern.matcher(value).matches() ? value : null;
+    }
+
+    /**
+     * @param rest URL sin el esquema
+     * @return valor del primer parámetro de folio, o el último segmento de la ruta
+     */
+    private String fromUrl(String rest) {
+        int fragment = rest.indexOf('#');
+        if (fragment >= 0) {
+            rest = rest.substring(0, fragment);
+        }
+        int query = rest.indexOf('?');
+        if (query >= 0) {
+            String[] pairs = rest.substring(query + 1).split("&");
+            // Los parámetros se buscan en el orden de prioridad de las claves
+            for (String key : queryKeys) {
+                for (String pair : pairs) {
+                    int equals = pair.indexOf('=');
+                    if (equals > 0 && key.equals(pair.substring(0, equals).toLowerCase(Locale.ROOT))) {
+                        return decode(pair.substring(equals + 1));
+                    }
+                }
+            }
+            rest = rest.substring(0, query);
+        }
+        int slash = rest.lastIndexOf('/', rest.length() - 2);
+        if (slash < 0) {
+            // Sólo el dominio
+            return null;
+        }
+        String segment = rest.substring(slash + 1);
+        return decode(segment.endsWith("/") ? segment.substring(0, segment.length() - 1) : segment);
+    }
+
+    /**
+     * Decodifica los escapes {@code %XX} y {@code +} de un parámetro; los folios son ASCII.
+     */
+    private static String decode(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '+') {
+                builder.append(' ');
+            } else if (c == '%' && i + 2 < value.length()) {
+                int high = Character.digit(value.charAt(i + 1), 16);
+                int low = Character.digit(value.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                builder.append((char) (high * 16 + low));
+                i += 2;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean containsDigit(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isDigit(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Constructor de configuración del lector.
+     */
+    public static final class Builder {
+        private Pattern folioPattern = Pattern.compile(DEFAULT_FOLIO);
+        private final List<String> queryKeys = new ArrayList<>(DEFAULT_QUERY_KEYS);
+
+        /**
+         * @param regex expresión regular que debe cumplir todo el folio, en mayúsculas y sin espacios
+         * @return este builder
+         */
+        public Builder setFolioPattern(String regex) {
+            folioPattern = Pattern.compile(regex);
+            return this;
+        }
+
+        /**
+         * @param key nombre de un parámetro de URL que lleva el folio; se busca después de los ya agregados
+         * @return este builder
+         */
+        public Builder addQueryKey(String key) {
+            if (key == null || key.isEmpty()) {
+                throw new IllegalArgumentException("El parámetro no puede estar vacío");
+            }
+            queryKeys.add(key.toLowerCase(Locale.ROOT));
+            return this;
+        }
+
+        public FolioCodeParser build() {
+            return new FolioCodeParser(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.grupomess.erp.ocr;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de {@link FolioExtractor#extract(OcrPage)}: el mejor folio y las alternativas
+ * ordenadas por puntaje.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioExtraction {
+
+    /** Resultado sin candidatos. */
+    public static final FolioExtraction EMPTY = new FolioExtraction(Collections.emptyList());
+
+    private final List<FolioCandidate> candidates;
+
+    /**
+     * @param candidates candidatos ordenados de mayor a menor puntaje
+     */
+    public FolioExtraction(List<FolioCandidate> candidates) {
+        this.candidates = Collections.unmodifiableList(candidates);
+    }
+
+    /** @return true si se encontró al menos un candidato */
+    public boolean hasBest() {
+        return !candidates.isEmpty();
+    }
+
+    /** @return mejor candidato o null si no hay */
+    public FolioCandidate getBest() {
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /** @return candidatos restantes, sin el mejor */
+    public List<FolioCandidate> getAlternatives() {
+        return candidates.isEmpty() ? candidates : candidates.subList(1, candidates.size());
+    }
+
+    /** @return todos los candidatos ordenados */
+    public List<FolioCandidate> getCandidates() {
+        return candidates;
+    }
+}
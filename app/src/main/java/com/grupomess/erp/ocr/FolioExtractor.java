@@ -0,0 +1,271 @@
+package com.grupomess.erp.ocr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Motor de extracción de folios sobre la jerarquía de OCR (bloques, líneas y elementos).
+ * <br>
+ * En lugar de copiar todo el texto de la página, busca en cada línea los patrones de folio
+ * precompilados y califica cada coincidencia según:
+ * - el peso del patrón que la encontró,
+ * - la confianza del OCR en los elementos que la forman,
+ * - si está junto a una etiqueta como "FOLIO" o "No.",
+ * - si cae dentro de la región de interés de la página,
+ * - la altura relativa del texto (los folios suelen imprimirse más grandes).
+ * <br>
+ * Es Java puro, inmutable y seguro entre hilos, para poder probarlo y medirlo en la JVM.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioExtractor {
+
+    private static final double WEIGHT_PATTERN = 0.45;
+    private static final double WEIGHT_CONFIDENCE = 0.2;
+    private static final double WEIGHT_LABEL = 0.2;
+    private static final double WEIGHT_ROI = 0.1;
+    private static final double WEIGHT_HEIGHT = 0.05;
+
+    /** Etiquetas que suelen preceder al folio. */
+    private static final Pattern DEFAULT_LABEL = Pattern.compile(
+            "\\b(FOLIO|N[UÚ]M(ERO)?|ORDEN|NO\\.?|N[°º])(?![A-Z0-9])\\s*[:#]?");
+
+    /** Patrones por omisión, de mayor a menor peso. */
+    private static final List<FolioPattern> DEFAULT_PATTERNS = Arrays.asList(
+            // Prefijo de letras y número: F-001234, OT12345
+            new FolioPattern(Pattern.compile("\\b[A-Z]{1,4}\\s?-\\s?\\d{3,10}\\b|\\b[A-Z]{1,4}\\d{4,10}\\b"), 1.0),
+            // Sólo números
+            new FolioPattern(Pattern.compile("\\b\\d{5,12}\\b"), 0.7),
+            // Códigos alfanuméricos con guiones: 2025-AB-0012
+            new FolioPattern(Pattern.compile("\\b[A-Z0-9]{2,6}(?:-[A-Z0-9]{2,8}){1,3}\\b"), 0.6));
+
+    private final List<FolioPattern> patterns;
+    private final Pattern labelPattern;
+    private final float roiLeft, roiTop, roiRight, roiBottom;
+    private final int maxCandidates;
+
+    private FolioExtractor(Builder builder, List<FolioPattern> patterns) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.labelPattern = builder.labelPattern;
+        this.roiLeft = builder.roiLeft;
+        this.roiTop = builder.roiTop;
+        this.roiRight = builder.roiRight;
+        this.roiBottom = builder.roiBottom;
+        this.maxCandidates = builder.maxCandidates;
+    }
+
+    /**
+     * Extractor con los patrones de folio por omisión.
+     * @return extractor listo para usarse
+     */
+    public static FolioExtractor withDefaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * Extrae el folio más probable y sus alternativas.
+     * @param page resultado de OCR
+     * @return candidatos ordenados, o {@link FolioExtraction#EMPTY} si no hay ninguno
+     */
+    public FolioExtraction extract(OcrPage page) {
+        float maxLineHeight = 1f;
+        for (OcrPage.Block block : page.getBlocks()) {
+            for (OcrPage.Line line : block.getLines()) {
+                if (line.getBox() != null) {
+                    maxLineHeight = Math.max(maxLineHeight, line.getBox().height());
+                }
+            }
+        }
+
+        Map<String, FolioCandidate> best = new HashMap<>();
+        for (OcrPage.Block block : page.getBlocks()) {
+            boolean previousIsLabel = false;
+            for (OcrPage.Line line : block.getLines()) {
+                String text = line.getText().toUpperCase(Locale.ROOT);
+                Matcher label = labelPattern.matcher(text);
+                int labelEnd = label.find() ? label.end() : -1;
+                boolean found = false;
+                // Rangos ya tomados por un patrón anterior (los patrones van de mayor a menor peso)
+                long[] taken = new long[4];
+                int takenCount = 0;
+
+                for (FolioPattern folioPattern : patterns) {
+                    Matcher matcher = folioPattern.pattern.matcher(text);
+                    while (matcher.find()) {
+                        if (overlaps(taken, takenCount, matcher.start(), matcher.end())) {
+                            continue;
+                        }
+                        if (takenCount == taken.length) {
+                            taken = Arrays.copyOf(taken, takenCount * 2);
+                        }
+                        taken[takenCount++] = ((long) matcher.start() << 32) | matcher.end();
+                        String value = normalize(matcher.group());
+                        if (!containsDigit(value)) {
+                            continue;
+                        }
+                        found = true;
+                        boolean labeled = previousIsLabel || (labelEnd >= 0 && labelEnd <= matcher.start());
+                        double score = WEIGHT_PATTERN * folioPattern.weight
+                                + WEIGHT_CONFIDENCE * confidenceOf(line, value)
+                                + (labeled ? WEIGHT_LABEL : 0)
+                                + (inRoi(line.getBox(), page) ? WEIGHT_ROI : 0)
+                                + (line.getBox() != null ? WEIGHT_HEIGHT * line.getBox().height() / maxLineHeight : 0);
+                        FolioCandidate current = best.get(value);
+                        if (current == null || current.getScore() < score) {
+                            best.put(value, new FolioCandidate(value, score, line.getText()));
+                        }
+                    }
+                }
+                // Una línea con sólo la etiqueta favorece a la siguiente línea del bloque
+                previousIsLabel = labelEnd >= 0 && !found;
+            }
+        }
+
+        if (best.isEmpty()) {
+            return FolioExtraction.EMPTY;
+        }
+        List<FolioCandidate> sorted = new ArrayList<>(best.values());
+        Collections.sort(sorted);
+        if (sorted.size() > maxCandidates) {
+            sorted = new ArrayList<>(sorted.subList(0, maxCandidates));
+        }
+        return new FolioExtraction(sorted);
+    }
+
+    /**
+     * Confianza promedio de los elementos que forman el folio; si no hay elementos
+     * coincidentes se usa la de la línea.
+     */
+    private static double confidenceOf(OcrPage.Line line, String value) {
+        double total = 0;
+        int count = 0;
+        for (OcrPage.Element element : line.getElements()) {
+            String elementText = normalize(element.getText().toUpperCase(Locale.ROOT));
+            if (!elementText.isEmpty() && value.contains(elementText)) {
+                total += element.getConfidence();
+                count++;
+            }
+        }
+        return count > 0 ? total / count : line.getConfidence();
+    }
+
+    private static boolean overlaps(long[] taken, int count, int start, int end) {
+        for (int i = 0; i < count; i++) {
+            int takenStart = (int) (taken[i] >>> 32);
+            int takenEnd = (int) taken[i];
+            if (start < takenEnd && takenStart < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inRoi(OcrPage.Box box, OcrPage page) {
+        if (box == null || page.getWidth() <= 0 || page.getHeight() <= 0) {
+            return false;
+        }
+        float x = box.centerX() / (float) page.getWidth();
+        float y = box.centerY() / (float) page.getHeight();
+        return x >= roiLeft && x <= roiRight && y >= roiTop && y <= roiBottom;
+    }
+
+    /**
+     * Quita espacios alrededor de guiones y espacios sobrantes.
+     */
+    static String normalize(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean containsDigit(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isDigit(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Patrón de folio con su peso relativo (0 a 1).
+     */
+    private static final class FolioPattern {
+        final Pattern pattern;
+        final double weight;
+
+        FolioPattern(Pattern pattern, double weight) {
+            this.pattern = pattern;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Constructor de configuración del extractor.
+     */
+    public static final class Builder {
+        private final List<FolioPattern> patterns = new ArrayList<>();
+        private Pattern labelPattern = DEFAULT_LABEL;
+        private float roiLeft = 0f, roiTop = 0f, roiRight = 1f, roiBottom = 0.5f;
+        private int maxCandidates = 5;
+
+        /**
+         * Agrega un patrón de folio. Si no se agrega ninguno se usan los patrones por omisión.
+         * Los patrones se evalúan en el orden agregado; conviene agregarlos de mayor a menor peso.
+         * @param regex expresión regular sobre el texto en mayúsculas
+         * @param weight peso entre 0 y 1
+         * @return este builder
+         */
+        public Builder addPattern(String regex, double weight) {
+            patterns.add(new FolioPattern(Pattern.compile(regex), weight));
+            return this;
+        }
+
+        /**
+         * @param regex expresión regular de las etiquetas que preceden al folio
+         * @return este builder
+         */
+        public Builder setLabelPattern(String regex) {
+            labelPattern = Pattern.compile(regex);
+            return this;
+        }
+
+        /**
+         * Región de interés en fracciones de la página (0 a 1).
+         * @return este builder
+         */
+        public Builder setRegionOfInterest(float left, float top, float right, float bottom) {
+            roiLeft = left;
+            roiTop = top;
+            roiRight = right;
+            roiBottom = bottom;
+            return this;
+        }
+
+        /**
+         * @param maxCandidates número máximo de candidatos devueltos
+         * @return este builder
+         */
+        public Builder setMaxCandidates(int maxCandidates) {
+            this.maxCandidates = Math.max(1, maxCandidates);
+            return this;
+        }
+
+        public FolioExtractor build() {
+            return new FolioExtractor(this, patterns.isEmpty() ? DEFAULT_PATTERNS : patterns);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.grupomess.erp.ocr;
+
+/**
+ * Confirma un folio leído en vivo cuando el mismo valor aparece en varios cuadros seguidos.
+ * <br>
+ * Un cuadro sin folio (movimiento, reflejo) no cuenta pero tampoco rompe la racha; un valor
+ * distinto sí la reinicia. Así una lectura errónea aislada no se confirma, y un cuadro borroso
+ * no obliga a empezar de nuevo.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioStabilizer {
+
+    private final int requiredFrames;
+    private String current;
+    private int streak;
+    private String stableValue;
+
+    /**
+     * @param requiredFrames cuadros seguidos con el mismo folio para confirmarlo
+     */
+    public FolioStabilizer(int requiredFrames) {
+        if (requiredFrames < 1) {
+            throw new IllegalArgumentException("requiredFrames debe ser positivo");
+        }
+        this.requiredFrames = requiredFrames;
+    }
+
+    /**
+     * Registra la lectura de un cuadro.
+     * @param value folio leído, o null si el cuadro no tuvo folio
+     * @return true si con este cuadro el folio quedó confirmado
+     */
+    public synchronized boolean offer(String value) {
+        if (stableValue != null || value == null || value.isEmpty()) {
+            return false;
+        }
+        if (value.equals(current)) {
+            streak++;
+        } else {
+            current = value;
+            streak = 1;
+        }
+        if (streak >= requiredFrames) {
+            stableValue = value;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return folio confirmado, o null si aún no hay
+     */
+    public synchronized String getStableValue() {
+        return stableValue;
+    }
+
+    /**
+     * Reinicia para un nuevo escaneo.
+     */
+    public synchronized void reset() {
+        current = null;
+        streak = 0;
+        stableValue = null;
+    }
+}
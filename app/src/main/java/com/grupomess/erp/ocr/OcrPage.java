@@ -0,0 +1,154 @@
+package com.grupomess.erp.ocr;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de OCR independiente de ML Kit: página con bloques, líneas y elementos,
+ * cada uno con su texto, caja delimitadora y confianza.
+ * <br>
+ * Permite probar y medir la extracción de folios en la JVM con resultados grabados,
+ * sin depender de las clases de Android.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class OcrPage {
+
+    private final int width;
+    private final int height;
+    private final List<Block> blocks;
+
+    /**
+     * @param width ancho de la imagen en píxeles
+     * @param height alto de la imagen en píxeles
+     * @param blocks bloques de texto en el orden devuelto por el OCR
+     */
+    public OcrPage(int width, int height, List<Block> blocks) {
+        this.width = width;
+        this.height = height;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Caja delimitadora en coordenadas de la imagen.
+     */
+    public static final class Box {
+        public final int left;
+        public final int top;
+        public final int right;
+        public final int bottom;
+
+        public Box(int left, int top, int right, int bottom) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        public int centerX() {
+            return (left + right) / 2;
+        }
+
+        public int centerY() {
+            return (top + bottom) / 2;
+        }
+
+        public int height() {
+            return bottom - top;
+        }
+    }
+
+    /**
+     * Bloque de texto (párrafo o columna).
+     */
+    public static final class Block {
+        private final List<Line> lines;
+
+        public Block(List<Line> lines) {
+            this.lines = Collections.unmodifiableList(lines);
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * Línea de texto dentro de un bloque.
+     */
+    public static final class Line {
+        private final String text;
+        private final Box box;
+        private final float confidence;
+        private final List<Element> elements;
+
+        /**
+         * @param text texto de la línea
+         * @param box caja delimitadora, puede ser null
+         * @param confidence confianza entre 0 y 1
+         * @param elements palabras de la línea
+         */
+        public Line(String text, Box box, float confidence, List<Element> elements) {
+            this.text = text;
+            this.box = box;
+            this.confidence = confidence;
+            this.elements = Collections.unmodifiableList(elements);
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Box getBox() {
+            return box;
+        }
+
+        public float getConfidence() {
+            return confidence;
+        }
+
+        public List<Element> getElements() {
+            return elements;
+        }
+    }
+
+    /**
+     * Palabra o símbolo dentro de una línea.
+     */
+    public static final class Element {
+        private final String text;
+        private final Box box;
+        private final float confidence;
+
+        public Element(String text, Box box, float confidence) {
+            this.text = text;
+            this.box = box;
+            this.confidence = confidence;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Box getBox() {
+            return box;
+        }
+
+        public float getConfidence() {
+            return confidence;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.grupomess.erp.preprocess;
+
+import com.grupomess.erp.quality.LumaImage;
+
+/**
+ * Detecta la hoja del folio en una foto reducida: el papel es más claro que el fondo.
+ * <br>
+ * 1. Umbral de Otsu sobre el histograma para separar papel y fondo.
+ * 2. Se toma la región clara conexa más grande; el texto oscuro deja huecos pero no la parte.
+ * 3. Las esquinas son los puntos extremos de {@code x + y} y {@code x - y} de la región, que
+ *    corresponden a las esquinas mientras la hoja esté girada menos de 45 grados.
+ * <br>
+ * Se descarta si la región es pequeña, si cubre casi todo el cuadro (ya está recortada), si
+ * no es convexa o si no llena su cuadrilátero (no tiene forma de hoja); el texto deja huecos,
+ * así que el llenado mínimo debe ser bastante menor a 1.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class DocumentDetector {
+
+    private final double minAreaFraction;
+    private final double maxAreaFraction;
+    private final double minFill;
+
+    /**
+     * @param minAreaFraction fracción mínima del cuadro que debe ocupar la hoja
+     * @param maxAreaFraction fracción a partir de la cual se considera que la foto ya es la hoja
+     * @param minFill fracción mínima del cuadrilátero cubierta por la región clara
+     */
+    public DocumentDetector(double minAreaFraction, double maxAreaFraction, double minFill) {
+        if (minAreaFraction <= 0 || minAreaFraction >= maxAreaFraction || maxAreaFraction > 1) {
+            throw new IllegalArgumentException("Fracciones de área inválidas");
+        }
+        this.minAreaFraction = minAreaFraction;
+        this.maxAreaFraction = maxAreaFraction;
+        this.minFill = minFill;
+    }
+
+    /**
+     * @param image foto reducida (unos cientos de pixeles por lado)
+     * @return cuadrilátero de la hoja en coordenadas de {@code image}, o null si no se encontró
+     */
+    public Quad detect(LumaImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] pixels = image.getPixels();
+        int threshold = otsuThreshold(pixels, width * height);
+
+        // Etiquetado de regiones claras con una pila explícita (4 vecinos)
+        int[] labels = new int[width * height];
+        int[] stack = new int[width * height];
+        int bestLabel = 0;
+        int bestSize = 0;
+        int label = 0;
+        for (int start = 0; start < labels.length; start++) {
+            if (labels[start] != 0 || (pixels[start] & 0xFF) <= threshold) {
+                continue;
+            }
+            label++;
+            int size = 0;
+            int top = 0;
+            stack[top++] = start;
+            labels[start] = label;
+            while (top > 0) {
+                int p = stack[--top];
+                size++;
+                int x = p % width;
+                int y = p / width;
+                if (x > 0) {
+                    top = push(pixels, labels, stack, top, p - 1, threshold, label);
+                }
+                if (x < width - 1) {
+                    top = push(pixels, labels, stack, top, p + 1, threshold, label);
+                }
+                if (y > 0) {
+                    top = push(pixels, labels, stack, top, p - width, threshold, label);
+                }
+                if (y < height - 1) {
+                    top = push(pixels, labels, stack, top, p + width, threshold, label);
+                }
+            }
+            if (size > bestSize) {
+                bestSize = size;
+                bestLabel = label;
+            }
+        }
+        if (bestLabel == 0) {
+            return null;
+        }
+
+        int minSum = Integer.MAX_VALUE;
+        int maxSum = Integer.MIN_VALUE;
+        int minDiff = Integer.MAX_VALUE;
+        int maxDiff = Integer.MIN_VALUE;
+        int[] corners = new int[4];
+        for (int p = 0; p < labels.length; p++) {
+            if (labels[p] != bestLabel) {
+                continue;
+            }
+            int x = p % width;
+            int y = p / width;
+            int sum = x + y;
+            int diff = x - y;
+            if (sum < minSum) {
+                minSum = sum;
+                corners[0] = p;
+            }
+            if (diff > maxDiff) {
+                maxDiff = diff;
+                corners[1] = p;
+            }
+            if (sum > maxSum) {
+                maxSum = sum;
+                corners[2] = p;
+            }
+            if (diff < minDiff) {
+                minDiff = diff;
+                corners[3] = p;
+            }
+        }
+        double[] xs = new double[4];
+        double[] ys = new double[4];
+        for (int i = 0; i < 4; i++) {
+            // El borde exterior del pixel de la esquina
+            xs[i] = corners[i] % width + (i == 1 || i == 2 ? 1 : 0);
+            ys[i] = corners[i] / width + (i >= 2 ? 1 : 0);
+        }
+        Quad quad = new Quad(xs, ys);
+
+        double frame = (double) width * height;
+        double area = quad.area();
+        if (area < minAreaFraction * frame || area > maxAreaFraction * frame || !quad.isConvex()
+                || bestSize < minFill * area) {
+            return null;
+        }
+        return quad;
+    }
+
+    private static int push(byte[] pixels, int[] labels, int[] stack, int top, int p, int threshold, int label) {
+        if (labels[p] == 0 && (pixels[p] & 0xFF) > threshold) {
+            labels[p] = label;
+            stack[top++] = p;
+        }
+        return top;
+    }
+
+    /**
+     * Umbral que maximiza la varianza entre las clases claro y oscuro.
+     * @param pixels luminancia
+     * @param count pixeles a considerar
+     * @return umbral; los pixeles mayores son claros
+     */
+    static int otsuThreshold(byte[] pixels, int count) {
+        int[] histogram = new int[256];
+        for (int i = 0; i < count; i++) {
+            histogram[pixels[i] & 0xFF]++;
+        }
+        long total = 0;
+        for (int i = 0; i < 256; i++) {
+            total += (long) i * histogram[i];
+        }
+        long sumBelow = 0;
+        int countBelow = 0;
+        double bestVariance = -1;
+        int best = 127;
+        for (int t = 0; t < 256; t++) {
+            countBelow += histogram[t];
+            if (countBelow == 0) {
+                continue;
+            }
+            int countAbove = count - countBelow;
+            if (countAbove == 0) {
+                break;
+            }
+            sumBelow += (long) t * histogram[t];
+            double meanBelow = (double) sumBelow / countBelow;
+            double meanAbove = (double) (total - sumBelow) / countAbove;
+            double variance = (double) countBelow * countAbove * (meanBelow - meanAbove) * (meanBelow - meanAbove);
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                best = t;
+            }
+        }
+        return best;
+    }
+}
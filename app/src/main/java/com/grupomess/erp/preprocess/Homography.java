@@ -0,0 +1,168 @@
+package com.grupomess.erp.preprocess;
+
+import com.grupomess.erp.quality.LumaImage;
+
+/**
+ * Transformación proyectiva del plano (matriz 3x3) para recortar y enderezar documentos.
+ * <br>
+ * Se usa en sentido inverso: para cada pixel de la imagen destino calcula de qué punto de la
+ * imagen origen debe tomarse, de modo que el destino no queda con huecos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class Homography {
+
+    /** Fila por fila; m[8] es 1 salvo tras componer */
+    private final double[] m;
+
+    private Homography(double[] m) {
+        this.m = m;
+    }
+
+    /**
+     * Transformación que lleva el rectángulo {@code (0,0)-(width,height)} al cuadrilátero.
+     * @param width ancho del rectángulo destino
+     * @param height alto del rectángulo destino
+     * @param quad cuadrilátero en la imagen origen
+     * @return transformación de coordenadas destino a origen
+     */
+    public static Homography rectToQuad(double width, double height, Quad quad) {
+        double[] sx = {0, width, width, 0};
+        double[] sy = {0, 0, height, height};
+        // Sistema de 8 ecuaciones: dos por esquina
+        double[][] a = new double[8][9];
+        for (int i = 0; i < 4; i++) {
+            double x = sx[i];
+            double y = sy[i];
+            double u = quad.x(i);
+            double v = quad.y(i);
+            a[2 * i] = new double[]{x, y, 1, 0, 0, 0, -u * x, -u * y, u};
+            a[2 * i + 1] = new double[]{0, 0, 0, x, y, 1, -v * x, -v * y, v};
+        }
+        double[] h = solve(a);
+        return new Homography(new double[]{h[0], h[1], h[2], h[3], h[4], h[5], h[6], h[7], 1});
+    }
+
+    /**
+     * Rotación alrededor de un punto.
+     * @param degrees ángulo en grados, positivo en sentido horario en coordenadas de imagen
+     * @param cx centro x
+     * @param cy centro y
+     * @return transformación
+     */
+    public static Homography rotation(double degrees, double cx, double cy) {
+        double cos = Math.cos(Math.toRadians(degrees));
+        double sin = Math.sin(Math.toRadians(degrees));
+        return new Homography(new double[]{
+                cos, -sin, cx - cos * cx + sin * cy,
+                sin, cos, cy - sin * cx - cos * cy,
+                0, 0, 1});
+    }
+
+    /**
+     * @param first transformación que se aplica primero
+     * @return transformación equivalente a aplicar {@code first} y después ésta
+     */
+    public Homography after(Homography first) {
+        double[] a = m;
+        double[] b = first.m;
+        double[] r = new double[9];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                r[row * 3 + col] = a[row * 3] * b[col] + a[row * 3 + 1] * b[3 + col] + a[row * 3 + 2] * b[6 + col];
+            }
+        }
+        return new Homography(r);
+    }
+
+    /**
+     * @return punto transformado {x, y}
+     */
+    public double[] apply(double x, double y) {
+        double w = m[6] * x + m[7] * y + m[8];
+        return new double[]{(m[0] * x + m[1] * y + m[2]) / w, (m[3] * x + m[4] * y + m[5]) / w};
+    }
+
+    /**
+     * Genera la imagen destino muestreando el origen con interpolación bilineal.
+     * Los puntos fuera del origen quedan en blanco, como el papel.
+     * @param source imagen origen
+     * @param width ancho destino
+     * @param height alto destino
+     * @return imagen destino
+     */
+    public LumaImage warp(LumaImage source, int width, int height) {
+        byte[] src = source.getPixels();
+        int sw = source.getWidth();
+        int sh = source.getHeight();
+        byte[] out = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            // Centro del pixel destino
+            double py = y + 0.5;
+            double rowX = m[1] * py + m[2];
+            double rowY = m[4] * py + m[5];
+            double rowW = m[7] * py + m[8];
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                double px = x + 0.5;
+                double w = m[6] * px + rowW;
+                double u = (m[0] * px + rowX) / w - 0.5;
+                double v = (m[3] * px + rowY) / w - 0.5;
+                if (u < 0 || v < 0 || u > sw - 1 || v > sh - 1) {
+                    out[offset + x] = (byte) 255;
+                    continue;
+                }
+                int x0 = (int) u;
+                int y0 = (int) v;
+                int x1 = Math.min(x0 + 1, sw - 1);
+                int y1 = Math.min(y0 + 1, sh - 1);
+                double fx = u - x0;
+                double fy = v - y0;
+                int p00 = src[y0 * sw + x0] & 0xFF;
+                int p01 = src[y0 * sw + x1] & 0xFF;
+                int p10 = src[y1 * sw + x0] & 0xFF;
+                int p11 = src[y1 * sw + x1] & 0xFF;
+                double top = p00 + (p01 - p00) * fx;
+                double bottom = p10 + (p11 - p10) * fx;
+                out[offset + x] = (byte) (int) (top + (bottom - top) * fy + 0.5);
+            }
+        }
+        return new LumaImage(width, height, out);
+    }
+
+    /**
+     * Eliminación gaussiana con pivoteo parcial sobre la matriz aumentada.
+     */
+    private static double[] solve(double[][] a) {
+        int n = a.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(a[pivot][col]) < 1e-12) {
+                throw new IllegalArgumentException("Cuadrilátero degenerado");
+            }
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            for (int row = 0; row < n; row++) {
+                if (row == col) {
+                    continue;
+                }
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k <= n; k++) {
+                    a[row][k] -= factor * a[col][k];
+                }
+            }
+        }
+        double[] result = new double[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = a[i][n] / a[i][i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,188 @@
+package com.grupomess.erp.preprocess;
+
+import com.grupomess.erp.quality.LumaImage;
+
+/**
+ * Prepara una foto para el OCR: orientación, recorte de la hoja, enderezado y reducción.
+ * <br>
+ * 1. Gira la foto según su orientación EXIF.
+ * 2. Busca la hoja con {@link DocumentDetector} en una copia de {@link Builder#setDetectionSize}.
+ * 3. Estima con {@link SkewEstimator} la inclinación que queda en la hoja recortada.
+ * 4. Reduce la foto promediando áreas para que la hoja mida {@link Builder#setTargetLongSide}.
+ * 5. Recorte en perspectiva y enderezado se hacen en un solo muestreo con una
+ *    {@link Homography} compuesta.
+ * <br>
+ * Si no se encuentra la hoja se usa el cuadro completo, enderezado y reducido. El resultado
+ * tiene menos pixeles y menos bloques ajenos al folio, lo que acorta el reconocimiento.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class OcrPreprocessor {
+
+    /** Escala a partir de la cual la reducción se deja al muestreo bilineal */
+    private static final double PREREDUCE_BELOW = 0.75;
+
+    private final int targetLongSide;
+    private final int detectionSize;
+    private final double minSkewDegrees;
+    private final DocumentDetector detector;
+    private final SkewEstimator skewEstimator;
+
+    private OcrPreprocessor(Builder builder) {
+        targetLongSide = builder.targetLongSide;
+        detectionSize = builder.detectionSize;
+        minSkewDegrees = builder.minSkewDegrees;
+        detector = new DocumentDetector(builder.minDocumentArea, 0.95, 0.6);
+        skewEstimator = new SkewEstimator(builder.maxSkewDegrees, 0.5);
+    }
+
+    /**
+     * Preprocesador con los valores por defecto del {@link Builder}.
+     */
+    public static OcrPreprocessor withDefaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * @param image foto decodificada, sin girar
+     * @param rotationDegrees orientación EXIF: 0, 90, 180 o 270 en sentido horario
+     * @return imagen lista para el OCR
+     */
+    public Result process(LumaImage image, int rotationDegrees) {
+        LumaImage upright = image.rotate(rotationDegrees);
+        LumaImage small = upright.fit(detectionSize);
+        double toFull = (double) upright.getWidth() / small.getWidth();
+
+        Quad found = detector.detect(small);
+        Quad region = found != null
+                ? found.scale(toFull)
+                : Quad.ofRect(upright.getWidth(), upright.getHeight());
+
+        // Se reduce primero promediando áreas: el muestreo bilineal al reducir mucho pierde trazos finos
+        double fit = Math.min(1, targetLongSide / Math.max(region.width(), region.height()));
+        LumaImage source = upright;
+        if (fit < PREREDUCE_BELOW) {
+            source = upright.resize(Math.max(1, (int) Math.round(upright.getWidth() * fit)),
+                    Math.max(1, (int) Math.round(upright.getHeight() * fit)));
+            region = region.scale((double) source.getWidth() / upright.getWidth());
+        }
+        double regionWidth = region.width();
+        double regionHeight = region.height();
+        double warpFit = Math.min(1, targetLongSide / Math.max(regionWidth, regionHeight));
+        int width = Math.max(1, (int) Math.round(regionWidth * warpFit));
+        int height = Math.max(1, (int) Math.round(regionHeight * warpFit));
+
+        // La inclinación se mide en una copia pequeña de la hoja ya recortada
+        double previewFit = Math.min(1, detectionSize / Math.max(regionWidth, regionHeight));
+        int previewWidth = Math.max(1, (int) Math.round(regionWidth * previewFit));
+        int previewHeight = Math.max(1, (int) Math.round(regionHeight * previewFit));
+        LumaImage preview = Homography.rectToQuad(previewWidth, previewHeight, region)
+                .warp(source, previewWidth, previewHeight);
+        double skew = skewEstimator.estimate(preview);
+        if (Math.abs(skew) < minSkewDegrees) {
+            skew = 0;
+        }
+
+        if (found == null && skew == 0 && warpFit == 1) {
+            return new Result(source, null, 0);
+        }
+        Homography toSource = Homography.rectToQuad(width, height, region);
+        if (skew != 0) {
+            toSource = toSource.after(Homography.rotation(skew, width / 2.0, height / 2.0));
+        }
+        return new Result(toSource.warp(source, width, height), found != null ? found.scale(toFull) : null, skew);
+    }
+
+    /**
+     * Imagen preparada y lo que se corrigió en ella.
+     */
+    public static final class Result {
+        private final LumaImage image;
+        private final Quad document;
+        private final double skewDegrees;
+
+        Result(LumaImage image, Quad document, double skewDegrees) {
+            this.image = image;
+            this.document = document;
+            this.skewDegrees = skewDegrees;
+        }
+
+        /** @return imagen para el OCR, derecha y reducida */
+        public LumaImage getImage() {
+            return image;
+        }
+
+        /** @return hoja detectada en la foto girada, o null si se usó el cuadro completo */
+        public Quad getDocument() {
+            return document;
+        }
+
+        /** @return inclinación corregida en grados */
+        public double getSkewDegrees() {
+            return skewDegrees;
+        }
+    }
+
+    /**
+     * Constructor de {@link OcrPreprocessor}.
+     */
+    public static final class Builder {
+        private int targetLongSide = 1280;
+        private int detectionSize = 256;
+        private double minDocumentArea = 0.2;
+        private double maxSkewDegrees = 10;
+        private double minSkewDegrees = 1;
+
+        /**
+         * @param targetLongSide lado mayor de la imagen para el OCR; el texto del folio debe
+         *                       seguir midiendo más de ~20 pixeles de alto
+         */
+        public Builder setTargetLongSide(int targetLongSide) {
+            if (targetLongSide < 64) {
+                throw new IllegalArgumentException("targetLongSide debe ser al menos 64");
+            }
+            this.targetLongSide = targetLongSide;
+            return this;
+        }
+
+        /**
+         * @param detectionSize lado mayor de la copia donde se buscan la hoja y la inclinación
+         */
+        public Builder setDetectionSize(int detectionSize) {
+            if (detectionSize < 32) {
+                throw new IllegalArgumentException("detectionSize debe ser al menos 32");
+            }
+            this.detectionSize = detectionSize;
+            return this;
+        }
+
+        /**
+         * @param minDocumentArea fracción mínima del cuadro que debe ocupar la hoja
+         */
+        public Builder setMinDocumentArea(double minDocumentArea) {
+            if (minDocumentArea <= 0 || minDocumentArea >= 0.95) {
+                throw new IllegalArgumentException("Fracción fuera de rango: " + minDocumentArea);
+            }
+            this.minDocumentArea = minDocumentArea;
+            return this;
+        }
+
+        /**
+         * @param maxSkewDegrees inclinación máxima que se busca corregir
+         * @param minSkewDegrees inclinación por debajo de la cual no se corrige
+         */
+        public Builder setSkewRange(double maxSkewDegrees, double minSkewDegrees) {
+            if (maxSkewDegrees <= 0 || minSkewDegrees < 0 || minSkewDegrees > maxSkewDegrees) {
+                throw new IllegalArgumentException("Rango de inclinación inválido");
+            }
+            this.maxSkewDegrees = maxSkewDegrees;
+            this.minSkewDegrees = minSkewDegrees;
+            return this;
+        }
+
+        public OcrPreprocessor build() {
+            return new OcrPreprocessor(this);
+        }
+    }
+}
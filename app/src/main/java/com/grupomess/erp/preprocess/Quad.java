@@ -0,0 +1,104 @@
+package com.grupomess.erp.preprocess;
+
+/**
+ * Cuadrilátero de un documento en la imagen, con las esquinas en orden: superior izquierda,
+ * superior derecha, inferior derecha e inferior izquierda.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class Quad {
+
+    private final double[] xs;
+    private final double[] ys;
+
+    /**
+     * @param xs coordenada x de las cuatro esquinas
+     * @param ys coordenada y de las cuatro esquinas
+     */
+    public Quad(double[] xs, double[] ys) {
+        if (xs.length != 4 || ys.length != 4) {
+            throw new IllegalArgumentException("Un cuadrilátero tiene cuatro esquinas");
+        }
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+    }
+
+    /**
+     * @return rectángulo que cubre la imagen completa
+     */
+    public static Quad ofRect(double width, double height) {
+        return new Quad(new double[]{0, width, width, 0}, new double[]{0, 0, height, height});
+    }
+
+    /** @return x de la esquina {@code i} (0 a 3) */
+    public double x(int i) {
+        return xs[i];
+    }
+
+    /** @return y de la esquina {@code i} (0 a 3) */
+    public double y(int i) {
+        return ys[i];
+    }
+
+    /**
+     * @param factor escala, por ejemplo de la imagen reducida a la original
+     * @return cuadrilátero escalado
+     */
+    public Quad scale(double factor) {
+        double[] sx = new double[4];
+        double[] sy = new double[4];
+        for (int i = 0; i < 4; i++) {
+            sx[i] = xs[i] * factor;
+            sy[i] = ys[i] * factor;
+        }
+        return new Quad(sx, sy);
+    }
+
+    /** @return área (fórmula del polígono) */
+    public double area() {
+        double twice = 0;
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) % 4;
+            twice += xs[i] * ys[j] - xs[j] * ys[i];
+        }
+        return Math.abs(twice) / 2;
+    }
+
+    /** @return true si las esquinas forman un polígono convexo en el orden esperado */
+    public boolean isConvex() {
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) % 4;
+            int k = (i + 2) % 4;
+            double cross = (xs[j] - xs[i]) * (ys[k] - ys[j]) - (ys[j] - ys[i]) * (xs[k] - xs[j]);
+            // En coordenadas de imagen (y hacia abajo) el orden horario da productos positivos
+            if (cross <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return ancho del documento: el mayor de los lados superior e inferior */
+    public double width() {
+        return Math.max(distance(0, 1), distance(3, 2));
+    }
+
+    /** @return alto del documento: el mayor de los lados izquierdo y derecho */
+    public double height() {
+        return Math.max(distance(0, 3), distance(1, 2));
+    }
+
+    private double distance(int a, int b) {
+        return Math.hypot(xs[b] - xs[a], ys[b] - ys[a]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Quad[");
+        for (int i = 0; i < 4; i++) {
+            text.append(i == 0 ? "" : ", ").append(Math.round(xs[i])).append(',').append(Math.round(ys[i]));
+        }
+        return text.append(']').toString();
+    }
+}
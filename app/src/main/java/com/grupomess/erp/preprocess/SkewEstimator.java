@@ -0,0 +1,94 @@
+package com.grupomess.erp.preprocess;
+
+import com.grupomess.erp.quality.LumaImage;
+
+import java.util.Arrays;
+
+/**
+ * Estima la inclinación de las líneas de texto con perfiles de proyección.
+ * <br>
+ * Para cada ángulo candidato se proyectan los pixeles oscuros sobre la perpendicular a las
+ * líneas; cuando el ángulo coincide con el texto, las filas de texto y los interlineados
+ * forman picos y valles marcados y la suma de cuadrados del perfil es máxima.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class SkewEstimator {
+
+    private final double maxDegrees;
+    private final double stepDegrees;
+
+    /**
+     * @param maxDegrees inclinación máxima buscada, en ambos sentidos
+     * @param stepDegrees resolución de la búsqueda
+     */
+    public SkewEstimator(double maxDegrees, double stepDegrees) {
+        if (maxDegrees <= 0 || stepDegrees <= 0) {
+            throw new IllegalArgumentException("El rango y el paso deben ser positivos");
+        }
+        this.maxDegrees = maxDegrees;
+        this.stepDegrees = stepDegrees;
+    }
+
+    /**
+     * @param image imagen reducida con el texto aproximadamente horizontal
+     * @return ángulo en grados de las líneas de texto (positivo si bajan hacia la derecha),
+     *         0 si no hay suficiente texto
+     */
+    public double estimate(LumaImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] pixels = image.getPixels();
+        int threshold = DocumentDetector.otsuThreshold(pixels, width * height);
+
+        // Pixeles oscuros relativos al centro para no desplazar el perfil al girar
+        int count = 0;
+        for (int i = 0; i < width * height; i++) {
+            if ((pixels[i] & 0xFF) <= threshold) {
+                count++;
+            }
+        }
+        if (count < 16 || count > width * height / 2) {
+            return 0;
+        }
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((pixels[y * width + x] & 0xFF) <= threshold) {
+                    xs[n] = x - width / 2f;
+                    ys[n] = y - height / 2f;
+                    n++;
+                }
+            }
+        }
+
+        int bins = (int) Math.ceil(Math.hypot(width, height)) + 2;
+        int[] profile = new int[bins];
+        int offset = bins / 2;
+        double bestAngle = 0;
+        long bestScore = -1;
+        int steps = (int) Math.round(maxDegrees / stepDegrees);
+        for (int s = -steps; s <= steps; s++) {
+            double angle = s * stepDegrees;
+            double sin = Math.sin(Math.toRadians(angle));
+            double cos = Math.cos(Math.toRadians(angle));
+            Arrays.fill(profile, 0);
+            for (int i = 0; i < count; i++) {
+                profile[(int) Math.round(ys[i] * cos - xs[i] * sin) + offset]++;
+            }
+            long score = 0;
+            for (int value : profile) {
+                score += (long) value * value;
+            }
+            // A igual puntaje se prefiere el ángulo más cercano a cero
+            if (score > bestScore || (score == bestScore && Math.abs(angle) < Math.abs(bestAngle))) {
+                bestScore = score;
+                bestAngle = angle;
+            }
+        }
+        return bestAngle;
+    }
+}
@@ -0,0 +1,152 @@
+package com.grupomess.erp.quality;
+
+/**
+ * Imagen en escala de grises (luminancia de 0 a 255), sin dependencias de Android, para
+ * analizar fotos reducidas en la JVM.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class LumaImage {
+
+    private final int width;
+    private final int height;
+    /** Luminancia por pixel, fila por fila, sin signo */
+    private final byte[] pixels;
+
+    /**
+     * @param width ancho en pixeles
+     * @param height alto en pixeles
+     * @param pixels luminancia fila por fila; se usa sin copiar
+     */
+    public LumaImage(int width, int height, byte[] pixels) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Dimensiones inválidas: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Convierte pixeles ARGB (como los de {@code Bitmap.getPixels}) a luminancia BT.601.
+     * @param argb pixeles fila por fila
+     * @param width ancho
+     * @param height alto
+     * @return imagen en escala de grises
+     */
+    public static LumaImage fromArgb(int[] argb, int width, int height) {
+        byte[] luma = new byte[width * height];
+        for (int i = 0; i < luma.length; i++) {
+            int c = argb[i];
+            int r = (c >> 16) & 0xFF;
+            int g = (c >> 8) & 0xFF;
+            int b = c & 0xFF;
+            // Enteros en lugar de flotantes: 0.299, 0.587 y 0.114 escalados por 256
+            luma[i] = (byte) ((77 * r + 150 * g + 29 * b) >> 8);
+        }
+        return new LumaImage(width, height, luma);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return luminancia del pixel, de 0 a 255
+     */
+    public int get(int x, int y) {
+        return pixels[y * width + x] & 0xFF;
+    }
+
+    /**
+     * @return luminancia fila por fila, sin copiar; no debe modificarse
+     */
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Gira la imagen en múltiplos de 90 grados en sentido horario, como la orientación EXIF.
+     * @param degrees 0, 90, 180 o 270
+     * @return imagen girada, o la misma si {@code degrees} es 0
+     */
+    public LumaImage rotate(int degrees) {
+        if (degrees == 0) {
+            return this;
+        }
+        if (degrees != 90 && degrees != 180 && degrees != 270) {
+            throw new IllegalArgumentException("Rotación no soportada: " + degrees);
+        }
+        boolean swap = degrees != 180;
+        int outWidth = swap ? height : width;
+        int outHeight = swap ? width : height;
+        byte[] out = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int tx;
+                int ty;
+                if (degrees == 90) {
+                    tx = height - 1 - y;
+                    ty = x;
+                } else if (degrees == 180) {
+                    tx = width - 1 - x;
+                    ty = height - 1 - y;
+                } else {
+                    tx = y;
+                    ty = width - 1 - x;
+                }
+                out[ty * outWidth + tx] = pixels[row + x];
+            }
+        }
+        return new LumaImage(outWidth, outHeight, out);
+    }
+
+    /**
+     * Reduce la imagen promediando el área que cubre cada pixel destino.
+     * @param targetWidth ancho destino, no mayor al actual
+     * @param targetHeight alto destino, no mayor al actual
+     * @return imagen reducida
+     */
+    public LumaImage resize(int targetWidth, int targetHeight) {
+        if (targetWidth == width && targetHeight == height) {
+            return this;
+        }
+        byte[] out = new byte[targetWidth * targetHeight];
+        for (int ty = 0; ty < targetHeight; ty++) {
+            int y0 = ty * height / targetHeight;
+            int y1 = Math.max(y0 + 1, (ty + 1) * height / targetHeight);
+            for (int tx = 0; tx < targetWidth; tx++) {
+                int x0 = tx * width / targetWidth;
+                int x1 = Math.max(x0 + 1, (tx + 1) * width / targetWidth);
+                int sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    int row = y * width;
+                    for (int x = x0; x < x1; x++) {
+                        sum += pixels[row + x] & 0xFF;
+                    }
+                }
+                out[ty * targetWidth + tx] = (byte) (sum / ((y1 - y0) * (x1 - x0)));
+            }
+        }
+        return new LumaImage(targetWidth, targetHeight, out);
+    }
+
+    /**
+     * Reduce la imagen para que su lado mayor no pase del límite, conservando la proporción.
+     * @param maxSide lado mayor máximo
+     * @return imagen reducida, o la misma si ya cabe
+     */
+    public LumaImage fit(int maxSide) {
+        int longSide = Math.max(width, height);
+        if (longSide <= maxSide) {
+            return this;
+        }
+        return resize(Math.max(1, width * maxSide / longSide), Math.max(1, height * maxSide / longSide));
+    }
+}
@@ -0,0 +1,182 @@
+package com.grupomess.erp.quality;
+
+import java.util.Map;
+
+/**
+ * Filtro de calidad de las fotos al entrar a la sesión de captura.
+ * <br>
+ * Sobre una copia reducida en escala de grises calcula:
+ * - Un hash perceptual de diferencias (dHash de 64 bits): dos tomas casi iguales difieren
+ *   en pocos bits aunque cambien ligeramente la exposición o el encuadre.
+ * - La nitidez como varianza del laplaciano: una foto movida o desenfocada tiene pocos bordes
+ *   y su varianza es baja.
+ * <br>
+ * Todo es aritmética entera sobre unos cientos de miles de pixeles, de modo que cada foto
+ * toma pocos milisegundos sin contar la decodificación.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class PhotoQualityGate {
+
+    private final int analysisSize;
+    private final int duplicateMaxDistance;
+    private final double minSharpness;
+
+    private PhotoQualityGate(Builder builder) {
+        analysisSize = builder.analysisSize;
+        duplicateMaxDistance = builder.duplicateMaxDistance;
+        minSharpness = builder.minSharpness;
+    }
+
+    /**
+     * Filtro con los valores por defecto del {@link Builder}.
+     * @return filtro de calidad
+     */
+    public static PhotoQualityGate withDefaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * @return lado mayor con el que se debe entregar la imagen a {@link #check}
+     */
+    public int getAnalysisSize() {
+        return analysisSize;
+    }
+
+    /**
+     * Evalúa una foto contra las que ya están en la sesión.
+     * @param image foto en escala de grises; se reduce a {@link #getAnalysisSize()} si es mayor
+     * @param sessionHashes hash de cada foto de la sesión, por su identificador
+     * @return veredicto con el hash de la foto para agregarlo a la sesión
+     */
+    public Verdict check(LumaImage image, Map<Long, Long> sessionHashes) {
+        LumaImage analyzed = image.fit(analysisSize);
+        long hash = differenceHash(analyzed);
+        double sharpness = laplacianVariance(analyzed);
+
+        long duplicateOf = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : sessionHashes.entrySet()) {
+            int distance = Long.bitCount(hash ^ entry.getValue());
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                duplicateOf = entry.getKey();
+            }
+        }
+        boolean duplicate = bestDistance <= duplicateMaxDistance;
+        return new Verdict(hash, sharpness, duplicate ? duplicateOf : -1,
+                duplicate ? bestDistance : -1, sharpness < minSharpness);
+    }
+
+    /**
+     * Hash de diferencias: reduce a 9x8 y marca con 1 cada pixel más claro que su vecino derecho.
+     * @param image imagen en escala de grises
+     * @return hash de 64 bits
+     */
+    public static long differenceHash(LumaImage image) {
+        LumaImage small = image.resize(9, 8);
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                hash <<= 1;
+                if (small.get(x, y) > small.get(x + 1, y)) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Varianza de la respuesta del laplaciano de 4 vecinos.
+     * @param image imagen en escala de grises
+     * @return varianza; mayor es más nítida
+     */
+    public static double laplacianVariance(LumaImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width < 3 || height < 3) {
+            return 0;
+        }
+        long sum = 0;
+        long sumSquares = 0;
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int value = image.get(x - 1, y) + image.get(x + 1, y) + image.get(x, y - 1)
+                        + image.get(x, y + 1) - 4 * image.get(x, y);
+                sum += value;
+                sumSquares += (long) value * value;
+            }
+        }
+        long count = (long) (width - 2) * (height - 2);
+        double mean = (double) sum / count;
+        return (double) sumSquares / count - mean * mean;
+    }
+
+    /**
+     * Resultado de evaluar una foto.
+     */
+    public static final class Verdict {
+        /** Hash perceptual de la foto */
+        public final long hash;
+        /** Varianza del laplaciano */
+        public final double sharpness;
+        /** Identificador de la foto de la sesión que repite, o -1 */
+        public final long duplicateOf;
+        /** Bits distintos respecto a la foto repetida, o -1 */
+        public final int distance;
+        /** La foto está por debajo de la nitidez mínima */
+        public final boolean blurry;
+
+        Verdict(long hash, double sharpness, long duplicateOf, int distance, boolean blurry) {
+            this.hash = hash;
+            this.sharpness = sharpness;
+            this.duplicateOf = duplicateOf;
+            this.distance = distance;
+            this.blurry = blurry;
+        }
+
+        /** @return true si la foto repite una de la sesión */
+        public boolean isDuplicate() {
+            return duplicateOf >= 0;
+        }
+    }
+
+    /**
+     * Constructor de {@link PhotoQualityGate}.
+     */
+    public static final class Builder {
+        private int analysisSize = 512;
+        private int duplicateMaxDistance = 5;
+        private double minSharpness = 60;
+
+        /** Lado mayor de la copia analizada; por defecto 512 px */
+        public Builder setAnalysisSize(int analysisSize) {
+            if (analysisSize < 16) {
+                throw new IllegalArgumentException("analysisSize debe ser al menos 16");
+            }
+            this.analysisSize = analysisSize;
+            return this;
+        }
+
+        /** Bits distintos de 64 hasta los que dos fotos se consideran repetidas; por defecto 5 */
+        public Builder setDuplicateMaxDistance(int duplicateMaxDistance) {
+            if (duplicateMaxDistance < 0 || duplicateMaxDistance > 64) {
+                throw new IllegalArgumentException("Distancia fuera de rango: " + duplicateMaxDistance);
+            }
+            this.duplicateMaxDistance = duplicateMaxDistance;
+            return this;
+        }
+
+        /** Varianza del laplaciano por debajo de la cual una foto es borrosa; por defecto 60 */
+        public Builder setMinSharpness(double minSharpness) {
+            this.minSharpness = minSharpness;
+            return this;
+        }
+
+        public PhotoQualityGate build() {
+            return new PhotoQualityGate(this);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.grupomess.erp.quality.LumaImage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Utilidades para los archivos de fotos capturadas por la cámara.
+ * Las fotos se guardan en resolución completa dentro del almacenamiento privado
+ * de la app ({@code files/capturas}), de modo que la memoria sólo guarda referencias a archivos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class CaptureFiles {
+
+    /** Carpeta privada donde la cámara escribe las fotos. */
+    private static final String CAPTURE_DIR = "capturas";
+
+    private CaptureFiles() {
+    }
+
+    /**
+     * Crea un archivo vacío para una nueva foto.
+     * @param context contexto de la app
+     * @return archivo destino de la captura
+     * @throws IOException si no se pudo crear la carpeta o el archivo
+     */
+    public static File createPhotoFile(Context context) throws IOException {
+        File dir = getCaptureDir(context);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("No se pudo crear la carpeta " + dir);
+        }
+        File file = new File(dir, "IMG_" + UUID.randomUUID() + ".jpg");
+        if (!file.createNewFile()) {
+            throw new IOException("No se pudo crear el archivo " + file);
+        }
+        return file;
+    }
+
+    /**
+     * Carpeta privada de capturas.
+     * @param context contexto de la app
+     * @return carpeta de capturas (puede no existir todavía)
+     */
+    public static File getCaptureDir(Context context) {
+        return new File(context.getFilesDir(), CAPTURE_DIR);
+    }
+
+    /**
+     * Elimina un archivo de captura si existe.
+     * @param file archivo a eliminar, puede ser null
+     */
+    public static void delete(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Calcula la mayor potencia de 2 que mantiene la imagen por encima del tamaño solicitado.
+     * @param width ancho original
+     * @param height alto original
+     * @param reqWidth ancho deseado
+     * @param reqHeight alto deseado
+     * @return factor de muestreo (1 = sin reducción)
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while ((height / (inSampleSize * 2)) >= reqHeight && (width / (inSampleSize * 2)) >= reqWidth) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Decodifica una foto reducida en escala de grises para analizar su calidad.
+     * Se muestrea al decodificar, de modo que nunca se carga la resolución completa.
+     * @param file foto capturada
+     * @param maxSide lado mayor aproximado de la copia
+     * @return imagen en escala de grises, o null si no se pudo leer
+     */
+    public static LumaImage decodeLuma(File file, int maxSide) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int longSide = Math.max(options.outWidth, options.outHeight);
+        options.inSampleSize = calculateInSampleSize(longSide, longSide, maxSide, maxSide);
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            int[] argb = new int[width * height];
+            bitmap.getPixels(argb, 0, width, 0, 0, width, height);
+            return LumaImage.fromArgb(argb, width, height);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.grupomess.erp.ui.gallery;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bitácora en disco, de sólo anexado, de la sesión de captura de un folio.
+ * <br>
+ * Cada cambio de la sesión (folio, foto agregada o eliminada, veredicto del filtro de calidad,
+ * resultado de OCR) se anexa como una línea, de modo que si el sistema mata el proceso la
+ * sesión se reconstruye leyendo el archivo, sin volver a decodificar fotos ni repetir el OCR.
+ * Cuando la bitácora crece demasiado se reescribe compacta con el estado actual.
+ * <br>
+ * Formato de línea: tipo y valor separados por tabulador; tabuladores, saltos de línea
+ * y diagonales invertidas del valor se escapan.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class CaptureSessionJournal {
+
+    private static final char TYPE_FOLIO = 'F';
+    private static final char TYPE_ADD = 'A';
+    private static final char TYPE_REMOVE = 'D';
+    private static final char TYPE_OCR = 'O';
+    /** Valor: hash en hexadecimal, 1 o 0 si es borrosa y la ruta, separados por espacio */
+    private static final char TYPE_QUALITY = 'Q';
+    /** Entradas anexadas tras las cuales se compacta la bitácora */
+    private static final int COMPACT_THRESHOLD = 256;
+
+    private final File file;
+    private Writer writer;
+    private int appendedSinceCompact;
+    /** Estado actual, para poder compactar sin releer el archivo */
+    private final State state;
+
+    /**
+     * Abre la bitácora y reconstruye el estado guardado.
+     * @param file archivo de la bitácora; se crea en el primer anexado
+     */
+    public CaptureSessionJournal(File file) {
+        this.file = file;
+        this.state = replay(file);
+        // Una línea a medias se descarta reescribiendo la bitácora en el primer anexado
+        if (state.truncatedTail) {
+            appendedSinceCompact = COMPACT_THRESHOLD;
+        }
+    }
+
+    /**
+     * @return estado reconstruido y mantenido al día con cada anexado
+     */
+    public synchronized State getState() {
+        return state.copy();
+    }
+
+    /**
+     * Registra el texto actual del folio.
+     * @param folio texto del campo de folio
+     */
+    public synchronized void setFolio(String folio) throws IOException {
+        if (folio.equals(state.folio)) {
+            return;
+        }
+        state.folio = folio;
+        append(TYPE_FOLIO, folio);
+    }
+
+    /**
+     * Registra una foto agregada al final de la sesión.
+     * @param path ruta del archivo de la foto
+     */
+    public synchronized void addPhoto(String path) throws IOException {
+        state.photoPaths.add(path);
+        append(TYPE_ADD, path);
+    }
+
+    /**
+     * Registra una foto eliminada.
+     * @param path ruta del archivo de la foto
+     */
+    public synchronized void removePhoto(String path) throws IOException {
+        state.removePhoto(path);
+        append(TYPE_REMOVE, path);
+    }
+
+    /**
+     * Registra el veredicto del filtro de calidad de una foto que no resultó repetida.
+     * @param path ruta del archivo de la foto
+     * @param hash hash perceptual de la foto
+     * @param blurry true si está por debajo de la nitidez mínima
+     */
+    public synchronized void setPhotoQuality(String path, long hash, boolean blurry) throws IOException {
+        state.setQuality(path, hash, blurry);
+        append(TYPE_QUALITY, qualityValue(path, hash, blurry));
+    }
+
+    /**
+     * Registra los candidatos de folio del último OCR, el mejor primero.
+     * @param candidates candidatos; lista vacía si no hubo resultado
+     */
+    public synchronized void setOcrCandidates(List<String> candidates) throws IOException {
+        state.ocrCandidates.clear();
+        state.ocrCandidates.addAll(candidates);
+        append(TYPE_OCR, String.join("\n", candidates));
+    }
+
+    /**
+     * Borra la sesión, por ejemplo después de guardar el folio.
+     */
+    public synchronized void clear() throws IOException {
+        closeWriter();
+        state.folio = "";
+        state.photoPaths.clear();
+        state.photoHashes.clear();
+        state.blurryPaths.clear();
+        state.ocrCandidates.clear();
+        appendedSinceCompact = 0;
+        if (file.exists() && !file.delete()) {
+            throw new IOException("No se pudo borrar " + file);
+        }
+    }
+
+    /**
+     * Cierra el archivo de la bitácora.
+     */
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    /**
+     * Anexa una entrada ya aplicada al estado en memoria. Si toca compactar, la
+     * reescritura ya incluye la entrada y no se anexa de nuevo.
+     */
+    private void append(char type, String value) throws IOException {
+        if (appendedSinceCompact >= COMPACT_THRESHOLD) {
+            compact();
+            return;
+        }
+        if (writer == null) {
+            writer = openWriter();
+        }
+        writeLine(writer, type, value);
+        writer.flush();
+        appendedSinceCompact++;
+    }
+
+    /**
+     * Reescribe la bitácora con sólo el estado actual, en un archivo temporal que luego
+     * reemplaza al original para no perder la sesión si el proceso muere a mitad.
+     */
+    private void compact() throws IOException {
+        closeWriter();
+        ensureParentDir();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp, false), StandardCharsets.UTF_8)) {
+            if (!state.folio.isEmpty()) {
+                writeLine(out, TYPE_FOLIO, state.folio);
+            }
+            for (String path : state.photoPaths) {
+                writeLine(out, TYPE_ADD, path);
+                Long hash = state.photoHashes.get(path);
+                if (hash != null) {
+                    writeLine(out, TYPE_QUALITY, qualityValue(path, hash, state.blurryPaths.contains(path)));
+                }
+            }
+            if (!state.ocrCandidates.isEmpty()) {
+                writeLine(out, TYPE_OCR, String.join("\n", state.ocrCandidates));
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("No se pudo compactar " + file);
+        }
+        appendedSinceCompact = 0;
+    }
+
+    private Writer openWriter() throws IOException {
+        ensureParentDir();
+        return new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+    }
+
+    private void ensureParentDir() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // El contenido ya se vació con flush en cada anexado
+            }
+            writer = null;
+        }
+    }
+
+    private static void writeLine(Writer out, char type, String value) throws IOException {
+        out.write(type);
+        out.write('\t');
+        out.write(escape(value));
+        out.write('\n');
+    }
+
+    /**
+     * Lee la bitácora y aplica sus entradas en orden. Una última línea incompleta
+     * (proceso muerto durante la escritura) se ignora.
+     * @param file archivo de la bitácora
+     * @return estado reconstruido; vacío si el archivo no existe o no se puede leer
+     */
+    static State replay(File file) {
+        State state = new State();
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return state;
+        }
+        int start = 0;
+        int end;
+        // Sólo se aplican líneas terminadas en salto de línea
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end);
+            start = end + 1;
+            if (line.length() < 2 || line.charAt(1) != '\t') {
+                continue;
+            }
+            String value = unescape(line.substring(2));
+            switch (line.charAt(0)) {
+                case TYPE_FOLIO:
+                    state.folio = value;
+                    break;
+                case TYPE_ADD:
+                    state.photoPaths.add(value);
+                    break;
+                case TYPE_REMOVE:
+                    state.removePhoto(value);
+                    break;
+                case TYPE_QUALITY:
+                    applyQuality(state, value);
+                    break;
+                case TYPE_OCR:
+                    state.ocrCandidates.clear();
+                    if (!value.isEmpty()) {
+                        Collections.addAll(state.ocrCandidates, value.split("\n"));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        state.truncatedTail = start < content.length();
+        return state;
+    }
+
+    private static void applyQuality(State state, String value) {
+        String[] parts = value.split(" ", 3);
+        if (parts.length < 3) {
+            return;
+        }
+        try {
+            state.setQuality(parts[2], Long.parseUnsignedLong(parts[0], 16), "1".equals(parts[1]));
+        } catch (NumberFormatException ignored) {
+            // Línea dañada; la foto se vuelve a analizar al restaurar
+        }
+    }
+
+    private static String qualityValue(String path, long hash, boolean blurry) {
+        return Long.toHexString(hash) + ' ' + (blurry ? '1' : '0') + ' ' + path;
+    }
+
+    static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    static String unescape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Estado de la sesión: folio, rutas de fotos en orden, veredictos del filtro de calidad y
+     * candidatos del último OCR.
+     */
+    public static final class State {
+        public String folio = "";
+        public final List<String> photoPaths = new ArrayList<>();
+        /** Hash perceptual por ruta de las fotos ya analizadas */
+        public final Map<String, Long> photoHashes = new HashMap<>();
+        /** Rutas de las fotos analizadas que resultaron borrosas */
+        public final Set<String> blurryPaths = new HashSet<>();
+        public final List<String> ocrCandidates = new ArrayList<>();
+        /** La bitácora terminaba con una línea incompleta */
+        boolean truncatedTail;
+
+        /** @return true si no hay nada que restaurar */
+        public boolean isEmpty() {
+            return folio.isEmpty() && photoPaths.isEmpty() && ocrCandidates.isEmpty();
+        }
+
+        State copy() {
+            State copy = new State();
+            copy.folio = folio;
+            copy.photoPaths.addAll(photoPaths);
+            copy.photoHashes.putAll(photoHashes);
+            copy.blurryPaths.addAll(blurryPaths);
+            copy.ocrCandidates.addAll(ocrCandidates);
+            return copy;
+        }
+
+        void removePhoto(String path) {
+            photoPaths.remove(path);
+            photoHashes.remove(path);
+            blurryPaths.remove(path);
+        }
+
+        void setQuality(String path, long hash, boolean blurry) {
+            photoHashes.put(path, hash);
+            if (blurry) {
+                blurryPaths.add(path);
+            } else {
+                blurryPaths.remove(path);
+            }
+        }
+    }
+}
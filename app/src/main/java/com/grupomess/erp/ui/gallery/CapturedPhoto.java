@@ -0,0 +1,101 @@
+package com.grupomess.erp.ui.gallery;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Foto capturada dentro de una sesión de folio: un identificador estable, el archivo en
+ * resolución completa y el veredicto del filtro de calidad (hash perceptual y si es borrosa).
+ * Es inmutable para poder compararse en segundo plano con DiffUtil.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class CapturedPhoto {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
+    private final File file;
+    private final boolean blurry;
+    /** Hash perceptual; null mientras el filtro de calidad no la analiza */
+    private final Long hash;
+
+    private CapturedPhoto(long id, File file, boolean blurry, Long hash) {
+        this.id = id;
+        this.file = file;
+        this.blurry = blurry;
+        this.hash = hash;
+    }
+
+    /**
+     * Crea una foto con un identificador nuevo, aún sin analizar.
+     * @param file archivo de la foto
+     * @return foto capturada
+     */
+    public static CapturedPhoto create(File file) {
+        return new CapturedPhoto(NEXT_ID.getAndIncrement(), file, false, null);
+    }
+
+    /**
+     * Recrea una foto de una sesión restaurada con el veredicto que ya tenía.
+     * @param file archivo de la foto
+     * @param hash hash perceptual, o null si no llegó a analizarse
+     * @param blurry true si el filtro la marcó como borrosa
+     * @return foto con un identificador nuevo
+     */
+    public static CapturedPhoto restore(File file, Long hash, boolean blurry) {
+        return new CapturedPhoto(NEXT_ID.getAndIncrement(), file, hash != null && blurry, hash);
+    }
+
+    /** @return identificador estable dentro del proceso */
+    public long getId() {
+        return id;
+    }
+
+    /** @return archivo de la foto */
+    public File getFile() {
+        return file;
+    }
+
+    /** @return true si la foto está por debajo de la nitidez mínima */
+    public boolean isBlurry() {
+        return blurry;
+    }
+
+    /** @return hash perceptual, o null si la foto aún no se analiza */
+    public Long getHash() {
+        return hash;
+    }
+
+    /**
+     * @param hash hash perceptual calculado por el filtro de calidad
+     * @param blurry nueva marca de foto borrosa
+     * @return copia con el mismo identificador y archivo
+     */
+    public CapturedPhoto withQuality(long hash, boolean blurry) {
+        return Objects.equals(this.hash, hash) && blurry == this.blurry ? this
+                : new CapturedPhoto(id, file, blurry, hash);
+    }
+
+    /**
+     * Compara lo que se muestra de la foto; el hash no se muestra y no cuenta.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CapturedPhoto)) {
+            return false;
+        }
+        CapturedPhoto other = (CapturedPhoto) o;
+        return id == other.id && blurry == other.blurry && file.equals(other.file);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(id) + file.hashCode()) + Boolean.hashCode(blurry);
+    }
+}
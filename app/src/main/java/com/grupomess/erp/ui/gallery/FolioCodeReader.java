@@ -0,0 +1,109 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
+import com.google.mlkit.vision.barcode.BarcodeScanning;
+import com.google.mlkit.vision.barcode.common.Barcode;
+import com.google.mlkit.vision.common.InputImage;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.ocr.FolioCodeParser;
+import com.grupomess.erp.ocr.FolioExtraction;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Camino rápido para identificar el folio: busca un código de barras o QR en la foto antes de
+ * recurrir al reconocimiento de texto.
+ * <br>
+ * - Sólo se buscan los formatos que se imprimen en las hojas de folio, lo que acorta el análisis.
+ * - La búsqueda tiene un tiempo máximo; si lo agota se sigue con el OCR y el resultado tardío
+ *   se descarta.
+ * - El contenido se interpreta con {@link FolioCodeParser}; un código que no es folio cuenta
+ *   como fallo.
+ * <br>
+ * Registra aciertos, fallos, tiempos agotados y la latencia de cada intento en {@link AppMetrics}.
+ * {@link #read} bloquea; debe llamarse fuera del hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioCodeReader implements Closeable {
+
+    private static final String TAG = "FolioCodeReader";
+
+    /** Tiempo máximo por defecto; un QR legible se decodifica en una fracción de esto */
+    public static final long DEFAULT_BUDGET_MS = 150;
+
+    private final BarcodeScanner scanner;
+    private final FolioCodeParser parser = FolioCodeParser.withDefaults();
+    private final AppMetrics metrics;
+
+    /**
+     * @param metrics métricas donde se registra cada intento
+     */
+    public FolioCodeReader(AppMetrics metrics) {
+        this.metrics = metrics;
+        scanner = BarcodeScanning.getClient(new BarcodeScannerOptions.Builder()
+                .setBarcodeFormats(Barcode.FORMAT_QR_CODE, Barcode.FORMAT_CODE_128, Barcode.FORMAT_CODE_39,
+                        Barcode.FORMAT_DATA_MATRIX, Barcode.FORMAT_PDF417)
+                .build());
+    }
+
+    /**
+     * Inicializa el modelo con una imagen vacía para que la primera búsqueda real no agote
+     * su tiempo cargándolo.
+     */
+    public void warmUp() {
+        Bitmap blank = Bitmap.createBitmap(32, 32, Bitmap.Config.ARGB_8888);
+        scanner.process(InputImage.fromBitmap(blank, 0))
+                .addOnCompleteListener(task -> blank.recycle());
+    }
+
+    /**
+     * Busca el folio en los códigos de la imagen.
+     * @param image imagen ya preparada para el OCR
+     * @param budgetMillis tiempo máximo de espera
+     * @return folios encontrados, o {@link FolioExtraction#EMPTY} si hay que seguir con el OCR
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public FolioExtraction read(InputImage image, long budgetMillis) throws InterruptedException {
+        long start = SystemClock.elapsedRealtimeNanos();
+        FolioExtraction extraction = FolioExtraction.EMPTY;
+        try {
+            List<Barcode> barcodes = Tasks.await(scanner.process(image), budgetMillis, TimeUnit.MILLISECONDS);
+            List<String> payloads = new ArrayList<>(barcodes.size());
+            for (Barcode barcode : barcodes) {
+                if (barcode.getRawValue() != null) {
+                    payloads.add(barcode.getRawValue());
+                }
+            }
+            extraction = parser.parse(payloads);
+        } catch (TimeoutException e) {
+            metrics.barcodeTimeouts.increment();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "No se pudieron buscar códigos", e.getCause());
+        }
+        metrics.barcodeRead.recordSince(start, SystemClock.elapsedRealtimeNanos());
+        if (extraction.hasBest()) {
+            metrics.barcodeHits.increment();
+        } else {
+            metrics.barcodeMisses.increment();
+        }
+        return extraction;
+    }
+
+    @Override
+    public void close() {
+        scanner.close();
+    }
+}
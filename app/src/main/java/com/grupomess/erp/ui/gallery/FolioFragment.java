@@ -1,23 +1,22 @@
 package com.grupomess.erp.ui.gallery;
 
 import android.Manifest;
-import android.app.Activity;
-import android.content.ContentValues;
-import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.net.Uri;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageButton;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.OnBackPressedCallback;
 import androidx.activity.result.ActivityResultLauncher;
+import androidx.annotation.NonNull;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
@@ -25,28 +24,50 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
 import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.text.TextRecognition;
-import com.google.mlkit.vision.text.TextRecognizer;
-import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+import com.google.mlkit.vision.text.Text;
 import com.grupomess.erp.R;
+import com.grupomess.erp.camera.BurstCapture;
+import com.grupomess.erp.camera.CameraSource;
+import com.grupomess.erp.camera.CameraXSource;
+import com.grupomess.erp.camera.FrameThrottle;
+import com.grupomess.erp.catalog.FolioCatalog;
+import com.grupomess.erp.catalog.FolioCatalogManager;
 import com.grupomess.erp.databinding.FragmentFolioBinding;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.ocr.FolioCandidate;
+import com.grupomess.erp.ocr.FolioExtraction;
+import com.grupomess.erp.ocr.FolioExtractor;
+import com.grupomess.erp.ocr.FolioStabilizer;
+import com.grupomess.erp.preprocess.OcrPreprocessor;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Fragmento que permite:
- * - Escanear texto de una foto usando ML Kit (folio).
- * - Capturar múltiples fotos y mostrarlas en un RecyclerView.
+ * - Leer el folio en vivo desde la vista previa de la cámara usando ML Kit.
+ * - Capturar múltiples fotos con la cámara integrada, una a una o en ráfaga, y mostrarlas
+ *   en un RecyclerView.
  * - Guardar las fotos en la carpeta Descargas, agrupadas por folio.
  * - Eliminar fotos antes de guardar.
+ * - Importar en lote fotos de la galería tomadas con otros dispositivos; se agrupan por el
+ *   folio leído en ellas y se guardan con {@link GalleryImportManager}.
  *
  * Flujo principal:
- * 1. El usuario escanea el folio (texto) desde una foto.
- * 2. El usuario captura varias fotos relacionadas al folio.
+ * 1. El usuario apunta la cámara al folio; se confirma al leerse igual en
+ *    {@link #SCAN_STABLE_FRAMES} cuadros seguidos. También puede tomar una foto para leerlo.
+ * 2. El usuario captura varias fotos relacionadas al folio sin salir de la pantalla:
+ *    la sesión de cámara queda abierta y la ráfaga toma una foto cada {@link #BURST_INTERVAL_MS} ms.
  * 3. El usuario guarda las fotos localmente, agrupadas por el nombre del folio.
  */
 public class FolioFragment extends Fragment {
@@ -63,52 +84,97 @@ public class FolioFragment extends Fragment {
     private TextView photosCountTextView;
     // RecyclerView para mostrar miniaturas de fotos capturadas
     private RecyclerView photosRecyclerView;
+    // Progreso del guardado en segundo plano
+    private android.view.View saveProgressLayout;
+    private ProgressBar saveProgressBar;
+    private TextView saveProgressTextView;
+
+    /** Motor que extrae el folio del texto reconocido */
+    private final FolioExtractor folioExtractor = FolioExtractor.withDefaults();
+    /** Recorte y enderezado de la foto del folio antes del OCR */
+    private final OcrPreprocessor ocrPreprocessor = OcrPreprocessor.withDefaults();
+    /** ViewModel con la sesión de captura y el reconocedor de texto */
+    private FolioViewModel folioViewModel;
+    /** Guardado en segundo plano, compartido a nivel de aplicación */
+    private PhotoSaveManager saveManager;
+    /** Importación en lote desde la galería, compartida a nivel de aplicación */
+    private GalleryImportManager importManager;
+    /** Catálogo local de folios abiertos para validar el folio escaneado o escrito */
+    private FolioCatalogManager catalogManager;
 
-    /** Lista de fotos capturadas **/
-    private ArrayList<Bitmap> capturedPhotos = new ArrayList<>();
     /** Adaptador para el RecyclerView de fotos */
     private PhotosAdapter adapter;
 
-    /** Lanzadores para permisos y cámara */
+    /** Lanzador para el permiso de cámara */
     private ActivityResultLauncher<String> requestPermissionLauncher;
-    private ActivityResultLauncher<Intent> takePictureLauncher;
-
-    /**Indica si está en modo captura múltiple */
-    private boolean isMultiCapture = false;
+    /** Selector del sistema para elegir varias imágenes a importar */
+    private ActivityResultLauncher<String> importLauncher;
+
+    /** Intervalo objetivo entre fotos de la ráfaga */
+    private static final long BURST_INTERVAL_MS = 500;
+    /** Cuadros analizados por segundo como máximo al leer el folio en vivo */
+    private static final double SCAN_MAX_FPS = 4;
+    /** Cuadros seguidos con el mismo folio para confirmarlo */
+    private static final int SCAN_STABLE_FRAMES = 3;
+    /** Largo mínimo del folio escrito para sugerir folios del catálogo */
+    private static final int MIN_SUGGESTION_LENGTH = 4;
+    /** Sugerencias del catálogo mostradas como máximo */
+    private static final int MAX_SUGGESTIONS = 5;
+
+    /** Modos del panel de cámara */
+    private static final int PANEL_CLOSED = 0;
+    private static final int PANEL_PHOTOS = 1;
+    private static final int PANEL_SCAN = 2;
+
+    /** Cámara integrada; vive mientras exista la vista */
+    private CameraXSource cameraSource;
+    /** Captura continua sobre {@link #cameraSource} */
+    private BurstCapture burstCapture;
+    private ScheduledExecutorService burstScheduler;
+    /** Lectura del folio en vivo; una por escaneo */
+    private LiveFolioScanner liveScanner;
+    /** Hilo de análisis de cuadros y de resultados de ML Kit */
+    private ExecutorService scanExecutor;
+    /** Modo del panel de cámara, para restaurarlo al recrear la vista */
+    private int cameraPanelMode = PANEL_CLOSED;
+    /** Modo que se abrirá al conceder el permiso de cámara */
+    private int requestedPanelMode = PANEL_CLOSED;
+    /** Cierra el panel de cámara con el botón atrás */
+    private OnBackPressedCallback closeCameraOnBack;
+
+    /** Clave para restaurar el panel de cámara si el sistema recrea el fragmento */
+    private static final String STATE_CAMERA_PANEL = "camera_panel";
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        // La sesión de captura vive en el ViewModel y sobrevive a la muerte del proceso
+        folioViewModel = new ViewModelProvider(this).get(FolioViewModel.class);
+
+        if (savedInstanceState != null) {
+            cameraPanelMode = savedInstanceState.getInt(STATE_CAMERA_PANEL, PANEL_CLOSED);
+        }
+
         // Inicializa el lanzador para solicitar permiso de cámara
         requestPermissionLauncher = registerForActivityResult(
                 new ActivityResultContracts.RequestPermission(),
                 isGranted -> {
                     if (isGranted) {
-                        openCamera();
+                        openCameraPanel(requestedPanelMode);
                     } else {
                         Toast.makeText(getContext(), "Permiso de cámara denegado", Toast.LENGTH_SHORT).show();
                     }
                 });
 
-        // Inicializa el lanzador para abrir la cámara y recibir la foto
-        takePictureLauncher = registerForActivityResult(
-                new ActivityResultContracts.StartActivityForResult(),
-                result -> {
-                    if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null) {
-                        Bitmap bitmap = (Bitmap) result.getData().getExtras().get("data");
-
-                        if (isMultiCapture) {
-                            // Agrega la foto a la lista y actualiza la UI
-                            capturedPhotos.add(bitmap);
-                            updatePhotosCount();
-                            adapter.notifyDataSetChanged();
-                        } else {
-                            // Escanea el texto del folio desde la imagen
-                            scanTextFromImage(bitmap);
-                        }
-                    }
-                });
+        importLauncher = registerForActivityResult(new ActivityResultContracts.GetMultipleContents(), uris -> {
+            if (uris.isEmpty()) {
+                return;
+            }
+            if (!importManager.start(uris)) {
+                Toast.makeText(getContext(), "Ya hay una importación en curso", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
@@ -116,7 +182,6 @@ public class FolioFragment extends Fragment {
                                           android.view.ViewGroup container,
                                           Bundle savedInstanceState) {
 
-        new ViewModelProvider(this).get(FolioViewModel.class);
         binding = FragmentFolioBinding.inflate(inflater, container, false);
 
         // UI
@@ -126,88 +191,429 @@ public class FolioFragment extends Fragment {
         folioEditText = binding.getRoot().findViewById(R.id.folioEditText);
         photosCountTextView = binding.getRoot().findViewById(R.id.photosCountTextView);
         photosRecyclerView = binding.getRoot().findViewById(R.id.photosRecyclerView);
+        saveProgressLayout = binding.getRoot().findViewById(R.id.saveProgressLayout);
+        saveProgressBar = binding.getRoot().findViewById(R.id.saveProgressBar);
+        saveProgressTextView = binding.getRoot().findViewById(R.id.saveProgressTextView);
+        Button cancelSaveButton = binding.getRoot().findViewById(R.id.cancelSaveButton);
 
         // Configura RecyclerView con adapter y listener de eliminar
-        adapter = new PhotosAdapter(capturedPhotos, position -> {
-            capturedPhotos.remove(position);
-            updatePhotosCount();
-            adapter.notifyDataSetChanged();
-        });
+        adapter = new PhotosAdapter(photo -> folioViewModel.removePhoto(photo));
         photosRecyclerView.setAdapter(adapter);
         photosRecyclerView.setLayoutManager(new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false));
 
         // Botón escanear folio
-        scanButton.setOnClickListener(v -> {
-            isMultiCapture = false;
-            checkCameraPermission();
-        });
+        scanButton.setOnClickListener(v -> requestCameraPanel(PANEL_SCAN));
 
         // Botón capturar múltiples fotos
-        multiCaptureButton.setOnClickListener(v -> {
-            isMultiCapture = true;
-            checkCameraPermission();
-        });
+        multiCaptureButton.setOnClickListener(v -> requestCameraPanel(PANEL_PHOTOS));
+
+        setUpCameraPanel();
+
+        // El catálogo se actualiza por cambios al entrar a la pantalla
+        catalogManager = FolioCatalogManager.getInstance(requireContext());
+        catalogManager.syncIfStale();
 
         // Botón guardar fotos
         saveButton.setOnClickListener(v -> savePhotosLocally());
+        cancelSaveButton.setOnClickListener(v -> saveManager.cancel());
+
+        // Importación en lote; los folios se guardan solos al terminar de leerlos
+        importManager = GalleryImportManager.getInstance(requireContext());
+        binding.importButton.setOnClickListener(v -> {
+            if (saveManager.isRunning()) {
+                Toast.makeText(getContext(), "Ya hay un guardado en curso", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            importLauncher.launch("image/*");
+        });
+        binding.cancelImportButton.setOnClickListener(v -> importManager.cancel());
 
-        updatePhotosCount();
+        // El guardado sigue aunque se salga de la pantalla; al volver se muestra su estado
+        saveManager = PhotoSaveManager.getInstance(requireContext());
+        saveManager.getProgress().observe(getViewLifecycleOwner(), this::onSaveProgress);
+        importManager.getProgress().observe(getViewLifecycleOwner(), this::onImportProgress);
+
+        // Restaura el folio de la sesión y lo mantiene al día en el ViewModel
+        if (folioEditText.getText().length() == 0) {
+            folioEditText.setText(folioViewModel.getFolio());
+        }
+        folioEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                folioViewModel.setFolio(s.toString());
+                showFolioSuggestions(s.toString().trim());
+            }
+        });
+
+        // Las fotos de la sesión llegan como listas inmutables; DiffUtil sólo enlaza las que cambian
+        folioViewModel.getPhotos().observe(getViewLifecycleOwner(), photos -> {
+            adapter.submitList(photos);
+            updatePhotosCount();
+        });
+
+        // Avisos del filtro de calidad: fotos repetidas descartadas o borrosas
+        folioViewModel.getQualityNotice().observe(getViewLifecycleOwner(), notice -> {
+            if (notice == null) {
+                return;
+            }
+            int message = notice == FolioViewModel.QualityNotice.DUPLICATE
+                    ? R.string.foto_repetida : R.string.foto_borrosa_aviso;
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+            folioViewModel.acknowledgeQualityNotice();
+        });
+
+        if (cameraPanelMode != PANEL_CLOSED && hasCameraPermission()) {
+            openCameraPanel(cameraPanelMode);
+        } else {
+            cameraPanelMode = PANEL_CLOSED;
+        }
 
         return binding.getRoot();
     }
 
     /**
-     * Verifica el permiso de cámara y lo solicita si es necesario.
+     * Prepara la cámara integrada y la captura en ráfaga. Las fotos llegan en el hilo de la
+     * cámara y se agregan a la sesión en el hilo principal.
      */
-    private void checkCameraPermission() {
-        if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA)
-                == PackageManager.PERMISSION_GRANTED) {
-            openCamera();
+    private void setUpCameraPanel() {
+        android.content.Context appContext = requireContext().getApplicationContext();
+        Executor mainExecutor = ContextCompat.getMainExecutor(appContext);
+        cameraSource = new CameraXSource(appContext);
+        scanExecutor = Executors.newSingleThreadExecutor();
+        burstScheduler = Executors.newSingleThreadScheduledExecutor();
+        burstCapture = new BurstCapture(cameraSource, () -> CaptureFiles.createPhotoFile(appContext),
+                burstScheduler, BURST_INTERVAL_MS, new BurstCapture.Listener() {
+            @Override
+            public void onPhoto(File file) {
+                mainExecutor.execute(() -> onPhotoCaptured(file));
+            }
+
+            @Override
+            public void onError(Exception error) {
+                Log.e("FolioFragment", "Error en la ráfaga", error);
+            }
+        });
+
+        binding.takePhotoButton.setOnClickListener(v -> takeSinglePhoto(cameraPanelMode == PANEL_SCAN));
+        binding.burstButton.setOnClickListener(v -> {
+            if (burstCapture.isRunning()) {
+                burstCapture.stop();
+                binding.burstButton.setText(R.string.iniciar_rafaga);
+            } else {
+                burstCapture.start();
+                binding.burstButton.setText(R.string.detener_rafaga);
+            }
+        });
+        binding.closeCameraButton.setOnClickListener(v -> closeCameraPanel());
+
+        closeCameraOnBack = new OnBackPressedCallback(false) {
+            @Override
+            public void handleOnBackPressed() {
+                closeCameraPanel();
+            }
+        };
+        requireActivity().getOnBackPressedDispatcher().addCallback(getViewLifecycleOwner(), closeCameraOnBack);
+    }
+
+    /**
+     * Muestra la cámara integrada y abre la sesión de cámara.
+     * @param mode {@link #PANEL_PHOTOS} para capturar fotos o {@link #PANEL_SCAN} para leer el folio
+     */
+    private void openCameraPanel(int mode) {
+        cameraPanelMode = mode;
+        closeCameraOnBack.setEnabled(true);
+        binding.cameraPanel.setVisibility(android.view.View.VISIBLE);
+        binding.takePhotoButton.setEnabled(false);
+        binding.burstButton.setEnabled(false);
+        binding.burstButton.setVisibility(mode == PANEL_PHOTOS ? android.view.View.VISIBLE : android.view.View.GONE);
+        Runnable onReady = () -> {
+            if (binding != null) {
+                binding.takePhotoButton.setEnabled(true);
+                binding.burstButton.setEnabled(true);
+            }
+        };
+        if (mode == PANEL_SCAN) {
+            binding.burstCountTextView.setText(R.string.apunte_al_folio);
+            Executor mainExecutor = ContextCompat.getMainExecutor(requireContext());
+            liveScanner = new LiveFolioScanner(folioViewModel, folioExtractor, new FrameThrottle(SCAN_MAX_FPS),
+                    new FolioStabilizer(SCAN_STABLE_FRAMES), scanExecutor,
+                    extraction -> mainExecutor.execute(() -> onLiveFolioStable(extraction)),
+                    AppMetrics.getInstance(requireContext()));
+            cameraSource.bind(getViewLifecycleOwner(), binding.cameraPreview, scanExecutor, liveScanner, onReady);
         } else {
-            requestPermissionLauncher.launch(Manifest.permission.CAMERA);
+            updatePhotosCount();
+            cameraSource.bind(getViewLifecycleOwner(), binding.cameraPreview, onReady);
+        }
+    }
+
+    /**
+     * Aplica el folio confirmado en vivo y cierra la cámara.
+     */
+    private void onLiveFolioStable(FolioExtraction extraction) {
+        if (binding == null || cameraPanelMode != PANEL_SCAN) {
+            return;
         }
+        FrameThrottle throttle = liveScanner.getThrottle();
+        Log.d("FolioFragment", "Folio en vivo: " + extraction.getBest() + " cuadros analizados: "
+                + throttle.getAcceptedCount() + " descartados: " + throttle.getDroppedCount());
+        closeCameraPanel();
+        applyExtraction(extraction);
     }
 
     /**
-     * Abre la cámara para capturar una foto.
+     * Detiene la ráfaga, cierra la sesión de cámara y vuelve a la lista de fotos.
      */
-    private void openCamera() {
-        Intent intent = new Intent(android.provider.MediaStore.ACTION_IMAGE_CAPTURE);
-        if (intent.resolveActivity(requireActivity().getPackageManager()) != null) {
-            takePictureLauncher.launch(intent);
+    private void closeCameraPanel() {
+        cameraPanelMode = PANEL_CLOSED;
+        closeCameraOnBack.setEnabled(false);
+        burstCapture.stop();
+        if (liveScanner != null) {
+            liveScanner.stop();
+            liveScanner = null;
+        }
+        cameraSource.unbind();
+        binding.burstButton.setText(R.string.iniciar_rafaga);
+        binding.cameraPanel.setVisibility(android.view.View.GONE);
+    }
+
+    /**
+     * Toma una sola foto con la sesión de cámara abierta.
+     * @param scan true para leer el folio de la foto en lugar de agregarla a la sesión
+     */
+    private void takeSinglePhoto(boolean scan) {
+        File file;
+        try {
+            file = CaptureFiles.createPhotoFile(requireContext());
+        } catch (IOException e) {
+            Log.e("FolioFragment", "Error al crear archivo de foto", e);
+            Toast.makeText(getContext(), "No se pudo crear el archivo de la foto", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Executor mainExecutor = ContextCompat.getMainExecutor(requireContext());
+        long requestedAt = SystemClock.elapsedRealtimeNanos();
+        cameraSource.takePicture(file, new CameraSource.Callback() {
+            @Override
+            public void onCaptured(File captured) {
+                mainExecutor.execute(() -> {
+                    if (!scan) {
+                        onPhotoCaptured(captured);
+                    } else if (binding != null) {
+                        closeCameraPanel();
+                        scanTextFromImage(captured, requestedAt);
+                    } else {
+                        CaptureFiles.delete(captured);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception error) {
+                CaptureFiles.delete(file);
+                Log.e("FolioFragment", "Error al tomar la foto", error);
+                mainExecutor.execute(() -> Toast.makeText(getContext(), "No se pudo tomar la foto",
+                        Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Agrega a la sesión una foto de la cámara integrada.
+     */
+    private void onPhotoCaptured(File file) {
+        folioViewModel.addPhoto(file);
+    }
+
+
+    private boolean hasCameraPermission() {
+        return ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Abre el panel de cámara, pidiendo antes el permiso si es necesario.
+     * @param mode modo del panel
+     */
+    private void requestCameraPanel(int mode) {
+        if (hasCameraPermission()) {
+            openCameraPanel(mode);
         } else {
-            Toast.makeText(getContext(), "No se pudo abrir la cámara", Toast.LENGTH_SHORT).show();
+            requestedPanelMode = mode;
+            requestPermissionLauncher.launch(Manifest.permission.CAMERA);
         }
     }
 
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_CAMERA_PANEL, cameraPanelMode);
+    }
+
     /**
      * Usa ML Kit para escanear texto (folio) desde una imagen.
-     * @param bitmap Imagen capturada
+     * La foto se prepara con {@link OcrImageLoader} en {@link #scanExecutor}: se gira según EXIF,
+     * se recorta a la hoja, se endereza y se reduce antes del reconocimiento.
+     * Antes del OCR se busca un código de barras o QR con folio con {@link FolioCodeReader}; si
+     * lo hay, el reconocimiento de texto no se ejecuta.
+     * El archivo temporal se elimina al terminar el escaneo.
+     * @param photoFile Imagen capturada
+     * @param requestedAt instante en que se pidió la foto ({@link SystemClock#elapsedRealtimeNanos()})
      */
-    private void scanTextFromImage(Bitmap bitmap) {
-        InputImage image = InputImage.fromBitmap(bitmap, 0);
-        TextRecognizer recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
-
-        recognizer.process(image)
-                .addOnSuccessListener(visionText -> folioEditText.setText(visionText.getText()))
-                .addOnFailureListener(e -> {
-                    Log.e("FolioFragment", "Error al escanear", e);
-                    Toast.makeText(getContext(), "Error al escanear: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+    private void scanTextFromImage(File photoFile, long requestedAt) {
+        AppMetrics metrics = AppMetrics.getInstance(requireContext());
+        Executor mainExecutor = ContextCompat.getMainExecutor(requireContext());
+        FolioViewModel viewModel = folioViewModel;
+        long scanStart = SystemClock.elapsedRealtimeNanos();
+        scanExecutor.execute(() -> {
+            InputImage image;
+            FolioExtraction fromCode;
+            try {
+                image = OcrImageLoader.load(photoFile, ocrPreprocessor, metrics);
+                fromCode = viewModel.readFolioCode(image);
+            } catch (IOException e) {
+                Log.e("FolioFragment", "Error al leer la foto", e);
+                CaptureFiles.delete(photoFile);
+                mainExecutor.execute(() -> Toast.makeText(getContext(), "Error al escanear: " + e.getMessage(),
+                        Toast.LENGTH_SHORT).show());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CaptureFiles.delete(photoFile);
+                return;
+            }
+            if (fromCode.hasBest()) {
+                long now = SystemClock.elapsedRealtimeNanos();
+                metrics.scanViaBarcode.recordSince(scanStart, now);
+                metrics.ocrScan.recordSince(scanStart, now);
+                metrics.captureToOcr.recordSince(requestedAt, now);
+                CaptureFiles.delete(photoFile);
+                mainExecutor.execute(() -> {
+                    if (binding != null) {
+                        applyExtraction(fromCode);
+                    }
                 });
+                return;
+            }
+            mainExecutor.execute(() -> {
+                if (binding == null) {
+                    CaptureFiles.delete(photoFile);
+                    return;
+                }
+                folioViewModel.recognizeText(image)
+                        .addOnSuccessListener(visionText -> onTextRecognized(visionText, image))
+                        .addOnFailureListener(e -> {
+                            Log.e("FolioFragment", "Error al escanear", e);
+                            Toast.makeText(getContext(), "Error al escanear: " + e.getMessage(),
+                                    Toast.LENGTH_SHORT).show();
+                        })
+                        .addOnCompleteListener(task -> {
+                            long now = SystemClock.elapsedRealtimeNanos();
+                            metrics.scanViaOcr.recordSince(scanStart, now);
+                            metrics.ocrScan.recordSince(scanStart, now);
+                            metrics.captureToOcr.recordSince(requestedAt, now);
+                            CaptureFiles.delete(photoFile);
+                        });
+            });
+        });
+    }
+
+    /**
+     * Extrae el folio del texto reconocido y lo coloca en el campo de folio.
+     * @param visionText resultado de ML Kit
+     * @param image imagen procesada, para conocer su tamaño
+     */
+    private void onTextRecognized(Text visionText, InputImage image) {
+        if (binding == null) {
+            return;
+        }
+        boolean rotated = image.getRotationDegrees() == 90 || image.getRotationDegrees() == 270;
+        int width = rotated ? image.getHeight() : image.getWidth();
+        int height = rotated ? image.getWidth() : image.getHeight();
+        applyExtraction(folioExtractor.extract(OcrPageMapper.fromText(visionText, width, height)));
+    }
+
+    /**
+     * Coloca el mejor folio en el campo de folio y guarda las alternativas en la sesión.
+     * Si hay catálogo se prefiere el primer candidato que esté en él; si ninguno está, el campo
+     * se marca para que el usuario lo revise.
+     * @param extraction resultado del extractor
+     */
+    private void applyExtraction(FolioExtraction extraction) {
+        if (!extraction.hasBest()) {
+            Toast.makeText(getContext(), "No se encontró un folio en la foto", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        List<String> candidates = new ArrayList<>(extraction.getCandidates().size());
+        String chosen = null;
+        FolioCatalog.Check check = FolioCatalog.Check.UNAVAILABLE;
+        for (FolioCandidate candidate : extraction.getCandidates()) {
+            candidates.add(candidate.getValue());
+            if (chosen == null) {
+                check = catalogManager.check(candidate.getValue());
+                if (check != FolioCatalog.Check.NOT_FOUND) {
+                    chosen = candidate.getValue();
+                }
+            }
+        }
+        folioViewModel.setOcrCandidates(candidates);
+        folioEditText.setText(chosen != null ? chosen : extraction.getBest().getValue());
+        if (chosen == null) {
+            folioEditText.setError(getString(R.string.folio_fuera_de_catalogo));
+        }
+        Log.d("FolioFragment", "Folio: " + extraction.getBest() + " alternativas: " + extraction.getAlternatives()
+                + " catálogo: " + check);
+    }
+
+    /**
+     * Muestra bajo el campo de folio los folios del catálogo parecidos al escrito, si éste no
+     * existe. La búsqueda tarda menos de un milisegundo y corre en el hilo principal.
+     * @param folio texto actual del campo
+     */
+    private void showFolioSuggestions(String folio) {
+        ChipGroup group = binding.folioSuggestionsGroup;
+        group.removeAllViews();
+        List<String> suggestions = folio.length() >= MIN_SUGGESTION_LENGTH
+                && catalogManager.check(folio) == FolioCatalog.Check.NOT_FOUND
+                ? catalogManager.suggest(folio, MAX_SUGGESTIONS) : Collections.emptyList();
+        for (String suggestion : suggestions) {
+            Chip chip = new Chip(requireContext());
+            chip.setText(suggestion);
+            chip.setOnClickListener(v -> {
+                folioEditText.setText(suggestion);
+                folioEditText.setSelection(suggestion.length());
+                folioEditText.setError(null);
+            });
+            group.addView(chip);
+        }
+        binding.folioSuggestionsScroll.setVisibility(suggestions.isEmpty()
+                ? android.view.View.GONE : android.view.View.VISIBLE);
     }
 
     /**
      * Actualiza el contador de fotos capturadas en la UI.
      */
     private void updatePhotosCount() {
-        photosCountTextView.setText("Fotos capturadas: " + capturedPhotos.size());
+        int count = folioViewModel.getPhotoList().size();
+        photosCountTextView.setText("Fotos capturadas: " + count);
+        binding.burstCountTextView.setText(String.valueOf(count));
     }
 
     /**
      * Guarda las fotos capturadas localmente en la carpeta Descargas, agrupadas por folio.
-     * Limpia la lista de fotos y el campo de folio tras guardar.
+     * El guardado corre en segundo plano con {@link PhotoSaveManager}; cuando todas las fotos
+     * quedaron escritas se limpia el campo de folio y se quitan de la lista las fotos guardadas.
+     * Las que se tomaron mientras tanto se conservan.
+     * Un folio que no está en el catálogo pide confirmación antes de guardarse.
      */
     private void savePhotosLocally() {
+        List<CapturedPhoto> capturedPhotos = folioViewModel.getPhotoList();
         if (capturedPhotos.isEmpty()) {
             Toast.makeText(getContext(), "No hay fotos para guardar", Toast.LENGTH_SHORT).show();
             return;
@@ -217,41 +623,151 @@ public class FolioFragment extends Fragment {
             Toast.makeText(getContext(), "No hay folio capturado", Toast.LENGTH_SHORT).show();
             return;
         }
-        for (int i = 0; i < capturedPhotos.size(); i++) {
-            String fileName = folioName + "_foto_" + (i + 1) + ".jpg";
+        List<File> files = new ArrayList<>(capturedPhotos.size());
+        for (CapturedPhoto photo : capturedPhotos) {
+            files.add(photo.getFile());
+        }
+        if (catalogManager.check(folioName) == FolioCatalog.Check.NOT_FOUND) {
+            folioEditText.setError(getString(R.string.folio_fuera_de_catalogo));
+            new androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                    .setTitle(R.string.folio_fuera_de_catalogo_titulo)
+                    .setMessage(getString(R.string.folio_fuera_de_catalogo_mensaje, folioName))
+                    .setPositiveButton(R.string.guardar_de_todos_modos, (dialog, which) -> startSave(folioName, files))
+                    .setNegativeButton("Cancelar", (dialog, which) -> dialog.dismiss())
+                    .show();
+            return;
+        }
+        startSave(folioName, files);
+    }
 
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
-            values.put(MediaStore.Downloads.MIME_TYPE, "image/jpeg");
-            values.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS + "/" + folioName);
+    private void startSave(String folioName, List<File> files) {
+        if (importManager.isRunning()) {
+            // La importación guardará sus folios al terminar de leerlos
+            Toast.makeText(getContext(), "Hay una importación en curso", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (!saveManager.start(folioName, files)) {
+            Toast.makeText(getContext(), "Ya hay un guardado en curso", Toast.LENGTH_SHORT).show();
+        }
+    }
 
-            Uri uri = requireContext().getContentResolver().insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
+    /**
+     * Refleja en la UI el progreso del guardado en segundo plano.
+     * @param progress estado actual publicado por {@link PhotoSaveManager}
+     */
+    private void onSaveProgress(PhotoSaveManager.Progress progress) {
+        boolean running = progress.status == PhotoSaveManager.Status.RUNNING;
+        saveButton.setEnabled(!running && !importManager.isRunning());
+        multiCaptureButton.setEnabled(!running);
+        // El guardado de la sesión todavía puede estar leyendo sus archivos; el de una
+        // importación no los usa
+        adapter.setDeleteEnabled(!running || progress.batch);
+        binding.importButton.setEnabled(!running && !importManager.isRunning());
+        saveProgressLayout.setVisibility(running ? android.view.View.VISIBLE : android.view.View.GONE);
+        if (running) {
+            saveProgressBar.setMax(progress.total);
+            saveProgressBar.setProgress(progress.saved);
+            if (progress.folioCount > 1) {
+                saveProgressTextView.setText(getString(R.string.guardado_folios_avance, progress.folioIndex,
+                        progress.folioCount, progress.saved, progress.total));
+            } else {
+                saveProgressTextView.setText(progress.saved + "/" + progress.total);
+            }
+            return;
+        }
+        if (!progress.isFinished()) {
+            return;
+        }
 
-            if (uri != null) {
-                try (FileOutputStream out = (FileOutputStream) requireContext().getContentResolver().openOutputStream(uri)) {
-                    capturedPhotos.get(i).compress(Bitmap.CompressFormat.JPEG, 90, out);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+        if (progress.status == PhotoSaveManager.Status.COMPLETED && progress.batch) {
+            // Los folios importados no tocan la sesión de captura
+            new androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                    .setTitle("Fotos importadas")
+                    .setMessage("Se guardaron " + progress.folioCount + " folios en la carpeta Descargas")
+                    .setPositiveButton("Aceptar", (dialog, which) -> dialog.dismiss())
+                    .setCancelable(false)
+                    .show();
+        } else if (progress.status == PhotoSaveManager.Status.COMPLETED) {
+            folioEditText.setText("");
+            // Las fotos tomadas mientras se guardaba siguen en la sesión
+            folioViewModel.finishSave(progress.photos);
+
+            new androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                    .setTitle("Fotos guardadas")
+                    .setMessage("Se guardaron las fotos en la carpeta Descargas/" + progress.folioName)
+                    .setPositiveButton("Aceptar", (dialog, which) -> dialog.dismiss())
+                    .setCancelable(false)
+                    .show();
+        } else if (progress.status == PhotoSaveManager.Status.CANCELLED) {
+            Toast.makeText(getContext(), "Guardado cancelado", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(getContext(), "Error al guardar: " + progress.error, Toast.LENGTH_SHORT).show();
+        }
+        saveManager.acknowledge();
+    }
+
+    /**
+     * Refleja en la UI el avance de la importación en lote.
+     * @param progress estado actual publicado por {@link GalleryImportManager}
+     */
+    private void onImportProgress(GalleryImportManager.Progress progress) {
+        boolean running = importManager.isRunning();
+        binding.importButton.setEnabled(!running && !saveManager.isRunning());
+        saveButton.setEnabled(!running && !saveManager.isRunning());
+        binding.importProgressLayout.setVisibility(running ? android.view.View.VISIBLE : android.view.View.GONE);
+        if (progress.status == GalleryImportManager.Status.WAITING) {
+            binding.importProgressBar.setMax(progress.ocr.getTotal());
+            binding.importProgressBar.setProgress(progress.ocr.getProcessed());
+            binding.importProgressTextView.setText(R.string.importacion_esperando);
+            return;
+        }
+        if (running) {
+            binding.importProgressBar.setMax(progress.ocr.getTotal());
+            binding.importProgressBar.setProgress(progress.ocr.getProcessed());
+            binding.importProgressTextView.setText(getString(R.string.importacion_avance,
+                    progress.ocr.getProcessed(), progress.ocr.getTotal(), progress.ocr.getImagesPerSecond()));
+            return;
+        }
+        if (!progress.isFinished()) {
+            return;
+        }
+
+        if (progress.status == GalleryImportManager.Status.SAVING) {
+            String message = progress.folios + " folios encontrados; guardando";
+            if (progress.unassigned > 0) {
+                message += ". " + progress.unassigned + " fotos sin folio se descartaron";
             }
+            Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+        } else if (progress.status == GalleryImportManager.Status.CANCELLED) {
+            Toast.makeText(getContext(), "Importación cancelada", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(getContext(), "Error al importar: " + progress.error, Toast.LENGTH_SHORT).show();
         }
+        importManager.acknowledge();
+    }
 
-        capturedPhotos.clear();
-        updatePhotosCount();
-        adapter.notifyDataSetChanged();
-        folioEditText.setText("");
-
-        new androidx.appcompat.app.AlertDialog.Builder(requireContext())
-                .setTitle("Fotos guardadas")
-                .setMessage("Se guardaron las fotos en la carpeta Descargas/" + folioName)
-                .setPositiveButton("Aceptar", (dialog, which) -> dialog.dismiss())
-                .setCancelable(false)
-                .show();
+    @Override
+    public void onStop() {
+        super.onStop();
+        // La sesión de cámara se cierra con el ciclo de vida; la ráfaga no debe seguir pidiendo fotos
+        if (burstCapture != null && burstCapture.isRunning()) {
+            burstCapture.stop();
+            binding.burstButton.setText(R.string.iniciar_rafaga);
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        burstCapture.stop();
+        if (liveScanner != null) {
+            liveScanner.stop();
+            liveScanner = null;
+        }
+        // Primero se cierra la cámara para que no lleguen más fotos ni cuadros
+        cameraSource.release();
+        burstScheduler.shutdown();
+        scanExecutor.shutdown();
         binding = null;
     }
 }
@@ -1,19 +1,470 @@
 package com.grupomess.erp.ui.gallery;
 
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.SavedStateHandle;
+
+import com.google.android.gms.tasks.Task;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.ocr.FolioExtraction;
+import com.grupomess.erp.quality.LumaImage;
+import com.grupomess.erp.quality.PhotoQualityGate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Estado de la pantalla de folio: la sesión de captura (folio, fotos en orden y resultado
+ * del OCR) y el acceso al {@link SharedTextRecognizer} del proceso.
+ * <br>
+ * La sesión se guarda en {@link SavedStateHandle} y en una {@link CaptureSessionJournal} en disco,
+ * de modo que si el sistema mata el proceso mientras la cámara está al frente, la sesión
+ * se restaura sin volver a decodificar fotos ni repetir el OCR.
+ * <br>
+ * Cada foto pasa por {@link PhotoQualityGate} en segundo plano al entrar a la sesión: las que
+ * repiten una foto anterior se descartan y las borrosas se marcan para que el usuario las revise.
+ * El hash y la marca de borrosa de cada foto se guardan con la sesión; al restaurarla los
+ * hashes se reconstruyen sin decodificar. Sólo se analizan las fotos que no alcanzaron a
+ * analizarse antes de que el proceso muriera.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class FolioViewModel extends AndroidViewModel {
+
+    private static final String TAG = "FolioViewModel";
+
+    private static final String KEY_FOLIO = "folio";
+    private static final String KEY_PHOTO_PATHS = "photo_paths";
+    /** Paralelos a {@link #KEY_PHOTO_PATHS}: veredicto del filtro de calidad de cada foto */
+    private static final String KEY_PHOTO_ANALYZED = "photo_analyzed";
+    private static final String KEY_PHOTO_HASHES = "photo_hashes";
+    private static final String KEY_PHOTO_BLURRY = "photo_blurry";
+    private static final String KEY_OCR_CANDIDATES = "ocr_candidates";
+    private static final String JOURNAL_FILE = "sesion_folio.journal";
+
+    private final SavedStateHandle savedState;
+    /** Bitácora en disco; sólo se escribe desde {@link #journalExecutor} */
+    private final CaptureSessionJournal journal;
+    private final ExecutorService journalExecutor = Executors.newSingleThreadExecutor();
+
+    /** Fotos de la sesión, como lista inmutable */
+    private final MutableLiveData<List<CapturedPhoto>> photos = new MutableLiveData<>(Collections.emptyList());
+    /** Candidatos de folio del último OCR, el mejor primero */
+    private final MutableLiveData<List<String>> ocrCandidates = new MutableLiveData<>(Collections.emptyList());
+    private String folio = "";
+
+    /** Avisos del filtro de calidad para la pantalla. */
+    public enum QualityNotice { DUPLICATE, BLURRY }
+
+    private final PhotoQualityGate qualityGate = PhotoQualityGate.withDefaults();
+    /** Analiza las fotos en orden de llegada; el orden decide cuál es la original */
+    private final ExecutorService qualityExecutor = Executors.newSingleThreadExecutor();
+    private final Executor mainExecutor;
+    /** Hash perceptual por identificador de foto; sólo se usa desde {@link #qualityExecutor} */
+    private final Map<Long, Long> sessionHashes = new HashMap<>();
+    /** Último aviso del filtro de calidad pendiente de mostrar */
+    private final MutableLiveData<QualityNotice> qualityNotice = new MutableLiveData<>();
+
+    /** Reconocedor de texto del proceso; se toma al crear y se suelta en {@link #onCleared()} */
+    private final SharedTextRecognizer recognizer;
+    /** Camino rápido por código de barras o QR; se cierra en {@link #onCleared()} */
+    private final FolioCodeReader codeReader;
+    private final AppMetrics metrics;
+
+    public FolioViewModel(@NonNull Application application, @NonNull SavedStateHandle savedState) {
+        super(application);
+        this.savedState = savedState;
+        this.journal = new CaptureSessionJournal(new File(application.getFilesDir(), JOURNAL_FILE));
+        this.mainExecutor = ContextCompat.getMainExecutor(application);
+        this.metrics = AppMetrics.getInstance(application);
+        restoreSession();
+
+        recognizer = SharedTextRecognizer.getInstance(application);
+        recognizer.acquire();
+        codeReader = new FolioCodeReader(metrics);
+        codeReader.warmUp();
+    }
+
+    /**
+     * Restaura la sesión desde el estado guardado por el sistema o, si no lo hay
+     * (por ejemplo tras un cierre inesperado), desde la bitácora en disco.
+     */
+    private void restoreSession() {
+        List<String> paths = savedState.get(KEY_PHOTO_PATHS);
+        List<String> candidates = savedState.get(KEY_OCR_CANDIDATES);
+        String savedFolio = savedState.get(KEY_FOLIO);
+        List<CapturedPhoto> restored = new ArrayList<>();
+        if (paths != null) {
+            boolean[] analyzed = savedState.get(KEY_PHOTO_ANALYZED);
+            long[] hashes = savedState.get(KEY_PHOTO_HASHES);
+            boolean[] blurry = savedState.get(KEY_PHOTO_BLURRY);
+            boolean withQuality = analyzed != null && hashes != null && blurry != null
+                    && analyzed.length == paths.size() && hashes.length == paths.size()
+                    && blurry.length == paths.size();
+            for (int i = 0; i < paths.size(); i++) {
+                boolean known = withQuality && analyzed[i];
+                restorePhoto(restored, paths.get(i), known ? hashes[i] : null, known && blurry[i]);
+            }
+        } else {
+            CaptureSessionJournal.State state = journal.getState();
+            for (String path : state.photoPaths) {
+                restorePhoto(restored, path, state.photoHashes.get(path), state.blurryPaths.contains(path));
+            }
+            candidates = state.ocrCandidates;
+            savedFolio = state.folio;
+        }
 
-public class FolioViewModel extends ViewModel {
+        folio = savedFolio != null ? savedFolio : "";
+        photos.setValue(Collections.unmodifiableList(restored));
+        ocrCandidates.setValue(candidates != null ? Collections.unmodifiableList(new ArrayList<>(candidates))
+                : Collections.emptyList());
+        saveToHandle();
+        // Reconstruye los hashes de la sesión sin decodificar; los avisos ya se mostraron
+        Map<Long, Long> known = new HashMap<>();
+        for (CapturedPhoto photo : restored) {
+            if (photo.getHash() != null) {
+                known.put(photo.getId(), photo.getHash());
+            }
+        }
+        qualityExecutor.execute(() -> sessionHashes.putAll(known));
+        // Las que no alcanzaron a analizarse nunca mostraron su aviso
+        for (CapturedPhoto photo : restored) {
+            if (photo.getHash() == null) {
+                checkQuality(photo, true);
+            }
+        }
+        if (!restored.isEmpty()) {
+            Log.d(TAG, "Sesión restaurada con " + restored.size() + " fotos");
+        }
+    }
+
+    private static void restorePhoto(List<CapturedPhoto> restored, String path, Long hash, boolean blurry) {
+        File file = new File(path);
+        if (file.exists()) {
+            restored.add(CapturedPhoto.restore(file, hash, blurry));
+        }
+    }
+
+    /**
+     * @return fotos de la sesión en orden de captura
+     */
+    public LiveData<List<CapturedPhoto>> getPhotos() {
+        return photos;
+    }
+
+    /**
+     * @return lista actual de fotos, nunca null
+     */
+    public List<CapturedPhoto> getPhotoList() {
+        List<CapturedPhoto> current = photos.getValue();
+        return current != null ? current : Collections.emptyList();
+    }
+
+    /**
+     * Agrega una foto capturada al final de la sesión y la pasa por el filtro de calidad.
+     * La foto aparece de inmediato; si resulta repetida se quita y se publica un aviso.
+     * @param file archivo de la foto
+     */
+    public void addPhoto(File file) {
+        CapturedPhoto photo = CapturedPhoto.create(file);
+        List<CapturedPhoto> updated = new ArrayList<>(getPhotoList());
+        updated.add(photo);
+        photos.setValue(Collections.unmodifiableList(updated));
+        saveToHandle();
+        metrics.sessionPhotos.set(updated.size());
+        metrics.sampleHeap();
+        String path = file.getAbsolutePath();
+        writeJournal(() -> journal.addPhoto(path));
+        checkQuality(photo, true);
+    }
+
+    /**
+     * @return aviso pendiente del filtro de calidad, o null
+     */
+    public LiveData<QualityNotice> getQualityNotice() {
+        return qualityNotice;
+    }
+
+    /**
+     * Marca el aviso del filtro de calidad como mostrado.
+     */
+    public void acknowledgeQualityNotice() {
+        qualityNotice.setValue(null);
+    }
+
+    /**
+     * Calcula el hash y la nitidez de la foto en segundo plano y aplica el veredicto
+     * en el hilo principal, donde se guarda con la sesión.
+     * @param notify true para publicar avisos
+     */
+    private void checkQuality(CapturedPhoto photo, boolean notify) {
+        qualityExecutor.execute(() -> {
+            LumaImage image = CaptureFiles.decodeLuma(photo.getFile(), qualityGate.getAnalysisSize());
+            if (image == null) {
+                return;
+            }
+            PhotoQualityGate.Verdict verdict = qualityGate.check(image, sessionHashes);
+            if (!verdict.isDuplicate()) {
+                sessionHashes.put(photo.getId(), verdict.hash);
+            }
+            Log.d(TAG, "Calidad de foto " + photo.getId() + ": nitidez " + Math.round(verdict.sharpness)
+                    + (verdict.isDuplicate() ? ", repite " + verdict.duplicateOf + " (" + verdict.distance + " bits)" : ""));
+            mainExecutor.execute(() -> applyVerdict(photo.getId(), verdict, notify));
+        });
+    }
 
-    private final MutableLiveData<String> mText;
+    private void applyVerdict(long photoId, PhotoQualityGate.Verdict verdict, boolean notify) {
+        CapturedPhoto current = findPhoto(photoId);
+        if (current == null || qualityExecutor.isShutdown()) {
+            // El usuario la quitó mientras se analizaba, o la pantalla ya se cerró
+            return;
+        }
+        if (verdict.isDuplicate()) {
+            metrics.duplicatePhotos.increment();
+            removePhoto(current);
+            if (notify) {
+                qualityNotice.setValue(QualityNotice.DUPLICATE);
+            }
+            return;
+        }
+        List<CapturedPhoto> updated = new ArrayList<>(getPhotoList());
+        updated.set(indexOf(updated, photoId), current.withQuality(verdict.hash, verdict.blurry));
+        photos.setValue(Collections.unmodifiableList(updated));
+        saveToHandle();
+        String path = current.getFile().getAbsolutePath();
+        writeJournal(() -> journal.setPhotoQuality(path, verdict.hash, verdict.blurry));
+        if (verdict.blurry) {
+            metrics.blurryPhotos.increment();
+            if (notify) {
+                qualityNotice.setValue(QualityNotice.BLURRY);
+            }
+        }
+    }
+
+    private CapturedPhoto findPhoto(long photoId) {
+        List<CapturedPhoto> current = getPhotoList();
+        int index = indexOf(current, photoId);
+        return index >= 0 ? current.get(index) : null;
+    }
+
+    private static int indexOf(List<CapturedPhoto> list, long photoId) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getId() == photoId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Quita una foto de la sesión y elimina su archivo. Se busca por identificador: la
+     * instancia puede ser anterior al veredicto del filtro de calidad.
+     * @param photo foto a quitar
+     * @return false si la foto ya no estaba en la sesión
+     */
+    public boolean removePhoto(CapturedPhoto photo) {
+        List<CapturedPhoto> updated = new ArrayList<>(getPhotoList());
+        int index = indexOf(updated, photo.getId());
+        if (index < 0) {
+            return false;
+        }
+        updated.remove(index);
+        photos.setValue(Collections.unmodifiableList(updated));
+        saveToHandle();
+        metrics.sessionPhotos.set(updated.size());
+        long photoId = photo.getId();
+        qualityExecutor.execute(() -> sessionHashes.remove(photoId));
+        File file = photo.getFile();
+        writeJournal(() -> {
+            journal.removePhoto(file.getAbsolutePath());
+            CaptureFiles.delete(file);
+        });
+        return true;
+    }
+
+    /**
+     * @return texto del folio de la sesión
+     */
+    public String getFolio() {
+        return folio;
+    }
+
+    /**
+     * Actualiza el texto del folio de la sesión.
+     * @param value texto del campo de folio
+     */
+    public void setFolio(String value) {
+        if (value.equals(folio)) {
+            return;
+        }
+        folio = value;
+        savedState.set(KEY_FOLIO, value);
+        writeJournal(() -> journal.setFolio(value));
+    }
+
+    /**
+     * @return candidatos de folio del último OCR
+     */
+    public LiveData<List<String>> getOcrCandidates() {
+        return ocrCandidates;
+    }
+
+    /**
+     * Guarda el resultado del último OCR para no repetirlo al restaurar la sesión.
+     * @param candidates candidatos, el mejor primero
+     */
+    public void setOcrCandidates(List<String> candidates) {
+        List<String> copy = Collections.unmodifiableList(new ArrayList<>(candidates));
+        ocrCandidates.setValue(copy);
+        savedState.set(KEY_OCR_CANDIDATES, new ArrayList<>(copy));
+        writeJournal(() -> journal.setOcrCandidates(copy));
+    }
+
+    /**
+     * Quita de la sesión las fotos de un folio recién guardado; sus archivos ya los eliminó el
+     * guardado. Las fotos tomadas mientras se guardaba se conservan para el siguiente folio.
+     * Si no queda ninguna, la sesión termina como con {@link #clearSession()}.
+     * @param saved archivos del folio guardado
+     */
+    public void finishSave(List<File> saved) {
+        Set<File> savedFiles = new HashSet<>(saved);
+        List<CapturedPhoto> remaining = new ArrayList<>();
+        List<Long> removedIds = new ArrayList<>();
+        List<String> removedPaths = new ArrayList<>();
+        for (CapturedPhoto photo : getPhotoList()) {
+            if (savedFiles.contains(photo.getFile())) {
+                removedIds.add(photo.getId());
+                removedPaths.add(photo.getFile().getAbsolutePath());
+            } else {
+                remaining.add(photo);
+            }
+        }
+        if (remaining.isEmpty()) {
+            clearSession();
+            return;
+        }
+        setFolio("");
+        setOcrCandidates(Collections.emptyList());
+        photos.setValue(Collections.unmodifiableList(remaining));
+        saveToHandle();
+        metrics.sessionPhotos.set(remaining.size());
+        qualityExecutor.execute(() -> sessionHashes.keySet().removeAll(removedIds));
+        writeJournal(() -> {
+            for (String path : removedPaths) {
+                journal.removePhoto(path);
+            }
+        });
+    }
+
+    /**
+     * Termina la sesión después de guardar el folio. Los archivos de las fotos
+     * ya los eliminó el guardado.
+     */
+    public void clearSession() {
+        folio = "";
+        photos.setValue(Collections.emptyList());
+        metrics.sessionPhotos.set(0);
+        ocrCandidates.setValue(Collections.emptyList());
+        savedState.set(KEY_FOLIO, "");
+        savedState.set(KEY_OCR_CANDIDATES, new ArrayList<String>());
+        saveToHandle();
+        qualityExecutor.execute(sessionHashes::clear);
+        writeJournal(journal::clear);
+    }
+
+    private void saveToHandle() {
+        List<CapturedPhoto> current = getPhotoList();
+        ArrayList<String> paths = new ArrayList<>(current.size());
+        boolean[] analyzed = new boolean[current.size()];
+        long[] hashes = new long[current.size()];
+        boolean[] blurry = new boolean[current.size()];
+        for (int i = 0; i < current.size(); i++) {
+            CapturedPhoto photo = current.get(i);
+            paths.add(photo.getFile().getAbsolutePath());
+            analyzed[i] = photo.getHash() != null;
+            hashes[i] = analyzed[i] ? photo.getHash() : 0;
+            blurry[i] = photo.isBlurry();
+        }
+        savedState.set(KEY_PHOTO_PATHS, paths);
+        savedState.set(KEY_PHOTO_ANALYZED, analyzed);
+        savedState.set(KEY_PHOTO_HASHES, hashes);
+        savedState.set(KEY_PHOTO_BLURRY, blurry);
+    }
+
+    /**
+     * Escribe en la bitácora fuera del hilo principal, en orden.
+     */
+    private void writeJournal(JournalWrite write) {
+        journalExecutor.execute(() -> {
+            try {
+                write.run();
+            } catch (IOException e) {
+                Log.e(TAG, "Error al escribir la bitácora de la sesión", e);
+            }
+        });
+    }
+
+    /**
+     * Escritura en la bitácora que puede fallar con {@link IOException}.
+     */
+    private interface JournalWrite {
+        void run() throws IOException;
+    }
+
+    /**
+     * Reconoce texto con el reconocedor compartido y registra su latencia.
+     * @param image imagen a procesar
+     * @return tarea de ML Kit con el texto reconocido
+     */
+    public Task<Text> recognizeText(InputImage image) {
+        return recognizer.process(image);
+    }
+
+    /**
+     * Busca el folio en un código de barras o QR con el tiempo máximo por defecto.
+     * Bloquea; debe llamarse fuera del hilo principal.
+     * @param image imagen ya preparada para el OCR
+     * @return folios encontrados, o {@link FolioExtraction#EMPTY} si hay que reconocer el texto
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public FolioExtraction readFolioCode(InputImage image) throws InterruptedException {
+        return codeReader.read(image, FolioCodeReader.DEFAULT_BUDGET_MS);
+    }
 
-    public FolioViewModel() {
-        mText = new MutableLiveData<>();
-        mText.setValue("This is gallery fragment");
+    /**
+     * @return métricas de latencia de OCR del proceso
+     */
+    public OcrLatencyTracker getOcrLatency() {
+        return recognizer.getLatency();
     }
 
-    public LiveData<String> getText() {
-        return mText;
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        recognizer.release();
+        codeReader.close();
+        qualityExecutor.shutdownNow();
+        // La bitácora se conserva en disco: la sesión sigue viva hasta guardarse
+        journalExecutor.execute(journal::close);
+        journalExecutor.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,339 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.grupomess.erp.bulk.BulkImport;
+import com.grupomess.erp.bulk.ImportProgress;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.ocr.FolioExtraction;
+import com.grupomess.erp.ocr.FolioExtractor;
+import com.grupomess.erp.preprocess.OcrPreprocessor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Importa en lote imágenes de la galería tomadas con otros dispositivos.
+ * <br>
+ * Flujo principal:
+ * 1. {@link #start(List)} recibe los Uri elegidos en el selector del sistema.
+ * 2. {@link BulkImport} procesa las imágenes con paralelismo acotado: cada una se copia a la
+ *    carpeta de capturas, se prepara con {@link OcrImageLoader} y se lee su folio: primero
+ *    de un código de barras o QR con {@link FolioCodeReader} y, si no lo hay, con el OCR del
+ *    {@link SharedTextRecognizer}, que se toma al iniciar y se suelta al terminar de leer.
+ *    El avance con imágenes por segundo se publica por {@link LiveData}.
+ * 3. Las fotos se agrupan por folio y se entregan a {@link PhotoSaveManager#startAll} para
+ *    guardarlas con el mismo camino que la captura. Las fotos previas al primer folio se
+ *    descartan y se informa cuántas fueron. Si se inició otro guardado durante el OCR, la
+ *    importación espera en {@link Status#WAITING} a que termine y se confirme su resultado,
+ *    en lugar de descartar las fotos ya leídas.
+ * <br>
+ * Es un singleton a nivel de aplicación para que la importación continúe fuera de la pantalla.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class GalleryImportManager {
+
+    private static final String TAG = "GalleryImportManager";
+
+    /** Estados posibles de la importación. */
+    public enum Status { IDLE, RUNNING, WAITING, SAVING, CANCELLED, FAILED }
+
+    /**
+     * Estado inmutable de la importación.
+     */
+    public static final class Progress {
+        public final Status status;
+        /** Avance del OCR; null en {@link Status#IDLE} */
+        public final ImportProgress ocr;
+        /** Folios detectados y fotos descartadas por no tener folio, al terminar el OCR */
+        public final int folios;
+        public final int unassigned;
+        public final String error;
+
+        Progress(Status status, ImportProgress ocr, int folios, int unassigned, String error) {
+            this.status = status;
+            this.ocr = ocr;
+            this.folios = folios;
+            this.unassigned = unassigned;
+            this.error = error;
+        }
+
+        /** @return true si terminó y aún no se ha confirmado */
+        public boolean isFinished() {
+            return status == Status.SAVING || status == Status.CANCELLED || status == Status.FAILED;
+        }
+    }
+
+    private static volatile GalleryImportManager instance;
+
+    private final Context appContext;
+    private final AppMetrics metrics;
+    private final SharedTextRecognizer recognizer;
+    private final FolioExtractor folioExtractor = FolioExtractor.withDefaults();
+    private final OcrPreprocessor preprocessor = OcrPreprocessor.withDefaults();
+    private final FolioCodeReader codeReader;
+    private final BulkImport<Uri, File> bulkImport;
+    /** Espera el lote completo; una importación a la vez */
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+    private final MutableLiveData<Progress> progress = new MutableLiveData<>(
+            new Progress(Status.IDLE, null, 0, 0, null));
+
+    private volatile AtomicBoolean currentCancel;
+    /** Folios leídos que esperan al guardado en curso; sólo se usa en el hilo principal */
+    private PendingSave pendingSave;
+
+    private GalleryImportManager(Context context) {
+        appContext = context.getApplicationContext();
+        metrics = AppMetrics.getInstance(appContext);
+        recognizer = SharedTextRecognizer.getInstance(appContext);
+        codeReader = new FolioCodeReader(metrics);
+        bulkImport = new BulkImport.Builder<Uri, File>(this::processImage).build();
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return importador compartido
+     */
+    public static GalleryImportManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (GalleryImportManager.class) {
+                if (instance == null) {
+                    instance = new GalleryImportManager(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return LiveData con el último estado
+     */
+    public LiveData<Progress> getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return true si hay una importación leyendo imágenes o esperando para guardarlas
+     */
+    public boolean isRunning() {
+        Progress current = progress.getValue();
+        return current != null && (current.status == Status.RUNNING || current.status == Status.WAITING);
+    }
+
+    /**
+     * Inicia la importación. Debe llamarse desde el hilo principal.
+     * @param uris imágenes elegidas, en el orden en que se tomaron
+     * @return false si ya había una importación en curso o la lista está vacía
+     */
+    public synchronized boolean start(List<Uri> uris) {
+        if (isRunning() || uris.isEmpty()) {
+            return false;
+        }
+        List<Uri> snapshot = Collections.unmodifiableList(new ArrayList<>(uris));
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        currentCancel = cancelled;
+        progress.setValue(new Progress(Status.RUNNING, new ImportProgress(snapshot.size(), 0, 0, 0, 0), 0, 0, null));
+        // Se precalienta mientras se copian las primeras imágenes
+        recognizer.acquire();
+        coordinator.execute(() -> {
+            try {
+                runImport(snapshot, cancelled);
+            } finally {
+                recognizer.release();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Solicita detener la importación; las fotos ya copiadas se eliminan.
+     */
+    public void cancel() {
+        AtomicBoolean cancelled = currentCancel;
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+        ContextCompat.getMainExecutor(appContext).execute(() -> {
+            if (pendingSave != null) {
+                pendingSave.abandon();
+            }
+        });
+    }
+
+    /**
+     * Marca el resultado final como atendido por la UI para no volver a mostrarlo.
+     */
+    public void acknowledge() {
+        Progress current = progress.getValue();
+        if (current != null && current.isFinished()) {
+            progress.setValue(new Progress(Status.IDLE, null, 0, 0, null));
+        }
+    }
+
+    private void runImport(List<Uri> uris, AtomicBoolean cancelled) {
+        BulkImport.Outcome<File> outcome;
+        try {
+            outcome = bulkImport.run(uris, ocr -> progress.postValue(new Progress(Status.RUNNING, ocr, 0, 0, null)),
+                    cancelled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.postValue(new Progress(Status.CANCELLED, null, 0, 0, null));
+            return;
+        }
+        ImportProgress ocr = outcome.getProgress();
+        Log.d(TAG, "Importadas " + ocr.getProcessed() + "/" + ocr.getTotal() + " a "
+                + String.format(Locale.ROOT, "%.1f", ocr.getImagesPerSecond()) + " img/s");
+
+        List<File> unassigned = outcome.getGrouping().getUnassigned();
+        if (outcome.isCancelled() || outcome.getGrouping().getGroups().isEmpty()) {
+            for (File photo : outcome.getPhotos()) {
+                CaptureFiles.delete(photo);
+            }
+            Status status = outcome.isCancelled() ? Status.CANCELLED : Status.FAILED;
+            String error = outcome.isCancelled() ? null : "No se encontró ningún folio en las imágenes";
+            progress.postValue(new Progress(status, ocr, 0, unassigned.size(), error));
+            return;
+        }
+        for (File photo : unassigned) {
+            CaptureFiles.delete(photo);
+        }
+
+        // El guardado se inicia en el hilo principal, como desde la pantalla de folio
+        PendingSave save = new PendingSave(outcome.getGrouping().getGroups(), ocr, unassigned.size(), cancelled);
+        ContextCompat.getMainExecutor(appContext).execute(save::start);
+    }
+
+    /**
+     * Folios leídos por entregar a {@link PhotoSaveManager}. Si hay un guardado en curso,
+     * observa su estado hasta que termine y la pantalla confirme el resultado
+     * ({@link PhotoSaveManager.Status#IDLE}); así el resultado de la sesión de captura no se
+     * pierde bajo el avance de la importación. Se usa sólo en el hilo principal.
+     */
+    private final class PendingSave implements Observer<PhotoSaveManager.Progress> {
+        private final Map<String, List<File>> groups;
+        private final ImportProgress ocr;
+        private final int unassigned;
+        private final AtomicBoolean cancelled;
+        private final PhotoSaveManager saveManager = PhotoSaveManager.getInstance(appContext);
+
+        PendingSave(Map<String, List<File>> groups, ImportProgress ocr, int unassigned, AtomicBoolean cancelled) {
+            this.groups = groups;
+            this.ocr = ocr;
+            this.unassigned = unassigned;
+            this.cancelled = cancelled;
+        }
+
+        void start() {
+            if (cancelled.get()) {
+                abandon();
+                return;
+            }
+            // Un resultado sin confirmar también espera, para que la pantalla alcance a verlo
+            PhotoSaveManager.Progress current = saveManager.getProgress().getValue();
+            if (current != null && current.status == PhotoSaveManager.Status.IDLE && saveManager.startAll(groups)) {
+                progress.setValue(new Progress(Status.SAVING, ocr, groups.size(), unassigned, null));
+                return;
+            }
+            pendingSave = this;
+            progress.setValue(new Progress(Status.WAITING, ocr, groups.size(), unassigned, null));
+            saveManager.getProgress().observeForever(this);
+        }
+
+        @Override
+        public void onChanged(PhotoSaveManager.Progress save) {
+            if (save.status != PhotoSaveManager.Status.IDLE) {
+                return;
+            }
+            saveManager.getProgress().removeObserver(this);
+            pendingSave = null;
+            // Fuera del aviso de LiveData para no cambiar otra vez su valor mientras lo reparte
+            ContextCompat.getMainExecutor(appContext).execute(this::start);
+        }
+
+        /**
+         * Deja de esperar y elimina las fotos copiadas.
+         */
+        void abandon() {
+            if (pendingSave == this) {
+                saveManager.getProgress().removeObserver(this);
+                pendingSave = null;
+            }
+            for (List<File> group : groups.values()) {
+                for (File photo : group) {
+                    CaptureFiles.delete(photo);
+                }
+            }
+            progress.setValue(new Progress(Status.CANCELLED, ocr, groups.size(), unassigned, null));
+        }
+    }
+
+    /**
+     * Copia una imagen a la carpeta de capturas y lee su folio. Se ejecuta en los hilos de
+     * {@link BulkImport}; a lo más hay una imagen decodificada por hilo.
+     */
+    private BulkImport.Recognized<File> processImage(Uri uri) throws Exception {
+        long start = SystemClock.elapsedRealtimeNanos();
+        File copy = CaptureFiles.createPhotoFile(appContext);
+        try {
+            copy(appContext.getContentResolver(), uri, copy);
+            String folio = recognizeFolio(copy);
+            metrics.importImage.recordSince(start, SystemClock.elapsedRealtimeNanos());
+            return new BulkImport.Recognized<>(copy, folio);
+        } catch (Exception e) {
+            Log.w(TAG, "No se pudo importar " + uri, e);
+            CaptureFiles.delete(copy);
+            throw e;
+        }
+    }
+
+    private String recognizeFolio(File file) throws Exception {
+        InputImage image = OcrImageLoader.load(file, preprocessor, metrics);
+        FolioExtraction fromCode = codeReader.read(image, FolioCodeReader.DEFAULT_BUDGET_MS);
+        if (fromCode.hasBest()) {
+            return fromCode.getBest().getValue();
+        }
+        Text text = Tasks.await(recognizer.process(image));
+        FolioExtraction extraction = folioExtractor.extract(
+                OcrPageMapper.fromText(text, image.getWidth(), image.getHeight()));
+        return extraction.hasBest() ? extraction.getBest().getValue() : null;
+    }
+
+    private static void copy(ContentResolver resolver, Uri uri, File target) throws IOException {
+        try (InputStream in = resolver.openInputStream(uri);
+             OutputStream out = new FileOutputStream(target)) {
+            if (in == null) {
+                throw new IOException("No se pudo abrir " + uri);
+            }
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.media.Image;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.grupomess.erp.camera.FrameThrottle;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.ocr.FolioExtraction;
+import com.grupomess.erp.ocr.FolioExtractor;
+import com.grupomess.erp.ocr.FolioStabilizer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Lee el folio en vivo desde los cuadros de la vista previa.
+ * <br>
+ * Cada cuadro pasa primero por un {@link FrameThrottle}: si llega antes de tiempo o hay un
+ * reconocimiento en curso se cierra de inmediato, y CameraX entrega después el más reciente
+ * (estrategia {@link ImageAnalysis#STRATEGY_KEEP_ONLY_LATEST}). En el cuadro aceptado se busca
+ * primero un código de barras o QR con folio ({@link FolioViewModel#readFolioCode}); sólo si no
+ * lo hay se reconoce el texto. El cuadro se mantiene abierto hasta que ML Kit termina. Los
+ * folios de código y de texto alimentan al mismo {@link FolioStabilizer}; cuando confirma el
+ * mismo folio en varios cuadros seguidos, el escaneo se detiene, se registra su duración en
+ * {@code escaneo.por_codigo} o {@code escaneo.por_ocr} según el cuadro que lo confirmó y se
+ * avisa al {@link Listener}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class LiveFolioScanner implements ImageAnalysis.Analyzer {
+
+    /**
+     * Recibe el folio confirmado, en el hilo de análisis.
+     */
+    public interface Listener {
+        void onFolioStable(FolioExtraction extraction);
+    }
+
+    private final FolioViewModel viewModel;
+    private final FolioExtractor extractor;
+    private final FrameThrottle throttle;
+    private final FolioStabilizer stabilizer;
+    private final Executor executor;
+    private final Listener listener;
+    private final AppMetrics metrics;
+
+    private volatile boolean stopped;
+    /** Instante del primer cuadro analizado; 0 hasta entonces */
+    private long startedAt;
+
+    /**
+     * @param viewModel dueño del reconocedor de texto compartido
+     * @param extractor extractor de folios
+     * @param throttle límite de cuadros analizados
+     * @param stabilizer confirmación por cuadros seguidos
+     * @param executor hilo de análisis; también recibe los resultados de ML Kit
+     * @param listener receptor del folio confirmado
+     * @param metrics métricas donde se registra la duración del escaneo
+     */
+    public LiveFolioScanner(FolioViewModel viewModel, FolioExtractor extractor, FrameThrottle throttle,
+                            FolioStabilizer stabilizer, Executor executor, Listener listener, AppMetrics metrics) {
+        this.viewModel = viewModel;
+        this.extractor = extractor;
+        this.throttle = throttle;
+        this.stabilizer = stabilizer;
+        // Si el hilo de análisis ya se cerró con la pantalla, el resultado se atiende en el hilo
+        // de ML Kit para que el cuadro se cierre de todos modos
+        this.executor = command -> {
+            try {
+                executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                command.run();
+            }
+        };
+        this.listener = listener;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Deja de analizar cuadros; los que lleguen se cierran sin procesar.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return límite de cuadros, con los contadores de analizados y descartados
+     */
+    public FrameThrottle getThrottle() {
+        return throttle;
+    }
+
+    @Override
+    @androidx.annotation.OptIn(markerClass = androidx.camera.core.ExperimentalGetImage.class)
+    public void analyze(@NonNull ImageProxy frame) {
+        if (stopped || !throttle.tryAcquire(System.nanoTime())) {
+            frame.close();
+            return;
+        }
+        Image media = frame.getImage();
+        if (media == null) {
+            frame.close();
+            throttle.release();
+            return;
+        }
+        if (startedAt == 0) {
+            startedAt = SystemClock.elapsedRealtimeNanos();
+        }
+        int rotation = frame.getImageInfo().getRotationDegrees();
+        InputImage input = InputImage.fromMediaImage(media, rotation);
+        boolean rotated = rotation == 90 || rotation == 270;
+        int width = rotated ? frame.getHeight() : frame.getWidth();
+        int height = rotated ? frame.getWidth() : frame.getHeight();
+
+        // Camino rápido: un código legible evita el OCR del cuadro. Bloquea el hilo de
+        // análisis, que de todos modos no recibe otro cuadro hasta liberar el límite
+        FolioExtraction fromCode;
+        try {
+            fromCode = viewModel.readFolioCode(input);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            frame.close();
+            throttle.release();
+            return;
+        }
+        if (stopped || fromCode.hasBest()) {
+            frame.close();
+            throttle.release();
+            if (fromCode.hasBest() && !stopped) {
+                offer(fromCode, true);
+            }
+            return;
+        }
+
+        viewModel.recognizeText(input).addOnCompleteListener(executor, task -> {
+            // El cuadro debe seguir abierto mientras ML Kit lo lee
+            frame.close();
+            throttle.release();
+            if (stopped || !task.isSuccessful()) {
+                return;
+            }
+            offer(extractor.extract(OcrPageMapper.fromText(task.getResult(), width, height)), false);
+        });
+    }
+
+    /**
+     * Pasa el folio del cuadro al estabilizador; se ejecuta en el hilo de análisis.
+     * @param viaCode true si el folio salió de un código y no del texto
+     */
+    private void offer(FolioExtraction extraction, boolean viaCode) {
+        String value = extraction.hasBest() ? extraction.getBest().getValue() : null;
+        if (stabilizer.offer(value)) {
+            stopped = true;
+            (viaCode ? metrics.scanViaBarcode : metrics.scanViaOcr)
+                    .recordSince(startedAt, SystemClock.elapsedRealtimeNanos());
+            listener.onFolioStable(extraction);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.graphics.Bitmap;
+import android.media.ExifInterface;
+import android.os.SystemClock;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.preprocess.OcrPreprocessor;
+import com.grupomess.erp.quality.LumaImage;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Lee una foto del disco y la deja lista para ML Kit con {@link OcrPreprocessor}: girada según
+ * EXIF, recortada a la hoja, enderezada y reducida.
+ * <br>
+ * Hace E/S y decodifica; debe llamarse fuera del hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class OcrImageLoader {
+
+    /** Lado mayor aproximado al decodificar; el preprocesador reduce después a su tamaño objetivo */
+    private static final int DECODE_MAX_SIDE = 1600;
+
+    private OcrImageLoader() {
+    }
+
+    /**
+     * @param file foto en disco
+     * @param preprocessor etapa de preparación
+     * @param metrics métricas donde se registra el tiempo y los pixeles enviados al OCR
+     * @return imagen para ML Kit, ya derecha (rotación 0)
+     * @throws IOException si la foto no se pudo leer
+     */
+    public static InputImage load(File file, OcrPreprocessor preprocessor, AppMetrics metrics) throws IOException {
+        long start = SystemClock.elapsedRealtimeNanos();
+        int rotation = rotationDegrees(file);
+        LumaImage decoded = CaptureFiles.decodeLuma(file, DECODE_MAX_SIDE);
+        if (decoded == null) {
+            throw new IOException("No se pudo decodificar " + file.getName());
+        }
+        LumaImage prepared = preprocessor.process(decoded, rotation).getImage();
+        InputImage image = InputImage.fromBitmap(toBitmap(prepared), 0);
+        metrics.ocrPreprocess.recordSince(start, SystemClock.elapsedRealtimeNanos());
+        metrics.ocrPixels.record((long) prepared.getWidth() * prepared.getHeight());
+        return image;
+    }
+
+    private static Bitmap toBitmap(LumaImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] luma = image.getPixels();
+        int[] argb = new int[width * height];
+        for (int i = 0; i < argb.length; i++) {
+            int g = luma[i] & 0xFF;
+            argb[i] = 0xFF000000 | (g << 16) | (g << 8) | g;
+        }
+        return Bitmap.createBitmap(argb, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private static int rotationDegrees(File file) throws IOException {
+        int orientation = new ExifInterface(file.getAbsolutePath())
+                .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        return orientation == ExifInterface.ORIENTATION_ROTATE_90 ? 90
+                : orientation == ExifInterface.ORIENTATION_ROTATE_180 ? 180
+                : orientation == ExifInterface.ORIENTATION_ROTATE_270 ? 270 : 0;
+    }
+}
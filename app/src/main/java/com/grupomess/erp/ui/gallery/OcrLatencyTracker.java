@@ -0,0 +1,74 @@
+package com.grupomess.erp.ui.gallery;
+
+import java.util.Locale;
+
+/**
+ * Acumula la latencia de los escaneos OCR separando el arranque en frío
+ * (modelo aún sin inicializar) de los escaneos con el reconocedor ya caliente.
+ * Es Java puro y seguro entre hilos para poder registrarse desde los callbacks de ML Kit.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class OcrLatencyTracker {
+
+    private long warmUpNanos = -1;
+    private int coldCount;
+    private long coldTotalNanos;
+    private int warmCount;
+    private long warmTotalNanos;
+    private long warmMaxNanos;
+
+    /**
+     * Registra cuánto tardó el precalentamiento del modelo.
+     * @param nanos duración en nanosegundos
+     */
+    public synchronized void recordWarmUp(long nanos) {
+        warmUpNanos = nanos;
+    }
+
+    /**
+     * Registra un escaneo.
+     * @param cold true si el reconocedor no estaba caliente al iniciar el escaneo
+     * @param nanos duración en nanosegundos
+     */
+    public synchronized void recordScan(boolean cold, long nanos) {
+        if (cold) {
+            coldCount++;
+            coldTotalNanos += nanos;
+        } else {
+            warmCount++;
+            warmTotalNanos += nanos;
+            warmMaxNanos = Math.max(warmMaxNanos, nanos);
+        }
+    }
+
+    /** @return número de escaneos en frío */
+    public synchronized int getColdCount() {
+        return coldCount;
+    }
+
+    /** @return número de escaneos con el reconocedor caliente */
+    public synchronized int getWarmCount() {
+        return warmCount;
+    }
+
+    /** @return latencia promedio en frío en milisegundos, o 0 si no hay datos */
+    public synchronized double getColdAverageMillis() {
+        return coldCount == 0 ? 0 : coldTotalNanos / 1e6 / coldCount;
+    }
+
+    /** @return latencia promedio en caliente en milisegundos, o 0 si no hay datos */
+    public synchronized double getWarmAverageMillis() {
+        return warmCount == 0 ? 0 : warmTotalNanos / 1e6 / warmCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "warmUp=%.1fms cold[n=%d avg=%.1fms] warm[n=%d avg=%.1fms max=%.1fms]",
+                warmUpNanos < 0 ? 0 : warmUpNanos / 1e6,
+                coldCount, getColdAverageMillis(),
+                warmCount, getWarmAverageMillis(), warmMaxNanos / 1e6);
+    }
+}
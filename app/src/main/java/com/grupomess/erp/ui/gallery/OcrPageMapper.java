@@ -0,0 +1,50 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.text.Text;
+import com.grupomess.erp.ocr.OcrPage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte el resultado de ML Kit ({@link Text}) al modelo {@link OcrPage} en Java puro
+ * que usa el motor de extracción de folios.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class OcrPageMapper {
+
+    private OcrPageMapper() {
+    }
+
+    /**
+     * @param text resultado de ML Kit
+     * @param width ancho de la imagen procesada
+     * @param height alto de la imagen procesada
+     * @return página de OCR equivalente
+     */
+    public static OcrPage fromText(Text text, int width, int height) {
+        List<OcrPage.Block> blocks = new ArrayList<>(text.getTextBlocks().size());
+        for (Text.TextBlock block : text.getTextBlocks()) {
+            List<OcrPage.Line> lines = new ArrayList<>(block.getLines().size());
+            for (Text.Line line : block.getLines()) {
+                List<OcrPage.Element> elements = new ArrayList<>(line.getElements().size());
+                for (Text.Element element : line.getElements()) {
+                    elements.add(new OcrPage.Element(element.getText(),
+                            toBox(element.getBoundingBox()), element.getConfidence()));
+                }
+                lines.add(new OcrPage.Line(line.getText(), toBox(line.getBoundingBox()),
+                        line.getConfidence(), elements));
+            }
+            blocks.add(new OcrPage.Block(lines));
+        }
+        return new OcrPage(width, height, blocks);
+    }
+
+    private static OcrPage.Box toBox(Rect rect) {
+        return rect == null ? null : new OcrPage.Box(rect.left, rect.top, rect.right, rect.bottom);
+    }
+}
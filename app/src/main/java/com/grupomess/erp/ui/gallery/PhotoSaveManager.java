@@ -0,0 +1,954 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.app.ActivityManager;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Environment;
+import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.grupomess.erp.R;
+import com.grupomess.erp.crypto.PhotoVault;
+import com.grupomess.erp.crypto.StreamingAead;
+import com.grupomess.erp.data.FolioIndex;
+import com.grupomess.erp.data.FolioManifest;
+import com.grupomess.erp.data.SavedPhoto;
+import com.grupomess.erp.encode.AdaptivePhotoEncoder;
+import com.grupomess.erp.encode.ChannelCopy;
+import com.grupomess.erp.encode.EncodedPhoto;
+import com.grupomess.erp.encode.PhotoEncoder;
+import com.grupomess.erp.encode.PhotoMetadata;
+import com.grupomess.erp.encode.SourceFormat;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.metrics.Histogram;
+import com.grupomess.erp.upload.UploadQueue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Guarda las fotos de un folio en la carpeta Descargas en segundo plano.
+ * <br>
+ * Es un singleton a nivel de aplicación para que el guardado continúe aunque el usuario
+ * salga de la pantalla de folio. Las fotos se comprimen en paralelo con un número de hilos
+ * acotado por los núcleos disponibles; las que se decodifican, además, por la memoria del heap
+ * (la mitad de {@link ActivityManager#getMemoryClass()}). El progreso se publica por {@link LiveData}.
+ * <br>
+ * Flujo principal:
+ * 1. {@link #start(String, List)} copia la lista de fotos y lanza el trabajo;
+ *    {@link #startAll(Map)} encadena varios folios, por ejemplo los de una importación.
+ * 2. Si un guardado anterior del mismo folio quedó a medias, su {@link FolioManifest} indica
+ *    qué fotos ya están escritas y esas no se vuelven a comprimir.
+ * 3. Las fotos que faltan se insertan en MediaStore en una sola operación en lote, marcadas
+ *    {@code IS_PENDING} para que nadie las vea incompletas.
+ * 4. En un hilo del pool, según el {@link SaveMode}:
+ *    - {@link SaveMode#ORIGINAL} (por defecto): se agregan folio, fecha y dispositivo al EXIF
+ *      de una copia temporal de la foto sin tocar los pixeles y sus bytes se copian por canales
+ *      a MediaStore. La foto de la sesión nunca se modifica: la galería, el filtro de calidad y
+ *      el OCR pueden estar leyéndola y debe quedar intacta si el guardado se cancela. Sólo se
+ *      decodifica si se pidió un lado máximo con {@link #setMaxSide(int)} y la foto lo excede.
+ *    - {@link SaveMode#REENCODE}: se decodifica y se comprime con el {@link PhotoEncoder}
+ *      configurado (por defecto {@link AdaptivePhotoEncoder}).
+ *    Con {@link #setEncrypted(boolean)} los bytes de cualquiera de las dos rutas pasan por
+ *    {@link StreamingAead} al escribirse y la foto se guarda como {@code .enc}.
+ *    Al terminar se registra en el manifiesto con su tamaño y CRC-32 en disco. Los bytes por
+ *    segundo de cada ruta se publican en {@link AppMetrics} para compararlas.
+ * 5. Las fotos y un manifiesto compacto se publican juntos en otra operación en lote: la carpeta
+ *    Descargas/&lt;folio&gt; aparece completa o no aparece.
+ * 6. El folio se registra en {@link FolioIndex}, se encola en {@link UploadQueue} para subirlo
+ *    al ERP y el estado pasa a {@link Status#COMPLETED}. Si se cancela se elimina todo lo
+ *    insertado; si falla se conservan las fotos registradas para reanudar.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class PhotoSaveManager {
+
+    private static final String TAG = "PhotoSaveManager";
+
+    /** Extensión y tipo con que se insertan las fotos antes de comprimirlas */
+    private static final String PLACEHOLDER_EXTENSION = ".jpg";
+    private static final String PLACEHOLDER_MIME = "image/jpeg";
+    /** Tipo de las fotos cifradas; sólo la app puede abrirlas */
+    private static final String ENCRYPTED_MIME = "application/octet-stream";
+    /** Manifiestos privados de los guardados, para reanudarlos */
+    private static final String MANIFEST_DIR = "manifiestos";
+    /** Sufijo del manifiesto publicado junto a las fotos */
+    private static final String MANIFEST_SUFFIX = "_manifiesto.txt";
+    /** Memoria extra de cada compresión: el buffer del hilo (hasta 8 MB) y la foto comprimida */
+    private static final long ENCODE_HEADROOM_BYTES = 16L * 1024 * 1024;
+
+    /** Estados posibles del trabajo de guardado. */
+    public enum Status { IDLE, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    /** Cómo se escribe cada foto. */
+    public enum SaveMode {
+        /** Copia los bytes originales con metadatos EXIF; decodifica sólo para reducir */
+        ORIGINAL,
+        /** Decodifica y vuelve a comprimir con el encoder configurado */
+        REENCODE
+    }
+
+    /**
+     * Estado inmutable del guardado, publicado en cada foto terminada.
+     */
+    public static final class Progress {
+        public final Status status;
+        public final String folioName;
+        public final int saved;
+        public final int total;
+        public final String error;
+        /** Folio en curso (desde 1) y folios del trabajo; 1 de 1 salvo en {@link #startAll(Map)} */
+        public final int folioIndex;
+        public final int folioCount;
+        /** true si el trabajo viene de {@link #startAll(Map)} y no de la sesión de captura */
+        public final boolean batch;
+        /** Fotos guardadas del folio; sólo en {@link Status#COMPLETED}, vacía en otro caso */
+        public final List<File> photos;
+
+        Progress(Status status, String folioName, int saved, int total, String error) {
+            this(status, folioName, saved, total, error, 1, 1, false);
+        }
+
+        Progress(Status status, String folioName, int saved, int total, String error,
+                 int folioIndex, int folioCount, boolean batch) {
+            this(status, folioName, saved, total, error, folioIndex, folioCount, batch, Collections.emptyList());
+        }
+
+        Progress(Status status, String folioName, int saved, int total, String error,
+                 int folioIndex, int folioCount, boolean batch, List<File> photos) {
+            this.status = status;
+            this.folioName = folioName;
+            this.saved = saved;
+            this.total = total;
+            this.error = error;
+            this.folioIndex = folioIndex;
+            this.folioCount = folioCount;
+            this.batch = batch;
+            this.photos = photos;
+        }
+
+        /** @return true si el trabajo ya no está en curso y aún no se ha confirmado */
+        public boolean isFinished() {
+            return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+        }
+    }
+
+    private static volatile PhotoSaveManager instance;
+
+    private final Context appContext;
+    private final AppMetrics metrics;
+    /** Coordina un trabajo a la vez */
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+    /** Pool acotado para comprimir y escribir fotos en paralelo */
+    private final ExecutorService workers;
+    /** Limita las fotos decodificadas a la vez por memoria, no por número de hilos */
+    private final DecodeBudget decodeBudget;
+    private final MutableLiveData<Progress> progress = new MutableLiveData<>(
+            new Progress(Status.IDLE, null, 0, 0, null));
+
+    /** Bandera de cancelación del trabajo actual */
+    private volatile AtomicBoolean currentCancel;
+    /** Etapa de compresión; se lee al iniciar cada trabajo */
+    private volatile PhotoEncoder encoder = AdaptivePhotoEncoder.withDefaults();
+    private volatile SaveMode saveMode = SaveMode.ORIGINAL;
+    /** Lado mayor máximo de las fotos guardadas; 0 para no reducir */
+    private volatile int maxSide = 0;
+    /** Cifra las fotos con la llave de {@link PhotoVault}; se lee al iniciar cada trabajo */
+    private volatile boolean encrypted;
+
+    private PhotoSaveManager(Context context) {
+        appContext = context.getApplicationContext();
+        metrics = AppMetrics.getInstance(appContext);
+        encrypted = appContext.getResources().getBoolean(R.bool.encrypt_photos);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        workers = Executors.newFixedThreadPool(threads);
+        // La mitad del heap de la app; el resto queda para la UI y las miniaturas
+        int memoryClass = appContext.getSystemService(ActivityManager.class).getMemoryClass();
+        decodeBudget = new DecodeBudget(Math.max(1, memoryClass / 2));
+    }
+
+    /**
+     * Obtiene la instancia compartida.
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return administrador de guardado
+     */
+    public static PhotoSaveManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PhotoSaveManager.class) {
+                if (instance == null) {
+                    instance = new PhotoSaveManager(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Progreso observable del guardado actual.
+     * @return LiveData con el último estado
+     */
+    public LiveData<Progress> getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return true si hay un guardado en curso
+     */
+    public boolean isRunning() {
+        Progress current = progress.getValue();
+        return current != null && current.status == Status.RUNNING;
+    }
+
+    /**
+     * Inicia el guardado de un folio. Las fotos originales se eliminan sólo si todas se guardaron.
+     * @param folioName nombre del folio (carpeta destino)
+     * @param photos archivos de las fotos capturadas
+     * @return false si ya había un guardado en curso
+     */
+    public synchronized boolean start(String folioName, List<File> photos) {
+        if (isRunning()) {
+            return false;
+        }
+        List<File> snapshot = Collections.unmodifiableList(new ArrayList<>(photos));
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        currentCancel = cancelled;
+        progress.setValue(new Progress(Status.RUNNING, folioName, 0, snapshot.size(), null));
+        coordinator.execute(() -> progress.postValue(runJob(folioName, snapshot, 1, 1, false, cancelled)));
+        return true;
+    }
+
+    /**
+     * Guarda varios folios uno tras otro como un solo trabajo. Al cancelar o fallar uno, ni él
+     * ni los siguientes se guardan y sus fotos se eliminan.
+     * @param folios fotos de cada folio, en el orden en que se guardarán
+     * @return false si ya había un guardado en curso
+     */
+    public synchronized boolean startAll(Map<String, List<File>> folios) {
+        if (isRunning() || folios.isEmpty()) {
+            return false;
+        }
+        Map<String, List<File>> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, List<File>> folio : folios.entrySet()) {
+            snapshot.put(folio.getKey(), Collections.unmodifiableList(new ArrayList<>(folio.getValue())));
+        }
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        currentCancel = cancelled;
+        Map.Entry<String, List<File>> first = snapshot.entrySet().iterator().next();
+        progress.setValue(new Progress(Status.RUNNING, first.getKey(), 0, first.getValue().size(), null,
+                1, snapshot.size(), true));
+        coordinator.execute(() -> {
+            Progress last = null;
+            int index = 0;
+            for (Map.Entry<String, List<File>> folio : snapshot.entrySet()) {
+                index++;
+                if (last == null || last.status == Status.COMPLETED) {
+                    last = runJob(folio.getKey(), folio.getValue(), index, snapshot.size(), true, cancelled);
+                }
+                if (last.status != Status.COMPLETED) {
+                    // Las fotos no pertenecen a una sesión que pueda reintentarse
+                    for (File photo : folio.getValue()) {
+                        CaptureFiles.delete(photo);
+                    }
+                }
+            }
+            progress.postValue(last);
+        });
+        return true;
+    }
+
+    /**
+     * Cambia la etapa de compresión para los siguientes guardados.
+     * @param encoder encoder a usar; debe poder llamarse desde varios hilos
+     */
+    public void setEncoder(PhotoEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * Cambia cómo se escriben las fotos en los siguientes guardados.
+     * @param saveMode copia de los bytes originales o recompresión
+     */
+    public void setSaveMode(SaveMode saveMode) {
+        this.saveMode = saveMode;
+    }
+
+    /**
+     * Pide reducir las fotos cuyo lado mayor exceda el indicado en los siguientes guardados.
+     * En {@link SaveMode#ORIGINAL} sólo esas fotos se decodifican y se recomprimen.
+     * @param maxSide lado mayor en pixeles, o 0 para guardar a la resolución original
+     */
+    public void setMaxSide(int maxSide) {
+        if (maxSide < 0) {
+            throw new IllegalArgumentException("El lado máximo no puede ser negativo");
+        }
+        this.maxSide = maxSide;
+    }
+
+    /**
+     * Activa o desactiva el cifrado de las fotos en los siguientes guardados. Por omisión
+     * toma el valor de {@code R.bool.encrypt_photos}.
+     * @param encrypted true para cifrar cada foto con la llave de {@link PhotoVault}
+     */
+    public void setEncrypted(boolean encrypted) {
+        this.encrypted = encrypted;
+    }
+
+    /**
+     * Solicita cancelar el guardado en curso.
+     */
+    public void cancel() {
+        AtomicBoolean cancelled = currentCancel;
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * Marca el resultado final como atendido por la UI para no volver a mostrarlo.
+     */
+    public void acknowledge() {
+        Progress current = progress.getValue();
+        if (current != null && current.isFinished()) {
+            progress.setValue(new Progress(Status.IDLE, null, 0, 0, null));
+        }
+    }
+
+    /**
+     * Guarda un folio publicando el avance.
+     * @return estado final del folio, sin publicar
+     */
+    private Progress runJob(String folioName, List<File> photos, int folioIndex, int folioCount, boolean batch,
+                            AtomicBoolean cancelled) {
+        long jobStart = SystemClock.elapsedRealtimeNanos();
+        ContentResolver resolver = appContext.getContentResolver();
+        StreamingAead aead = null;
+        if (encrypted) {
+            try {
+                aead = PhotoVault.getInstance(appContext).getAead();
+            } catch (IOException e) {
+                Log.e(TAG, "No se pudo preparar el cifrado de las fotos", e);
+                metrics.saveFailures.increment();
+                return new Progress(Status.FAILED, folioName, 0, photos.size(), e.getMessage(),
+                        folioIndex, folioCount, batch);
+            }
+        }
+        SaveSettings settings = new SaveSettings(encoder, saveMode, maxSide,
+                PhotoMetadata.forThisDevice(folioName, System.currentTimeMillis()), appContext.getCacheDir(), aead,
+                decodeBudget);
+        boolean encrypt = aead != null;
+        File manifestFile = manifestFile(folioName);
+        SavedPhoto[] saved = new SavedPhoto[photos.size()];
+        List<FolioManifest.Entry> entries = resumeEntries(resolver, manifestFile, folioName, photos, encrypt);
+        for (FolioManifest.Entry entry : entries) {
+            saved[entry.position] = new SavedPhoto(entry.uri, entry.sizeBytes, entry.fileName);
+        }
+        progress.postValue(new Progress(Status.RUNNING, folioName, entries.size(), photos.size(), null,
+                folioIndex, folioCount, batch));
+
+        // Entradas pendientes de esta pasada; se publican juntas o se eliminan
+        Uri[] targets = new Uri[photos.size()];
+        Uri manifestUri = null;
+        List<Future<FolioManifest.Entry>> futures = new ArrayList<>();
+        String error = null;
+
+        try (FolioManifest.Writer manifest = new FolioManifest.Writer(manifestFile, folioName)) {
+            for (FolioManifest.Entry entry : entries) {
+                manifest.append(entry);
+            }
+
+            // Una sola operación en lote inserta todas las fotos que faltan y el manifiesto publicado
+            List<Integer> missing = new ArrayList<>();
+            ArrayList<ContentProviderOperation> inserts = new ArrayList<>();
+            for (int i = 0; i < photos.size(); i++) {
+                if (saved[i] == null) {
+                    missing.add(i);
+                    inserts.add(pendingInsert(folioName, placeholderName(folioName, i, encrypt),
+                            encrypt ? ENCRYPTED_MIME : PLACEHOLDER_MIME));
+                }
+            }
+            inserts.add(pendingInsert(folioName, folioName + MANIFEST_SUFFIX, "text/plain"));
+            ContentProviderResult[] inserted = resolver.applyBatch(MediaStore.AUTHORITY, inserts);
+            for (int i = 0; i < missing.size(); i++) {
+                targets[missing.get(i)] = inserted[i].uri;
+            }
+            manifestUri = inserted[inserted.length - 1].uri;
+
+            ExecutorCompletionService<FolioManifest.Entry> completion = new ExecutorCompletionService<>(workers);
+            for (int position : missing) {
+                final File photo = photos.get(position);
+                final Uri target = targets[position];
+                final String baseName = baseName(folioName, position);
+                futures.add(completion.submit(() -> savePhoto(resolver, settings, metrics, target, baseName,
+                        position, photo, cancelled)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                FolioManifest.Entry entry = completion.take().get();
+                // El manifiesto registra cada foto en cuanto queda completa en disco
+                manifest.append(entry);
+                entries.add(entry);
+                saved[entry.position] = new SavedPhoto(entry.uri, entry.sizeBytes, entry.fileName);
+                progress.postValue(new Progress(Status.RUNNING, folioName, entries.size(), photos.size(), null,
+                        folioIndex, folioCount, batch));
+            }
+            if (cancelled.get()) {
+                throw new CancellationException();
+            }
+
+            FolioManifest written = FolioManifest.read(manifestFile);
+            try (OutputStream out = resolver.openOutputStream(manifestUri)) {
+                if (out == null) {
+                    throw new IOException("No se pudo abrir el manifiesto del folio");
+                }
+                out.write(written.toPublishedText().getBytes(StandardCharsets.UTF_8));
+            }
+
+            // Publica las fotos y el manifiesto en una sola operación en lote
+            ArrayList<ContentProviderOperation> publish = new ArrayList<>(photos.size() + 1);
+            for (int i = 0; i < photos.size(); i++) {
+                ContentValues values = new ContentValues();
+                values.put(MediaStore.Downloads.IS_PENDING, 0);
+                if (!saved[i].getFileName().equals(placeholderName(folioName, i, encrypt))) {
+                    values.put(MediaStore.Downloads.DISPLAY_NAME, saved[i].getFileName());
+                }
+                publish.add(ContentProviderOperation.newUpdate(Uri.parse(saved[i].getUri()))
+                        .withValues(values).build());
+            }
+            ContentValues published = new ContentValues();
+            published.put(MediaStore.Downloads.IS_PENDING, 0);
+            publish.add(ContentProviderOperation.newUpdate(manifestUri).withValues(published).build());
+            resolver.applyBatch(MediaStore.AUTHORITY, publish);
+            manifest.markComplete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled.set(true);
+        } catch (CancellationException e) {
+            cancelled.set(true);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof CancellationException) && !cancelled.get()) {
+                Log.e(TAG, "Error al guardar foto", cause);
+                error = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+            }
+            cancelled.set(true);
+        } catch (IOException | RemoteException | OperationApplicationException | RuntimeException e) {
+            Log.e(TAG, "Error al guardar el folio", e);
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+
+        if (cancelled.get() || error != null) {
+            abortJob(resolver, manifestFile, futures, cancelled, targets, manifestUri, entries, error == null);
+            Status status = error != null ? Status.FAILED : Status.CANCELLED;
+            if (error != null) {
+                metrics.saveFailures.increment();
+            }
+            return new Progress(status, folioName, 0, photos.size(), error, folioIndex, folioCount, batch);
+        }
+
+        // Registra el folio en el índice local con las fotos en orden de captura
+        List<SavedPhoto> ordered = Arrays.asList(saved);
+        try {
+            FolioIndex.getInstance(appContext).recordSave(folioName, System.currentTimeMillis(), ordered);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error al registrar el folio en el índice", e);
+        }
+        try {
+            UploadQueue.getInstance(appContext).enqueue(folioName, ordered);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error al encolar el folio para subirlo al ERP", e);
+        }
+
+        for (File photo : photos) {
+            CaptureFiles.delete(photo);
+        }
+        metrics.saveFolio.recordSince(jobStart, SystemClock.elapsedRealtimeNanos());
+        metrics.flush();
+        return new Progress(Status.COMPLETED, folioName, photos.size(), photos.size(), null,
+                folioIndex, folioCount, batch, photos);
+    }
+
+    /**
+     * Recupera las fotos que un guardado interrumpido del mismo folio ya dejó escritas.
+     * Sólo se reutilizan las que siguen en MediaStore con el tamaño registrado y con el mismo
+     * cifrado que este guardado; el manifiesto se reinicia con ellas y las demás entradas se eliminan.
+     * @return fotos reutilizables, vacía si no hay guardado que reanudar
+     */
+    private List<FolioManifest.Entry> resumeEntries(ContentResolver resolver, File manifestFile, String folioName,
+                                                    List<File> photos, boolean encrypt) {
+        List<FolioManifest.Entry> reused = new ArrayList<>();
+        FolioManifest previous;
+        try {
+            previous = FolioManifest.read(manifestFile);
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo leer el manifiesto anterior", e);
+            previous = null;
+        }
+        if (previous != null && !previous.isComplete() && previous.getFolio().equals(folioName)) {
+            for (int i = 0; i < photos.size(); i++) {
+                FolioManifest.Entry entry = previous.findBySource(photos.get(i).getAbsolutePath());
+                if (entry != null && entry.position == i && PhotoVault.isEncryptedName(entry.fileName) == encrypt
+                        && isIntact(resolver, entry)) {
+                    reused.add(entry);
+                }
+            }
+            for (FolioManifest.Entry entry : previous.getEntries()) {
+                if (!reused.contains(entry)) {
+                    resolver.delete(Uri.parse(entry.uri), null, null);
+                }
+            }
+            if (!reused.isEmpty()) {
+                Log.d(TAG, "Se reanuda " + folioName + " con " + reused.size() + " fotos ya escritas");
+            }
+        }
+        CaptureFiles.delete(manifestFile);
+        return reused;
+    }
+
+    /**
+     * @return true si la entrada sigue en MediaStore con el tamaño registrado
+     */
+    private static boolean isIntact(ContentResolver resolver, FolioManifest.Entry entry) {
+        try (ParcelFileDescriptor descriptor = resolver.openFileDescriptor(Uri.parse(entry.uri), "r")) {
+            return descriptor != null && descriptor.getStatSize() == entry.sizeBytes;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Detiene las fotos en curso y limpia las entradas pendientes. Si se canceló se elimina todo;
+     * si falló se conservan las fotos registradas en el manifiesto para reanudar después.
+     * <br>
+     * Las tareas no se cancelan con {@link Future#cancel(boolean)}: un futuro cancelado responde
+     * a {@code get()} al instante aunque su hilo siga escribiendo. Se levanta la bandera, que
+     * las que aún no empiezan revisan al entrar, y se espera a que todas terminen de verdad
+     * antes de borrar sus entradas.
+     */
+    private static void abortJob(ContentResolver resolver, File manifestFile, List<Future<FolioManifest.Entry>> futures,
+                                 AtomicBoolean cancelled, Uri[] targets, Uri manifestUri,
+                                 List<FolioManifest.Entry> entries, boolean discardAll) {
+        cancelled.set(true);
+        boolean interrupted = false;
+        for (Future<FolioManifest.Entry> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // La limpieza no puede saltarse la espera; la interrupción se restaura al final
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    // La foto no llegó a escribirse
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Set<String> doomed = new LinkedHashSet<>();
+        for (Uri target : targets) {
+            if (target != null) {
+                doomed.add(target.toString());
+            }
+        }
+        for (FolioManifest.Entry entry : entries) {
+            if (discardAll) {
+                doomed.add(entry.uri);
+            } else {
+                doomed.remove(entry.uri);
+            }
+        }
+        if (manifestUri != null) {
+            doomed.add(manifestUri.toString());
+        }
+        if (discardAll) {
+            CaptureFiles.delete(manifestFile);
+        }
+        ArrayList<ContentProviderOperation> deletes = new ArrayList<>(doomed.size());
+        for (String uri : doomed) {
+            deletes.add(ContentProviderOperation.newDelete(Uri.parse(uri)).build());
+        }
+        try {
+            resolver.applyBatch(MediaStore.AUTHORITY, deletes);
+        } catch (RemoteException | OperationApplicationException | RuntimeException e) {
+            // Las entradas pendientes que queden las elimina el sistema al vencer
+            Log.e(TAG, "Error al eliminar las fotos pendientes", e);
+        }
+    }
+
+    private static ContentProviderOperation pendingInsert(String folioName, String displayName, String mimeType) {
+        return ContentProviderOperation.newInsert(MediaStore.Downloads.EXTERNAL_CONTENT_URI)
+                .withValue(MediaStore.Downloads.DISPLAY_NAME, displayName)
+                .withValue(MediaStore.Downloads.MIME_TYPE, mimeType)
+                .withValue(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS + "/" + folioName)
+                .withValue(MediaStore.Downloads.IS_PENDING, 1)
+                .build();
+    }
+
+    private static String baseName(String folioName, int position) {
+        return folioName + "_foto_" + (position + 1);
+    }
+
+    /**
+     * Nombre con el que se inserta la foto antes de saber qué formato elige el encoder;
+     * al publicar se renombra si el formato fue otro.
+     */
+    private static String placeholderName(String folioName, int position, boolean encrypt) {
+        return storedName(baseName(folioName, position) + PLACEHOLDER_EXTENSION, encrypt);
+    }
+
+    /**
+     * @param fileName nombre de la foto con la extensión de su formato
+     * @return nombre en disco; las cifradas conservan la extensión original antes del sufijo
+     */
+    private static String storedName(String fileName, boolean encrypt) {
+        return encrypt ? fileName + PhotoVault.ENCRYPTED_SUFFIX : fileName;
+    }
+
+    private File manifestFile(String folioName) {
+        File dir = new File(appContext.getFilesDir(), MANIFEST_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "No se pudo crear " + dir);
+        }
+        return new File(dir, folioName.replaceAll("[^A-Za-z0-9._-]", "_") + ".tsv");
+    }
+
+    /**
+     * Escribe una foto en su entrada pendiente por la ruta que corresponda a la configuración.
+     * @return registro de la foto para el manifiesto
+     */
+    private static FolioManifest.Entry savePhoto(ContentResolver resolver, SaveSettings settings, AppMetrics metrics,
+                                                 Uri target, String baseName, int position, File photo,
+                                                 AtomicBoolean cancelled) throws IOException {
+        if (cancelled.get()) {
+            throw new CancellationException();
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        long sourceBytes = photo.length();
+        FolioManifest.Entry entry;
+        boolean original = false;
+        if (settings.mode == SaveMode.ORIGINAL) {
+            SourceFormat format = SourceFormat.of(photo);
+            if (format != null && !exceeds(photo, settings.maxSide)) {
+                entry = copyOriginal(resolver, settings, target, baseName, position, photo, format, cancelled);
+                original = true;
+            } else {
+                // Formato desconocido o reducción pedida: se decodifica, pero se conserva el EXIF
+                entry = reencodeWithMetadata(resolver, settings, metrics, target, baseName, position, photo, cancelled);
+            }
+        } else {
+            entry = reencode(resolver, settings, metrics, target, baseName, position, photo, cancelled);
+        }
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        metrics.savePhoto.record(elapsed);
+        metrics.savedPhotos.increment();
+        if (elapsed > 0) {
+            Histogram rate = settings.aead != null ? metrics.saveRateEncrypted
+                    : original ? metrics.saveRateOriginal : metrics.saveRateReencode;
+            rate.record(sourceBytes * 1_000_000_000L / elapsed);
+        }
+        return entry;
+    }
+
+    /**
+     * Agrega los metadatos a una copia temporal y copia sus bytes tal cual, sin decodificarla.
+     * La foto de la sesión no se toca.
+     */
+    private static FolioManifest.Entry copyOriginal(ContentResolver resolver, SaveSettings settings, Uri target,
+                                                    String baseName, int position, File photo, SourceFormat format,
+                                                    AtomicBoolean cancelled) throws IOException {
+        String fileName = baseName + format.getExtension();
+        if (!format.isExifWritable()) {
+            return copyTo(resolver, settings.aead, target, fileName, position, photo, photo);
+        }
+        File temp = File.createTempFile("guardar_", format.getExtension(), settings.tempDir);
+        try {
+            try (FileChannel in = new FileInputStream(photo).getChannel();
+                 FileOutputStream out = new FileOutputStream(temp)) {
+                ChannelCopy.copy(in, out.getChannel(), null);
+            }
+            if (cancelled.get()) {
+                throw new CancellationException();
+            }
+            try {
+                settings.metadata.applyTo(temp, ExifInterface.ORIENTATION_UNDEFINED);
+            } catch (IOException e) {
+                // Los metadatos no son indispensables; la foto se guarda igual
+                Log.w(TAG, "No se pudieron escribir los metadatos de " + photo.getName(), e);
+            }
+            return copyTo(resolver, settings.aead, target, fileName, position, temp, photo);
+        } finally {
+            CaptureFiles.delete(temp);
+        }
+    }
+
+    /**
+     * Decodifica la foto, reducida al lado máximo si se pidió, la comprime con el encoder y la
+     * copia con los metadatos y la orientación de la original.
+     */
+    private static FolioManifest.Entry reencodeWithMetadata(ContentResolver resolver, SaveSettings settings,
+                                                            AppMetrics metrics, Uri target, String baseName,
+                                                            int position, File photo, AtomicBoolean cancelled)
+            throws IOException {
+        EncodedPhoto encoded = encode(settings, metrics, photo);
+        if (cancelled.get()) {
+            throw new CancellationException();
+        }
+        File temp = File.createTempFile("guardar_", encoded.getExtension(), settings.tempDir);
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                out.write(encoded.getData());
+            }
+            try {
+                settings.metadata.applyTo(temp, PhotoMetadata.readOrientation(photo));
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudieron escribir los metadatos de " + photo.getName(), e);
+            }
+            return copyTo(resolver, settings.aead, target, baseName + encoded.getExtension(), position, temp, photo);
+        } finally {
+            CaptureFiles.delete(temp);
+        }
+    }
+
+    /**
+     * Copia un archivo a su entrada pendiente por canales, calculando el CRC-32 al copiar.
+     * Si se indica un cifrador, los bytes se cifran por segmentos al pasar y el CRC-32 y el
+     * tamaño son los del archivo cifrado.
+     * @param aead cifrador, o null para copiar los bytes tal cual
+     * @param fileName nombre de la foto con la extensión de su formato
+     * @param file bytes a escribir
+     * @param source foto capturada, para reanudar
+     */
+    private static FolioManifest.Entry copyTo(ContentResolver resolver, StreamingAead aead, Uri target,
+                                              String fileName, int position, File file, File source)
+            throws IOException {
+        String storedName = storedName(fileName, aead != null);
+        ParcelFileDescriptor descriptor = resolver.openFileDescriptor(target, "wt");
+        if (descriptor == null) {
+            throw new IOException("No se pudo abrir " + storedName);
+        }
+        CRC32 crc = new CRC32();
+        long size;
+        try (FileChannel in = new FileInputStream(file).getChannel();
+             FileOutputStream out = new ParcelFileDescriptor.AutoCloseOutputStream(descriptor)) {
+            if (aead == null) {
+                size = ChannelCopy.copy(in, out.getChannel(), crc);
+            } else {
+                long plain;
+                try (OutputStream sealed = aead.encrypt(new CheckedOutputStream(out, crc))) {
+                    plain = ChannelCopy.copy(in, Channels.newChannel(sealed), null);
+                }
+                size = aead.ciphertextSize(plain);
+            }
+        }
+        return new FolioManifest.Entry(position, storedName, size, crc.getValue(), target.toString(),
+                source.getAbsolutePath());
+    }
+
+    /**
+     * @return true si se pidió un lado máximo y la foto lo excede; lee sólo las dimensiones
+     */
+    private static boolean exceeds(File photo, int maxSide) {
+        if (maxSide <= 0) {
+            return false;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(photo.getAbsolutePath(), options);
+        return Math.max(options.outWidth, options.outHeight) > maxSide;
+    }
+
+    /**
+     * Decodifica la foto, reducida si se indica un lado máximo, y la comprime.
+     * Antes de decodificar reserva en el {@link DecodeBudget} la memoria del bitmap y de la
+     * compresión; si no alcanza, espera a que otra foto termine.
+     */
+    private static EncodedPhoto encode(SaveSettings settings, AppMetrics metrics, File photo) throws IOException {
+        int maxSide = settings.maxSide;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(photo.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("No se pudo leer " + photo.getName());
+        }
+        if (maxSide > 0) {
+            int longSide = Math.max(options.outWidth, options.outHeight);
+            options.inSampleSize = CaptureFiles.calculateInSampleSize(longSide, longSide, maxSide, maxSide);
+        }
+        options.inJustDecodeBounds = false;
+        int sample = Math.max(1, options.inSampleSize);
+        long bytes = 4L * (options.outWidth / sample) * (options.outHeight / sample) + ENCODE_HEADROOM_BYTES;
+        if (maxSide > 0) {
+            // La copia reducida convive un momento con la decodificada
+            bytes += 4L * maxSide * maxSide;
+        }
+
+        int reserved = settings.decodeBudget.acquire(bytes);
+        try {
+            Bitmap bitmap = BitmapFactory.decodeFile(photo.getAbsolutePath(), options);
+            if (bitmap == null) {
+                throw new IOException("No se pudo leer " + photo.getName());
+            }
+            if (maxSide > 0 && Math.max(bitmap.getWidth(), bitmap.getHeight()) > maxSide) {
+                float scale = (float) maxSide / Math.max(bitmap.getWidth(), bitmap.getHeight());
+                Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.round(bitmap.getWidth() * scale),
+                        Math.round(bitmap.getHeight() * scale), true);
+                bitmap.recycle();
+                bitmap = scaled;
+            }
+            metrics.sampleHeap();
+            try {
+                long encodeStart = SystemClock.elapsedRealtimeNanos();
+                EncodedPhoto encoded = settings.encoder.encode(bitmap);
+                metrics.encodePhoto.recordSince(encodeStart, SystemClock.elapsedRealtimeNanos());
+                metrics.encodedBytes.record(encoded.getData().length);
+                return encoded;
+            } finally {
+                bitmap.recycle();
+            }
+        } finally {
+            settings.decodeBudget.release(reserved);
+        }
+    }
+
+    /**
+     * Comprime una foto con el encoder configurado y la escribe en su entrada pendiente,
+     * calculando el CRC-32 al escribir. Es la ruta de {@link SaveMode#REENCODE}.
+     * @return registro de la foto para el manifiesto
+     */
+    private static FolioManifest.Entry reencode(ContentResolver resolver, SaveSettings settings, AppMetrics metrics,
+                                                Uri target, String baseName, int position, File photo,
+                                                AtomicBoolean cancelled) throws IOException {
+        EncodedPhoto encoded = encode(settings, metrics, photo);
+        if (cancelled.get()) {
+            throw new CancellationException();
+        }
+
+        // El nombre final depende del formato elegido por el encoder
+        String fileName = storedName(baseName + encoded.getExtension(), settings.aead != null);
+        CRC32 crc = new CRC32();
+        long size = encoded.getData().length;
+        try (OutputStream out = resolver.openOutputStream(target)) {
+            if (out == null) {
+                throw new IOException("No se pudo abrir " + fileName);
+            }
+            if (settings.aead == null) {
+                crc.update(encoded.getData());
+                out.write(encoded.getData());
+            } else {
+                try (OutputStream sealed = settings.aead.encrypt(new CheckedOutputStream(out, crc))) {
+                    sealed.write(encoded.getData());
+                }
+                size = settings.aead.ciphertextSize(size);
+            }
+        }
+        return new FolioManifest.Entry(position, fileName, size, crc.getValue(),
+                target.toString(), photo.getAbsolutePath());
+    }
+
+    /**
+     * Configuración de un trabajo, leída al iniciarlo para que no cambie a medio folio.
+     */
+    private static final class SaveSettings {
+        final PhotoEncoder encoder;
+        final SaveMode mode;
+        final int maxSide;
+        final PhotoMetadata metadata;
+        /** Carpeta para las copias con metadatos antes de escribirlas en MediaStore */
+        final File tempDir;
+        /** Cifrador de las fotos, o null para guardarlas en claro */
+        final StreamingAead aead;
+        final DecodeBudget decodeBudget;
+
+        SaveSettings(PhotoEncoder encoder, SaveMode mode, int maxSide, PhotoMetadata metadata, File tempDir,
+                     StreamingAead aead, DecodeBudget decodeBudget) {
+            this.encoder = encoder;
+            this.mode = mode;
+            this.maxSide = maxSide;
+            this.metadata = metadata;
+            this.tempDir = tempDir;
+            this.aead = aead;
+            this.decodeBudget = decodeBudget;
+        }
+    }
+
+    /**
+     * Memoria del heap que pueden ocupar a la vez las fotos decodificadas, en MB.
+     * <br>
+     * Una foto de 12 MP en ARGB ocupa unos 48 MB; con un hilo por núcleo, varias a la vez
+     * agotan el heap de un equipo de 3 GB. Cada decodificación reserva lo que ocupará y espera
+     * si no cabe. Una foto más grande que todo el presupuesto se decodifica sola. El semáforo
+     * es justo para que una foto grande no espere indefinidamente detrás de las pequeñas.
+     */
+    private static final class DecodeBudget {
+        private static final long MEGABYTE = 1024 * 1024;
+
+        private final int totalMb;
+        private final Semaphore megabytes;
+
+        DecodeBudget(int totalMb) {
+            this.totalMb = totalMb;
+            megabytes = new Semaphore(totalMb, true);
+        }
+
+        /**
+         * @param bytes memoria que ocupará la decodificación
+         * @return MB reservados, para {@link #release(int)}
+         * @throws InterruptedIOException si se interrumpe la espera
+         */
+        int acquire(long bytes) throws InterruptedIOException {
+            int permits = (int) Math.min(totalMb, Math.max(1, (bytes + MEGABYTE - 1) / MEGABYTE));
+            try {
+                megabytes.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Se interrumpió la espera de memoria para decodificar");
+            }
+            return permits;
+        }
+
+        void release(int permits) {
+            megabytes.release(permits);
+        }
+    }
+}
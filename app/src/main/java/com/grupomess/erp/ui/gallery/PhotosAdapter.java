@@ -1,6 +1,5 @@
 package com.grupomess.erp.ui.gallery;
 
-import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,6 +7,8 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.grupomess.erp.R;
@@ -19,22 +20,44 @@ import java.util.List;
  * Permite eliminar fotos mediante un botón en cada elemento.
  *
  * Uso principal:
- * - Mostrar imágenes (Bitmap) en una lista horizontal.
- * - Permitir al usuario eliminar una foto específica.
+ * - Mostrar imágenes (archivos en resolución completa) como miniaturas reducidas en una lista horizontal.
+ *   Las miniaturas se decodifican en segundo plano y se cachean con {@link ThumbnailLoader}.
+ * - Permitir al usuario eliminar una foto específica, salvo mientras se guardan las fotos
+ *   ({@link #setDeleteEnabled(boolean)}): el guardado todavía puede estar leyendo el archivo.
+ * - Señalar las fotos que el filtro de calidad marcó como borrosas.
+ * <br>
+ * Recibe listas inmutables con {@link #submitList(java.util.List)}; DiffUtil calcula en segundo
+ * plano qué elementos cambiaron, de modo que agregar o eliminar una foto sólo vuelve a enlazar
+ * los elementos afectados.
  *
  * @author SOLTICSS
  * @since 2025
  */
-public class PhotosAdapter extends RecyclerView.Adapter<PhotosAdapter.PhotoViewHolder> {
+public class PhotosAdapter extends ListAdapter<CapturedPhoto, PhotosAdapter.PhotoViewHolder> {
+
+    /** Cambio parcial que sólo actualiza el botón de eliminar, sin volver a cargar la miniatura */
+    private static final Object PAYLOAD_DELETE_ENABLED = new Object();
 
     /**
-     * Lista de imágenes a mostrar.
+     * Compara fotos por su identificador estable.
      */
-    private final List<Bitmap> photos;
+    private static final DiffUtil.ItemCallback<CapturedPhoto> DIFF_CALLBACK = new DiffUtil.ItemCallback<CapturedPhoto>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CapturedPhoto oldItem, @NonNull CapturedPhoto newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CapturedPhoto oldItem, @NonNull CapturedPhoto newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
     /**
      * Listener para manejar la eliminación de una foto.
      */
     private final OnPhotoDeleteListener deleteListener;
+    private boolean deleteEnabled = true;
 
     /**
      * Interfaz para notificar la eliminación de una foto.
@@ -42,37 +65,75 @@ public class PhotosAdapter extends RecyclerView.Adapter<PhotosAdapter.PhotoViewH
     public interface OnPhotoDeleteListener {
         /**
          * Se llama cuando se solicita eliminar una foto.
-         * @param position posición de la foto en la lista
+         * @param photo foto a eliminar
          */
-        void onPhotoDelete(int position);
+        void onPhotoDelete(CapturedPhoto photo);
     }
 
     /**
      * Constructor del adaptador.
-     * @param photos lista de imágenes a mostrar
      * @param deleteListener listener para manejar la eliminación
      */
-    public PhotosAdapter(List<Bitmap> photos, OnPhotoDeleteListener deleteListener) {
-        this.photos = photos;
+    public PhotosAdapter(OnPhotoDeleteListener deleteListener) {
+        super(DIFF_CALLBACK);
         this.deleteListener = deleteListener;
+        setHasStableIds(true);
     }
 
     @NonNull
     @Override
     public PhotoViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_photo_thumbnail, parent, false);
-        return new PhotoViewHolder(view);
+        PhotoViewHolder holder = new PhotoViewHolder(view);
+        // La foto se resuelve al hacer clic para no usar una posición obsoleta
+        holder.deleteButton.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (deleteEnabled && position != RecyclerView.NO_POSITION) {
+                deleteListener.onPhotoDelete(getItem(position));
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Habilita o deshabilita los botones de eliminar de todas las fotos.
+     * @param enabled false mientras un guardado use los archivos de las fotos
+     */
+    public void setDeleteEnabled(boolean enabled) {
+        if (enabled == deleteEnabled) {
+            return;
+        }
+        deleteEnabled = enabled;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_DELETE_ENABLED);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull PhotoViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.deleteButton.setEnabled(deleteEnabled);
+        }
     }
 
     @Override
     public void onBindViewHolder(@NonNull PhotoViewHolder holder, int position) {
-        holder.imageView.setImageBitmap(photos.get(position));
-        holder.deleteButton.setOnClickListener(v -> deleteListener.onPhotoDelete(position));
+        CapturedPhoto photo = getItem(position);
+        holder.deleteButton.setEnabled(deleteEnabled);
+        int size = holder.imageView.getResources().getDimensionPixelSize(R.dimen.photo_thumbnail_size);
+        ThumbnailLoader.getInstance(holder.imageView.getContext()).load(photo.getFile(), holder.imageView, size);
+        holder.blurryIndicator.setVisibility(photo.isBlurry() ? View.VISIBLE : View.GONE);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull PhotoViewHolder holder) {
+        super.onViewRecycled(holder);
+        ThumbnailLoader.getInstance(holder.imageView.getContext()).clear(holder.imageView);
     }
 
     @Override
-    public int getItemCount() {
-        return photos.size();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     /**
@@ -83,6 +144,8 @@ public class PhotosAdapter extends RecyclerView.Adapter<PhotosAdapter.PhotoViewH
         ImageView imageView;
         /** Botón para eliminar la foto. */
         ImageButton deleteButton;
+        /** Aviso de foto borrosa. */
+        ImageView blurryIndicator;
 
         /**
          * Constructor del ViewHolder.
@@ -92,6 +155,7 @@ public class PhotosAdapter extends RecyclerView.Adapter<PhotosAdapter.PhotoViewH
             super(itemView);
             imageView = itemView.findViewById(R.id.thumbnailImageView);
             deleteButton = itemView.findViewById(R.id.deleteButton);
+            blurryIndicator = itemView.findViewById(R.id.blurryIndicator);
         }
     }
 }
@@ -0,0 +1,146 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+import com.grupomess.erp.metrics.AppMetrics;
+
+/**
+ * Reconocedor de texto de ML Kit compartido por el proceso: la pantalla de folio y la
+ * importación en lote usan el mismo modelo en memoria.
+ * <br>
+ * Cada usuario lo toma con {@link #acquire()} y lo suelta con {@link #release()}. El primero
+ * crea el cliente y lo precalienta con una imagen vacía para que el modelo ya esté cargado
+ * en el primer escaneo; el último lo cierra para liberar el modelo. Las latencias en frío y
+ * en caliente se acumulan en un {@link OcrLatencyTracker}.
+ * <br>
+ * Es un singleton a nivel de aplicación y seguro entre hilos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class SharedTextRecognizer {
+
+    private static final String TAG = "SharedTextRecognizer";
+
+    private static volatile SharedTextRecognizer instance;
+
+    private final AppMetrics metrics;
+    /** Latencias de escaneo en frío y en caliente de todo el proceso */
+    private final OcrLatencyTracker latency = new OcrLatencyTracker();
+
+    /** Cliente abierto mientras haya usuarios; null sin usuarios */
+    private TextRecognizer recognizer;
+    private int users;
+    /** Indica si el modelo del cliente actual ya quedó inicializado */
+    private volatile boolean warm;
+
+    private SharedTextRecognizer(Context context) {
+        metrics = AppMetrics.getInstance(context);
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return reconocedor compartido
+     */
+    public static SharedTextRecognizer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SharedTextRecognizer.class) {
+                if (instance == null) {
+                    instance = new SharedTextRecognizer(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Toma el reconocedor; el primer usuario lo crea y lo precalienta en segundo plano.
+     */
+    public synchronized void acquire() {
+        if (users++ == 0) {
+            recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+            warm = false;
+            warmUp(recognizer);
+        }
+    }
+
+    /**
+     * Suelta el reconocedor; el último usuario lo cierra.
+     * @throws IllegalStateException si no estaba tomado
+     */
+    public synchronized void release() {
+        if (users == 0) {
+            throw new IllegalStateException("El reconocedor de texto no estaba tomado");
+        }
+        if (--users == 0) {
+            recognizer.close();
+            recognizer = null;
+        }
+    }
+
+    /**
+     * Reconoce texto y registra su latencia. Hay que tenerlo tomado con {@link #acquire()}.
+     * @param image imagen a procesar
+     * @return tarea de ML Kit con el texto reconocido
+     * @throws IllegalStateException si nadie tiene tomado el reconocedor
+     */
+    public Task<Text> process(InputImage image) {
+        TextRecognizer current;
+        synchronized (this) {
+            if (recognizer == null) {
+                throw new IllegalStateException("El reconocedor de texto no está tomado");
+            }
+            current = recognizer;
+        }
+        boolean cold = !warm;
+        long start = SystemClock.elapsedRealtimeNanos();
+        return current.process(image)
+                .addOnCompleteListener(task -> {
+                    long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+                    latency.recordScan(cold, elapsed);
+                    metrics.ocrRecognize.record(elapsed);
+                    markWarm(current);
+                    Log.d(TAG, "Latencia OCR: " + latency);
+                });
+    }
+
+    /**
+     * @return latencias de OCR acumuladas en el proceso
+     */
+    public OcrLatencyTracker getLatency() {
+        return latency;
+    }
+
+    /**
+     * Procesa una imagen vacía para que ML Kit cargue el modelo antes del primer escaneo.
+     */
+    private void warmUp(TextRecognizer client) {
+        Bitmap blank = Bitmap.createBitmap(32, 32, Bitmap.Config.ARGB_8888);
+        long start = SystemClock.elapsedRealtimeNanos();
+        client.process(InputImage.fromBitmap(blank, 0))
+                .addOnCompleteListener(task -> {
+                    latency.recordWarmUp(SystemClock.elapsedRealtimeNanos() - start);
+                    markWarm(client);
+                    blank.recycle();
+                    Log.d(TAG, "OCR precalentado: " + latency);
+                });
+    }
+
+    /**
+     * Marca caliente el cliente si sigue siendo el actual; uno ya cerrado no cuenta.
+     */
+    private synchronized void markWarm(TextRecognizer client) {
+        if (client == recognizer) {
+            warm = true;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.grupomess.erp.ui.gallery;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.media.ExifInterface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import com.grupomess.erp.R;
+import com.grupomess.erp.cache.MemoryTrim;
+import com.grupomess.erp.cache.SpillDirectory;
+import com.grupomess.erp.metrics.AppMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Carga miniaturas de fotos en segundo plano para la tira horizontal de fotos.
+ * <br>
+ * - Decodifica fuera del hilo principal al tamaño de la vista usando {@code inSampleSize}.
+ * - Conserva en memoria un número configurable de miniaturas (LRU); el resto queda volcado
+ *   como WebP en la caché de la app y se relee de ahí sin decodificar la foto completa.
+ * - Ante {@code onTrimMemory} y {@code onLowMemory} reduce las miniaturas en memoria
+ *   según {@link MemoryTrim}.
+ * - Reutiliza con {@code inBitmap} los bitmaps que salen del caché y ya no se muestran. La
+ *   rotación por EXIF se dibuja en un bitmap mutable, y el decodificado sin rotar y el
+ *   reutilizable que no se usó vuelven al pool en el hilo principal.
+ * <br>
+ * Las miniaturas en memoria y en disco se publican en {@link AppMetrics} para ajustar el tope.
+ * Es un singleton a nivel de aplicación para que el caché sobreviva a la navegación.
+ * Todos los métodos públicos deben llamarse desde el hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+    /** Miniaturas en memoria por defecto; una de 80dp en xxhdpi ocupa ~115 KB en RGB_565 */
+    public static final int DEFAULT_MAX_RESIDENT = 24;
+    private static final String SPILL_DIR = "miniaturas";
+    private static final long MAX_SPILL_BYTES = 32L * 1024 * 1024;
+    private static final int SPILL_QUALITY = 80;
+    /** Número máximo de bitmaps guardados para reutilizar */
+    private static final int MAX_POOL_SIZE = 8;
+
+    private static ThumbnailLoader instance;
+
+    private final LruCache<String, Bitmap> cache;
+    private final SpillDirectory spill;
+    private final AppMetrics metrics;
+    private int maxResident = DEFAULT_MAX_RESIDENT;
+    /** Bitmaps libres para {@code inBitmap}; sólo se accede desde el hilo principal */
+    private final List<Bitmap> pool = new ArrayList<>();
+    /** Cuántas vistas muestran cada bitmap, para no reutilizar uno visible */
+    private final Map<Bitmap, Integer> displayed = new IdentityHashMap<>();
+    /** Bitmaps expulsados del caché que aún se muestran; pasan al pool al liberarse */
+    private final Map<Bitmap, Boolean> evictedWhileDisplayed = new IdentityHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ThumbnailLoader(Context context) {
+        spill = new SpillDirectory.Builder(new File(context.getCacheDir(), SPILL_DIR))
+                .setMaxBytes(MAX_SPILL_BYTES)
+                .build();
+        metrics = AppMetrics.getInstance(context);
+        // Sin sizeOf el tope cuenta miniaturas, no bytes
+        cache = new LruCache<String, Bitmap>(maxResident) {
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (displayed.containsKey(oldValue)) {
+                    evictedWhileDisplayed.put(oldValue, Boolean.TRUE);
+                } else {
+                    recycleToPool(oldValue);
+                }
+            }
+        };
+        // Los avisos de memoria llegan en el hilo principal
+        context.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(Integer.MAX_VALUE);
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+        });
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return instancia compartida; debe obtenerse desde el hilo principal
+     */
+    public static ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Cambia cuántas miniaturas decodificadas se conservan en memoria.
+     * @param maxResident tope de miniaturas; las que sobren se releen del volcado en disco
+     */
+    public void setMaxResident(int maxResident) {
+        if (maxResident < 1) {
+            throw new IllegalArgumentException("El tope de miniaturas debe ser al menos 1");
+        }
+        this.maxResident = maxResident;
+        cache.resize(maxResident);
+        publishCounts();
+    }
+
+    /** @return miniaturas decodificadas en memoria */
+    public int getResidentCount() {
+        return cache.size();
+    }
+
+    /** @return miniaturas volcadas en disco */
+    public int getSpilledCount() {
+        return spill.count();
+    }
+
+    /**
+     * Muestra la miniatura de una foto en la vista, desde caché o decodificándola en segundo plano.
+     * @param file archivo de la foto
+     * @param imageView vista destino
+     * @param size lado de la miniatura en píxeles
+     */
+    public void load(File file, ImageView imageView, int size) {
+        String key = keyFor(file, size);
+        Request previous = (Request) imageView.getTag(R.id.thumbnail_request);
+        if (previous != null && previous.key.equals(key)) {
+            // Ya se muestra o se está cargando esta misma miniatura
+            return;
+        }
+        clear(imageView);
+
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            show(imageView, new Request(key), cached);
+            return;
+        }
+
+        imageView.setImageDrawable(null);
+        Request request = new Request(key);
+        imageView.setTag(R.id.thumbnail_request, request);
+        Bitmap reusable = takeFromPool();
+        // Bitmaps que la carga ya no usa; se devuelven al pool en el hilo principal
+        List<Bitmap> spares = new ArrayList<>(2);
+        request.future = executor.submit(() -> {
+            Bitmap bitmap = load(key, file, size, reusable, spares);
+            mainHandler.post(() -> {
+                for (Bitmap spare : spares) {
+                    recycleToPool(spare);
+                }
+                if (bitmap == null) {
+                    return;
+                }
+                if (imageView.getTag(R.id.thumbnail_request) != request) {
+                    // La vista ya muestra otra foto; la miniatura queda en caché
+                    cache.put(key, bitmap);
+                    publishCounts();
+                    return;
+                }
+                request.future = null;
+                cache.put(key, bitmap);
+                publishCounts();
+                show(imageView, request, bitmap);
+            });
+        });
+    }
+
+    /**
+     * Libera la vista: cancela la carga pendiente y deja de contar su bitmap como visible.
+     * @param imageView vista a liberar
+     */
+    public void clear(ImageView imageView) {
+        Request request = (Request) imageView.getTag(R.id.thumbnail_request);
+        if (request == null) {
+            return;
+        }
+        imageView.setTag(R.id.thumbnail_request, null);
+        if (request.future != null) {
+            request.future.cancel(true);
+        }
+        if (request.bitmap != null) {
+            imageView.setImageDrawable(null);
+            release(request.bitmap);
+        }
+    }
+
+    /**
+     * Reduce las miniaturas en memoria según la presión; las expulsadas siguen en disco.
+     * @param level nivel de {@code onTrimMemory}, o {@link Integer#MAX_VALUE} para {@code onLowMemory}
+     */
+    public void trimMemory(int level) {
+        int limit = MemoryTrim.residentLimit(level, maxResident);
+        cache.trimToSize(limit);
+        if (limit == 0) {
+            pool.clear();
+        }
+        publishCounts();
+    }
+
+    private void publishCounts() {
+        metrics.thumbnailsResident.set(cache.size());
+        metrics.thumbnailsSpilled.set(spill.count());
+    }
+
+    private void show(ImageView imageView, Request request, Bitmap bitmap) {
+        request.bitmap = bitmap;
+        imageView.setTag(R.id.thumbnail_request, request);
+        Integer count = displayed.get(bitmap);
+        displayed.put(bitmap, count == null ? 1 : count + 1);
+        imageView.setImageBitmap(bitmap);
+    }
+
+    private void release(Bitmap bitmap) {
+        Integer count = displayed.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            displayed.put(bitmap, count - 1);
+            return;
+        }
+        displayed.remove(bitmap);
+        if (evictedWhileDisplayed.remove(bitmap) != null) {
+            recycleToPool(bitmap);
+        }
+    }
+
+    private void recycleToPool(Bitmap bitmap) {
+        if (bitmap.isMutable() && !bitmap.isRecycled() && pool.size() < MAX_POOL_SIZE) {
+            pool.add(bitmap);
+        }
+    }
+
+    private Bitmap takeFromPool() {
+        Iterator<Bitmap> iterator = pool.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Bitmap bitmap = iterator.next();
+        iterator.remove();
+        return bitmap;
+    }
+
+    /**
+     * Obtiene la miniatura del volcado en disco o, si no está, de la foto completa y la vuelca.
+     * Se ejecuta en el pool de decodificación.
+     * @param spares recibe los bitmaps que no forman parte del resultado, para el pool
+     */
+    private Bitmap load(String key, File file, int size, Bitmap reusable, List<Bitmap> spares) {
+        File spilled = spill.lookup(key);
+        if (spilled != null) {
+            Bitmap bitmap = decode(spilled, size, reusable);
+            if (bitmap != null) {
+                metrics.thumbnailsFromDisk.increment();
+                addIfUnused(reusable, bitmap, spares);
+                return bitmap;
+            }
+            // Volcado ilegible; se regenera desde la foto
+            spill.remove(key);
+        }
+
+        Bitmap decoded = decode(file, size, reusable);
+        addIfUnused(reusable, decoded, spares);
+        if (decoded == null) {
+            return null;
+        }
+        Bitmap bitmap = rotateFromExif(file, decoded);
+        if (bitmap != decoded) {
+            spares.add(decoded);
+        }
+        // Se vuelca antes de publicarla: después podría reutilizarse con inBitmap
+        Bitmap thumbnail = bitmap;
+        if (!spill.store(key, out -> {
+            if (!thumbnail.compress(Bitmap.CompressFormat.WEBP_LOSSY, SPILL_QUALITY, out)) {
+                throw new IOException("No se pudo comprimir la miniatura");
+            }
+        })) {
+            Log.w(TAG, "No se pudo volcar la miniatura de " + file.getName());
+        }
+        return bitmap;
+    }
+
+    private static void addIfUnused(Bitmap reusable, Bitmap result, List<Bitmap> spares) {
+        if (reusable != null && reusable != result) {
+            spares.add(reusable);
+        }
+    }
+
+    /**
+     * Decodifica la imagen reducida al tamaño de la vista, reutilizando un bitmap si es compatible.
+     */
+    private static Bitmap decode(File file, int size, Bitmap reusable) {
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = CaptureFiles.calculateInSampleSize(options.outWidth, options.outHeight, size, size);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        int targetBytes = (options.outWidth / options.inSampleSize) * (options.outHeight / options.inSampleSize) * 2;
+        if (reusable != null && reusable.getAllocationByteCount() >= targetBytes) {
+            options.inBitmap = reusable;
+        }
+
+        try {
+            return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        } catch (IllegalArgumentException e) {
+            // El bitmap reutilizable no fue compatible; se decodifica sin él
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        }
+    }
+
+    /**
+     * Gira la miniatura según EXIF en un bitmap nuevo y mutable, para que pueda volver al pool;
+     * {@code Bitmap.createBitmap} con una matriz devuelve uno inmutable.
+     * @return el mismo bitmap si no hay que girarlo
+     */
+    private static Bitmap rotateFromExif(File file, Bitmap bitmap) {
+        int degrees;
+        try {
+            int orientation = new ExifInterface(file.getAbsolutePath())
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            degrees = orientation == ExifInterface.ORIENTATION_ROTATE_90 ? 90
+                    : orientation == ExifInterface.ORIENTATION_ROTATE_180 ? 180
+                    : orientation == ExifInterface.ORIENTATION_ROTATE_270 ? 270 : 0;
+        } catch (IOException e) {
+            Log.w(TAG, "No se pudo leer EXIF de " + file.getName(), e);
+            return bitmap;
+        }
+        if (degrees == 0) {
+            return bitmap;
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int rotatedWidth = degrees == 180 ? width : height;
+        int rotatedHeight = degrees == 180 ? height : width;
+        Bitmap.Config config = bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.RGB_565;
+        Bitmap rotated = Bitmap.createBitmap(rotatedWidth, rotatedHeight, config);
+        Matrix matrix = new Matrix();
+        matrix.setRotate(degrees, width / 2f, height / 2f);
+        matrix.postTranslate((rotatedWidth - width) / 2f, (rotatedHeight - height) / 2f);
+        new Canvas(rotated).drawBitmap(bitmap, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+        return rotated;
+    }
+
+    private static String keyFor(File file, int size) {
+        return file.getAbsolutePath() + '#' + file.lastModified() + '@' + size;
+    }
+
+    /**
+     * Carga asociada a una vista; se guarda como tag para detectar vistas recicladas.
+     */
+    private static final class Request {
+        final String key;
+        volatile Future<?> future;
+        Bitmap bitmap;
+
+        Request(String key) {
+            this.key = key;
+        }
+    }
+}
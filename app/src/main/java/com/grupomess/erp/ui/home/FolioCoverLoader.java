@@ -0,0 +1,307 @@
+package com.grupomess.erp.ui.home;
+
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.Size;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import com.grupomess.erp.R;
+import com.grupomess.erp.cache.MemoryTrim;
+import com.grupomess.erp.crypto.PhotoVault;
+import com.grupomess.erp.data.SavedFolio;
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.ui.gallery.CaptureFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Carga las portadas (primera foto) de los folios del historial.
+ * <br>
+ * - Pide la miniatura a MediaStore con {@link ContentResolver#loadThumbnail}, que la sirve de
+ *   su propia caché sin decodificar la foto completa. Las fotos cifradas, que MediaStore no
+ *   puede leer, se descifran por flujo con {@link PhotoVault} y se muestrean al decodificar.
+ * - Conserva en memoria {@link #MAX_RESIDENT} portadas a tamaño completo, unas tres pantallas.
+ * - {@link #prefetch(List)} adelanta las portadas de la página siguiente a la mitad del lado
+ *   (una cuarta parte de la memoria) en su propio hilo; al llegar a ellas se muestran al
+ *   instante mientras se lee la de tamaño completo.
+ * - Ante {@code onTrimMemory} y {@code onLowMemory} reduce ambas cachés según {@link MemoryTrim}.
+ * <br>
+ * Es un singleton a nivel de aplicación. Todos los métodos públicos deben llamarse desde el
+ * hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class FolioCoverLoader {
+
+    private static final String TAG = "FolioCoverLoader";
+    /** Portadas a tamaño completo en memoria */
+    static final int MAX_RESIDENT = 36;
+    /** Portadas adelantadas en memoria: dos páginas del historial */
+    static final int MAX_PREFETCHED = 2 * HomeViewModel.PAGE_SIZE;
+    /** Divisor del lado de las portadas adelantadas */
+    private static final int PREFETCH_SCALE = 2;
+
+    private static FolioCoverLoader instance;
+
+    private final ContentResolver resolver;
+    private final PhotoVault vault;
+    private final AppMetrics metrics;
+    private final int size;
+    /** Llave: identificador del folio */
+    private final LruCache<Long, Bitmap> covers = new LruCache<>(MAX_RESIDENT);
+    private final LruCache<Long, Bitmap> prefetched = new LruCache<>(MAX_PREFETCHED);
+    /** Lecturas adelantadas en curso o en cola */
+    private final Map<Long, Future<?>> pendingPrefetch = new HashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    /** Un solo hilo: lo adelantado nunca compite con las portadas visibles por más de un núcleo */
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private FolioCoverLoader(Context context) {
+        resolver = context.getContentResolver();
+        vault = PhotoVault.getInstance(context);
+        metrics = AppMetrics.getInstance(context);
+        size = context.getResources().getDimensionPixelSize(R.dimen.folio_cover_size);
+        // Los avisos de memoria llegan en el hilo principal
+        context.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(Integer.MAX_VALUE);
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+        });
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return instancia compartida; debe obtenerse desde el hilo principal
+     */
+    public static FolioCoverLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new FolioCoverLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Muestra la portada del folio en la vista, desde memoria o leyéndola en segundo plano.
+     * @param folio folio del historial
+     * @param imageView vista destino
+     */
+    public void load(SavedFolio folio, ImageView imageView) {
+        Request previous = (Request) imageView.getTag(R.id.cover_request);
+        if (previous != null && previous.folioId == folio.getId()) {
+            return;
+        }
+        clear(imageView);
+        if (folio.getCoverUri() == null) {
+            imageView.setImageDrawable(null);
+            return;
+        }
+
+        Bitmap cached = covers.get(folio.getId());
+        if (cached != null) {
+            imageView.setTag(R.id.cover_request, new Request(folio.getId()));
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        Bitmap preview = prefetched.get(folio.getId());
+        if (preview != null) {
+            metrics.coverPrefetchHits.increment();
+            imageView.setImageBitmap(preview);
+        } else {
+            imageView.setImageDrawable(null);
+        }
+        Request request = new Request(folio.getId());
+        imageView.setTag(R.id.cover_request, request);
+        String uri = folio.getCoverUri();
+        request.future = executor.submit(() -> {
+            long start = SystemClock.elapsedRealtimeNanos();
+            Bitmap bitmap = decode(uri, size);
+            metrics.coverLoad.recordSince(start, SystemClock.elapsedRealtimeNanos());
+            mainHandler.post(() -> {
+                if (bitmap == null) {
+                    return;
+                }
+                covers.put(request.folioId, bitmap);
+                // La de tamaño completo reemplaza a la adelantada
+                prefetched.remove(request.folioId);
+                if (imageView.getTag(R.id.cover_request) == request) {
+                    request.future = null;
+                    imageView.setImageBitmap(bitmap);
+                }
+            });
+        });
+    }
+
+    /**
+     * Libera la vista y cancela su lectura pendiente.
+     * @param imageView vista a liberar
+     */
+    public void clear(ImageView imageView) {
+        Request request = (Request) imageView.getTag(R.id.cover_request);
+        if (request == null) {
+            return;
+        }
+        imageView.setTag(R.id.cover_request, null);
+        if (request.future != null) {
+            request.future.cancel(true);
+        }
+    }
+
+    /**
+     * Adelanta a resolución reducida las portadas de folios que aún no están en pantalla.
+     * Cancela las lecturas adelantadas pendientes de folios que ya no están en la lista.
+     * @param folios folios próximos a mostrarse, el más cercano primero
+     */
+    public void prefetch(List<SavedFolio> folios) {
+        Set<Long> wanted = new HashSet<>();
+        for (SavedFolio folio : folios) {
+            wanted.add(folio.getId());
+        }
+        for (Iterator<Map.Entry<Long, Future<?>>> it = pendingPrefetch.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Future<?>> entry = it.next();
+            if (!wanted.contains(entry.getKey())) {
+                entry.getValue().cancel(true);
+                it.remove();
+            }
+        }
+        for (SavedFolio folio : folios) {
+            long id = folio.getId();
+            if (folio.getCoverUri() == null || pendingPrefetch.containsKey(id)
+                    || covers.get(id) != null || prefetched.get(id) != null) {
+                continue;
+            }
+            String uri = folio.getCoverUri();
+            pendingPrefetch.put(id, prefetchExecutor.submit(() -> {
+                Bitmap bitmap = decode(uri, size / PREFETCH_SCALE);
+                mainHandler.post(() -> {
+                    pendingPrefetch.remove(id);
+                    if (bitmap != null && covers.get(id) == null) {
+                        prefetched.put(id, bitmap);
+                    }
+                });
+            }));
+        }
+    }
+
+    /**
+     * Reduce las portadas en memoria según la presión; se vuelven a leer de MediaStore.
+     * @param level nivel de {@code onTrimMemory}, o {@link Integer#MAX_VALUE} para {@code onLowMemory}
+     */
+    public void trimMemory(int level) {
+        covers.trimToSize(MemoryTrim.residentLimit(level, MAX_RESIDENT));
+        prefetched.trimToSize(MemoryTrim.residentLimit(level, MAX_PREFETCHED));
+    }
+
+    /**
+     * Se ejecuta en los hilos de lectura.
+     */
+    private Bitmap decode(String uri, int side) {
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        Uri photo = Uri.parse(uri);
+        try {
+            if (vault.isEncrypted(photo)) {
+                return decodeEncrypted(photo, side);
+            }
+            return resolver.loadThumbnail(photo, new Size(side, side), null);
+        } catch (IOException e) {
+            // La foto se borró de Descargas o no es legible; el folio queda sin portada
+            Log.w(TAG, "No se pudo leer la portada " + uri, e);
+            return null;
+        }
+    }
+
+    /**
+     * Decodifica una foto cifrada reducida al lado indicado y con la orientación de su EXIF.
+     * Cada pasada descifra desde el inicio con un solo segmento en memoria; ninguna tiene la
+     * foto completa, ni cifrada ni en claro.
+     */
+    private Bitmap decodeEncrypted(Uri photo, int side) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = vault.open(photo)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("No se pudo leer " + photo);
+        }
+        options.inSampleSize = CaptureFiles.calculateInSampleSize(options.outWidth, options.outHeight, side, side);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap;
+        try (InputStream in = vault.open(photo)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("No se pudo decodificar " + photo);
+        }
+        int orientation;
+        try (InputStream in = vault.open(photo)) {
+            orientation = new ExifInterface(in)
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        }
+        int degrees = orientation == ExifInterface.ORIENTATION_ROTATE_90 ? 90
+                : orientation == ExifInterface.ORIENTATION_ROTATE_180 ? 180
+                : orientation == ExifInterface.ORIENTATION_ROTATE_270 ? 270 : 0;
+        float scale = Math.min(1f, (float) side / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        if (degrees == 0 && scale == 1f) {
+            return bitmap;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(degrees);
+        Bitmap result = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (result != bitmap) {
+            bitmap.recycle();
+        }
+        return result;
+    }
+
+    /**
+     * Lectura asociada a una vista; se guarda como tag para detectar vistas recicladas.
+     */
+    private static final class Request {
+        final long folioId;
+        volatile Future<?> future;
+
+        Request(long folioId) {
+            this.folioId = folioId;
+        }
+    }
+}
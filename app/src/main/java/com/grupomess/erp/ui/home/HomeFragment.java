@@ -1,30 +1,139 @@
 package com.grupomess.erp.ui.home;
 
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.grupomess.erp.data.SavedFolio;
 import com.grupomess.erp.databinding.FragmentHomeBinding;
+import com.grupomess.erp.metrics.AppMetrics;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Historial de folios guardados en el dispositivo.
+ * Muestra el índice local por páginas, del más reciente al más antiguo, y permite buscar
+ * por prefijo del folio. La siguiente página se carga al acercarse al final de la lista y la
+ * anterior, si se descartó, al acercarse al inicio. Las portadas de la página que sigue en la
+ * dirección del desplazamiento se adelantan a resolución reducida con {@link FolioCoverLoader}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
 public class HomeFragment extends Fragment {
 
+    /** Elementos restantes antes del final para pedir la siguiente página */
+    private static final int PREFETCH_DISTANCE = 20;
+    /** Elementos desplazados antes de volver a calcular las portadas a adelantar */
+    private static final int COVER_PREFETCH_STEP = 10;
+
     private FragmentHomeBinding binding;
+    private HomeViewModel homeViewModel;
+    private FolioCoverLoader coverLoader;
+    /** Inicio de la apertura de la pantalla; 0 una vez mostrada la primera página */
+    private long openStart;
+    /** Posición desde la que se adelantaron portadas por última vez */
+    private int coverPrefetchAnchor = RecyclerView.NO_POSITION;
 
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
-        HomeViewModel homeViewModel =
-                new ViewModelProvider(this).get(HomeViewModel.class);
+        openStart = SystemClock.elapsedRealtimeNanos();
+        homeViewModel = new ViewModelProvider(this).get(HomeViewModel.class);
+        coverLoader = FolioCoverLoader.getInstance(requireContext());
 
         binding = FragmentHomeBinding.inflate(inflater, container, false);
+
+        SavedFoliosAdapter adapter = new SavedFoliosAdapter();
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.foliosRecyclerView.setLayoutManager(layoutManager);
+        binding.foliosRecyclerView.setAdapter(adapter);
+        binding.foliosRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    homeViewModel.loadNextPage();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    homeViewModel.loadPreviousPage();
+                }
+                // También se llama con dy = 0 tras acomodar una página nueva
+                prefetchCovers(layoutManager, adapter.getCurrentList(), dy < 0);
+            }
+        });
+
+        binding.searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                homeViewModel.setQuery(s.toString());
+            }
+        });
+
+        homeViewModel.getFolios().observe(getViewLifecycleOwner(), folios -> {
+            adapter.submitList(folios);
+            boolean empty = folios.isEmpty() && binding.searchEditText.getText().length() == 0;
+            binding.imageViewMessCube.setVisibility(empty ? View.VISIBLE : View.GONE);
+            coverPrefetchAnchor = RecyclerView.NO_POSITION;
+            if (openStart != 0 && (!folios.isEmpty() || !homeViewModel.hasNextPage())) {
+                AppMetrics.getInstance(requireContext()).historyOpen.recordSince(openStart,
+                        SystemClock.elapsedRealtimeNanos());
+                openStart = 0;
+            }
+        });
+
         return binding.getRoot();
+    }
 
+    /**
+     * Adelanta las portadas de la página que sigue a lo visible en la dirección del desplazamiento.
+     */
+    private void prefetchCovers(LinearLayoutManager layoutManager, List<SavedFolio> folios, boolean upward) {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int anchor = upward ? first : last;
+        if (coverPrefetchAnchor != RecyclerView.NO_POSITION
+                && Math.abs(anchor - coverPrefetchAnchor) < COVER_PREFETCH_STEP) {
+            return;
+        }
+        coverPrefetchAnchor = anchor;
+        List<SavedFolio> ahead;
+        if (upward) {
+            // El más cercano primero
+            ahead = new ArrayList<>(folios.subList(Math.max(0, first - HomeViewModel.PAGE_SIZE), first));
+            Collections.reverse(ahead);
+        } else {
+            ahead = folios.subList(Math.min(folios.size(), last + 1),
+                    Math.min(folios.size(), last + 1 + HomeViewModel.PAGE_SIZE));
+        }
+        coverLoader.prefetch(ahead);
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Incluye los folios guardados mientras se estaba en otra pantalla
+        homeViewModel.refreshIfChanged();
     }
 
     @Override
@@ -32,4 +141,4 @@ public class HomeFragment extends Fragment {
         super.onDestroyView();
         binding = null;
     }
-}
\ No newline at end of file
+}
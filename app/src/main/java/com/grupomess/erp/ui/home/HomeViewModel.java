@@ -1,19 +1,196 @@
 package com.grupomess.erp.ui.home;
 
+import android.app.Application;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
 
-public class HomeViewModel extends ViewModel {
+import com.grupomess.erp.data.FolioIndex;
+import com.grupomess.erp.data.PageWindow;
+import com.grupomess.erp.data.SavedFolio;
+import com.grupomess.erp.metrics.AppMetrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Estado del historial de folios guardados.
+ * Carga el índice local por páginas, en segundo plano, ya sea por fecha o por prefijo del folio.
+ * Conserva a lo más {@link #MAX_PAGES} páginas en una {@link PageWindow}: al avanzar se
+ * descartan las primeras y al regresar se vuelven a pedir, así que la memoria no crece con
+ * lo que se desplace el usuario.
+ * <br>
+ * Al regresar a la pantalla sólo se consulta si cambió la generación de {@link FolioIndex}; los
+ * folios guardados mientras tanto se agregan al inicio sin volver a cargar la ventana.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class HomeViewModel extends AndroidViewModel {
+
+    /** Folios por página */
+    static final int PAGE_SIZE = 50;
+    /** Páginas conservadas; unas diez pantallas */
+    static final int MAX_PAGES = 6;
+
+    private final FolioIndex index;
+    private final AppMetrics metrics;
+    private final PageWindow<SavedFolio> window = new PageWindow<>(PAGE_SIZE, MAX_PAGES);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final MutableLiveData<List<SavedFolio>> folios = new MutableLiveData<>(Collections.emptyList());
+    private final MutableLiveData<Boolean> loading = new MutableLiveData<>(false);
+
+    /** Prefijo de búsqueda; vacío para listar por fecha */
+    private String query = "";
+    /** Cambia con cada nueva búsqueda para descartar páginas de búsquedas anteriores */
+    private int generation;
+    /** Generación de {@link FolioIndex} reflejada en la ventana; -1 antes de la primera carga */
+    private long indexGeneration = -1;
 
-    private final MutableLiveData<String> mText;
+    public HomeViewModel(@NonNull Application application) {
+        super(application);
+        index = FolioIndex.getInstance(application);
+        metrics = AppMetrics.getInstance(application);
+    }
+
+    /**
+     * @return folios cargados hasta ahora
+     */
+    public LiveData<List<SavedFolio>> getFolios() {
+        return folios;
+    }
+
+    /**
+     * @return true mientras se carga una página
+     */
+    public LiveData<Boolean> isLoading() {
+        return loading;
+    }
+
+    /**
+     * Reinicia el listado con un nuevo prefijo de búsqueda.
+     * @param prefix prefijo del folio; vacío para listar por fecha
+     */
+    public void setQuery(String prefix) {
+        String normalized = prefix.trim();
+        if (normalized.equals(query) && indexGeneration >= 0) {
+            return;
+        }
+        query = normalized;
+        refresh();
+    }
+
+    /**
+     * Muestra los folios guardados desde la última carga, por ejemplo al regresar a la pantalla.
+     * No hace nada si el índice no cambió. En el listado por fecha con la ventana al inicio, los
+     * folios nuevos se agregan arriba; si el inicio se descartó, llegan al volver a subir. En una
+     * búsqueda pueden caer en cualquier lugar del orden alfabético y se vuelve a cargar.
+     */
+    public void refreshIfChanged() {
+        long current = index.getGeneration();
+        if (current == indexGeneration) {
+            return;
+        }
+        if (indexGeneration < 0 || !query.isEmpty() || window.first() == null) {
+            refresh();
+        } else if (window.hasBefore() || loadPage(true)) {
+            // Si hay otra carga en curso se reintenta al siguiente regreso
+            indexGeneration = current;
+        }
+    }
+
+    /**
+     * Vuelve a cargar desde la primera página.
+     */
+    public void refresh() {
+        generation++;
+        indexGeneration = index.getGeneration();
+        window.reset();
+        loading.setValue(false);
+        folios.setValue(Collections.emptyList());
+        loadNextPage();
+    }
+
+    /**
+     * @return true si puede haber folios después de los cargados
+     */
+    public boolean hasNextPage() {
+        return window.hasAfter();
+    }
+
+    /**
+     * Carga la siguiente página si no hay otra carga en curso.
+     */
+    public void loadNextPage() {
+        if (window.hasAfter()) {
+            loadPage(false);
+        }
+    }
+
+    /**
+     * Vuelve a cargar la página anterior a la ventana, si se descartó al avanzar.
+     */
+    public void loadPreviousPage() {
+        if (window.hasBefore()) {
+            loadPage(true);
+        }
+    }
+
+    /**
+     * @return false si ya había otra carga en curso
+     */
+    private boolean loadPage(boolean backwards) {
+        if (Boolean.TRUE.equals(loading.getValue())) {
+            return false;
+        }
+        loading.setValue(true);
+        SavedFolio anchor = backwards ? window.first() : window.last();
+        String prefix = query;
+        int requestGeneration = generation;
+
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtimeNanos();
+            List<SavedFolio> page;
+            if (backwards) {
+                page = prefix.isEmpty()
+                        ? index.loadRecentBefore(anchor, PAGE_SIZE)
+                        : index.searchByPrefixBefore(prefix, anchor, PAGE_SIZE);
+            } else {
+                page = prefix.isEmpty()
+                        ? index.loadRecent(anchor, PAGE_SIZE)
+                        : index.searchByPrefix(prefix, anchor, PAGE_SIZE);
+            }
+            metrics.historyPage.recordSince(start, SystemClock.elapsedRealtimeNanos());
+            onPageLoaded(requestGeneration, backwards, page);
+        });
+        return true;
+    }
 
-    public HomeViewModel() {
-        mText = new MutableLiveData<>();
-        mText.setValue("This is home fragment");
+    private void onPageLoaded(int requestGeneration, boolean backwards, List<SavedFolio> page) {
+        getApplication().getMainExecutor().execute(() -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            if (backwards) {
+                window.prepend(page);
+            } else {
+                window.append(page);
+            }
+            loading.setValue(false);
+            folios.setValue(window.getItems());
+            metrics.historyWindow.set(window.getItems().size());
+        });
     }
 
-    public LiveData<String> getText() {
-        return mText;
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        executor.shutdownNow();
     }
-}
\ No newline at end of file
+}
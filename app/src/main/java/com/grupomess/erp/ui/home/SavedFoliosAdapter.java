@@ -0,0 +1,90 @@
+package com.grupomess.erp.ui.home;
+
+import android.text.format.DateFormat;
+import android.text.format.Formatter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.grupomess.erp.R;
+import com.grupomess.erp.data.SavedFolio;
+
+/**
+ * Adaptador del historial de folios guardados.
+ * Las portadas se leen en segundo plano con {@link FolioCoverLoader}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class SavedFoliosAdapter extends ListAdapter<SavedFolio, SavedFoliosAdapter.FolioViewHolder> {
+
+    private static final DiffUtil.ItemCallback<SavedFolio> DIFF_CALLBACK = new DiffUtil.ItemCallback<SavedFolio>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull SavedFolio oldItem, @NonNull SavedFolio newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull SavedFolio oldItem, @NonNull SavedFolio newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    public SavedFoliosAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    @Override
+    public FolioViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_saved_folio, parent, false);
+        return new FolioViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull FolioViewHolder holder, int position) {
+        SavedFolio folio = getItem(position);
+        holder.folioTextView.setText(folio.getFolio());
+        holder.dateTextView.setText(DateFormat.format("dd/MM/yyyy HH:mm", folio.getSavedAt()));
+        holder.detailTextView.setText(holder.itemView.getContext().getString(R.string.folio_detalle,
+                folio.getPhotoCount(), Formatter.formatShortFileSize(holder.itemView.getContext(), folio.getTotalBytes())));
+        FolioCoverLoader.getInstance(holder.coverImageView.getContext()).load(folio, holder.coverImageView);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull FolioViewHolder holder) {
+        super.onViewRecycled(holder);
+        FolioCoverLoader.getInstance(holder.coverImageView.getContext()).clear(holder.coverImageView);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    /**
+     * ViewHolder de cada folio guardado.
+     */
+    static class FolioViewHolder extends RecyclerView.ViewHolder {
+        ImageView coverImageView;
+        TextView folioTextView;
+        TextView dateTextView;
+        TextView detailTextView;
+
+        FolioViewHolder(@NonNull View itemView) {
+            super(itemView);
+            coverImageView = itemView.findViewById(R.id.savedCoverImageView);
+            folioTextView = itemView.findViewById(R.id.savedFolioTextView);
+            dateTextView = itemView.findViewById(R.id.savedDateTextView);
+            detailTextView = itemView.findViewById(R.id.savedDetailTextView);
+        }
+    }
+}
@@ -1,33 +1,69 @@
 package com.grupomess.erp.ui.slideshow;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.grupomess.erp.R;
 import com.grupomess.erp.databinding.FragmentSlideshowBinding;
 
+/**
+ * Tablero de métricas de la app: tiempos de captura, OCR, compresión y guardado, memoria y
+ * contadores de calidad. Se actualiza cada segundo mientras está visible y muestra también
+ * el último resumen guardado por la sesión anterior.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
 public class SlideshowFragment extends Fragment {
 
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
     private FragmentSlideshowBinding binding;
+    private SlideshowViewModel slideshowViewModel;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refresher = new Runnable() {
+        @Override
+        public void run() {
+            slideshowViewModel.refresh();
+            handler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
 
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
-        SlideshowViewModel slideshowViewModel =
-                new ViewModelProvider(this).get(SlideshowViewModel.class);
+        slideshowViewModel = new ViewModelProvider(this).get(SlideshowViewModel.class);
 
         binding = FragmentSlideshowBinding.inflate(inflater, container, false);
+
+        slideshowViewModel.getLive().observe(getViewLifecycleOwner(), binding.liveMetricsTextView::setText);
+        slideshowViewModel.getPrevious().observe(getViewLifecycleOwner(), text ->
+                binding.previousMetricsTextView.setText(text.isEmpty() ? getString(R.string.sin_datos) : text));
         return binding.getRoot();
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        handler.post(refresher);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refresher);
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
         binding = null;
     }
-}
\ No newline at end of file
+}
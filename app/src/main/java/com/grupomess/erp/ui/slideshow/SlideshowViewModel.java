@@ -1,19 +1,76 @@
 package com.grupomess.erp.ui.slideshow;
 
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
 
-public class SlideshowViewModel extends ViewModel {
+import com.grupomess.erp.metrics.AppMetrics;
+import com.grupomess.erp.metrics.MetricSnapshot;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Estado del tablero de métricas: el resumen en vivo del proceso y el último resumen
+ * guardado por la sesión anterior.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class SlideshowViewModel extends AndroidViewModel {
+
+    private final AppMetrics metrics;
+    private final MutableLiveData<String> live = new MutableLiveData<>("");
+    private final MutableLiveData<String> previous = new MutableLiveData<>("");
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+
+    public SlideshowViewModel(@NonNull Application application) {
+        super(application);
+        metrics = AppMetrics.getInstance(application);
+        refresh();
+        loader.execute(() -> previous.postValue(format(metrics.loadPreviousSession())));
+    }
 
-    private final MutableLiveData<String> mText;
+    /**
+     * @return métricas del proceso actual, una por línea
+     */
+    public LiveData<String> getLive() {
+        return live;
+    }
+
+    /**
+     * @return métricas de la sesión anterior, una por línea; vacío si no hay
+     */
+    public LiveData<String> getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Vuelve a leer las métricas en vivo.
+     */
+    public void refresh() {
+        metrics.sampleHeap();
+        live.setValue(format(metrics.getRegistry().snapshot()));
+    }
 
-    public SlideshowViewModel() {
-        mText = new MutableLiveData<>();
-        mText.setValue("This is slideshow fragment");
+    private static String format(List<MetricSnapshot> snapshots) {
+        StringBuilder text = new StringBuilder();
+        for (MetricSnapshot snapshot : snapshots) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(snapshot.describe());
+        }
+        return text.toString();
     }
 
-    public LiveData<String> getText() {
-        return mText;
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        loader.shutdownNow();
     }
-}
\ No newline at end of file
+}
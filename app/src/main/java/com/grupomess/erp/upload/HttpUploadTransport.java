@@ -0,0 +1,171 @@
+package com.grupomess.erp.upload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de {@link UploadTransport} sobre {@link HttpURLConnection}.
+ * <br>
+ * Protocolo (texto plano UTF-8, una entrada por línea):
+ * - {@code POST base/batches}: cuerpo con el folio en la primera línea y luego
+ *   {@code nombre\ttamaño} por foto. Responde el id del lote y luego un id de subida por foto.
+ * - {@code HEAD base/uploads/{id}}: responde el encabezado {@code Upload-Offset}.
+ * - {@code PUT base/uploads/{id}} con {@code Content-Range: bytes a-b/total}: responde
+ *   {@code Upload-Offset} con los bytes recibidos.
+ * - {@code POST base/batches/{id}/commit}: confirma el lote.
+ * <br>
+ * Cualquier respuesta fuera de 2xx se reporta como {@link IOException} y el lote se reintenta.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class HttpUploadTransport implements UploadTransport {
+
+    static final String HEADER_OFFSET = "Upload-Offset";
+
+    private final String baseUrl;
+    private final String authToken;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * @param baseUrl url base del API de subidas, sin diagonal final
+     * @param authToken token de sesión para el encabezado Authorization, o null
+     */
+    public HttpUploadTransport(String baseUrl, String authToken) {
+        this(baseUrl, authToken, 15_000, 30_000);
+    }
+
+    public HttpUploadTransport(String baseUrl, String authToken, int connectTimeoutMs, int readTimeoutMs) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.authToken = authToken;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @Override
+    public BatchHandle beginBatch(String folio, List<UploadItem> items) throws IOException {
+        StringBuilder body = new StringBuilder(folio).append('\n');
+        for (UploadItem item : items) {
+            body.append(item.getName()).append('\t').append(item.getSizeBytes()).append('\n');
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = open("/batches", "POST");
+        try {
+            connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+            connection.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+            checkStatus(connection);
+            String[] lines = readBody(connection).split("\n");
+            List<String> remoteIds = new ArrayList<>(items.size());
+            for (int i = 1; i < lines.length; i++) {
+                if (!lines[i].trim().isEmpty()) {
+                    remoteIds.add(lines[i].trim());
+                }
+            }
+            return new BatchHandle(lines[0].trim(), remoteIds);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public long queryOffset(String remoteId) throws IOException {
+        HttpURLConnection connection = open("/uploads/" + encode(remoteId), "HEAD");
+        try {
+            checkStatus(connection);
+            return readOffset(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public long sendChunk(String remoteId, long offset, byte[] data, int length, long totalBytes)
+            throws IOException {
+        HttpURLConnection connection = open("/uploads/" + encode(remoteId), "PUT");
+        try {
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            connection.setRequestProperty("Content-Range",
+                    "bytes " + offset + "-" + (offset + length - 1) + "/" + totalBytes);
+            connection.setFixedLengthStreamingMode(length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(data, 0, length);
+            }
+            checkStatus(connection);
+            return readOffset(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void commitBatch(String batchId) throws IOException {
+        HttpURLConnection connection = open("/batches/" + encode(batchId) + "/commit", "POST");
+        try {
+            connection.setFixedLengthStreamingMode(0);
+            connection.getOutputStream().close();
+            checkStatus(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        connection.setUseCaches(false);
+        connection.setDoOutput(!"HEAD".equals(method));
+        if (authToken != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + authToken);
+        }
+        return connection;
+    }
+
+    private static void checkStatus(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status < 200 || status >= 300) {
+            throw new IOException("HTTP " + status + " en " + connection.getURL().getPath());
+        }
+    }
+
+    private static long readOffset(HttpURLConnection connection) throws IOException {
+        String value = connection.getHeaderField(HEADER_OFFSET);
+        if (value == null) {
+            throw new IOException("Falta el encabezado " + HEADER_OFFSET);
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Encabezado " + HEADER_OFFSET + " inválido: " + value, e);
+        }
+    }
+
+    private static String readBody(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,20 @@
+package com.grupomess.erp.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Abre el contenido de una foto en cola a partir de su Uri.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface PhotoSource {
+
+    /**
+     * @param uri Uri de la foto
+     * @return flujo con los bytes de la foto, desde el inicio
+     * @throws IOException si no se puede abrir
+     */
+    InputStream open(String uri) throws IOException;
+}
@@ -0,0 +1,212 @@
+package com.grupomess.erp.upload;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cola de subida persistente en SQLite.
+ * <br>
+ * Cada fila es una foto con su avance; una foto sale de la cola cuando su lote se confirma.
+ * Los lotes se arman al consultar: las fotos ya registradas viajan con su lote remoto y las
+ * demás se agrupan por folio en orden de llegada.
+ * <br>
+ * Los métodos hacen E/S de disco; deben llamarse fuera del hilo principal.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class SqliteUploadStore extends SQLiteOpenHelper implements UploadStore {
+
+    private static final String DATABASE_NAME = "subidas.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE_QUEUE = "upload_queue";
+
+    private static final String[] COLUMNS = {"_id", "folio", "name", "uri", "size_bytes", "batch_id",
+            "remote_id", "uploaded_bytes", "attempts"};
+
+    private static volatile SqliteUploadStore instance;
+
+    private SqliteUploadStore(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return cola compartida
+     */
+    public static SqliteUploadStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SqliteUploadStore.class) {
+                if (instance == null) {
+                    instance = new SqliteUploadStore(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_QUEUE + " ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "folio TEXT NOT NULL, "
+                + "name TEXT NOT NULL, "
+                + "uri TEXT NOT NULL, "
+                + "size_bytes INTEGER NOT NULL, "
+                + "batch_id TEXT, "
+                + "remote_id TEXT, "
+                + "uploaded_bytes INTEGER NOT NULL DEFAULT 0, "
+                + "attempts INTEGER NOT NULL DEFAULT 0, "
+                + "next_attempt_at INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_upload_due ON " + TABLE_QUEUE + " (next_attempt_at, _id)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Primera versión del esquema
+    }
+
+    /**
+     * Agrega a la cola las fotos de un folio guardado, en una sola transacción.
+     * @param folio nombre del folio
+     * @param names nombre de archivo de cada foto
+     * @param uris Uri de cada foto
+     * @param sizes tamaño en bytes de cada foto
+     */
+    public void enqueue(String folio, List<String> names, List<String> uris, List<Long> sizes) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_QUEUE
+                    + " (folio, name, uri, size_bytes) VALUES (?, ?, ?, ?)");
+            for (int i = 0; i < uris.size(); i++) {
+                insert.clearBindings();
+                insert.bindString(1, folio);
+                insert.bindString(2, names.get(i));
+                insert.bindString(3, uris.get(i));
+                insert.bindLong(4, sizes.get(i));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return fotos pendientes en la cola
+     */
+    public long pendingCount() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_QUEUE, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    @Override
+    public List<List<UploadItem>> dueBatches(int maxPerBatch, int maxBatches, long now) {
+        // Llave: lote remoto para las fotos registradas, folio para las demás
+        Map<String, List<UploadItem>> open = new LinkedHashMap<>();
+        List<List<UploadItem>> batches = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_QUEUE, COLUMNS, "next_attempt_at <= ?",
+                new String[]{String.valueOf(now)}, null, null, "_id ASC")) {
+            while (cursor.moveToNext()) {
+                UploadItem item = new UploadItem(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), cursor.getLong(4), cursor.getString(5), cursor.getString(6),
+                        cursor.getLong(7), cursor.getInt(8));
+                String key = item.getBatchId() != null ? "b:" + item.getBatchId() : "f:" + item.getFolio();
+                List<UploadItem> batch = open.get(key);
+                // Un lote registrado no se parte; uno nuevo se cierra al llegar al máximo
+                if (batch == null || (item.getBatchId() == null && batch.size() >= maxPerBatch)) {
+                    if (batches.size() >= maxBatches) {
+                        continue;
+                    }
+                    batch = new ArrayList<>();
+                    open.put(key, batch);
+                    batches.add(batch);
+                }
+                batch.add(item);
+            }
+        }
+        return batches;
+    }
+
+    @Override
+    public void assignBatch(String batchId, Map<Long, String> remoteIds) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_QUEUE
+                    + " SET batch_id = ?, remote_id = ?, uploaded_bytes = 0 WHERE _id = ?");
+            for (Map.Entry<Long, String> entry : remoteIds.entrySet()) {
+                update.clearBindings();
+                update.bindString(1, batchId);
+                update.bindString(2, entry.getValue());
+                update.bindLong(3, entry.getKey());
+                update.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void updateProgress(long itemId, long uploadedBytes) {
+        ContentValues values = new ContentValues();
+        values.put("uploaded_bytes", uploadedBytes);
+        getWritableDatabase().update(TABLE_QUEUE, values, "_id = ?", new String[]{String.valueOf(itemId)});
+    }
+
+    @Override
+    public void markDone(List<UploadItem> items) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_QUEUE + " WHERE _id = ?");
+            for (UploadItem item : items) {
+                delete.bindLong(1, item.getId());
+                delete.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void markRetry(List<UploadItem> items, long nextAttemptAt) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_QUEUE
+                    + " SET attempts = attempts + 1, next_attempt_at = ? WHERE _id = ?");
+            for (UploadItem item : items) {
+                update.bindLong(1, nextAttemptAt);
+                update.bindLong(2, item.getId());
+                update.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public long nextAttemptAt() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT MIN(next_attempt_at) FROM " + TABLE_QUEUE,
+                null)) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : -1;
+        }
+    }
+}
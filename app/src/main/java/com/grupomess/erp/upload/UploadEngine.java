@@ -0,0 +1,313 @@
+package com.grupomess.erp.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Vacía la cola de subida contra el ERP. No depende de Android para poder probarse en la JVM.
+ * <br>
+ * Flujo de un lote:
+ * 1. Si el lote aún no está registrado, {@link UploadTransport#beginBatch} registra todas sus
+ *    fotos en una sola petición y los identificadores se guardan en la cola.
+ * 2. Cada foto se sube en fragmentos de {@link Builder#setChunkSize(int)} bytes. Si ya tenía
+ *    avance, se pregunta al servidor su posición y se continúa desde ahí.
+ * 3. Con todas las fotos arriba se confirma el lote y sale de la cola.
+ * <br>
+ * Si un lote falla se reintenta con espera exponencial con variación aleatoria. Los lotes se
+ * procesan en paralelo con un número de hilos acotado.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class UploadEngine {
+
+    private final UploadStore store;
+    private final UploadTransport transport;
+    private final PhotoSource source;
+    private final UploadStats stats;
+    private final int maxPhotosPerBatch;
+    private final int maxConcurrentBatches;
+    private final int chunkSize;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final Clock clock;
+
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    private UploadEngine(Builder builder) {
+        store = builder.store;
+        transport = builder.transport;
+        source = builder.source;
+        stats = builder.stats != null ? builder.stats : new UploadStats();
+        maxPhotosPerBatch = builder.maxPhotosPerBatch;
+        maxConcurrentBatches = builder.maxConcurrentBatches;
+        chunkSize = builder.chunkSize;
+        baseBackoffMs = builder.baseBackoffMs;
+        maxBackoffMs = builder.maxBackoffMs;
+        clock = builder.clock;
+    }
+
+    /**
+     * @return contadores de esta instancia
+     */
+    public UploadStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Pide detener la pasada en curso; los fragmentos ya enviados se conservan para reanudar.
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * Sube todos los lotes vencidos de la cola hasta vaciarla o hasta que sólo queden lotes
+     * esperando su siguiente intento. Bloquea el hilo que lo llama.
+     * @return true si la cola quedó vacía
+     */
+    public boolean drain() {
+        ExecutorService pool = Executors.newFixedThreadPool(maxConcurrentBatches);
+        try {
+            while (!stopped.get()) {
+                List<List<UploadItem>> batches = store.dueBatches(maxPhotosPerBatch, maxConcurrentBatches,
+                        clock.now());
+                if (batches.isEmpty()) {
+                    break;
+                }
+                List<Future<?>> futures = new ArrayList<>(batches.size());
+                for (List<UploadItem> batch : batches) {
+                    futures.add(pool.submit(() -> uploadBatch(batch)));
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        // uploadBatch ya registró el fallo y programó el reintento
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped.set(true);
+        } finally {
+            pool.shutdownNow();
+        }
+        return store.nextAttemptAt() < 0;
+    }
+
+    private void uploadBatch(List<UploadItem> batch) {
+        long start = System.nanoTime();
+        try {
+            // Un lote ya registrado viene de una pasada interrumpida y se reanuda
+            boolean resumed = batch.get(0).getBatchId() != null;
+            List<UploadItem> registered = register(batch);
+            for (UploadItem item : registered) {
+                if (stopped.get()) {
+                    return;
+                }
+                uploadItem(item, resumed);
+            }
+            transport.commitBatch(registered.get(0).getBatchId());
+            store.markDone(registered);
+            stats.recordBatchCommitted(registered.size(), System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            stats.recordBatchFailed();
+            int attempts = 0;
+            for (UploadItem item : batch) {
+                attempts = Math.max(attempts, item.getAttempts());
+            }
+            store.markRetry(batch, clock.now() + backoffMs(attempts));
+        }
+    }
+
+    /**
+     * Registra el lote en el servidor si aún no lo está.
+     * @return fotos del lote con sus identificadores remotos
+     */
+    private List<UploadItem> register(List<UploadItem> batch) throws IOException {
+        if (batch.get(0).getBatchId() != null) {
+            return batch;
+        }
+        UploadTransport.BatchHandle handle = transport.beginBatch(batch.get(0).getFolio(), batch);
+        if (handle.remoteIds.size() != batch.size()) {
+            throw new IOException("El servidor devolvió " + handle.remoteIds.size()
+                    + " subidas para " + batch.size() + " fotos");
+        }
+        Map<Long, String> remoteIds = new HashMap<>();
+        List<UploadItem> registered = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            UploadItem item = batch.get(i);
+            String remoteId = handle.remoteIds.get(i);
+            remoteIds.put(item.getId(), remoteId);
+            registered.add(new UploadItem(item.getId(), item.getFolio(), item.getName(), item.getUri(),
+                    item.getSizeBytes(), handle.batchId, remoteId, 0, item.getAttempts()));
+        }
+        store.assignBatch(handle.batchId, remoteIds);
+        return registered;
+    }
+
+    private void uploadItem(UploadItem item, boolean resumed) throws IOException {
+        long total = item.getSizeBytes();
+        long offset = 0;
+        if (resumed) {
+            // El servidor es la fuente de verdad: pudo recibir más de lo registrado en la cola
+            offset = transport.queryOffset(item.getRemoteId());
+        }
+        if (offset >= total) {
+            return;
+        }
+        byte[] buffer = new byte[(int) Math.min(chunkSize, total)];
+        try (InputStream in = source.open(item.getUri())) {
+            skipFully(in, offset);
+            while (offset < total) {
+                if (stopped.get()) {
+                    throw new IOException("Subida detenida");
+                }
+                int length = readChunk(in, buffer, (int) Math.min(buffer.length, total - offset));
+                if (length <= 0) {
+                    throw new IOException("La foto terminó antes de lo esperado: " + item.getName());
+                }
+                long chunkStart = System.nanoTime();
+                long confirmed = transport.sendChunk(item.getRemoteId(), offset, buffer, length, total);
+                stats.recordChunk(length, System.nanoTime() - chunkStart);
+                if (confirmed != offset + length) {
+                    throw new IOException("Posición inesperada del servidor: " + confirmed);
+                }
+                offset = confirmed;
+                store.updateProgress(item.getId(), offset);
+            }
+        }
+    }
+
+    /**
+     * Espera antes del siguiente intento: base * 2^intentos, acotada y con variación de
+     * ±25 % para que varios dispositivos no reintenten a la vez.
+     * @param attempts intentos fallidos previos
+     * @return espera en milisegundos
+     */
+    long backoffMs(int attempts) {
+        long delay = baseBackoffMs << Math.min(attempts, 20);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        long jitter = delay / 4;
+        return delay - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1);
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("No se pudo avanzar a la posición de reanudación");
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static int readChunk(InputStream in, byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, read, length - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    /**
+     * Fuente de la hora actual, sustituible en pruebas.
+     */
+    public interface Clock {
+        long now();
+    }
+
+    /**
+     * Constructor de {@link UploadEngine}.
+     */
+    public static final class Builder {
+        private final UploadStore store;
+        private final UploadTransport transport;
+        private final PhotoSource source;
+        private UploadStats stats;
+        private int maxPhotosPerBatch = 10;
+        private int maxConcurrentBatches = 2;
+        private int chunkSize = 256 * 1024;
+        private long baseBackoffMs = 30_000;
+        private long maxBackoffMs = 6 * 60 * 60 * 1000L;
+        private Clock clock = System::currentTimeMillis;
+
+        public Builder(UploadStore store, UploadTransport transport, PhotoSource source) {
+            this.store = store;
+            this.transport = transport;
+            this.source = source;
+        }
+
+        /** Contadores compartidos entre pasadas; por defecto, unos nuevos */
+        public Builder setStats(UploadStats stats) {
+            this.stats = stats;
+            return this;
+        }
+
+        /** Fotos registradas por petición; por defecto 10 */
+        public Builder setMaxPhotosPerBatch(int maxPhotosPerBatch) {
+            if (maxPhotosPerBatch < 1) {
+                throw new IllegalArgumentException("maxPhotosPerBatch debe ser positivo");
+            }
+            this.maxPhotosPerBatch = maxPhotosPerBatch;
+            return this;
+        }
+
+        /** Lotes subiendo a la vez; por defecto 2 */
+        public Builder setMaxConcurrentBatches(int maxConcurrentBatches) {
+            if (maxConcurrentBatches < 1) {
+                throw new IllegalArgumentException("maxConcurrentBatches debe ser positivo");
+            }
+            this.maxConcurrentBatches = maxConcurrentBatches;
+            return this;
+        }
+
+        /** Tamaño de fragmento en bytes; por defecto 256 KB */
+        public Builder setChunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize debe ser positivo");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /** Espera del primer reintento y espera máxima; por defecto 30 s y 6 h */
+        public Builder setBackoff(long baseMs, long maxMs) {
+            if (baseMs < 1 || maxMs < baseMs) {
+                throw new IllegalArgumentException("Espera inválida");
+            }
+            this.baseBackoffMs = baseMs;
+            this.maxBackoffMs = maxMs;
+            return this;
+        }
+
+        public Builder setClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public UploadEngine build() {
+            return new UploadEngine(this);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.grupomess.erp.upload;
+
+/**
+ * Foto en la cola de subida, con el avance necesario para reanudarla.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class UploadItem {
+
+    private final long id;
+    private final String folio;
+    private final String name;
+    private final String uri;
+    private final long sizeBytes;
+    private final String batchId;
+    private final String remoteId;
+    private final long uploadedBytes;
+    private final int attempts;
+
+    /**
+     * @param id identificador local en la cola
+     * @param folio folio al que pertenece la foto
+     * @param name nombre del archivo
+     * @param uri Uri de la foto guardada
+     * @param sizeBytes tamaño total en bytes
+     * @param batchId lote remoto asignado, o null si aún no se registra
+     * @param remoteId identificador remoto de la subida, o null si aún no se registra
+     * @param uploadedBytes bytes confirmados por el servidor
+     * @param attempts intentos fallidos hasta ahora
+     */
+    public UploadItem(long id, String folio, String name, String uri, long sizeBytes,
+                      String batchId, String remoteId, long uploadedBytes, int attempts) {
+        this.id = id;
+        this.folio = folio;
+        this.name = name;
+        this.uri = uri;
+        this.sizeBytes = sizeBytes;
+        this.batchId = batchId;
+        this.remoteId = remoteId;
+        this.uploadedBytes = uploadedBytes;
+        this.attempts = attempts;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFolio() {
+        return folio;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public String getRemoteId() {
+        return remoteId;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,55 @@
+package com.grupomess.erp.upload;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.util.Log;
+
+/**
+ * Trabajo del sistema que vacía la cola de subida cuando se cumplen sus restricciones
+ * de red y batería. Si el sistema lo detiene, el avance ya confirmado se conserva y
+ * la siguiente pasada reanuda desde ahí. La siguiente pasada se programa hasta después de
+ * {@code jobFinished}, porque programar el mismo trabajo mientras corre lo detiene.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public class UploadJobService extends JobService {
+
+    private static final String TAG = "UploadJobService";
+
+    private volatile UploadEngine engine;
+    private Thread worker;
+    /** El sistema detuvo la pasada en curso */
+    private volatile boolean stoppedBySystem;
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        UploadQueue queue = UploadQueue.getInstance(this);
+        queue.onPassStarted();
+        stoppedBySystem = false;
+        UploadEngine current = queue.createEngine();
+        engine = current;
+        worker = new Thread(() -> {
+            boolean empty = current.drain();
+            Log.d(TAG, "Pasada de subida terminada: " + current.getStats());
+            boolean stopped = stoppedBySystem;
+            if (!stopped) {
+                jobFinished(params, false);
+            }
+            queue.onPassFinished(empty, stopped);
+        }, "subida-folios");
+        worker.start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stoppedBySystem = true;
+        UploadEngine current = engine;
+        if (current != null) {
+            current.stop();
+        }
+        // El sistema vuelve a programar el trabajo cuando se cumplan las restricciones
+        return true;
+    }
+}
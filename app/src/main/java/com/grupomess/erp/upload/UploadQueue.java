@@ -0,0 +1,201 @@
+package com.grupomess.erp.upload;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.grupomess.erp.R;
+import com.grupomess.erp.crypto.PhotoVault;
+import com.grupomess.erp.crypto.StreamingAead;
+import com.grupomess.erp.data.SavedPhoto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Punto de entrada de la subida de folios al ERP.
+ * <br>
+ * El guardado entrega aquí cada folio terminado; las fotos quedan en la cola persistente
+ * ({@link SqliteUploadStore}) y un {@link UploadJobService} las sube cuando hay red y la
+ * batería no está baja. Si un lote falla, el trabajo se vuelve a programar para la hora
+ * de su siguiente intento. Mientras hay una pasada en curso, los folios nuevos no vuelven a
+ * programar el trabajo (eso lo detendría a media pasada): la pasada los toma y, si llegaron
+ * al final, se programa otra al terminar. Las fotos cifradas se descifran al leerlas con
+ * {@link PhotoVault}; el ERP recibe siempre la foto en claro.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class UploadQueue {
+
+    private static final String TAG = "UploadQueue";
+
+    static final int JOB_ID = 1001;
+
+    private static volatile UploadQueue instance;
+
+    private final Context appContext;
+    private final SqliteUploadStore store;
+    /** Contadores acumulados de todas las pasadas del proceso */
+    private final UploadStats stats = new UploadStats();
+
+    private final Object passLock = new Object();
+    /** Hay una pasada de {@link UploadJobService} en curso */
+    private boolean passRunning;
+    /** Llegaron folios durante la pasada en curso */
+    private boolean morePending;
+
+    private UploadQueue(Context context) {
+        appContext = context.getApplicationContext();
+        store = SqliteUploadStore.getInstance(appContext);
+    }
+
+    /**
+     * @param context cualquier contexto; se conserva el de la aplicación
+     * @return cola compartida
+     */
+    public static UploadQueue getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UploadQueue.class) {
+                if (instance == null) {
+                    instance = new UploadQueue(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Agrega un folio guardado a la cola y programa su subida. Hace E/S de disco.
+     * Las fotos cifradas se encolan con su nombre y tamaño en claro.
+     * @param folio nombre del folio
+     * @param photos fotos guardadas, en orden
+     * @throws IllegalStateException si hay fotos cifradas y la llave no está disponible
+     */
+    public void enqueue(String folio, List<SavedPhoto> photos) {
+        List<String> names = new ArrayList<>(photos.size());
+        List<String> uris = new ArrayList<>(photos.size());
+        List<Long> sizes = new ArrayList<>(photos.size());
+        for (int i = 0; i < photos.size(); i++) {
+            String name = photos.get(i).getFileName();
+            long size = photos.get(i).getSizeBytes();
+            if (name != null && PhotoVault.isEncryptedName(name)) {
+                name = PhotoVault.plainName(name);
+                size = aead().plaintextSize(size);
+            }
+            names.add(name != null ? name : folio + "_foto_" + (i + 1) + ".jpg");
+            uris.add(photos.get(i).getUri());
+            sizes.add(size);
+        }
+        store.enqueue(folio, names, uris, sizes);
+        requestPass();
+    }
+
+    /**
+     * @return contadores de subida del proceso
+     */
+    public UploadStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Pide una pasada de subida; si ya hay una en curso, sólo anota que hay más trabajo.
+     */
+    private void requestPass() {
+        synchronized (passLock) {
+            if (passRunning) {
+                morePending = true;
+            } else {
+                schedule(0);
+            }
+        }
+    }
+
+    /**
+     * Marca el inicio de una pasada; llamado por {@link UploadJobService} al empezar.
+     */
+    void onPassStarted() {
+        synchronized (passLock) {
+            passRunning = true;
+            morePending = false;
+        }
+    }
+
+    /**
+     * Marca el fin de una pasada y programa la siguiente si hace falta. Se llama después de
+     * {@code jobFinished}: programar el mismo trabajo mientras corre lo detiene.
+     * @param empty true si la cola quedó vacía
+     * @param stopped true si el sistema detuvo la pasada; él mismo la vuelve a programar
+     */
+    void onPassFinished(boolean empty, boolean stopped) {
+        synchronized (passLock) {
+            passRunning = false;
+            if (stopped) {
+                morePending = false;
+            } else if (morePending) {
+                morePending = false;
+                schedule(0);
+            } else if (!empty) {
+                scheduleNextAttempt();
+            }
+        }
+    }
+
+    /**
+     * Programa una pasada de subida.
+     * @param delayMs espera mínima antes de la pasada
+     */
+    void schedule(long delayMs) {
+        if (getBaseUrl().isEmpty()) {
+            Log.w(TAG, "Sin servidor de subida configurado; las fotos quedan en la cola");
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(appContext, UploadJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setRequiresBatteryNotLow(true)
+                .setMinimumLatency(Math.max(0, delayMs))
+                .setPersisted(true)
+                .build();
+        JobScheduler scheduler = appContext.getSystemService(JobScheduler.class);
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) {
+            Log.e(TAG, "No se pudo programar la subida");
+        }
+    }
+
+    /**
+     * Programa la siguiente pasada para el próximo reintento pendiente, si lo hay.
+     */
+    private void scheduleNextAttempt() {
+        long next = store.nextAttemptAt();
+        if (next >= 0) {
+            schedule(next - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return motor de subida contra el servidor configurado
+     */
+    UploadEngine createEngine() {
+        PhotoVault vault = PhotoVault.getInstance(appContext);
+        PhotoSource source = uri -> vault.open(Uri.parse(uri));
+        return new UploadEngine.Builder(store, new HttpUploadTransport(getBaseUrl(), null), source)
+                .setStats(stats)
+                .build();
+    }
+
+    private StreamingAead aead() {
+        try {
+            return PhotoVault.getInstance(appContext).getAead();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo obtener la llave de las fotos cifradas", e);
+        }
+    }
+
+    private String getBaseUrl() {
+        return appContext.getString(R.string.upload_base_url).trim();
+    }
+}
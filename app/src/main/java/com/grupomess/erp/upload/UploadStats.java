@@ -0,0 +1,92 @@
+package com.grupomess.erp.upload;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de la cola de subida: volumen, rendimiento y latencia por lote.
+ * Son seguros entre hilos y no reservan memoria al registrar.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public final class UploadStats {
+
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong chunksSent = new AtomicLong();
+    private final AtomicLong photosUploaded = new AtomicLong();
+    private final AtomicLong batchesCommitted = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+    /** Tiempo acumulado transfiriendo, para calcular el rendimiento */
+    private final AtomicLong transferNanos = new AtomicLong();
+    private final AtomicLong batchLatencyNanos = new AtomicLong();
+    private final AtomicLong maxBatchLatencyNanos = new AtomicLong();
+
+    void recordChunk(int bytes, long nanos) {
+        bytesSent.addAndGet(bytes);
+        chunksSent.incrementAndGet();
+        transferNanos.addAndGet(nanos);
+    }
+
+    void recordBatchCommitted(int photos, long nanos) {
+        photosUploaded.addAndGet(photos);
+        batchesCommitted.incrementAndGet();
+        batchLatencyNanos.addAndGet(nanos);
+        maxBatchLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void recordBatchFailed() {
+        batchesFailed.incrementAndGet();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getChunksSent() {
+        return chunksSent.get();
+    }
+
+    public long getPhotosUploaded() {
+        return photosUploaded.get();
+    }
+
+    public long getBatchesCommitted() {
+        return batchesCommitted.get();
+    }
+
+    public long getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    /**
+     * @return bytes por segundo mientras se transfería, o 0 sin datos
+     */
+    public double getThroughputBytesPerSecond() {
+        long nanos = transferNanos.get();
+        return nanos == 0 ? 0 : bytesSent.get() * 1_000_000_000d / nanos;
+    }
+
+    /**
+     * @return latencia promedio de un lote completo en milisegundos, o 0 sin datos
+     */
+    public double getAverageBatchLatencyMs() {
+        long batches = batchesCommitted.get();
+        return batches == 0 ? 0 : batchLatencyNanos.get() / 1_000_000d / batches;
+    }
+
+    /**
+     * @return latencia máxima de un lote en milisegundos
+     */
+    public double getMaxBatchLatencyMs() {
+        return maxBatchLatencyNanos.get() / 1_000_000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "lotes=%d fallidos=%d fotos=%d bytes=%d rendimiento=%.1fKB/s latencia=%.1fms máx=%.1fms",
+                getBatchesCommitted(), getBatchesFailed(), getPhotosUploaded(), getBytesSent(),
+                getThroughputBytesPerSecond() / 1024, getAverageBatchLatencyMs(), getMaxBatchLatencyMs());
+    }
+}
@@ -0,0 +1,56 @@
+package com.grupomess.erp.upload;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistencia de la cola de subida. Debe sobrevivir a reinicios del proceso para que
+ * las subidas se reanuden donde quedaron.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface UploadStore {
+
+    /**
+     * Lotes listos para subir: fotos pendientes de un mismo folio cuyo siguiente intento ya venció.
+     * Las fotos que ya tienen lote remoto se devuelven juntas con ese lote.
+     * @param maxPerBatch fotos máximas por lote
+     * @param maxBatches lotes máximos a devolver
+     * @param now hora actual en milisegundos
+     * @return lotes en orden de llegada
+     */
+    List<List<UploadItem>> dueBatches(int maxPerBatch, int maxBatches, long now);
+
+    /**
+     * Guarda el lote remoto y los identificadores de subida asignados por el servidor.
+     * @param batchId lote remoto
+     * @param remoteIds identificador remoto por id local de foto
+     */
+    void assignBatch(String batchId, Map<Long, String> remoteIds);
+
+    /**
+     * Guarda el avance confirmado de una foto.
+     * @param itemId id local de la foto
+     * @param uploadedBytes bytes confirmados
+     */
+    void updateProgress(long itemId, long uploadedBytes);
+
+    /**
+     * Quita de la cola las fotos de un lote confirmado.
+     * @param items fotos subidas
+     */
+    void markDone(List<UploadItem> items);
+
+    /**
+     * Programa un nuevo intento para las fotos de un lote que falló.
+     * @param items fotos del lote
+     * @param nextAttemptAt hora del siguiente intento en milisegundos
+     */
+    void markRetry(List<UploadItem> items, long nextAttemptAt);
+
+    /**
+     * @return hora del siguiente intento más próximo, o -1 si la cola está vacía
+     */
+    long nextAttemptAt();
+}
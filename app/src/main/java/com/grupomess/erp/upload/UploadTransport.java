@@ -0,0 +1,62 @@
+package com.grupomess.erp.upload;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Capa de red de la cola de subida. Se puede sustituir para probar contra un servidor local.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+public interface UploadTransport {
+
+    /**
+     * Registra un lote de fotos de un folio en una sola petición.
+     * @param folio folio del lote
+     * @param items fotos del lote
+     * @return lote remoto con un identificador de subida por foto, en el mismo orden
+     * @throws IOException si falla la red o el servidor
+     */
+    BatchHandle beginBatch(String folio, List<UploadItem> items) throws IOException;
+
+    /**
+     * Consulta cuántos bytes de una subida ya tiene el servidor, para reanudarla.
+     * @param remoteId identificador remoto de la subida
+     * @return bytes confirmados
+     * @throws IOException si falla la red o el servidor
+     */
+    long queryOffset(String remoteId) throws IOException;
+
+    /**
+     * Envía un fragmento de una foto.
+     * @param remoteId identificador remoto de la subida
+     * @param offset posición del fragmento
+     * @param data buffer con los bytes
+     * @param length bytes válidos en el buffer
+     * @param totalBytes tamaño total de la foto
+     * @return bytes confirmados por el servidor después del fragmento
+     * @throws IOException si falla la red o el servidor
+     */
+    long sendChunk(String remoteId, long offset, byte[] data, int length, long totalBytes) throws IOException;
+
+    /**
+     * Confirma un lote cuando todas sus fotos se subieron.
+     * @param batchId lote remoto
+     * @throws IOException si falla la red o el servidor
+     */
+    void commitBatch(String batchId) throws IOException;
+
+    /**
+     * Lote registrado en el servidor.
+     */
+    final class BatchHandle {
+        public final String batchId;
+        public final List<String> remoteIds;
+
+        public BatchHandle(String batchId, List<String> remoteIds) {
+            this.batchId = batchId;
+            this.remoteIds = remoteIds;
+        }
+    }
+}
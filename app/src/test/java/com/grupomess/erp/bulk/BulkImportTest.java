@@ -0,0 +1,96 @@
+package com.grupomess.erp.bulk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la importación masiva y del agrupado por folio.
+ */
+public class BulkImportTest {
+
+    @Test
+    public void group_attachesPhotosToLastFolio() {
+        List<String> photos = Arrays.asList("p0", "p1", "p2", "p3", "p4", "p5", "p6");
+        List<String> folios = Arrays.asList(null, "F-1", null, null, "F-2", "f-1", null);
+
+        FolioGrouper.Grouping<String> grouping = FolioGrouper.group(photos, folios);
+
+        assertEquals(Arrays.asList("p0"), grouping.getUnassigned());
+        assertEquals(Arrays.asList("F-1", "F-2"), new ArrayList<>(grouping.getGroups().keySet()));
+        assertEquals(Arrays.asList("p1", "p2", "p3", "p5", "p6"), grouping.getGroups().get("F-1"));
+        assertEquals(Arrays.asList("p4"), grouping.getGroups().get("F-2"));
+    }
+
+    @Test
+    public void run_boundsParallelismAndKeepsInputOrder() throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(i);
+        }
+        BulkImport<Integer, String> bulk = new BulkImport.Builder<Integer, String>(item -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            // Los últimos terminan primero para comprobar que se respeta el orden de entrada
+            Thread.sleep(40 - item % 10 * 4);
+            active.decrementAndGet();
+            if (item == 7) {
+                throw new IllegalStateException("imagen dañada");
+            }
+            return new BulkImport.Recognized<>("p" + item, item % 10 == 0 ? "F-" + item / 10 : null);
+        }).setParallelism(3).build();
+        List<ImportProgress> reports = new ArrayList<>();
+
+        BulkImport.Outcome<String> outcome = bulk.run(items, progress -> {
+            synchronized (reports) {
+                reports.add(progress);
+            }
+        }, new AtomicBoolean());
+
+        assertTrue(maxActive.get() <= 3);
+        assertFalse(outcome.isCancelled());
+        assertEquals(40, reports.size());
+        assertEquals(40, outcome.getProgress().getProcessed());
+        assertEquals(1, outcome.getProgress().getFailed());
+        assertEquals(4, outcome.getProgress().getWithFolio());
+        assertEquals(4, outcome.getGrouping().getGroups().size());
+        List<String> first = outcome.getGrouping().getGroups().get("F-0");
+        assertEquals(Arrays.asList("p0", "p1", "p2", "p3", "p4", "p5", "p6", "p8", "p9"), first);
+        assertTrue(outcome.getProgress().getImagesPerSecond() > 0);
+    }
+
+    @Test
+    public void run_stopsWhenCancelled() throws InterruptedException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        BulkImport<Integer, Integer> bulk = new BulkImport.Builder<Integer, Integer>(item -> {
+            if (item == 5) {
+                cancelled.set(true);
+            }
+            return new BulkImport.Recognized<>(item, "F");
+        }).setParallelism(1).build();
+
+        BulkImport.Outcome<Integer> outcome = bulk.run(items, null, cancelled);
+
+        assertTrue(outcome.isCancelled());
+        assertEquals(6, outcome.getPhotos().size());
+    }
+
+    @Test
+    public void progress_reportsThroughput() {
+        ImportProgress progress = new ImportProgress(300, 30, 0, 12, 4_000_000_000L);
+
+        assertEquals(7.5, progress.getImagesPerSecond(), 1e-9);
+        assertEquals(0, new ImportProgress(10, 0, 0, 0, 0).getImagesPerSecond(), 0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.grupomess.erp.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del volcado a disco y de la política ante poca memoria.
+ */
+public class SpillDirectoryTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("volcado").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void store_evictsLeastRecentlyUsedOverLimit() throws IOException {
+        SpillDirectory spill = new SpillDirectory.Builder(directory).setMaxBytes(250).build();
+
+        assertTrue(spill.store("a", out -> out.write(new byte[100])));
+        assertTrue(spill.store("b", out -> out.write(new byte[100])));
+        assertNotNull(spill.lookup("a"));
+        assertTrue(spill.store("c", out -> out.write(new byte[100])));
+
+        // "b" era la menos usada tras consultar "a"
+        assertNull(spill.lookup("b"));
+        assertEquals(100, Files.size(spill.lookup("a").toPath()));
+        assertNotNull(spill.lookup("c"));
+        assertEquals(2, spill.count());
+        assertEquals(200, spill.sizeBytes());
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void store_failedWriteLeavesNoEntry() {
+        SpillDirectory spill = new SpillDirectory.Builder(directory).build();
+
+        assertFalse(spill.store("a", out -> {
+            out.write(new byte[10]);
+            throw new IOException("disco lleno");
+        }));
+
+        assertNull(spill.lookup("a"));
+        assertEquals(0, spill.count());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void build_rebuildsIndexFromDirectory() {
+        SpillDirectory first = new SpillDirectory.Builder(directory).build();
+        first.store("a", out -> out.write(new byte[40]));
+        first.store("b", out -> out.write(new byte[60]));
+
+        SpillDirectory second = new SpillDirectory.Builder(directory).build();
+
+        assertEquals(2, second.count());
+        assertEquals(100, second.sizeBytes());
+        assertNotNull(second.lookup("b"));
+        second.clear();
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void residentLimit_shrinksWithPressure() {
+        assertEquals(24, MemoryTrim.residentLimit(0, 24));
+        assertEquals(12, MemoryTrim.residentLimit(MemoryTrim.RUNNING_MODERATE, 24));
+        assertEquals(6, MemoryTrim.residentLimit(MemoryTrim.RUNNING_LOW, 24));
+        assertEquals(6, MemoryTrim.residentLimit(MemoryTrim.UI_HIDDEN, 24));
+        assertEquals(0, MemoryTrim.residentLimit(MemoryTrim.RUNNING_CRITICAL, 24));
+        assertEquals(0, MemoryTrim.residentLimit(MemoryTrim.BACKGROUND, 24));
+        assertEquals(0, MemoryTrim.residentLimit(Integer.MAX_VALUE, 24));
+    }
+}
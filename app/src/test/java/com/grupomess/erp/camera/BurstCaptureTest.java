@@ -0,0 +1,205 @@
+package com.grupomess.erp.camera;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la captura en ráfaga con un proveedor de fotos falso.
+ */
+public class BurstCaptureTest {
+
+    private File dir;
+    private ScheduledExecutorService scheduler;
+    private FakeCamera camera;
+    private AtomicInteger fileCounter;
+    private List<File> photos;
+    private List<Exception> errors;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("rafaga").toFile();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        camera = new FakeCamera();
+        fileCounter = new AtomicInteger();
+        photos = Collections.synchronizedList(new ArrayList<>());
+        errors = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        camera.shutdown();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void burst_deliversPhotosInOrderWithOneCaptureInFlight() throws InterruptedException {
+        CountDownLatch fivePhotos = new CountDownLatch(5);
+        BurstCapture burst = newBurst(10, fivePhotos);
+
+        burst.start();
+        assertTrue(fivePhotos.await(5, TimeUnit.SECONDS));
+        burst.stop();
+
+        assertEquals(1, camera.maxInFlight.get());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("foto_" + i + ".jpg", photos.get(i).getName());
+            assertTrue(photos.get(i).length() > 0);
+        }
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void burst_keepsIntervalBetweenShots() throws InterruptedException {
+        CountDownLatch fourPhotos = new CountDownLatch(4);
+        BurstCapture burst = newBurst(60, fourPhotos);
+
+        burst.start();
+        assertTrue(fourPhotos.await(5, TimeUnit.SECONDS));
+        burst.stop();
+
+        // El intervalo se mide entre inicios de captura; nunca es menor al configurado
+        assertTrue(burst.getAverageIntervalMs() >= 55);
+    }
+
+    @Test
+    public void stop_stopsRequestingPhotos() throws InterruptedException {
+        CountDownLatch twoPhotos = new CountDownLatch(2);
+        BurstCapture burst = newBurst(5, twoPhotos);
+
+        burst.start();
+        assertTrue(twoPhotos.await(5, TimeUnit.SECONDS));
+        burst.stop();
+        Thread.sleep(100);
+        int requested = camera.requests.get();
+        Thread.sleep(100);
+
+        assertFalse(burst.isRunning());
+        assertEquals(requested, camera.requests.get());
+        assertEquals(requested, photos.size());
+    }
+
+    @Test
+    public void stop_cancelsScheduledShot() throws InterruptedException {
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1);
+        pool.setRemoveOnCancelPolicy(true);
+        try {
+            CountDownLatch onePhoto = new CountDownLatch(1);
+            BurstCapture burst = newBurst(pool, 60_000, onePhoto);
+
+            burst.start();
+            assertTrue(onePhoto.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.getQueue().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, pool.getQueue().size());
+            burst.stop();
+
+            // La siguiente foto ya no queda esperando en el programador
+            assertTrue(pool.getQueue().isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cameraError_isReportedAndBurstContinues() throws InterruptedException {
+        camera.failRequest = 2;
+        CountDownLatch threePhotos = new CountDownLatch(3);
+        BurstCapture burst = newBurst(5, threePhotos);
+
+        burst.start();
+        assertTrue(threePhotos.await(5, TimeUnit.SECONDS));
+        burst.stop();
+
+        assertEquals(1, errors.size());
+        assertEquals(1, burst.getFailureCount());
+        // El archivo de la captura fallida no queda en disco
+        assertFalse(new File(dir, "foto_1.jpg").exists());
+    }
+
+    private BurstCapture newBurst(long intervalMs, CountDownLatch latch) {
+        return newBurst(scheduler, intervalMs, latch);
+    }
+
+    private BurstCapture newBurst(ScheduledExecutorService scheduler, long intervalMs, CountDownLatch latch) {
+        return new BurstCapture(camera, () -> new File(dir, "foto_" + fileCounter.getAndIncrement() + ".jpg"),
+                scheduler, intervalMs, new BurstCapture.Listener() {
+            @Override
+            public void onPhoto(File file) {
+                photos.add(file);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                errors.add(error);
+            }
+        });
+    }
+
+    /**
+     * Cámara falsa: escribe unos bytes en otro hilo después de una breve espera.
+     */
+    private static final class FakeCamera implements CameraSource {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        /** Número de petición (desde 1) que falla; 0 para ninguna */
+        volatile int failRequest;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final ExecutorService thread = Executors.newSingleThreadExecutor();
+
+        @Override
+        public void takePicture(File output, Callback callback) {
+            int request = requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            thread.execute(() -> {
+                try {
+                    Thread.sleep(3);
+                    try (FileOutputStream out = new FileOutputStream(output)) {
+                        out.write(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) request});
+                    }
+                    inFlight.decrementAndGet();
+                    if (request == failRequest) {
+                        callback.onError(new IOException("Falla simulada"));
+                    } else {
+                        callback.onCaptured(output);
+                    }
+                } catch (InterruptedException | IOException e) {
+                    inFlight.decrementAndGet();
+                    callback.onError(e);
+                }
+            });
+        }
+
+        void shutdown() {
+            thread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.grupomess.erp.camera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del límite de cuadros analizados.
+ */
+public class FrameThrottleTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void tryAcquire_dropsFramesWhileBusy() {
+        FrameThrottle throttle = new FrameThrottle(1000);
+
+        assertTrue(throttle.tryAcquire(0));
+        assertFalse(throttle.tryAcquire(10 * MS));
+        throttle.release();
+        assertTrue(throttle.tryAcquire(20 * MS));
+
+        assertEquals(2, throttle.getAcceptedCount());
+        assertEquals(1, throttle.getDroppedCount());
+    }
+
+    @Test
+    public void tryAcquire_limitsFrameRate() {
+        FrameThrottle throttle = new FrameThrottle(4);
+
+        int accepted = 0;
+        // Cuadros a 30 fps durante un segundo; el análisis termina al instante
+        for (int i = 0; i < 30; i++) {
+            if (throttle.tryAcquire(i * 1000 * MS / 30)) {
+                accepted++;
+                throttle.release();
+            }
+        }
+
+        assertEquals(4, accepted);
+        assertEquals(26, throttle.getDroppedCount());
+    }
+}
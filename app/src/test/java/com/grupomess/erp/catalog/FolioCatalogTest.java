@@ -0,0 +1,263 @@
+package com.grupomess.erp.catalog;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del catálogo de folios contra un servidor HTTP simulado.
+ */
+public class FolioCatalogTest {
+
+    private File directory;
+    private MockServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("catalogo").toFile();
+        server = new MockServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void folioSet_normalizesMergesAndRemoves() {
+        FolioSet set = FolioSet.of(Arrays.asList("f-002", "F-001", " F-003 ", "F-001"));
+
+        assertEquals(3, set.size());
+        assertEquals("F-001", set.get(0));
+        assertTrue(set.contains("f - 002"));
+        assertFalse(set.contains("F-004"));
+
+        FolioSet next = set.apply(Arrays.asList("F-000", "F-004", "F-002"), Arrays.asList("F-003", "F-999"));
+
+        assertEquals(Arrays.asList("F-000", "F-001", "F-002", "F-004"), list(next));
+        // El conjunto original no cambia
+        assertTrue(set.contains("F-003"));
+    }
+
+    @Test
+    public void folioSet_answersExactlyOnLargeCatalog() {
+        List<String> folios = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            folios.add("F-" + (1_000_000 + i * 3));
+        }
+        FolioSet set = FolioSet.of(folios);
+
+        assertEquals(200_000, set.size());
+        for (int i = 0; i < 200_000; i += 997) {
+            assertTrue(set.contains("F-" + (1_000_000 + i * 3)));
+            assertFalse(set.contains("F-" + (1_000_000 + i * 3 + 1)));
+        }
+        // Unos 14 bytes por folio más el filtro
+        assertTrue(set.sizeBytes() < 200_000 * 16L);
+    }
+
+    @Test
+    public void sync_downloadsOnceThenOnlyDeltasAndSurvivesRestart() throws IOException {
+        server.publish(Arrays.asList("F-1", "F-2", "F-3"), null);
+        File file = new File(directory, "catalogo.bin");
+        FolioCatalog catalog = new FolioCatalog(file);
+        CatalogSource source = new HttpCatalogSource(server.baseUrl(), null);
+
+        assertEquals(FolioCatalog.Check.UNAVAILABLE, catalog.check("F-1"));
+        assertTrue(catalog.sync(source));
+        assertEquals(FolioCatalog.Check.VALID, catalog.check("f-1"));
+        assertEquals(1, server.snapshots.get());
+
+        server.publish(Arrays.asList("F-4"), Arrays.asList("F-2"));
+        assertTrue(catalog.sync(source));
+        assertEquals(1, server.snapshots.get());
+        assertEquals(2, server.lastLines);
+        assertEquals(FolioCatalog.Check.NOT_FOUND, catalog.check("F-2"));
+        assertEquals(FolioCatalog.Check.VALID, catalog.check("F-4"));
+
+        assertFalse(catalog.sync(source));
+
+        // Al reiniciar se carga del disco y se sigue desde el mismo cursor
+        FolioCatalog restarted = new FolioCatalog(file);
+        assertTrue(restarted.load());
+        assertEquals(catalog.getCursor(), restarted.getCursor());
+        assertEquals(Arrays.asList("F-1", "F-3", "F-4"), list(restarted.getFolios()));
+        server.publish(Arrays.asList("F-5"), null);
+        assertTrue(restarted.sync(source));
+        assertEquals(1, server.snapshots.get());
+        assertEquals(FolioCatalog.Check.VALID, restarted.check("F-5"));
+    }
+
+    @Test
+    public void sync_replacesOnSnapshotAndKeepsCatalogOnFailure() throws IOException {
+        server.publish(Arrays.asList("F-1", "F-2"), null);
+        FolioCatalog catalog = new FolioCatalog(new File(directory, "catalogo.bin"));
+        CatalogSource source = new HttpCatalogSource(server.baseUrl(), null);
+        catalog.sync(source);
+
+        // El servidor compactó su historial: el cursor ya no sirve y manda el catálogo completo
+        server.publish(Arrays.asList("F-3"), Arrays.asList("F-1"));
+        server.forgetHistory();
+        assertTrue(catalog.sync(source));
+        assertEquals(2, server.snapshots.get());
+        assertEquals(Arrays.asList("F-2", "F-3"), list(catalog.getFolios()));
+
+        server.failing = true;
+        try {
+            catalog.sync(source);
+            fail("Se esperaba IOException");
+        } catch (IOException expected) {
+            // El catálogo vigente no cambia
+        }
+        assertEquals(FolioCatalog.Check.VALID, catalog.check("F-3"));
+    }
+
+    @Test
+    public void load_discardsDamagedFile() throws IOException {
+        server.publish(Arrays.asList("F-1", "F-2"), null);
+        File file = new File(directory, "catalogo.bin");
+        new FolioCatalog(file).sync(new HttpCatalogSource(server.baseUrl(), null));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        FolioCatalog catalog = new FolioCatalog(file);
+
+        assertFalse(catalog.load());
+        assertFalse(file.exists());
+        assertEquals(FolioCatalog.Check.UNAVAILABLE, catalog.check("F-1"));
+    }
+
+    private static List<String> list(FolioSet set) {
+        List<String> folios = new ArrayList<>(set.size());
+        for (int i = 0; i < set.size(); i++) {
+            folios.add(set.get(i));
+        }
+        return folios;
+    }
+
+    /**
+     * Servidor de catálogo con versiones numeradas: {@code since=vN} recibe los cambios
+     * posteriores a N si aún los conserva, o el catálogo completo si no.
+     */
+    private static final class MockServer {
+        final AtomicInteger snapshots = new AtomicInteger();
+        volatile boolean failing;
+        volatile int lastLines;
+
+        private final HttpServer http;
+        private final TreeSet<String> current = new TreeSet<>();
+        /** Cambios de cada versión, desde {@link #firstKept} */
+        private final List<List<String>> history = new ArrayList<>();
+        private int firstKept = 1;
+
+        MockServer() throws IOException {
+            http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            http.createContext("/api/folios", this::handle);
+            http.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + http.getAddress().getPort() + "/api/";
+        }
+
+        void stop() {
+            http.stop(0);
+        }
+
+        synchronized void publish(List<String> added, List<String> removed) {
+            List<String> lines = new ArrayList<>();
+            for (String folio : added) {
+                current.add(folio);
+                lines.add("+" + folio);
+            }
+            if (removed != null) {
+                for (String folio : removed) {
+                    current.remove(folio);
+                    lines.add("-" + folio);
+                }
+            }
+            history.add(lines);
+        }
+
+        synchronized void forgetHistory() {
+            firstKept += history.size();
+            history.clear();
+        }
+
+        private synchronized void handle(HttpExchange exchange) throws IOException {
+            if (failing) {
+                respond(exchange, 500, null, false, new ArrayList<>());
+                return;
+            }
+            int version = firstKept + history.size() - 1;
+            String query = exchange.getRequestURI().getQuery();
+            int since = query != null && query.startsWith("since=v") ? Integer.parseInt(query.substring(7)) : -1;
+            if (since == version) {
+                respond(exchange, 304, null, false, new ArrayList<>());
+                return;
+            }
+            List<String> lines = new ArrayList<>();
+            boolean snapshot = since < firstKept - 1;
+            if (snapshot) {
+                snapshots.incrementAndGet();
+                for (String folio : current) {
+                    lines.add("+" + folio);
+                }
+            } else {
+                for (int v = since + 1; v <= version; v++) {
+                    lines.addAll(history.get(v - firstKept));
+                }
+            }
+            lastLines = lines.size();
+            respond(exchange, 200, "\"v" + version + "\"", snapshot, lines);
+        }
+
+        private static void respond(HttpExchange exchange, int status, String etag, boolean snapshot,
+                                    List<String> lines) throws IOException {
+            StringBuilder body = new StringBuilder();
+            for (String line : lines) {
+                body.append(line).append('\n');
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            if (etag != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
+            }
+            if (snapshot) {
+                exchange.getResponseHeaders().set(HttpCatalogSource.HEADER_SNAPSHOT, "true");
+            }
+            exchange.sendResponseHeaders(status, status == 304 || bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.grupomess.erp.catalog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la búsqueda aproximada de folios con errores reales de OCR.
+ */
+public class FolioMatcherTest {
+
+    /** Lecturas del OCR con sólo confusiones de caracteres, y el folio correcto */
+    private static final String[][] CONFUSIONS = {
+            {"F-OO45120", "F-0045120"},
+            {"F-0O451Z0", "F-0045120"},
+            {"F-1I23456", "F-1123456"},
+            {"F-l123456", "F-1123456"},
+            {"F-5S81230", "F-5581230"},
+            {"F-558I23O", "F-5581230"},
+            {"F-B807765", "F-8807765"},
+            {"F-88O7765", "F-8807765"},
+            {"OT4S210", "OT45210"},
+            {"0T45210", "OT45210"},
+            {"GM-2O25O611", "GM-20250611"},
+            {"GM-202S0611", "GM-20250611"},
+            {"GM-2025O6II", "GM-20250611"},
+            {"F-6O70015", "F-6070015"},
+            {"F-G070015", "F-6070015"},
+    };
+
+    /** Lecturas con un error real: un dígito perdido, sobrante o distinto */
+    private static final String[][] EDITS = {
+            {"F-004512", "F-0045120"},
+            {"F-00451200", "F-0045120"},
+            {"F-1123466", "F-1123456"},
+            {"F-558123", "F-5581230"},
+            {"OT4521", "OT45210"},
+            {"GM-2025611", "GM-20250611"},
+            {"F 88077 65", "F-8807765"},
+    };
+
+    private static final FolioSet folios = catalog();
+
+    private static FolioSet catalog() {
+        // Catálogo disperso, como el de folios abiertos: 200k de 10 millones posibles
+        Random random = new Random(11);
+        Set<String> all = new HashSet<>();
+        while (all.size() < 200_000) {
+            all.add(String.format("F-%07d", random.nextInt(10_000_000)));
+        }
+        for (String[] pair : CONFUSIONS) {
+            all.add(pair[1]);
+        }
+        return FolioSet.of(new ArrayList<>(all));
+    }
+
+    @Test
+    public void search_findsConfusedFoliosFirst() {
+        FolioMatcher matcher = FolioMatcher.withDefaults();
+        for (String[] pair : CONFUSIONS) {
+            List<FolioMatcher.Match> matches = matcher.search(folios, pair[0], 5);
+            assertFalse(pair[0], matches.isEmpty());
+            assertEquals(pair[0], pair[1], matches.get(0).getFolio());
+        }
+    }
+
+    @Test
+    public void search_recallsSingleEditsWithinTopFive() {
+        FolioMatcher matcher = FolioMatcher.withDefaults();
+        for (String[] pair : EDITS) {
+            List<String> found = new ArrayList<>();
+            for (FolioMatcher.Match match : matcher.search(folios, pair[0], 5)) {
+                found.add(match.getFolio());
+            }
+            assertTrue(pair[0] + " -> " + found, found.contains(pair[1]));
+        }
+    }
+
+    @Test
+    public void search_putsExactMatchFirstAndRespectsMaxCost() {
+        FolioMatcher matcher = FolioMatcher.withDefaults();
+        FolioSet small = FolioSet.of(Arrays.asList("F-0045120", "F-0045121", "F-0045128", "F-9999999"));
+
+        List<FolioMatcher.Match> matches = matcher.search(small, "f-0045120", 5);
+
+        assertEquals("F-0045120", matches.get(0).getFolio());
+        assertEquals(0, matches.get(0).getCost());
+        // 0 -> 1 y 0 -> 8 no son confusiones: cuestan 3
+        assertEquals(3, matches.size());
+        assertEquals(3, matches.get(1).getCost());
+        assertTrue(new FolioMatcher.Builder().setMaxCost(2).build().search(small, "F-0045129", 5).isEmpty());
+    }
+
+    @Test
+    public void search_agreesWithExhaustiveDistance() {
+        FolioMatcher matcher = FolioMatcher.withDefaults();
+        FolioSet small = FolioSet.of(Arrays.asList("AB12", "AB120", "AB8", "A812", "B12", "OT1", "0T1", "OTI",
+                "F-1", "F-11", "F-111", "ZZ"));
+        Random random = new Random(3);
+        String alphabet = "AB0128OTIFZ-";
+        for (int q = 0; q < 500; q++) {
+            StringBuilder query = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int i = 0; i < length; i++) {
+                query.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            List<FolioMatcher.Match> matches = matcher.search(small, query.toString(), small.size());
+
+            int expected = 0;
+            for (int i = 0; i < small.size(); i++) {
+                if (distance(query.toString(), small.get(i)) <= 3) {
+                    expected++;
+                }
+            }
+            assertEquals(query.toString(), expected, matches.size());
+            for (FolioMatcher.Match match : matches) {
+                assertEquals(query + " / " + match, distance(query.toString(), match.getFolio()), match.getCost());
+            }
+        }
+    }
+
+    /** Distancia ponderada de referencia, con la matriz completa */
+    private static int distance(String a, String b) {
+        String[] groups = {"O0DQ", "I1L", "S5", "B8", "Z2", "G6"};
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = 3 * i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = 3 * j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                char x = a.charAt(i - 1);
+                char y = b.charAt(j - 1);
+                int substitution = 3;
+                if (x == y) {
+                    substitution = 0;
+                } else {
+                    for (String group : groups) {
+                        if (group.indexOf(x) >= 0 && group.indexOf(y) >= 0) {
+                            substitution = 1;
+                        }
+                    }
+                }
+                d[i][j] = Math.min(d[i - 1][j - 1] + substitution, Math.min(d[i - 1][j], d[i][j - 1]) + 3);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,167 @@
+package com.grupomess.erp.crypto;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.KeyGenerator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del cifrado por segmentos de las fotos guardadas.
+ */
+public class StreamingAeadTest {
+
+    private static final int SEGMENT = 64;
+
+    private StreamingAead aead;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        aead = new StreamingAead.Builder(new AesGcmKeyWrapper(generator.generateKey()))
+                .setSegmentSize(SEGMENT)
+                .build();
+    }
+
+    @Test
+    public void roundTrip_aroundSegmentBoundaries() throws IOException {
+        int[] sizes = {0, 1, SEGMENT - 1, SEGMENT, SEGMENT + 1, 3 * SEGMENT, 7 * SEGMENT + 13};
+        for (int size : sizes) {
+            byte[] photo = photo(size);
+            byte[] encrypted = encrypt(photo, 7);
+
+            assertEquals("tamaño cifrado de " + size, aead.ciphertextSize(size), encrypted.length);
+            assertEquals("tamaño en claro de " + size, size, aead.plaintextSize(encrypted.length));
+            assertTrue(StreamingAead.isEncrypted(encrypted, encrypted.length));
+            assertArrayEquals("foto de " + size, photo, decrypt(encrypted));
+        }
+    }
+
+    @Test
+    public void sameFileTwice_usesDifferentKeys() throws IOException {
+        byte[] photo = photo(2 * SEGMENT);
+
+        byte[] first = encrypt(photo, SEGMENT);
+        byte[] second = encrypt(photo, SEGMENT);
+
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void alteredByte_failsOnItsSegment() throws IOException {
+        byte[] encrypted = encrypt(photo(4 * SEGMENT), SEGMENT);
+        encrypted[StreamingAead.HEADER_BYTES + 2 * (SEGMENT + StreamingAead.TAG_BYTES) + 5] ^= 1;
+
+        try (InputStream in = aead.decrypt(new ByteArrayInputStream(encrypted))) {
+            // Los dos primeros segmentos se entregan; el alterado no
+            byte[] buffer = new byte[2 * SEGMENT];
+            assertEquals(2 * SEGMENT, readAll(in, buffer));
+            in.read(new byte[1]);
+            fail("Se aceptó un segmento alterado");
+        } catch (IOException expected) {
+            // Esperado
+        }
+    }
+
+    @Test
+    public void truncatedAtSegmentBoundary_fails() throws IOException {
+        byte[] encrypted = encrypt(photo(3 * SEGMENT + 10), SEGMENT);
+        byte[] truncated = Arrays.copyOf(encrypted, StreamingAead.HEADER_BYTES + 2 * (SEGMENT + StreamingAead.TAG_BYTES));
+
+        assertDecryptFails(truncated);
+    }
+
+    @Test
+    public void reorderedSegments_fail() throws IOException {
+        byte[] encrypted = encrypt(photo(3 * SEGMENT), SEGMENT);
+        int full = SEGMENT + StreamingAead.TAG_BYTES;
+        byte[] reordered = encrypted.clone();
+        System.arraycopy(encrypted, StreamingAead.HEADER_BYTES, reordered, StreamingAead.HEADER_BYTES + full, full);
+        System.arraycopy(encrypted, StreamingAead.HEADER_BYTES + full, reordered, StreamingAead.HEADER_BYTES, full);
+
+        assertDecryptFails(reordered);
+    }
+
+    @Test
+    public void otherMasterKey_failsOnHeader() throws Exception {
+        byte[] encrypted = encrypt(photo(SEGMENT), SEGMENT);
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        StreamingAead other = new StreamingAead.Builder(new AesGcmKeyWrapper(generator.generateKey())).build();
+
+        try {
+            other.decrypt(new ByteArrayInputStream(encrypted));
+            fail("Se aceptó la llave de otro dispositivo");
+        } catch (IOException expected) {
+            // Esperado
+        }
+    }
+
+    @Test
+    public void plainPhoto_isNotEncrypted() {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE1, 0, 0};
+
+        assertFalse(StreamingAead.isEncrypted(jpeg, jpeg.length));
+        assertFalse(StreamingAead.isEncrypted(new byte[0], 0));
+    }
+
+    private byte[] encrypt(byte[] photo, int chunk) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (OutputStream out = aead.encrypt(target)) {
+            // Escrituras de un tamaño que no coincide con el segmento, como las de un canal
+            for (int offset = 0; offset < photo.length; offset += chunk) {
+                out.write(photo, offset, Math.min(chunk, photo.length - offset));
+            }
+        }
+        return target.toByteArray();
+    }
+
+    private byte[] decrypt(byte[] encrypted) throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (InputStream in = aead.decrypt(new ByteArrayInputStream(encrypted))) {
+            byte[] buffer = new byte[SEGMENT / 3];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                plain.write(buffer, 0, read);
+            }
+        }
+        return plain.toByteArray();
+    }
+
+    private void assertDecryptFails(byte[] encrypted) {
+        try {
+            decrypt(encrypted);
+            fail("Se aceptó un archivo alterado");
+        } catch (IOException expected) {
+            // Esperado
+        }
+    }
+
+    private static int readAll(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static byte[] photo(int size) {
+        byte[] photo = new byte[size];
+        new Random(size).nextBytes(photo);
+        return photo;
+    }
+}
@@ -0,0 +1,77 @@
+package com.grupomess.erp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pruebas del manifiesto de folio: reanudación tras un corte y texto publicado.
+ */
+public class FolioManifestTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("manifiesto", ".tsv");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void interruptedSaveListsWrittenPhotos() throws IOException {
+        try (FolioManifest.Writer writer = new FolioManifest.Writer(file, "F-0045")) {
+            writer.append(new FolioManifest.Entry(1, "F-0045_foto_2.jpg", 1200, 0xCAFEL, "content://d/2", "/c/b.jpg"));
+            writer.append(new FolioManifest.Entry(0, "F-0045_foto_1.webp", 800, 0xBEEFL, "content://d/1", "/c/a.jpg"));
+        }
+        // Corte a mitad de una línea
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("\nfoto\t2\tF-0045_foto_3.jpg\t9".getBytes(StandardCharsets.UTF_8));
+        }
+
+        FolioManifest manifest = FolioManifest.read(file);
+
+        assertEquals("F-0045", manifest.getFolio());
+        assertFalse(manifest.isComplete());
+        assertEquals(2, manifest.getEntries().size());
+        assertEquals("content://d/1", manifest.findBySource("/c/a.jpg").uri);
+        assertEquals(0xBEEFL, manifest.findBySource("/c/a.jpg").crc32);
+        assertNull(manifest.findBySource("/c/c.jpg"));
+    }
+
+    @Test
+    public void reopenedManifestKeepsHeaderAndCompletes() throws IOException {
+        try (FolioManifest.Writer writer = new FolioManifest.Writer(file, "OT-12")) {
+            writer.append(new FolioManifest.Entry(0, "OT-12_foto_1.jpg", 10, 1, "content://d/1", "/c/a.jpg"));
+        }
+        try (FolioManifest.Writer writer = new FolioManifest.Writer(file, "OT-12")) {
+            writer.append(new FolioManifest.Entry(1, "OT-12_foto_2.jpg", 20, 2, "content://d/2", "/c/b.jpg"));
+            writer.markComplete();
+        }
+
+        FolioManifest manifest = FolioManifest.read(file);
+
+        assertTrue(manifest.isComplete());
+        assertEquals("folio\tOT-12\nfotos\t2\nOT-12_foto_1.jpg\t10\t00000001\nOT-12_foto_2.jpg\t20\t00000002\n",
+                manifest.toPublishedText());
+    }
+
+    @Test
+    public void missingFileReadsAsNull() throws IOException {
+        assertNull(FolioManifest.read(file));
+    }
+}
@@ -0,0 +1,91 @@
+package com.grupomess.erp.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pruebas de la ventana de páginas del historial: memoria acotada y regreso al inicio.
+ */
+public class PageWindowTest {
+
+    private static final int PAGE = 5;
+
+    @Test
+    public void appendKeepsAtMostMaxPagesAndMarksDroppedStart() {
+        PageWindow<Integer> window = new PageWindow<>(PAGE, 3);
+
+        for (int page = 0; page < 10; page++) {
+            int dropped = window.append(page(page * PAGE, PAGE));
+            assertEquals(page < 3 ? 0 : PAGE, dropped);
+            assertTrue(window.getItems().size() <= 3 * PAGE);
+        }
+
+        assertEquals(Integer.valueOf(35), window.first());
+        assertEquals(Integer.valueOf(49), window.last());
+        assertTrue(window.hasBefore());
+        assertTrue(window.hasAfter());
+    }
+
+    @Test
+    public void shortPageMarksEnd() {
+        PageWindow<Integer> window = new PageWindow<>(PAGE, 3);
+
+        window.append(page(0, PAGE));
+        window.append(page(PAGE, 2));
+
+        assertFalse(window.hasAfter());
+        assertFalse(window.hasBefore());
+        assertEquals(7, window.getItems().size());
+    }
+
+    @Test
+    public void prependWalksBackToStartAndDropsEnd() {
+        PageWindow<Integer> window = new PageWindow<>(PAGE, 2);
+        for (int page = 0; page < 4; page++) {
+            window.append(page(page * PAGE, PAGE));
+        }
+        assertEquals(Integer.valueOf(10), window.first());
+
+        assertEquals(PAGE, window.prepend(page(5, PAGE)));
+        assertEquals(Integer.valueOf(5), window.first());
+        assertEquals(Integer.valueOf(14), window.last());
+        assertTrue(window.hasAfter());
+        assertTrue(window.hasBefore());
+
+        window.prepend(page(0, PAGE));
+        // Una página completa no garantiza el inicio; la siguiente consulta llega vacía
+        window.prepend(new ArrayList<>());
+        assertFalse(window.hasBefore());
+        assertEquals(page(0, 2 * PAGE), window.getItems());
+    }
+
+    @Test
+    public void itemsAreSnapshotsAndResetEmpties() {
+        PageWindow<Integer> window = new PageWindow<>(PAGE, 2);
+        window.append(page(0, PAGE));
+        List<Integer> before = window.getItems();
+
+        window.append(page(PAGE, PAGE));
+
+        assertEquals(PAGE, before.size());
+        window.reset();
+        assertTrue(window.getItems().isEmpty());
+        assertNull(window.first());
+        assertTrue(window.hasAfter());
+    }
+
+    private static List<Integer> page(int from, int count) {
+        List<Integer> page = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            page.add(from + i);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,75 @@
+package com.grupomess.erp.encode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la copia por canales del guardado sin recompresión.
+ */
+public class ChannelCopyTest {
+
+    private File source;
+    private File target;
+
+    @Before
+    public void setUp() throws IOException {
+        source = File.createTempFile("original", ".jpg");
+        target = File.createTempFile("copia", ".jpg");
+    }
+
+    @After
+    public void tearDown() {
+        source.delete();
+        target.delete();
+    }
+
+    @Test
+    public void copy_isByteExactAcrossSeveralBuffers() throws IOException {
+        // Tamaño que no es múltiplo del buffer, como el de una foto real
+        byte[] data = new byte[ChannelCopy.BUFFER_BYTES * 3 + 12_345];
+        new Random(5).nextBytes(data);
+        Files.write(source.toPath(), data);
+        CRC32 expected = new CRC32();
+        expected.update(data);
+
+        CRC32 crc = new CRC32();
+        long copied;
+        try (FileChannel in = new RandomAccessFile(source, "r").getChannel();
+             FileOutputStream out = new FileOutputStream(target)) {
+            copied = ChannelCopy.copy(in, out.getChannel(), crc);
+        }
+
+        assertEquals(data.length, copied);
+        assertEquals(expected.getValue(), crc.getValue());
+        assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void copy_startsFromBeginningOfSourceAndHandlesEmptyFile() throws IOException {
+        Files.write(source.toPath(), new byte[]{1, 2, 3, 4});
+        try (RandomAccessFile raf = new RandomAccessFile(source, "r");
+             FileOutputStream out = new FileOutputStream(target)) {
+            raf.seek(3);
+            assertEquals(4, ChannelCopy.copy(raf.getChannel(), out.getChannel(), null));
+        }
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(target.toPath()));
+
+        Files.write(source.toPath(), new byte[0]);
+        try (FileChannel in = new RandomAccessFile(source, "r").getChannel();
+             FileOutputStream out = new FileOutputStream(target)) {
+            assertEquals(0, ChannelCopy.copy(in, out.getChannel(), new CRC32()));
+        }
+    }
+}
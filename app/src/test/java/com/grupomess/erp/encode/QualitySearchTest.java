@@ -0,0 +1,65 @@
+package com.grupomess.erp.encode;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la búsqueda de calidad por presupuesto.
+ */
+public class QualitySearchTest {
+
+    /** Tamaño simulado que crece con la calidad, como el de un JPEG */
+    private static long sizeOf(int quality) {
+        return 10_000L + quality * quality * 50L;
+    }
+
+    @Test
+    public void search_returnsMaxQualityWhenItFits() throws IOException {
+        List<Integer> probed = new ArrayList<>();
+        QualitySearch.Result result = QualitySearch.search(q -> {
+            probed.add(q);
+            return sizeOf(q);
+        }, 50, 90, sizeOf(90), 4);
+
+        assertEquals(90, result.quality);
+        assertTrue(result.withinBudget);
+        assertEquals(1, probed.size());
+    }
+
+    @Test
+    public void search_findsHighestQualityWithinBudget() throws IOException {
+        QualitySearch.Result result = QualitySearch.search(QualitySearchTest::sizeOf, 0, 100, sizeOf(73), 10);
+
+        assertEquals(73, result.quality);
+        assertEquals(sizeOf(73), result.sizeBytes);
+        assertTrue(result.withinBudget);
+    }
+
+    @Test
+    public void search_respectsProbeLimit() throws IOException {
+        int[] probes = {0};
+        QualitySearch.Result result = QualitySearch.search(q -> {
+            probes[0]++;
+            return sizeOf(q);
+        }, 50, 90, sizeOf(61), 3);
+
+        assertEquals(3, probes[0]);
+        assertTrue(result.withinBudget);
+        assertTrue(result.quality <= 61 && result.quality >= 50);
+        assertTrue(result.sizeBytes <= sizeOf(61));
+    }
+
+    @Test
+    public void search_returnsMinQualityWhenNothingFits() throws IOException {
+        QualitySearch.Result result = QualitySearch.search(QualitySearchTest::sizeOf, 50, 90, 100, 8);
+
+        assertEquals(50, result.quality);
+        assertFalse(result.withinBudget);
+        assertEquals(sizeOf(50), result.sizeBytes);
+    }
+}
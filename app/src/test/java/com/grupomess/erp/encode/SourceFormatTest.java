@@ -0,0 +1,49 @@
+package com.grupomess.erp.encode;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del reconocimiento de formato por firma.
+ */
+public class SourceFormatTest {
+
+    @Test
+    public void sniff_recognizesKnownSignatures() {
+        assertEquals(SourceFormat.JPEG, sniff(0xFF, 0xD8, 0xFF, 0xE1, 0, 0));
+        assertEquals(SourceFormat.PNG, sniff(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13));
+        assertEquals(SourceFormat.WEBP, SourceFormat.sniff(ascii("RIFF\0\0\0\0WEBP"), 12));
+        assertEquals(SourceFormat.HEIF, SourceFormat.sniff(ascii("\0\0\0\u0018ftypheic"), 12));
+    }
+
+    @Test
+    public void sniff_rejectsUnknownAndShortHeaders() {
+        assertNull(SourceFormat.sniff(ascii("\0\0\0\u0018ftypisom"), 12));
+        assertNull(SourceFormat.sniff(ascii("GIF89a"), 6));
+        // Firma de JPEG cortada
+        assertNull(sniff(0xFF, 0xD8));
+        assertNull(SourceFormat.sniff(ascii("RIFF\0\0\0\0WEBP"), 11));
+    }
+
+    @Test
+    public void heifIsCopiedButNotStamped() {
+        assertFalse(SourceFormat.HEIF.isExifWritable());
+        assertTrue(SourceFormat.JPEG.isExifWritable());
+        assertEquals(".jpg", SourceFormat.JPEG.getExtension());
+    }
+
+    private static SourceFormat sniff(int... values) {
+        byte[] header = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            header[i] = (byte) values[i];
+        }
+        return SourceFormat.sniff(header, header.length);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,100 @@
+package com.grupomess.erp.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pruebas del registro de métricas y del archivo de resúmenes.
+ */
+public class MetricsRegistryTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("metricas", ".tsv");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void bucketBoundsCoverEveryValue() {
+        long[] values = {0, 1, 3, 4, 5, 7, 8, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(value + " excede su cubeta", value <= Histogram.bucketUpperBound(bucket));
+            assertTrue(value + " cae en una cubeta menor", bucket == 0 || value > Histogram.bucketUpperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void histogramPercentilesWithinBucketError() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram timer = registry.timer("ocr");
+        for (long ms = 1; ms <= 100; ms++) {
+            timer.record(ms * 1_000_000L);
+        }
+
+        MetricSnapshot snapshot = timer.snapshot();
+
+        assertEquals(100, snapshot.count);
+        assertEquals(100_000_000L, snapshot.max);
+        assertEquals(50.5e6, snapshot.mean(), 1);
+        assertTrue(snapshot.p50 >= 50_000_000L && snapshot.p50 <= 50_000_000L * 5 / 4);
+        assertTrue(snapshot.p95 >= 95_000_000L && snapshot.p95 <= 100_000_000L);
+        assertSame(timer, registry.timer("ocr"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sameNameWithOtherKindIsRejected() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("guardar");
+        registry.timer("guardar");
+    }
+
+    @Test
+    public void peakGaugeKeepsMaximum() {
+        PeakGauge heap = new MetricsRegistry().gauge("heap", Unit.BYTES);
+        heap.set(10);
+        heap.set(30);
+        heap.set(20);
+
+        assertEquals(20, heap.get());
+        assertEquals(30, heap.getPeak());
+    }
+
+    @Test
+    public void summaryFileKeepsRecentLinesAndReadsPreviousSession() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter saved = registry.counter("guardar.fotos");
+        MetricsSummaryFile summary = new MetricsSummaryFile(file, 8);
+
+        for (int i = 1; i <= 20; i++) {
+            saved.increment();
+            summary.append(i, 100, registry.snapshot());
+        }
+        summary.append(21, 200, Collections.singletonList(registry.timer("ocr").snapshot()));
+
+        assertTrue(Files.readAllLines(file.toPath()).size() <= 10);
+        List<MetricSnapshot> previous = summary.readPreviousSession(200);
+        assertEquals(1, previous.size());
+        assertEquals("guardar.fotos", previous.get(0).name);
+        assertEquals(20, previous.get(0).count);
+        assertTrue(summary.readPreviousSession(100).get(0).name.equals("ocr"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.grupomess.erp.ocr;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la lectura del folio en códigos de barras y QR.
+ */
+public class FolioCodeParserTest {
+
+    private final FolioCodeParser parser = FolioCodeParser.withDefaults();
+
+    @Test
+    public void folioOf_acceptsPlainAndLabeledFolios() {
+        assertEquals("F-004512", parser.folioOf("F-004512"));
+        assertEquals("F-004512", parser.folioOf("  folio: F-004512 "));
+        assertEquals("778899", parser.folioOf("N°778899"));
+        assertEquals("OT12345", parser.folioOf("No. OT12345"));
+        assertEquals("2025-AB-0012", parser.folioOf("2025-AB-0012"));
+    }
+
+    @Test
+    public void folioOf_readsUrlParameterOrLastSegment() {
+        assertEquals("F-004512", parser.folioOf("https://erp.grupomess.com/f?id=7&folio=F-004512"));
+        assertEquals("F-004512", parser.folioOf("https://erp.grupomess.com/folios/F-004512/"));
+        assertEquals("F-004512", parser.folioOf("https://erp.grupomess.com/v?folio=F%2D004512#top"));
+        assertNull(parser.folioOf("https://erp.grupomess.com"));
+        assertNull(parser.folioOf("https://erp.grupomess.com/v?folio=%ZZ12"));
+    }
+
+    @Test
+    public void folioOf_rejectsCodesThatAreNotFolios() {
+        // Código de producto EAN-13: más dígitos que un folio
+        assertNull(parser.folioOf("7501234567890"));
+        assertNull(parser.folioOf("GRUPO MESS"));
+        assertNull(parser.folioOf(""));
+        assertNull(parser.folioOf(null));
+    }
+
+    @Test
+    public void parse_keepsDetectionOrderAndDropsDuplicates() {
+        FolioExtraction extraction = parser.parse(Arrays.asList(
+                "7501234567890", "FOLIO F-004512", "F-004512", "https://erp.grupomess.com/folios/F-004513"));
+
+        assertEquals("F-004512", extraction.getBest().getValue());
+        assertEquals(1, extraction.getAlternatives().size());
+        assertEquals("F-004513", extraction.getAlternatives().get(0).getValue());
+        assertTrue(extraction.getBest().getScore() > extraction.getAlternatives().get(0).getScore());
+        assertFalse(parser.parse(Collections.singletonList("7501234567890")).hasBest());
+    }
+}
@@ -0,0 +1,86 @@
+package com.grupomess.erp.ocr;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del motor de extracción de folios.
+ */
+public class FolioExtractorTest {
+
+    private static OcrPage.Line line(String text, int top, int height) {
+        List<OcrPage.Element> elements = new ArrayList<>();
+        int x = 0;
+        for (String word : text.split(" ")) {
+            elements.add(new OcrPage.Element(word, new OcrPage.Box(x, top, x + 10, top + height), 0.9f));
+            x += 12;
+        }
+        return new OcrPage.Line(text, new OcrPage.Box(0, top, 200, top + height), 0.9f, elements);
+    }
+
+    private static OcrPage page(OcrPage.Block... blocks) {
+        return new OcrPage(1000, 1000, Arrays.asList(blocks));
+    }
+
+    @Test
+    public void extract_prefersLabeledFolioOverNoise() {
+        OcrPage page = page(
+                new OcrPage.Block(Arrays.asList(line("GRUPO MESS SA DE CV", 10, 20), line("TEL 5512345678", 40, 12))),
+                new OcrPage.Block(Arrays.asList(line("FOLIO:", 80, 30), line("F-004512", 120, 40))),
+                new OcrPage.Block(Collections.singletonList(line("Fecha 12/05/2025 N° 778899", 800, 12))));
+
+        FolioExtraction extraction = FolioExtractor.withDefaults().extract(page);
+
+        assertTrue(extraction.hasBest());
+        assertEquals("F-004512", extraction.getBest().getValue());
+        assertEquals(2, extraction.getAlternatives().size());
+    }
+
+    @Test
+    public void extract_labelOnSameLine() {
+        OcrPage page = page(new OcrPage.Block(Arrays.asList(
+                line("Pedido 99887766", 500, 12),
+                line("No. 123456", 520, 12))));
+
+        FolioExtraction extraction = FolioExtractor.withDefaults().extract(page);
+
+        assertEquals("123456", extraction.getBest().getValue());
+    }
+
+    @Test
+    public void extract_doesNotReturnSubstringOfStrongerMatch() {
+        OcrPage page = page(new OcrPage.Block(Collections.singletonList(line("OT-00012345", 50, 20))));
+
+        FolioExtraction extraction = FolioExtractor.withDefaults().extract(page);
+
+        for (FolioCandidate candidate : extraction.getCandidates()) {
+            assertNotEquals("00012345", candidate.getValue());
+        }
+    }
+
+    @Test
+    public void extract_noDigitsReturnsEmpty() {
+        OcrPage page = page(new OcrPage.Block(Collections.singletonList(line("SIN FOLIO AQUI", 50, 20))));
+
+        assertFalse(FolioExtractor.withDefaults().extract(page).hasBest());
+    }
+
+    @Test
+    public void extract_customPattern() {
+        FolioExtractor extractor = new FolioExtractor.Builder()
+                .addPattern("\\bGM\\d{6}\\b", 1.0)
+                .build();
+        OcrPage page = page(new OcrPage.Block(Collections.singletonList(line("REF GM004411 F-1234", 50, 20))));
+
+        FolioExtraction extraction = extractor.extract(page);
+
+        assertEquals(1, extraction.getCandidates().size());
+        assertEquals("GM004411", extraction.getBest().getValue());
+    }
+}
@@ -0,0 +1,55 @@
+package com.grupomess.erp.ocr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la confirmación de folios leídos en vivo.
+ */
+public class FolioStabilizerTest {
+
+    @Test
+    public void offer_confirmsAfterConsecutiveFrames() {
+        FolioStabilizer stabilizer = new FolioStabilizer(3);
+
+        assertFalse(stabilizer.offer("F-1001"));
+        assertFalse(stabilizer.offer("F-1001"));
+        assertTrue(stabilizer.offer("F-1001"));
+        assertEquals("F-1001", stabilizer.getStableValue());
+        // Ya confirmado, no se vuelve a reportar
+        assertFalse(stabilizer.offer("F-1001"));
+    }
+
+    @Test
+    public void offer_differentValueRestartsStreak() {
+        FolioStabilizer stabilizer = new FolioStabilizer(3);
+
+        stabilizer.offer("F-1001");
+        stabilizer.offer("F-1001");
+        assertFalse(stabilizer.offer("F-1007"));
+        assertFalse(stabilizer.offer("F-1001"));
+        assertFalse(stabilizer.offer("F-1001"));
+        assertTrue(stabilizer.offer("F-1001"));
+    }
+
+    @Test
+    public void offer_emptyFramesDoNotBreakStreak() {
+        FolioStabilizer stabilizer = new FolioStabilizer(2);
+
+        stabilizer.offer("F-1001");
+        assertFalse(stabilizer.offer(null));
+        assertTrue(stabilizer.offer("F-1001"));
+    }
+
+    @Test
+    public void reset_startsNewScan() {
+        FolioStabilizer stabilizer = new FolioStabilizer(1);
+        assertTrue(stabilizer.offer("F-1"));
+
+        stabilizer.reset();
+
+        assertNull(stabilizer.getStableValue());
+        assertTrue(stabilizer.offer("F-2"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.grupomess.erp.preprocess;
+
+import com.grupomess.erp.quality.LumaImage;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del recorte, enderezado y reducción antes del OCR.
+ */
+public class OcrPreprocessorTest {
+
+    private static final int PAGE_WIDTH = 420;
+    private static final int PAGE_HEIGHT = 560;
+
+    @Test
+    public void detect_findsTiltedPageCorners() {
+        LumaImage photo = photo(800, 900, 8, 400, 450, 0);
+
+        Quad quad = new DocumentDetector(0.2, 0.95, 0.6).detect(photo);
+
+        assertNotNull(quad);
+        double[][] expected = pageCorners(8, 400, 450);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected[i][0], quad.x(i), 3);
+            assertEquals(expected[i][1], quad.y(i), 3);
+        }
+    }
+
+    @Test
+    public void process_cropsAndStraightensPage() {
+        LumaImage photo = photo(1600, 1800, -7, 800, 900, 0).rotate(90);
+        OcrPreprocessor preprocessor = new OcrPreprocessor.Builder().setTargetLongSide(1000).build();
+
+        // La foto llega acostada, como la guarda la cámara con orientación EXIF de 270
+        OcrPreprocessor.Result result = preprocessor.process(photo, 270);
+
+        assertNotNull(result.getDocument());
+        LumaImage page = result.getImage();
+        assertEquals(1000, page.getHeight());
+        assertEquals(PAGE_WIDTH * 2 * 1000 / (PAGE_HEIGHT * 2), page.getWidth(), 6);
+        // Las barras de texto quedan horizontales: la fila central de cada barra es oscura de lado a lado
+        double scale = page.getHeight() / (double) (PAGE_HEIGHT * 2);
+        for (int bar = 0; bar < 4; bar++) {
+            int y = (int) Math.round((2 * (40 + bar * 40) + 12) * scale);
+            int dark = 0;
+            for (int x = (int) (2 * 40 * scale) + 4; x < page.getWidth() - (int) (2 * 40 * scale) - 4; x++) {
+                if (page.get(x, y) < 100) {
+                    dark++;
+                }
+            }
+            assertTrue("barra " + bar, dark > 0.95 * (page.getWidth() - 4 * 40 * scale - 8));
+        }
+    }
+
+    @Test
+    public void estimate_measuresTextSkew() {
+        LumaImage page = photo(PAGE_WIDTH, PAGE_HEIGHT, 4, PAGE_WIDTH / 2.0, PAGE_HEIGHT / 2.0, 220);
+
+        assertEquals(4, new SkewEstimator(10, 0.5).estimate(page), 0.5);
+        assertEquals(0, new SkewEstimator(10, 0.5).estimate(
+                photo(PAGE_WIDTH, PAGE_HEIGHT, 0, PAGE_WIDTH / 2.0, PAGE_HEIGHT / 2.0, 220)), 0.5);
+    }
+
+    @Test
+    public void rectToQuad_mapsCornersAndRotateKeepsPixels() {
+        Quad quad = new Quad(new double[]{10, 110, 120, 5}, new double[]{20, 30, 150, 140});
+        Homography homography = Homography.rectToQuad(200, 100, quad);
+        double[][] rect = {{0, 0}, {200, 0}, {200, 100}, {0, 100}};
+        for (int i = 0; i < 4; i++) {
+            double[] point = homography.apply(rect[i][0], rect[i][1]);
+            assertEquals(quad.x(i), point[0], 1e-6);
+            assertEquals(quad.y(i), point[1], 1e-6);
+        }
+
+        LumaImage image = new LumaImage(3, 2, new byte[]{1, 2, 3, 4, 5, 6});
+        LumaImage rotated = image.rotate(90);
+        assertEquals(2, rotated.getWidth());
+        assertEquals(3, rotated.getHeight());
+        assertEquals(4, rotated.get(0, 0));
+        assertEquals(1, rotated.get(1, 0));
+        assertEquals(3, rotated.get(1, 2));
+        assertEquals(image.get(2, 1), image.rotate(180).get(0, 0));
+        assertEquals(image.get(2, 0), image.rotate(270).get(0, 0));
+    }
+
+    /**
+     * Hoja clara con barras de texto oscuras, girada y centrada en un fondo.
+     * El tamaño de la hoja escala con el cuadro: mitad de resolución si el cuadro es pequeño.
+     */
+    private static LumaImage photo(int width, int height, double degrees, double cx, double cy, int background) {
+        double scale = Math.max(width, height) >= 1600 ? 2 : 1;
+        double pageWidth = PAGE_WIDTH * scale;
+        double pageHeight = PAGE_HEIGHT * scale;
+        double cos = Math.cos(Math.toRadians(degrees));
+        double sin = Math.sin(Math.toRadians(degrees));
+        byte[] pixels = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double rx = x + 0.5 - cx;
+                double ry = y + 0.5 - cy;
+                // Coordenadas dentro de la hoja
+                double px = (rx * cos + ry * sin) / scale + PAGE_WIDTH / 2.0;
+                double py = (-rx * sin + ry * cos) / scale + PAGE_HEIGHT / 2.0;
+                int value = background == 0 ? 50 : background;
+                if (px >= 0 && py >= 0 && px < PAGE_WIDTH && py < PAGE_HEIGHT) {
+                    value = 220;
+                    int row = (int) py - 40;
+                    if (px >= 40 && px < PAGE_WIDTH - 40 && row >= 0 && row % 40 < 12 && row / 40 < 10) {
+                        value = 30;
+                    }
+                }
+                pixels[y * width + x] = (byte) value;
+            }
+        }
+        return new LumaImage(width, height, pixels);
+    }
+
+    private static double[][] pageCorners(double degrees, double cx, double cy) {
+        double cos = Math.cos(Math.toRadians(degrees));
+        double sin = Math.sin(Math.toRadians(degrees));
+        double[][] local = {{-PAGE_WIDTH / 2.0, -PAGE_HEIGHT / 2.0}, {PAGE_WIDTH / 2.0, -PAGE_HEIGHT / 2.0},
+                {PAGE_WIDTH / 2.0, PAGE_HEIGHT / 2.0}, {-PAGE_WIDTH / 2.0, PAGE_HEIGHT / 2.0}};
+        double[][] corners = new double[4][];
+        for (int i = 0; i < 4; i++) {
+            corners[i] = new double[]{cx + local[i][0] * cos - local[i][1] * sin,
+                    cy + local[i][0] * sin + local[i][1] * cos};
+        }
+        return corners;
+    }
+}
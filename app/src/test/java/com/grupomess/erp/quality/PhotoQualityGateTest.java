@@ -0,0 +1,125 @@
+package com.grupomess.erp.quality;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Pruebas del filtro de fotos repetidas y borrosas con imágenes sintéticas.
+ */
+public class PhotoQualityGateTest {
+
+    private static final int SIZE = 256;
+
+    private final PhotoQualityGate gate = new PhotoQualityGate.Builder().setAnalysisSize(SIZE).build();
+
+    @Test
+    public void sameSceneWithNoiseAndExposureIsDuplicate() {
+        Map<Long, Long> session = new HashMap<>();
+        session.put(7L, gate.check(document(1, 0, 0), session).hash);
+
+        PhotoQualityGate.Verdict retake = gate.check(document(1, 12, 3), session);
+
+        assertTrue(retake.isDuplicate());
+        assertEquals(7L, retake.duplicateOf);
+    }
+
+    @Test
+    public void differentPageIsNotDuplicate() {
+        Map<Long, Long> session = new HashMap<>();
+        session.put(1L, gate.check(document(1, 0, 0), session).hash);
+
+        PhotoQualityGate.Verdict other = gate.check(document(2, 0, 0), session);
+
+        assertFalse(other.isDuplicate());
+        assertEquals(-1, other.distance);
+    }
+
+    @Test
+    public void blurredPhotoIsFlagged() {
+        LumaImage sharp = document(1, 0, 3);
+        LumaImage blurred = boxBlur(boxBlur(sharp, 3), 3);
+
+        PhotoQualityGate.Verdict sharpVerdict = gate.check(sharp, new HashMap<>());
+        PhotoQualityGate.Verdict blurredVerdict = gate.check(blurred, new HashMap<>());
+
+        assertFalse(sharpVerdict.blurry);
+        assertTrue(blurredVerdict.blurry);
+        assertTrue(sharpVerdict.sharpness > 10 * blurredVerdict.sharpness);
+    }
+
+    @Test
+    public void largeImageIsReducedBeforeAnalysis() {
+        LumaImage large = document(3, 0, 0).resize(SIZE, SIZE);
+        byte[] pixels = new byte[SIZE * 4 * SIZE * 4];
+        for (int y = 0; y < SIZE * 4; y++) {
+            for (int x = 0; x < SIZE * 4; x++) {
+                pixels[y * SIZE * 4 + x] = (byte) large.get(x / 4, y / 4);
+            }
+        }
+        LumaImage upscaled = new LumaImage(SIZE * 4, SIZE * 4, pixels);
+
+        assertEquals(gate.check(large, new HashMap<>()).hash, gate.check(upscaled, new HashMap<>()).hash);
+    }
+
+    /**
+     * Página simulada: fondo claro con renglones de "texto" oscuro que dependen de la semilla.
+     * @param seed página
+     * @param brightness desplazamiento de exposición
+     * @param noise amplitud del ruido del sensor
+     */
+    private static LumaImage document(int seed, int brightness, int noise) {
+        Random layout = new Random(seed);
+        Random sensor = new Random(seed * 31L + noise);
+        byte[] pixels = new byte[SIZE * SIZE];
+        boolean[] ink = new boolean[SIZE * SIZE];
+        for (int line = 0; line < 12; line++) {
+            int top = 12 + line * 20;
+            int length = 60 + layout.nextInt(170);
+            for (int y = top; y < top + 8; y++) {
+                for (int x = 10; x < 10 + length; x++) {
+                    ink[y * SIZE + x] = (x / 3) % 3 != 0 || layout.nextInt(4) == 0;
+                }
+            }
+        }
+        // Sombra suave para que el hash tenga gradientes además del texto
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int base = ink[y * SIZE + x] ? 40 : 200 - (seed * 37 + x + y) % 90 / 3;
+                int value = base + brightness + (noise > 0 ? sensor.nextInt(2 * noise + 1) - noise : 0);
+                pixels[y * SIZE + x] = (byte) Math.max(0, Math.min(255, value));
+            }
+        }
+        return new LumaImage(SIZE, SIZE, pixels);
+    }
+
+    private static LumaImage boxBlur(LumaImage image, int radius) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] out = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int dy = -radius; dy <= radius; dy++) {
+                    for (int dx = -radius; dx <= radius; dx++) {
+                        int sx = x + dx;
+                        int sy = y + dy;
+                        if (sx >= 0 && sx < width && sy >= 0 && sy < height) {
+                            sum += image.get(sx, sy);
+                            count++;
+                        }
+                    }
+                }
+                out[y * width + x] = (byte) (sum / count);
+            }
+        }
+        return new LumaImage(width, height, out);
+    }
+}
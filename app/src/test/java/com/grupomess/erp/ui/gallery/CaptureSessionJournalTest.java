@@ -0,0 +1,143 @@
+package com.grupomess.erp.ui.gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la bitácora de la sesión de captura.
+ */
+public class CaptureSessionJournalTest {
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal").toFile();
+        file = new File(dir, "sesion/folio.journal");
+    }
+
+    @After
+    public void tearDown() {
+        new File(dir, "sesion/folio.journal").delete();
+        new File(dir, "sesion").delete();
+        dir.delete();
+    }
+
+    @Test
+    public void replay_restoresFolioPhotosAndOcr() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        journal.setFolio("F-0012");
+        journal.addPhoto("/fotos/a.jpg");
+        journal.addPhoto("/fotos/b.jpg");
+        journal.addPhoto("/fotos/c.jpg");
+        journal.removePhoto("/fotos/b.jpg");
+        journal.setOcrCandidates(Arrays.asList("F-0012", "F-0013"));
+        journal.close();
+
+        CaptureSessionJournal.State state = new CaptureSessionJournal(file).getState();
+
+        assertEquals("F-0012", state.folio);
+        assertEquals(Arrays.asList("/fotos/a.jpg", "/fotos/c.jpg"), state.photoPaths);
+        assertEquals(Arrays.asList("F-0012", "F-0013"), state.ocrCandidates);
+    }
+
+    @Test
+    public void replay_escapesSeparators() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        journal.setFolio("A\tB\\C\nD");
+        journal.close();
+
+        assertEquals("A\tB\\C\nD", new CaptureSessionJournal(file).getState().folio);
+    }
+
+    @Test
+    public void replay_ignoresIncompleteLastLine() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        journal.addPhoto("/fotos/a.jpg");
+        journal.close();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("A\t/fotos/inc".getBytes(StandardCharsets.UTF_8));
+        }
+
+        CaptureSessionJournal reopened = new CaptureSessionJournal(file);
+        assertEquals(Collections.singletonList("/fotos/a.jpg"), reopened.getState().photoPaths);
+
+        reopened.addPhoto("/fotos/b.jpg");
+        reopened.close();
+        assertEquals(Arrays.asList("/fotos/a.jpg", "/fotos/b.jpg"),
+                new CaptureSessionJournal(file).getState().photoPaths);
+    }
+
+    @Test
+    public void compaction_keepsState() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        for (int i = 0; i < 600; i++) {
+            journal.addPhoto("/fotos/" + i + ".jpg");
+            if (i % 2 == 1) {
+                journal.removePhoto("/fotos/" + i + ".jpg");
+            }
+        }
+        journal.close();
+
+        CaptureSessionJournal.State state = new CaptureSessionJournal(file).getState();
+        assertEquals(300, state.photoPaths.size());
+        assertEquals("/fotos/598.jpg", state.photoPaths.get(299));
+        assertTrue(file.length() < 600 * 20);
+    }
+
+    @Test
+    public void replay_restoresQualityWithoutDecoding() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        journal.addPhoto("/fotos/a.jpg");
+        journal.addPhoto("/fotos/con espacio.jpg");
+        journal.addPhoto("/fotos/c.jpg");
+        journal.setPhotoQuality("/fotos/a.jpg", 0x8000_0000_0000_00FFL, false);
+        journal.setPhotoQuality("/fotos/con espacio.jpg", 42L, true);
+        journal.setPhotoQuality("/fotos/c.jpg", 7L, true);
+        journal.removePhoto("/fotos/c.jpg");
+        journal.close();
+
+        CaptureSessionJournal.State state = new CaptureSessionJournal(file).getState();
+
+        assertEquals(Long.valueOf(0x8000_0000_0000_00FFL), state.photoHashes.get("/fotos/a.jpg"));
+        assertEquals(Long.valueOf(42L), state.photoHashes.get("/fotos/con espacio.jpg"));
+        assertFalse(state.photoHashes.containsKey("/fotos/c.jpg"));
+        assertEquals(Collections.singleton("/fotos/con espacio.jpg"), state.blurryPaths);
+    }
+
+    @Test
+    public void compaction_keepsQuality() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        journal.addPhoto("/fotos/a.jpg");
+        journal.setPhotoQuality("/fotos/a.jpg", 99L, true);
+        for (int i = 0; i < 600; i++) {
+            journal.setFolio("F-" + i);
+        }
+        journal.close();
+
+        CaptureSessionJournal.State state = new CaptureSessionJournal(file).getState();
+        assertEquals(Long.valueOf(99L), state.photoHashes.get("/fotos/a.jpg"));
+        assertTrue(state.blurryPaths.contains("/fotos/a.jpg"));
+    }
+
+    @Test
+    public void clear_removesSession() throws IOException {
+        CaptureSessionJournal journal = new CaptureSessionJournal(file);
+        journal.setFolio("F-1");
+        journal.clear();
+
+        assertTrue(new CaptureSessionJournal(file).getState().isEmpty());
+    }
+}
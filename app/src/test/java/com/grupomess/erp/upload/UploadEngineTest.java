@@ -0,0 +1,313 @@
+package com.grupomess.erp.upload;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la cola de subida contra un servidor HTTP simulado.
+ */
+public class UploadEngineTest {
+
+    private MockServer server;
+    private MemoryStore store;
+    private Map<String, byte[]> photos;
+    private volatile long now;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockServer();
+        store = new MemoryStore();
+        photos = new HashMap<>();
+        now = 1_000;
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void drain_batchesPhotosAndUploadsInChunks() {
+        addPhoto("F-1", "a", 2500);
+        addPhoto("F-1", "b", 10);
+        addPhoto("F-1", "c", 1200);
+        addPhoto("F-2", "d", 700);
+
+        UploadEngine engine = newEngine().setMaxPhotosPerBatch(2).setChunkSize(1000).build();
+
+        assertTrue(engine.drain());
+        // F-1 en dos lotes (2 + 1 fotos) y F-2 en uno
+        assertEquals(3, server.batches.get());
+        assertEquals(3, server.commits.get());
+        assertEquals(3 + 1 + 2 + 1, server.chunks.get());
+        for (Map.Entry<String, byte[]> photo : photos.entrySet()) {
+            assertArrayEquals(photo.getValue(), server.received(photo.getKey()));
+        }
+        assertEquals(4, engine.getStats().getPhotosUploaded());
+        assertEquals(2500 + 10 + 1200 + 700, engine.getStats().getBytesSent());
+    }
+
+    @Test
+    public void drain_resumesFromServerOffsetAfterFailure() {
+        addPhoto("F-1", "a", 3000);
+        server.failChunkAt = 2;
+
+        UploadEngine engine = newEngine().setChunkSize(1000).setBackoff(60_000, 600_000).build();
+
+        assertFalse(engine.drain());
+        assertEquals(1, engine.getStats().getBatchesFailed());
+        assertEquals(0, server.commits.get());
+        long retryAt = store.nextAttemptAt();
+        assertTrue(retryAt >= now + 45_000 && retryAt <= now + 75_000);
+
+        // Antes de la hora del reintento no se sube nada
+        assertFalse(engine.drain());
+        assertEquals(1, server.batches.get());
+
+        now = retryAt;
+        assertTrue(engine.drain());
+        assertEquals(1, server.batches.get());
+        assertEquals(1, server.commits.get());
+        // El primer fragmento no se reenvía: 1000 bytes en la primera pasada y 2000 en la segunda
+        assertEquals(3000, engine.getStats().getBytesSent());
+        assertArrayEquals(photos.get("a"), server.received("a"));
+    }
+
+    @Test
+    public void backoff_growsExponentiallyUpToMax() {
+        UploadEngine engine = newEngine().setBackoff(1000, 10_000).build();
+
+        for (int i = 0; i < 50; i++) {
+            long first = engine.backoffMs(0);
+            long third = engine.backoffMs(2);
+            long capped = engine.backoffMs(30);
+            assertTrue(first >= 750 && first <= 1250);
+            assertTrue(third >= 3000 && third <= 5000);
+            assertTrue(capped >= 7500 && capped <= 12_500);
+        }
+    }
+
+    private UploadEngine.Builder newEngine() {
+        PhotoSource source = uri -> new ByteArrayInputStream(photos.get(uri));
+        return new UploadEngine.Builder(store, new HttpUploadTransport(server.baseUrl(), null), source)
+                .setClock(() -> now);
+    }
+
+    private void addPhoto(String folio, String name, int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (name.hashCode() * 31 + i);
+        }
+        photos.put(name, data);
+        store.add(folio, name, size);
+    }
+
+    /**
+     * Cola en memoria con la misma semántica que la de SQLite.
+     */
+    private static final class MemoryStore implements UploadStore {
+        private final Map<Long, UploadItem> items = new LinkedHashMap<>();
+        private final Map<Long, Long> nextAttempt = new HashMap<>();
+        private long nextId = 1;
+
+        synchronized void add(String folio, String name, long size) {
+            long id = nextId++;
+            items.put(id, new UploadItem(id, folio, name, name, size, null, null, 0, 0));
+            nextAttempt.put(id, 0L);
+        }
+
+        @Override
+        public synchronized List<List<UploadItem>> dueBatches(int maxPerBatch, int maxBatches, long now) {
+            Map<String, List<UploadItem>> open = new LinkedHashMap<>();
+            List<List<UploadItem>> batches = new ArrayList<>();
+            for (UploadItem item : items.values()) {
+                if (nextAttempt.get(item.getId()) > now) {
+                    continue;
+                }
+                String key = item.getBatchId() != null ? "b:" + item.getBatchId() : "f:" + item.getFolio();
+                List<UploadItem> batch = open.get(key);
+                if (batch == null || (item.getBatchId() == null && batch.size() >= maxPerBatch)) {
+                    if (batches.size() >= maxBatches) {
+                        continue;
+                    }
+                    batch = new ArrayList<>();
+                    open.put(key, batch);
+                    batches.add(batch);
+                }
+                batch.add(item);
+            }
+            return batches;
+        }
+
+        @Override
+        public synchronized void assignBatch(String batchId, Map<Long, String> remoteIds) {
+            for (Map.Entry<Long, String> entry : remoteIds.entrySet()) {
+                UploadItem item = items.get(entry.getKey());
+                items.put(item.getId(), new UploadItem(item.getId(), item.getFolio(), item.getName(),
+                        item.getUri(), item.getSizeBytes(), batchId, entry.getValue(), 0, item.getAttempts()));
+            }
+        }
+
+        @Override
+        public synchronized void updateProgress(long itemId, long uploadedBytes) {
+            UploadItem item = items.get(itemId);
+            items.put(itemId, new UploadItem(itemId, item.getFolio(), item.getName(), item.getUri(),
+                    item.getSizeBytes(), item.getBatchId(), item.getRemoteId(), uploadedBytes, item.getAttempts()));
+        }
+
+        @Override
+        public synchronized void markDone(List<UploadItem> done) {
+            for (UploadItem item : done) {
+                items.remove(item.getId());
+                nextAttempt.remove(item.getId());
+            }
+        }
+
+        @Override
+        public synchronized void markRetry(List<UploadItem> failed, long nextAttemptAt) {
+            for (UploadItem failedItem : failed) {
+                UploadItem item = items.get(failedItem.getId());
+                items.put(item.getId(), new UploadItem(item.getId(), item.getFolio(), item.getName(),
+                        item.getUri(), item.getSizeBytes(), item.getBatchId(), item.getRemoteId(),
+                        item.getUploadedBytes(), item.getAttempts() + 1));
+                nextAttempt.put(item.getId(), nextAttemptAt);
+            }
+        }
+
+        @Override
+        public synchronized long nextAttemptAt() {
+            long min = -1;
+            for (Iterator<Long> it = nextAttempt.values().iterator(); it.hasNext(); ) {
+                long value = it.next();
+                min = min < 0 ? value : Math.min(min, value);
+            }
+            return min;
+        }
+    }
+
+    /**
+     * Servidor que implementa el protocolo de {@link HttpUploadTransport}.
+     */
+    private static final class MockServer {
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger chunks = new AtomicInteger();
+        /** Número de fragmento (desde 1) que responde 500 una vez; 0 para ninguno */
+        volatile int failChunkAt;
+
+        private final HttpServer http;
+        private final Map<String, ByteArrayOutputStream> uploads = new HashMap<>();
+        private final Map<String, String> names = new HashMap<>();
+        private final AtomicInteger ids = new AtomicInteger();
+
+        MockServer() throws IOException {
+            http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            http.createContext("/api/batches", this::handleBatch);
+            http.createContext("/api/uploads/", this::handleUpload);
+            http.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + http.getAddress().getPort() + "/api/";
+        }
+
+        void stop() {
+            http.stop(0);
+        }
+
+        synchronized byte[] received(String name) {
+            for (Map.Entry<String, String> entry : names.entrySet()) {
+                if (entry.getValue().equals(name)) {
+                    return uploads.get(entry.getKey()).toByteArray();
+                }
+            }
+            return null;
+        }
+
+        private void handleBatch(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/commit")) {
+                commits.incrementAndGet();
+                respond(exchange, 200, "");
+                return;
+            }
+            batches.incrementAndGet();
+            String[] lines = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8).split("\n");
+            StringBuilder body = new StringBuilder("lote-" + ids.incrementAndGet()).append('\n');
+            synchronized (this) {
+                for (int i = 1; i < lines.length; i++) {
+                    String id = "sub-" + ids.incrementAndGet();
+                    uploads.put(id, new ByteArrayOutputStream());
+                    names.put(id, lines[i].split("\t")[0]);
+                    body.append(id).append('\n');
+                }
+            }
+            respond(exchange, 200, body.toString());
+        }
+
+        private void handleUpload(HttpExchange exchange) throws IOException {
+            String id = exchange.getRequestURI().getPath().substring("/api/uploads/".length());
+            byte[] data = readAll(exchange.getRequestBody());
+            synchronized (this) {
+                ByteArrayOutputStream upload = uploads.get(id);
+                if ("PUT".equals(exchange.getRequestMethod())) {
+                    if (chunks.incrementAndGet() == failChunkAt) {
+                        failChunkAt = 0;
+                        respond(exchange, 500, "");
+                        return;
+                    }
+                    String range = exchange.getRequestHeaders().getFirst("Content-Range");
+                    long start = Long.parseLong(range.substring(6, range.indexOf('-')));
+                    assertEquals(upload.size(), start);
+                    upload.write(data, 0, data.length);
+                }
+                exchange.getResponseHeaders().set(HttpUploadTransport.HEADER_OFFSET, String.valueOf(upload.size()));
+            }
+            respond(exchange, 200, "");
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0 || "HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private static byte[] readAll(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+// Benchmarks JMH de las rutas críticas del procesamiento de folios.
+// Compila en la JVM el código Java puro de la app (sin Android) y lo mide con un corpus fijo.
+//
+//   ./gradlew :benchmark:jmh
+//
+// Los resultados quedan en build/results/jmh/results.json para compararlos entre versiones.
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            // Sólo los paquetes que no dependen del SDK de Android
+            include(
+                "com/grupomess/erp/ocr/**",
+                "com/grupomess/erp/quality/**",
+                "com/grupomess/erp/preprocess/**",
+                "com/grupomess/erp/catalog/BloomFilter.java",
+                "com/grupomess/erp/catalog/FolioMatcher.java",
+                "com/grupomess/erp/catalog/FolioSet.java",
+                "com/grupomess/erp/crypto/AesGcmKeyWrapper.java",
+                "com/grupomess/erp/crypto/KeyWrapper.java",
+                "com/grupomess/erp/crypto/StreamingAead.java",
+                "com/grupomess/erp/encode/QualitySearch.java",
+                "com/grupomess/erp/upload/PhotoSource.java",
+                "com/grupomess/erp/upload/UploadEngine.java",
+                "com/grupomess/erp/upload/UploadItem.java",
+                "com/grupomess/erp/upload/UploadStats.java",
+                "com/grupomess/erp/upload/UploadStore.java",
+                "com/grupomess/erp/upload/UploadTransport.java",
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    timeUnit.set("us")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    // Filtro opcional: ./gradlew :benchmark:jmh -PjmhIncludes=PhotoHash
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.set(listOf(it)) }
+}
@@ -0,0 +1,56 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.quality.LumaImage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reducción por promedio de área de {@link LumaImage}, con el tamaño de una foto de cámara
+ * como origen y los tamaños de análisis y de hash como destino.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class DownsampleBenchmark {
+
+    /** Lado mayor de la foto de origen: muestreada a 1/4 al decodificar (1008) o completa (4032) */
+    @Param({"1008", "4032"})
+    public int sourceSide;
+
+    private LumaImage source;
+    private LumaImage analysis;
+
+    @Setup
+    public void setUp() {
+        LumaImage fixture = Fixtures.photo("folio_a.pgm");
+        int height = sourceSide;
+        int width = sourceSide * fixture.getWidth() / fixture.getHeight();
+        byte[] pixels = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            int fy = y * fixture.getHeight() / height;
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = (byte) fixture.get(x * fixture.getWidth() / width, fy);
+            }
+        }
+        source = new LumaImage(width, height, pixels);
+        analysis = source.fit(512);
+    }
+
+    @Benchmark
+    public LumaImage fitToAnalysisSize() {
+        return source.fit(512);
+    }
+
+    @Benchmark
+    public LumaImage resizeToHashGrid() {
+        return analysis.resize(9, 8);
+    }
+}
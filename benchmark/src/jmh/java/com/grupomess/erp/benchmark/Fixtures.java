@@ -0,0 +1,214 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.ocr.OcrPage;
+import com.grupomess.erp.quality.LumaImage;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Carga el corpus fijo de {@code src/jmh/resources/fixtures}. Los benchmarks sólo miden
+ * sobre estos datos para que los resultados sean comparables entre versiones.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+final class Fixtures {
+
+    private static final String ROOT = "/fixtures/";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Página de OCR con el folio que debe extraerse.
+     */
+    static final class PageFixture {
+        final OcrPage page;
+        /** Folio esperado, o null si la página no tiene folio */
+        final String expectedFolio;
+
+        PageFixture(OcrPage page, String expectedFolio) {
+            this.page = page;
+            this.expectedFolio = expectedFolio;
+        }
+    }
+
+    /**
+     * Folio de la cola de subida.
+     */
+    static final class QueuedFolio {
+        final String folio;
+        final int photos;
+        final long bytesPerPhoto;
+
+        QueuedFolio(String folio, int photos, long bytesPerPhoto) {
+            this.folio = folio;
+            this.photos = photos;
+            this.bytesPerPhoto = bytesPerPhoto;
+        }
+    }
+
+    /**
+     * @return páginas de {@code ocr_pages.txt} en orden
+     */
+    static List<PageFixture> ocrPages() {
+        List<PageFixture> pages = new ArrayList<>();
+        int width = 0;
+        int height = 0;
+        String expected = null;
+        List<OcrPage.Block> blocks = null;
+        List<OcrPage.Line> lines = null;
+        for (String raw : readLines("ocr_pages.txt")) {
+            String[] parts = raw.split(" ", 7);
+            switch (parts[0]) {
+                case "page":
+                    if (blocks != null) {
+                        pages.add(new PageFixture(new OcrPage(width, height, blocks), expected));
+                    }
+                    width = Integer.parseInt(parts[1]);
+                    height = Integer.parseInt(parts[2]);
+                    expected = "-".equals(parts[3]) ? null : parts[3];
+                    blocks = new ArrayList<>();
+                    lines = null;
+                    break;
+                case "block":
+                    lines = new ArrayList<>();
+                    blocks.add(new OcrPage.Block(lines));
+                    break;
+                case "line":
+                    lines.add(line(new OcrPage.Box(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                            Integer.parseInt(parts[3]), Integer.parseInt(parts[4])),
+                            Float.parseFloat(parts[5]), parts[6]));
+                    break;
+                default:
+                    throw new IllegalStateException("Registro desconocido en ocr_pages.txt: " + raw);
+            }
+        }
+        if (blocks != null) {
+            pages.add(new PageFixture(new OcrPage(width, height, blocks), expected));
+        }
+        return Collections.unmodifiableList(pages);
+    }
+
+    /**
+     * Reparte el ancho de la línea entre sus palabras según su número de caracteres.
+     */
+    private static OcrPage.Line line(OcrPage.Box box, float confidence, String text) {
+        List<String> words = new ArrayList<>(Arrays.asList(text.trim().split("\\s+")));
+        int chars = 0;
+        for (String word : words) {
+            chars += word.length() + 1;
+        }
+        float charWidth = (float) (box.right - box.left) / Math.max(1, chars);
+        List<OcrPage.Element> elements = new ArrayList<>(words.size());
+        float x = box.left;
+        for (String word : words) {
+            float right = x + word.length() * charWidth;
+            elements.add(new OcrPage.Element(word, new OcrPage.Box(Math.round(x), box.top, Math.round(right),
+                    box.bottom), confidence));
+            x = right + charWidth;
+        }
+        return new OcrPage.Line(text, box, confidence, elements);
+    }
+
+    /**
+     * Lee una foto en escala de grises en formato PGM binario (P5).
+     * @param name nombre del archivo dentro de {@code fotos/}
+     * @return imagen
+     */
+    static LumaImage photo(String name) {
+        byte[] data = readBytes("fotos/" + name);
+        int[] header = new int[3];
+        int pos = 2;
+        if (data[0] != 'P' || data[1] != '5') {
+            throw new IllegalStateException(name + " no es un PGM binario");
+        }
+        for (int i = 0; i < header.length; i++) {
+            while (Character.isWhitespace(data[pos])) {
+                pos++;
+            }
+            int value = 0;
+            while (!Character.isWhitespace(data[pos])) {
+                value = value * 10 + (data[pos++] - '0');
+            }
+            header[i] = value;
+        }
+        pos++;
+        int width = header[0];
+        int height = header[1];
+        return new LumaImage(width, height, Arrays.copyOfRange(data, pos, pos + width * height));
+    }
+
+    /**
+     * @return pares lectura del OCR y folio correcto de {@code ocr_folio_errores.tsv}, en orden
+     */
+    static List<String[]> folioReadings() {
+        List<String[]> readings = new ArrayList<>();
+        for (String raw : readLines("ocr_folio_errores.tsv")) {
+            readings.add(raw.split("\t"));
+        }
+        return Collections.unmodifiableList(readings);
+    }
+
+    /**
+     * @return folios de {@code upload_queue.tsv} en orden
+     */
+    static List<QueuedFolio> uploadQueue() {
+        List<QueuedFolio> folios = new ArrayList<>();
+        for (String raw : readLines("upload_queue.tsv")) {
+            String[] parts = raw.split("\t");
+            folios.add(new QueuedFolio(parts[0], Integer.parseInt(parts[1]), Long.parseLong(parts[2])));
+        }
+        return Collections.unmodifiableList(folios);
+    }
+
+    /**
+     * Líneas del archivo sin comentarios ni líneas vacías.
+     */
+    private static List<String> readLines(String name) {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(name), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    private static byte[] readBytes(String name) {
+        try (InputStream in = open(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream open(String name) {
+        InputStream in = Fixtures.class.getResourceAsStream(ROOT + name);
+        if (in == null) {
+            throw new IllegalStateException("Falta el archivo del corpus: " + name);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,95 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.catalog.FolioSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de folios contra el catálogo local y aplicación de un cambio de sincronización.
+ * <br>
+ * {@code lookupHashSet} mide la alternativa directa con {@code String} en un {@code HashSet}
+ * como referencia de tiempo; su memoria es varias veces la de {@link FolioSet}.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FolioCatalogBenchmark {
+
+    @Param({"300000"})
+    public int folios;
+
+    private FolioSet set;
+    private Set<String> hashSet;
+    private String[] hits;
+    private String[] misses;
+    private List<String> added;
+    private List<String> removed;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        List<String> all = new ArrayList<>(folios);
+        for (int i = 0; i < folios; i++) {
+            all.add(String.format("F-%07d", i * 3));
+        }
+        set = FolioSet.of(all);
+        hashSet = new HashSet<>(all);
+        hits = new String[1024];
+        misses = new String[1024];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = all.get(random.nextInt(folios));
+            // Lecturas típicas del OCR: un dígito cambiado
+            misses[i] = String.format("F-%07d", random.nextInt(folios) * 3 + 1);
+        }
+        added = new ArrayList<>();
+        removed = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            added.add(String.format("F-%07d", folios * 3 + i));
+            removed.add(all.get(random.nextInt(folios)));
+        }
+        for (int i = 0; i < hits.length; i++) {
+            if (!set.contains(hits[i]) || set.contains(misses[i])) {
+                throw new IllegalStateException("El catálogo respondió mal para " + hits[i] + " / " + misses[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean lookupHit() {
+        return set.contains(hits[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean lookupMiss() {
+        return set.contains(misses[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean lookupHashSet() {
+        return hashSet.contains(hits[next++ & 1023]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FolioSet applyDelta() {
+        return set.apply(added, removed);
+    }
+}
@@ -0,0 +1,49 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.ocr.FolioExtraction;
+import com.grupomess.erp.ocr.FolioExtractor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Extracción del folio sobre todas las páginas del corpus de OCR.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class FolioExtractionBenchmark {
+
+    private List<Fixtures.PageFixture> pages;
+    private FolioExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        pages = Fixtures.ocrPages();
+        extractor = FolioExtractor.withDefaults();
+        // Una regresión de exactitud invalida la medición
+        for (Fixtures.PageFixture fixture : pages) {
+            FolioExtraction extraction = extractor.extract(fixture.page);
+            String found = extraction.hasBest() ? extraction.getBest().getValue() : null;
+            if (fixture.expectedFolio == null ? found != null : !fixture.expectedFolio.equals(found)) {
+                throw new IllegalStateException("Se esperaba " + fixture.expectedFolio + " y se extrajo " + found);
+            }
+        }
+    }
+
+    @Benchmark
+    public void extractCorpus(Blackhole blackhole) {
+        for (Fixtures.PageFixture fixture : pages) {
+            blackhole.consume(extractor.extract(fixture.page));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.catalog.FolioMatcher;
+import com.grupomess.erp.catalog.FolioSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sugerencias de folios para las lecturas erróneas del corpus sobre un catálogo disperso.
+ * El resultado es el tiempo promedio por lectura.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FolioMatchBenchmark {
+
+    private static final int SUGGESTIONS = 5;
+
+    @Param({"200000"})
+    public int folios;
+
+    private FolioSet set;
+    private FolioMatcher matcher;
+    private List<String[]> readings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        readings = Fixtures.folioReadings();
+        Random random = new Random(11);
+        Set<String> all = new HashSet<>();
+        for (String[] reading : readings) {
+            all.add(reading[1]);
+        }
+        while (all.size() < folios) {
+            all.add(String.format("F-%07d", random.nextInt(10_000_000)));
+        }
+        set = FolioSet.of(new ArrayList<>(all));
+        matcher = FolioMatcher.withDefaults();
+        // Una regresión de exactitud invalida la medición
+        for (String[] reading : readings) {
+            List<FolioMatcher.Match> matches = matcher.search(set, reading[0], SUGGESTIONS);
+            boolean found = false;
+            for (FolioMatcher.Match match : matches) {
+                found |= match.getFolio().equals(reading[1]);
+            }
+            if (!found) {
+                throw new IllegalStateException("No se sugirió " + reading[1] + " para " + reading[0]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void suggest(Blackhole blackhole) {
+        String[] reading = readings.get(next++ % readings.size());
+        blackhole.consume(matcher.search(set, reading[0], SUGGESTIONS));
+    }
+}
@@ -0,0 +1,97 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.upload.UploadItem;
+import com.grupomess.erp.upload.UploadStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cola en memoria con la misma agrupación en lotes que la de SQLite, para medir la lógica
+ * de la cola sin E/S de disco.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+final class MemoryUploadStore implements UploadStore {
+
+    private final Map<Long, UploadItem> items = new LinkedHashMap<>();
+    private final Map<Long, Long> nextAttempt = new HashMap<>();
+    private long nextId = 1;
+
+    synchronized void add(String folio, String name, long size) {
+        long id = nextId++;
+        items.put(id, new UploadItem(id, folio, name, name, size, null, null, 0, 0));
+        nextAttempt.put(id, 0L);
+    }
+
+    @Override
+    public synchronized List<List<UploadItem>> dueBatches(int maxPerBatch, int maxBatches, long now) {
+        Map<String, List<UploadItem>> open = new LinkedHashMap<>();
+        List<List<UploadItem>> batches = new ArrayList<>();
+        for (UploadItem item : items.values()) {
+            if (nextAttempt.get(item.getId()) > now) {
+                continue;
+            }
+            String key = item.getBatchId() != null ? "b:" + item.getBatchId() : "f:" + item.getFolio();
+            List<UploadItem> batch = open.get(key);
+            if (batch == null || (item.getBatchId() == null && batch.size() >= maxPerBatch)) {
+                if (batches.size() >= maxBatches) {
+                    continue;
+                }
+                batch = new ArrayList<>();
+                open.put(key, batch);
+                batches.add(batch);
+            }
+            batch.add(item);
+        }
+        return batches;
+    }
+
+    @Override
+    public synchronized void assignBatch(String batchId, Map<Long, String> remoteIds) {
+        for (Map.Entry<Long, String> entry : remoteIds.entrySet()) {
+            UploadItem item = items.get(entry.getKey());
+            items.put(item.getId(), new UploadItem(item.getId(), item.getFolio(), item.getName(),
+                    item.getUri(), item.getSizeBytes(), batchId, entry.getValue(), 0, item.getAttempts()));
+        }
+    }
+
+    @Override
+    public synchronized void updateProgress(long itemId, long uploadedBytes) {
+        UploadItem item = items.get(itemId);
+        items.put(itemId, new UploadItem(itemId, item.getFolio(), item.getName(), item.getUri(),
+                item.getSizeBytes(), item.getBatchId(), item.getRemoteId(), uploadedBytes, item.getAttempts()));
+    }
+
+    @Override
+    public synchronized void markDone(List<UploadItem> done) {
+        for (UploadItem item : done) {
+            items.remove(item.getId());
+            nextAttempt.remove(item.getId());
+        }
+    }
+
+    @Override
+    public synchronized void markRetry(List<UploadItem> failed, long nextAttemptAt) {
+        for (UploadItem failedItem : failed) {
+            UploadItem item = items.get(failedItem.getId());
+            items.put(item.getId(), new UploadItem(item.getId(), item.getFolio(), item.getName(),
+                    item.getUri(), item.getSizeBytes(), item.getBatchId(), item.getRemoteId(),
+                    item.getUploadedBytes(), item.getAttempts() + 1));
+            nextAttempt.put(item.getId(), nextAttemptAt);
+        }
+    }
+
+    @Override
+    public synchronized long nextAttemptAt() {
+        long min = -1;
+        for (long value : nextAttempt.values()) {
+            min = min < 0 ? value : Math.min(min, value);
+        }
+        return min;
+    }
+}
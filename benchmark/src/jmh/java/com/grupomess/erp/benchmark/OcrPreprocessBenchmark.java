@@ -0,0 +1,80 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.preprocess.OcrPreprocessor;
+import com.grupomess.erp.quality.LumaImage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Costo del recorte y enderezado antes del OCR, con la foto al tamaño en que se decodifica.
+ * <br>
+ * El reconocimiento de ML Kit no corre en la JVM; su ahorro se compara en el tablero de
+ * métricas con {@code ocr.escaneo} y {@code ocr.pixeles}. Aquí se mide lo que la etapa agrega
+ * y se comprueba en el corpus cuántos pixeles deja de recibir el OCR.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class OcrPreprocessBenchmark {
+
+    /** Lado mayor de la foto decodificada: 1/4 (1008) o 1/2 (2016) de una de 12 MP */
+    @Param({"1008", "2016"})
+    public int sourceSide;
+
+    private final OcrPreprocessor preprocessor = OcrPreprocessor.withDefaults();
+    private LumaImage tilted;
+    private LumaImage flat;
+
+    @Setup
+    public void setUp() {
+        tilted = scaled(Fixtures.photo("folio_inclinado.pgm"), sourceSide);
+        flat = scaled(Fixtures.photo("folio_a.pgm"), sourceSide);
+
+        OcrPreprocessor.Result cropped = preprocessor.process(tilted, 0);
+        OcrPreprocessor.Result whole = preprocessor.process(flat, 0);
+        long before = (long) tilted.getWidth() * tilted.getHeight();
+        long after = (long) cropped.getImage().getWidth() * cropped.getImage().getHeight();
+        if (cropped.getDocument() == null || after * 2 > before || whole.getDocument() != null) {
+            throw new IllegalStateException("El preprocesador no clasifica el corpus como se espera");
+        }
+    }
+
+    @Benchmark
+    public OcrPreprocessor.Result cropTiltedPage() {
+        return preprocessor.process(tilted, 0);
+    }
+
+    @Benchmark
+    public OcrPreprocessor.Result fullFramePage() {
+        return preprocessor.process(flat, 0);
+    }
+
+    @Benchmark
+    public OcrPreprocessor.Result cropRotatedExif() {
+        return preprocessor.process(tilted, 90);
+    }
+
+    /**
+     * Escala la foto del corpus al tamaño decodificado por vecino más cercano.
+     */
+    private static LumaImage scaled(LumaImage fixture, int longSide) {
+        int height = longSide;
+        int width = longSide * fixture.getWidth() / fixture.getHeight();
+        byte[] pixels = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            int fy = y * fixture.getHeight() / height;
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = (byte) fixture.get(x * fixture.getWidth() / width, fy);
+            }
+        }
+        return new LumaImage(width, height, pixels);
+    }
+}
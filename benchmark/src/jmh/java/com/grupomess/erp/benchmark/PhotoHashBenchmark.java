@@ -0,0 +1,72 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.quality.LumaImage;
+import com.grupomess.erp.quality.PhotoQualityGate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Hash perceptual, nitidez y el filtro completo contra una sesión con varias fotos.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class PhotoHashBenchmark {
+
+    /** Fotos que ya hay en la sesión */
+    @Param({"10", "100"})
+    public int sessionSize;
+
+    private final PhotoQualityGate gate = PhotoQualityGate.withDefaults();
+    private LumaImage photo;
+    private Map<Long, Long> session;
+
+    @Setup
+    public void setUp() {
+        photo = Fixtures.photo("folio_b.pgm");
+        LumaImage original = Fixtures.photo("folio_a.pgm");
+
+        Map<Long, Long> check = new HashMap<>();
+        check.put(1L, gate.check(original, check).hash);
+        if (!gate.check(Fixtures.photo("folio_a_repetida.pgm"), check).isDuplicate()
+                || gate.check(photo, check).isDuplicate()
+                || !gate.check(Fixtures.photo("folio_c_desenfocada.pgm"), check).blurry
+                || gate.check(photo, check).blurry) {
+            throw new IllegalStateException("El filtro de calidad no clasifica el corpus como se espera");
+        }
+
+        // Hashes aleatorios: casi nunca quedan dentro de la distancia de repetida
+        Random random = new Random(42);
+        session = new HashMap<>();
+        for (long id = 0; id < sessionSize; id++) {
+            session.put(id, random.nextLong());
+        }
+    }
+
+    @Benchmark
+    public long differenceHash() {
+        return PhotoQualityGate.differenceHash(photo);
+    }
+
+    @Benchmark
+    public double laplacianVariance() {
+        return PhotoQualityGate.laplacianVariance(photo);
+    }
+
+    @Benchmark
+    public PhotoQualityGate.Verdict checkAgainstSession() {
+        return gate.check(photo, session);
+    }
+}
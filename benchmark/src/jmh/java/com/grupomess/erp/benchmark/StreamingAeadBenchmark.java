@@ -0,0 +1,100 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.crypto.AesGcmKeyWrapper;
+import com.grupomess.erp.crypto.StreamingAead;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+
+/**
+ * Guardado y lectura de una foto de cámara (8 MB) con y sin cifrado por segmentos.
+ * <br>
+ * {@code copyPlain} es la referencia: los mismos bytes pasan por el mismo buffer sin cifrar.
+ * La diferencia con {@code encrypt} y {@code decrypt} es el costo del cifrado en cada ruta.
+ * La llave maestra vive en memoria; en el dispositivo Android Keystore sólo se usa una vez
+ * por foto para la llave del encabezado.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StreamingAeadBenchmark {
+
+    private static final int PHOTO_BYTES = 8 * 1024 * 1024;
+    /** Buffer de la copia por canales del guardado */
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    @Param({"16384", "65536", "262144"})
+    public int segmentBytes;
+
+    private StreamingAead aead;
+    private byte[] photo;
+    private byte[] encrypted;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        aead = new StreamingAead.Builder(new AesGcmKeyWrapper(generator.generateKey()))
+                .setSegmentSize(segmentBytes)
+                .build();
+        photo = new byte[PHOTO_BYTES];
+        new Random(42).nextBytes(photo);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) aead.ciphertextSize(PHOTO_BYTES));
+        try (OutputStream sealed = aead.encrypt(out)) {
+            sealed.write(photo);
+        }
+        encrypted = out.toByteArray();
+        if (encrypted.length != aead.ciphertextSize(PHOTO_BYTES)) {
+            throw new IllegalStateException("Tamaño cifrado inesperado: " + encrypted.length);
+        }
+    }
+
+    @Benchmark
+    public long copyPlain() throws IOException {
+        return copy(new ByteArrayInputStream(photo), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long encrypt() throws IOException {
+        try (OutputStream out = aead.encrypt(OutputStream.nullOutputStream())) {
+            return copy(new ByteArrayInputStream(photo), out);
+        }
+    }
+
+    @Benchmark
+    public long decrypt() throws IOException {
+        try (InputStream in = aead.decrypt(new ByteArrayInputStream(encrypted))) {
+            return copy(in, OutputStream.nullOutputStream());
+        }
+    }
+
+    private long copy(InputStream in, OutputStream out) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+}
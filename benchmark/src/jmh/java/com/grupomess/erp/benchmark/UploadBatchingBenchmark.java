@@ -0,0 +1,112 @@
+package com.grupomess.erp.benchmark;
+
+import com.grupomess.erp.upload.UploadEngine;
+import com.grupomess.erp.upload.UploadItem;
+import com.grupomess.erp.upload.UploadTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vaciado de la cola de subida del corpus con un servidor simulado que confirma todo al instante:
+ * mide la agrupación en lotes, la división en fragmentos y el registro de avance, sin red.
+ *
+ * @author SOLTICSS
+ * @since 2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UploadBatchingBenchmark {
+
+    @Param({"5", "10", "25"})
+    public int maxPhotosPerBatch;
+
+    private List<Fixtures.QueuedFolio> queue;
+    private MemoryUploadStore store;
+
+    @Setup(Level.Trial)
+    public void loadQueue() {
+        queue = Fixtures.uploadQueue();
+    }
+
+    /** La cola se vacía en cada medición; se llena antes de cada una */
+    @Setup(Level.Invocation)
+    public void fillQueue() {
+        store = new MemoryUploadStore();
+        for (Fixtures.QueuedFolio folio : queue) {
+            for (int i = 1; i <= folio.photos; i++) {
+                store.add(folio.folio, folio.folio + "_foto_" + i + ".jpg", folio.bytesPerPhoto);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean drainQueue() {
+        UploadEngine engine = new UploadEngine.Builder(store, new InstantTransport(), uri -> new BlankStream())
+                .setMaxPhotosPerBatch(maxPhotosPerBatch)
+                .build();
+        if (!engine.drain()) {
+            throw new IllegalStateException("La cola no se vació: " + engine.getStats());
+        }
+        return true;
+    }
+
+    /**
+     * Servidor que acepta cada lote y fragmento sin copiar datos.
+     */
+    private static final class InstantTransport implements UploadTransport {
+        private final AtomicLong ids = new AtomicLong();
+
+        @Override
+        public BatchHandle beginBatch(String folio, List<UploadItem> items) {
+            List<String> remoteIds = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                remoteIds.add(Long.toString(ids.incrementAndGet()));
+            }
+            return new BatchHandle("b" + ids.incrementAndGet(), remoteIds);
+        }
+
+        @Override
+        public long queryOffset(String remoteId) {
+            return 0;
+        }
+
+        @Override
+        public long sendChunk(String remoteId, long offset, byte[] data, int length, long totalBytes) {
+            return offset + length;
+        }
+
+        @Override
+        public void commitBatch(String batchId) {
+        }
+    }
+
+    /**
+     * Flujo sin fin que no escribe en el buffer, para no medir copias de memoria.
+     */
+    private static final class BlankStream extends InputStream {
+        @Override
+        public int read() {
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return length;
+        }
+    }
+}